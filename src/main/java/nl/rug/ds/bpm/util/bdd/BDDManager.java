@@ -0,0 +1,711 @@
+package nl.rug.ds.bpm.util.bdd;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Manager of reduced ordered binary decision diagrams (BDDs).
+ * <p>
+ * BDDs are referred to by integer handles, of which FALSE and TRUE are the terminals. Variables are ordered by their
+ * level. A new variable is appended to the end of the order, or inserted directly after a given variable, which is
+ * possible at any time as a new variable does not occur in any existing BDD. Nodes are unique, such that equal functions have
+ * equal handles. Nodes are only freed by collect, which keeps the nodes reachable from the given roots, as operations
+ * do not track which of their intermediate results are still in use. Clients should therefore collect at points where
+ * all BDDs they still need are known, once shouldCollect holds. The number of live nodes is bounded by a limit, beyond
+ * which operations fail with an IllegalStateException rather than exhausting the heap. Results of operations are
+ * memoized in a lossy direct-mapped cache. A manager is not thread safe.
+ * </p>
+ */
+public class BDDManager {
+	public static final int FALSE = 0;
+	public static final int TRUE = 1;
+
+	public static final int DEFAULT_LIMIT = 1 << 25;
+
+	private static final int TERMINAL = Integer.MAX_VALUE;
+	private static final int FREE = -1;
+	private static final int OP_AND = 0, OP_OR = 1, OP_XOR = 2, OP_NOT = 3, OP_ITE = 4, OP_EXISTS = 5, OP_RELPROD = 6, OP_REPLACE = 7;
+
+	private int[] var, low, high;
+	private int size;
+	private int[] level;
+	private int variables;
+	private final int limit;
+
+	private int free, freeCount;
+	private int threshold;
+
+	private int[] unique;
+	private int uniqueMask;
+
+	private final int[] cacheOp, cacheA, cacheB, cacheC, cacheResult;
+	private final int cacheMask;
+
+	private final List<int[]> renamings;
+
+	/**
+	 * Creates a BDDManager.
+	 */
+	public BDDManager() {
+		this(1 << 16, 1 << 18, DEFAULT_LIMIT);
+	}
+
+	/**
+	 * Creates a BDDManager.
+	 *
+	 * @param nodes the initial capacity of nodes.
+	 * @param cache the number of memoized results, which is rounded up to a power of two.
+	 * @param limit the maximum number of live nodes, including the terminals.
+	 */
+	public BDDManager(int nodes, int cache, int limit) {
+		this.limit = Math.max(limit, 2);
+		nodes = Math.max(Math.min(nodes, this.limit), 16);
+		var = new int[nodes];
+		low = new int[nodes];
+		high = new int[nodes];
+
+		var[FALSE] = var[TRUE] = TERMINAL;
+		size = 2;
+		free = FREE;
+		threshold = this.limit >> 1;
+
+		unique = new int[Integer.highestOneBit(nodes) << 1];
+		uniqueMask = unique.length - 1;
+
+		int cacheSize = Integer.highestOneBit(Math.max(cache, 16) - 1) << 1;
+		cacheOp = new int[cacheSize];
+		cacheA = new int[cacheSize];
+		cacheB = new int[cacheSize];
+		cacheC = new int[cacheSize];
+		cacheResult = new int[cacheSize];
+		cacheMask = cacheSize - 1;
+		Arrays.fill(cacheOp, -1);
+
+		level = new int[16];
+		renamings = new ArrayList<>();
+	}
+
+	/**
+	 * Creates a new variable, which is ordered after all existing variables.
+	 *
+	 * @return the index of the variable.
+	 */
+	public int createVariable() {
+		if (variables == level.length)
+			level = Arrays.copyOf(level, variables << 1);
+		level[variables] = variables;
+		return variables++;
+	}
+
+	/**
+	 * Creates a new variable, which is ordered directly after the given variable.
+	 *
+	 * @param after the variable that precedes the new variable.
+	 * @return the index of the variable.
+	 */
+	public int createVariable(int after) {
+		int position = level[after] + 1;
+		for (int v = 0; v < variables; v++)
+			if (level[v] >= position)
+				level[v]++;
+
+		int variable = createVariable();
+		level[variable] = position;
+		return variable;
+	}
+
+	/**
+	 * Returns the position of the given variable in the variable order.
+	 *
+	 * @param variable the variable.
+	 * @return the level of the variable, where the first variable has level 0.
+	 */
+	public int getLevel(int variable) {
+		return level[variable];
+	}
+
+	/**
+	 * Returns the number of variables.
+	 *
+	 * @return the number of variables.
+	 */
+	public int getVariableCount() {
+		return variables;
+	}
+
+	/**
+	 * Returns the number of live nodes, i.e., the nodes created and not freed by a collection.
+	 *
+	 * @return the number of live nodes.
+	 */
+	public int getNodeCount() {
+		return size - freeCount;
+	}
+
+	/**
+	 * Returns the maximum number of live nodes.
+	 *
+	 * @return the maximum number of live nodes.
+	 */
+	public int getNodeLimit() {
+		return limit;
+	}
+
+	/**
+	 * Returns the BDD that holds iff the given variable is true.
+	 *
+	 * @param variable the variable.
+	 * @return the BDD.
+	 */
+	public int ithVar(int variable) {
+		return mk(variable, FALSE, TRUE);
+	}
+
+	/**
+	 * Returns the BDD that holds iff the given variable is false.
+	 *
+	 * @param variable the variable.
+	 * @return the BDD.
+	 */
+	public int nithVar(int variable) {
+		return mk(variable, TRUE, FALSE);
+	}
+
+	/**
+	 * Returns the conjunction of the given variables, for use as the set of variables to quantify.
+	 *
+	 * @param variables the variables.
+	 * @return the BDD.
+	 */
+	public int cube(int... variables) {
+		int[] order = order(variables);
+
+		int result = TRUE;
+		for (int i = order.length - 1; i >= 0; i--)
+			result = mk(variables[order[i]], FALSE, result);
+		return result;
+	}
+
+	/**
+	 * Returns the conjunction of the given variables with the given values.
+	 *
+	 * @param variables the variables.
+	 * @param values    the value of each variable.
+	 * @return the BDD.
+	 */
+	public int cube(int[] variables, boolean[] values) {
+		int[] order = order(variables);
+
+		int result = TRUE;
+		for (int i = order.length - 1; i >= 0; i--) {
+			int v = variables[order[i]];
+			result = (values[order[i]] ? mk(v, FALSE, result) : mk(v, result, FALSE));
+		}
+		return result;
+	}
+
+	/**
+	 * Registers a renaming of variables for use with replace.
+	 *
+	 * @param map the variable that each variable is renamed into, or the variable itself.
+	 * @return the identifier of the renaming.
+	 */
+	public int createRenaming(int[] map) {
+		renamings.add(map.clone());
+		return renamings.size() - 1;
+	}
+
+	/**
+	 * Returns the negation of the given BDD.
+	 *
+	 * @param a the BDD.
+	 * @return the BDD.
+	 */
+	public int not(int a) {
+		if (a == FALSE)
+			return TRUE;
+		if (a == TRUE)
+			return FALSE;
+
+		int slot = lookup(OP_NOT, a, 0, 0);
+		if (slot < 0)
+			return cacheResult[~slot];
+
+		int result = mk(var[a], not(low[a]), not(high[a]));
+		return store(slot, OP_NOT, a, 0, 0, result);
+	}
+
+	/**
+	 * Returns the conjunction of the given BDDs.
+	 *
+	 * @param a the first BDD.
+	 * @param b the second BDD.
+	 * @return the BDD.
+	 */
+	public int and(int a, int b) {
+		if (a == FALSE || b == FALSE)
+			return FALSE;
+		if (a == TRUE || a == b)
+			return b;
+		if (b == TRUE)
+			return a;
+		return apply(OP_AND, Math.min(a, b), Math.max(a, b));
+	}
+
+	/**
+	 * Returns the disjunction of the given BDDs.
+	 *
+	 * @param a the first BDD.
+	 * @param b the second BDD.
+	 * @return the BDD.
+	 */
+	public int or(int a, int b) {
+		if (a == TRUE || b == TRUE)
+			return TRUE;
+		if (a == FALSE || a == b)
+			return b;
+		if (b == FALSE)
+			return a;
+		return apply(OP_OR, Math.min(a, b), Math.max(a, b));
+	}
+
+	/**
+	 * Returns the exclusive disjunction of the given BDDs.
+	 *
+	 * @param a the first BDD.
+	 * @param b the second BDD.
+	 * @return the BDD.
+	 */
+	public int xor(int a, int b) {
+		if (a == b)
+			return FALSE;
+		if (a == FALSE)
+			return b;
+		if (b == FALSE)
+			return a;
+		if (a == TRUE)
+			return not(b);
+		if (b == TRUE)
+			return not(a);
+		return apply(OP_XOR, Math.min(a, b), Math.max(a, b));
+	}
+
+	/**
+	 * Returns the conjunction of the first BDD and the negation of the second.
+	 *
+	 * @param a the first BDD.
+	 * @param b the second BDD.
+	 * @return the BDD.
+	 */
+	public int andNot(int a, int b) {
+		return and(a, not(b));
+	}
+
+	/**
+	 * Returns the BDD of if f then g else h.
+	 *
+	 * @param f the condition.
+	 * @param g the result if f holds.
+	 * @param h the result otherwise.
+	 * @return the BDD.
+	 */
+	public int ite(int f, int g, int h) {
+		if (f == TRUE)
+			return g;
+		if (f == FALSE)
+			return h;
+		if (g == h)
+			return g;
+		if (g == TRUE && h == FALSE)
+			return f;
+		if (g == FALSE && h == TRUE)
+			return not(f);
+
+		int slot = lookup(OP_ITE, f, g, h);
+		if (slot < 0)
+			return cacheResult[~slot];
+
+		int top = var[first(f, first(g, h))];
+		int result = mk(top, ite(cofactor(f, top, false), cofactor(g, top, false), cofactor(h, top, false)),
+				ite(cofactor(f, top, true), cofactor(g, top, true), cofactor(h, top, true)));
+		return store(slot, OP_ITE, f, g, h, result);
+	}
+
+	/**
+	 * Existentially quantifies the variables in the given cube.
+	 *
+	 * @param f    the BDD.
+	 * @param cube the conjunction of the variables to quantify.
+	 * @return the BDD.
+	 */
+	public int exists(int f, int cube) {
+		if (f == FALSE || f == TRUE)
+			return f;
+		while (cube != TRUE && rank(cube) < rank(f))
+			cube = high[cube];
+		if (cube == TRUE)
+			return f;
+
+		int slot = lookup(OP_EXISTS, f, cube, 0);
+		if (slot < 0)
+			return cacheResult[~slot];
+
+		int result;
+		if (var[f] == var[cube])
+			result = or(exists(low[f], high[cube]), exists(high[f], high[cube]));
+		else
+			result = mk(var[f], exists(low[f], cube), exists(high[f], cube));
+
+		return store(slot, OP_EXISTS, f, cube, 0, result);
+	}
+
+	/**
+	 * Returns the conjunction of the given BDDs with the variables in the given cube existentially quantified,
+	 * without constructing the conjunction.
+	 *
+	 * @param f    the first BDD.
+	 * @param g    the second BDD.
+	 * @param cube the conjunction of the variables to quantify.
+	 * @return the BDD.
+	 */
+	public int relProd(int f, int g, int cube) {
+		if (f == FALSE || g == FALSE)
+			return FALSE;
+		if (f == TRUE && g == TRUE)
+			return TRUE;
+		if (f == TRUE)
+			return exists(g, cube);
+		if (g == TRUE)
+			return exists(f, cube);
+
+		int top = var[first(f, g)];
+		while (cube != TRUE && rank(cube) < level[top])
+			cube = high[cube];
+		if (cube == TRUE)
+			return and(f, g);
+
+		if (f > g) {
+			int t = f;
+			f = g;
+			g = t;
+		}
+
+		int slot = lookup(OP_RELPROD, f, g, cube);
+		if (slot < 0)
+			return cacheResult[~slot];
+
+		int f0 = cofactor(f, top, false), f1 = cofactor(f, top, true);
+		int g0 = cofactor(g, top, false), g1 = cofactor(g, top, true);
+		int result;
+
+		if (top == var[cube]) {
+			int r0 = relProd(f0, g0, high[cube]);
+			result = (r0 == TRUE ? TRUE : or(r0, relProd(f1, g1, high[cube])));
+		} else
+			result = mk(top, relProd(f0, g0, cube), relProd(f1, g1, cube));
+
+		return store(slot, OP_RELPROD, f, g, cube, result);
+	}
+
+	/**
+	 * Renames the variables of the given BDD.
+	 *
+	 * @param f        the BDD.
+	 * @param renaming the identifier of a renaming created with createRenaming.
+	 * @return the BDD.
+	 */
+	public int replace(int f, int renaming) {
+		if (f == FALSE || f == TRUE)
+			return f;
+
+		int slot = lookup(OP_REPLACE, f, renaming, 0);
+		if (slot < 0)
+			return cacheResult[~slot];
+
+		int[] map = renamings.get(renaming);
+		int v = (var[f] < map.length ? map[var[f]] : var[f]);
+		int result = ite(ithVar(v), replace(high[f], renaming), replace(low[f], renaming));
+
+		return store(slot, OP_REPLACE, f, renaming, 0, result);
+	}
+
+	/**
+	 * Returns a single satisfying assignment of the given BDD over the given variables, where variables that do not
+	 * matter are false.
+	 *
+	 * @param f         the BDD, which must not be FALSE and must only depend on the given variables.
+	 * @param variables the variables to assign.
+	 * @return the conjunction of the assigned variables.
+	 */
+	public int satOne(int f, int[] variables) {
+		boolean[] values = new boolean[variables.length];
+		int node = f;
+
+		for (int i : order(variables)) {
+			if (node == TRUE)
+				break;
+			if (var[node] != variables[i])
+				continue;
+
+			if (low[node] != FALSE)
+				node = low[node];
+			else {
+				values[i] = true;
+				node = high[node];
+			}
+		}
+
+		return cube(variables, values);
+	}
+
+	/**
+	 * Returns the number of satisfying assignments of the given BDD over the given variables.
+	 *
+	 * @param f         the BDD, which must only depend on the given variables.
+	 * @param variables the variables.
+	 * @return the number of satisfying assignments.
+	 */
+	public double satCount(int f, int[] variables) {
+		int[] order = order(variables);
+		Map<Integer, Integer> position = new HashMap<>();
+		for (int i = 0; i < order.length; i++)
+			position.put(variables[order[i]], i);
+
+		return satCount(f, position, variables.length, new HashMap<>()) * Math.pow(2, level(f, position, variables.length));
+	}
+
+	private double satCount(int f, Map<Integer, Integer> position, int count, Map<Integer, Double> memo) {
+		if (f == FALSE)
+			return 0;
+		if (f == TRUE)
+			return 1;
+
+		Double known = memo.get(f);
+		if (known != null)
+			return known;
+
+		int level = level(f, position, count);
+		double result = satCount(low[f], position, count, memo) * Math.pow(2, level(low[f], position, count) - level - 1)
+				+ satCount(high[f], position, count, memo) * Math.pow(2, level(high[f], position, count) - level - 1);
+
+		memo.put(f, result);
+		return result;
+	}
+
+	private int level(int f, Map<Integer, Integer> position, int count) {
+		return (var[f] == TERMINAL ? count : position.get(var[f]));
+	}
+
+	/**
+	 * Returns true iff the given assignment satisfies the given BDD.
+	 *
+	 * @param f     the BDD.
+	 * @param value the value of each variable by index.
+	 * @return true iff the assignment satisfies the BDD.
+	 */
+	public boolean evaluate(int f, boolean[] value) {
+		while (f != FALSE && f != TRUE)
+			f = (var[f] < value.length && value[var[f]] ? high[f] : low[f]);
+		return f == TRUE;
+	}
+
+	/**
+	 * Returns true iff the number of live nodes has grown enough since the last collection that collecting is due.
+	 *
+	 * @return true iff collect should be called.
+	 */
+	public boolean shouldCollect() {
+		return getNodeCount() >= threshold;
+	}
+
+	/**
+	 * Frees all nodes that are not reachable from the given roots, and clears the memoized results. Handles of other
+	 * BDDs become invalid, and may be reused for new nodes.
+	 *
+	 * @param roots the BDDs that remain in use.
+	 */
+	public void collect(int... roots) {
+		boolean[] marked = new boolean[size];
+		marked[FALSE] = marked[TRUE] = true;
+
+		int[] stack = new int[64];
+		int top = 0;
+		for (int root : roots) {
+			stack[top++] = root;
+
+			while (top > 0) {
+				int n = stack[--top];
+				if (marked[n])
+					continue;
+				marked[n] = true;
+
+				if (top + 2 > stack.length)
+					stack = Arrays.copyOf(stack, stack.length << 1);
+				stack[top++] = low[n];
+				stack[top++] = high[n];
+			}
+		}
+
+		// Freed nodes are linked through their low child
+		free = FREE;
+		freeCount = 0;
+		for (int n = size - 1; n >= 2; n--) {
+			if (!marked[n]) {
+				var[n] = FREE;
+				low[n] = free;
+				high[n] = FREE;
+				free = n;
+				freeCount++;
+			}
+		}
+
+		rehash(unique.length);
+		Arrays.fill(cacheOp, -1);
+
+		int live = getNodeCount();
+		threshold = live + Math.max((limit - live) >> 1, 1);
+	}
+
+	/**
+	 * Returns the level of the variable of the given node, where the terminals are ordered after all variables.
+	 */
+	private int rank(int f) {
+		return (var[f] == TERMINAL ? Integer.MAX_VALUE : level[var[f]]);
+	}
+
+	/**
+	 * Returns the given node of which the variable comes first in the order.
+	 */
+	private int first(int a, int b) {
+		return (rank(a) <= rank(b) ? a : b);
+	}
+
+	/**
+	 * Returns the indices of the given variables, sorted by the level of the variables.
+	 */
+	private int[] order(int[] variables) {
+		long[] keys = new long[variables.length];
+		for (int i = 0; i < variables.length; i++)
+			keys[i] = ((long) level[variables[i]] << 32) | i;
+		Arrays.sort(keys);
+
+		int[] order = new int[variables.length];
+		for (int i = 0; i < keys.length; i++)
+			order[i] = (int) keys[i];
+		return order;
+	}
+
+	private int cofactor(int f, int variable, boolean value) {
+		if (var[f] != variable)
+			return f;
+		return (value ? high[f] : low[f]);
+	}
+
+	private int apply(int op, int a, int b) {
+		int slot = lookup(op, a, b, 0);
+		if (slot < 0)
+			return cacheResult[~slot];
+
+		int top = var[first(a, b)];
+		int a0 = cofactor(a, top, false), a1 = cofactor(a, top, true);
+		int b0 = cofactor(b, top, false), b1 = cofactor(b, top, true);
+
+		int result;
+		switch (op) {
+			case OP_AND:
+				result = mk(top, and(a0, b0), and(a1, b1));
+				break;
+			case OP_OR:
+				result = mk(top, or(a0, b0), or(a1, b1));
+				break;
+			default:
+				result = mk(top, xor(a0, b0), xor(a1, b1));
+		}
+
+		return store(slot, op, a, b, 0, result);
+	}
+
+	private int mk(int v, int l, int h) {
+		if (l == h)
+			return l;
+
+		int slot = hash(v, l, h) & uniqueMask;
+		while (unique[slot] != 0) {
+			int n = unique[slot];
+			if (var[n] == v && low[n] == l && high[n] == h)
+				return n;
+			slot = (slot + 1) & uniqueMask;
+		}
+
+		if (getNodeCount() == limit)
+			throw new IllegalStateException("BDD node limit of " + limit + " nodes exceeded");
+
+		int n;
+		if (free != FREE) {
+			n = free;
+			free = low[n];
+			freeCount--;
+		} else {
+			if (size == var.length) {
+				int capacity = (int) Math.min((long) var.length << 1, limit);
+				var = Arrays.copyOf(var, capacity);
+				low = Arrays.copyOf(low, capacity);
+				high = Arrays.copyOf(high, capacity);
+			}
+			n = size++;
+		}
+
+		var[n] = v;
+		low[n] = l;
+		high[n] = h;
+		unique[slot] = n;
+
+		if (getNodeCount() > (unique.length >> 1) + (unique.length >> 2))
+			rehash(unique.length << 1);
+
+		return n;
+	}
+
+	private void rehash(int length) {
+		unique = new int[length];
+		uniqueMask = unique.length - 1;
+
+		for (int n = 2; n < size; n++) {
+			if (var[n] == FREE)
+				continue;
+
+			int slot = hash(var[n], low[n], high[n]) & uniqueMask;
+			while (unique[slot] != 0)
+				slot = (slot + 1) & uniqueMask;
+			unique[slot] = n;
+		}
+	}
+
+	/**
+	 * Returns the negated slot of a cached result, or the slot to store the result in.
+	 */
+	private int lookup(int op, int a, int b, int c) {
+		int slot = (hash(op, a, b) * 31 + c) & cacheMask;
+		if (cacheOp[slot] == op && cacheA[slot] == a && cacheB[slot] == b && cacheC[slot] == c)
+			return ~slot;
+		return slot;
+	}
+
+	private int store(int slot, int op, int a, int b, int c, int result) {
+		cacheOp[slot] = op;
+		cacheA[slot] = a;
+		cacheB[slot] = b;
+		cacheC[slot] = c;
+		cacheResult[slot] = result;
+		return result;
+	}
+
+	private static int hash(int a, int b, int c) {
+		int h = a * 0x9E3779B1 + b;
+		h = h * 0x85EBCA77 + c;
+		return h ^ (h >>> 16);
+	}
+}
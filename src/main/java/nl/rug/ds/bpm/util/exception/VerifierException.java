@@ -11,4 +11,9 @@ public class VerifierException extends Exception {
 		super(message);
 		Logger.log(message, LogEvent.CRITICAL);
 	}
+
+	public VerifierException(String message, Throwable cause) {
+		super(message, cause);
+		Logger.log(message, LogEvent.CRITICAL);
+	}
 }
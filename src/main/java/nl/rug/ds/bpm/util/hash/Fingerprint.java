@@ -0,0 +1,58 @@
+package nl.rug.ds.bpm.util.hash;
+
+/**
+ * Utility class to compute 64-bit fingerprints.
+ */
+public class Fingerprint {
+
+	/**
+	 * Returns the 64-bit fingerprint of the given string, using FNV-1a followed by a final avalanche step.
+	 *
+	 * @param s the string.
+	 * @return the fingerprint of the given string.
+	 */
+	public static long of(String s) {
+		long h = 0xcbf29ce484222325L;
+		for (int i = 0; i < s.length(); i++) {
+			h ^= s.charAt(i);
+			h *= 0x100000001b3L;
+		}
+		return mix(h);
+	}
+
+	/**
+	 * Returns the 64-bit fingerprint of the given array of words.
+	 *
+	 * @param words the words.
+	 * @return the fingerprint of the given words.
+	 */
+	public static long of(long[] words) {
+		long h = 0xcbf29ce484222325L;
+		for (long word : words)
+			h = mix(h ^ word) * 0x100000001b3L;
+		return mix(h);
+	}
+
+	/**
+	 * Returns the fingerprint of the combination of two fingerprints. The combination is not symmetric.
+	 *
+	 * @param first  the first fingerprint.
+	 * @param second the second fingerprint.
+	 * @return the combined fingerprint.
+	 */
+	public static long combine(long first, long second) {
+		return mix(first + 0x9e3779b97f4a7c15L * mix(second));
+	}
+
+	/**
+	 * Scrambles the bits of the given value, such that small differences affect all bits of the result.
+	 *
+	 * @param h the value.
+	 * @return the scrambled value.
+	 */
+	public static long mix(long h) {
+		h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+		h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+		return h ^ (h >>> 31);
+	}
+}
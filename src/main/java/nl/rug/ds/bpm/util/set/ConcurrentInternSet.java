@@ -0,0 +1,110 @@
+package nl.rug.ds.bpm.util.set;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Thread-safe set that interns its elements, i.e., that maps every element to the first equal element it received.
+ * <p>
+ * Backed by a ConcurrentHashMap, lookups of known elements do not lock, and inserts only contend within a single bin.
+ * Elements must not change their hashCode while they are contained in the set.
+ * </p>
+ *
+ * @param <E> the type of elements.
+ */
+public class ConcurrentInternSet<E> extends AbstractSet<E> {
+	private final ConcurrentHashMap<E, E> map;
+
+	/**
+	 * Creates an empty ConcurrentInternSet.
+	 */
+	public ConcurrentInternSet() {
+		map = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Creates an empty ConcurrentInternSet with room for the given number of elements.
+	 *
+	 * @param initialCapacity the expected number of elements.
+	 */
+	public ConcurrentInternSet(int initialCapacity) {
+		map = new ConcurrentHashMap<>(initialCapacity);
+	}
+
+	/**
+	 * Atomically adds the given element if no equal element is known, and returns the known element otherwise.
+	 *
+	 * @param e the element.
+	 * @return e if new, otherwise the equaling known element.
+	 */
+	public E intern(E e) {
+		E known = map.putIfAbsent(e, e);
+		return (known == null ? e : known);
+	}
+
+	/**
+	 * Atomically adds the given element if no equal element is known, and returns the known element otherwise.
+	 * The given action is performed on the element before it becomes visible to other threads, iff it is added.
+	 *
+	 * @param e        the element.
+	 * @param onInsert the action to perform on e if it is added.
+	 * @return e if new, otherwise the equaling known element.
+	 */
+	public E intern(E e, Consumer<? super E> onInsert) {
+		E known = map.get(e);
+		if (known != null)
+			return known;
+
+		return map.computeIfAbsent(e, k -> {
+			onInsert.accept(k);
+			return k;
+		});
+	}
+
+	/**
+	 * Returns the known element that equals the given element.
+	 *
+	 * @param e the element.
+	 * @return the equaling known element, or null if no such element is known.
+	 */
+	public E get(Object e) {
+		return map.get(e);
+	}
+
+	@Override
+	public boolean add(E e) {
+		return map.putIfAbsent(e, e) == null;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return map.containsKey(o);
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		return map.remove(o) != null;
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		return map.keySet().iterator();
+	}
+
+	@Override
+	public int size() {
+		return map.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return map.isEmpty();
+	}
+
+	@Override
+	public void clear() {
+		map.clear();
+	}
+}
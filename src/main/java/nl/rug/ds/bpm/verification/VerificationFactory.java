@@ -10,6 +10,7 @@ import nl.rug.ds.bpm.verification.verifier.Verifier;
 import nl.rug.ds.bpm.verification.verifier.kripke.KripkeVerifier;
 import nl.rug.ds.bpm.verification.verifier.multi.MultiVerifier;
 import nl.rug.ds.bpm.verification.verifier.stutter.StutterVerifier;
+import nl.rug.ds.bpm.verification.verifier.symbolic.SymbolicVerifier;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
@@ -80,6 +81,21 @@ public class VerificationFactory {
         return new MultiVerifier(net, specification, checkerFactory);
     }
 
+    /**
+     * Creates a SymbolicVerifier.
+     * A Verifier that encodes the Structure obtained from the given VerifiableNet as BDDs, and model checks CTL
+     * specifications without an external model checker. Suitable for VerifiableNets with large parallel behavior.
+     * Not suitable for VerifiableNets with data or LTL specifications.
+     *
+     * @param net           the VerifiableNet upon which the given specifications should be verified.
+     * @param specification the specification that should be verified on the given VerifiableNet.
+     * @return a Verifier.
+     * @throws ConfigurationException when the Verifier failed to load its configuration.
+     */
+    public static Verifier createSymbolicVerifier(VerifiableNet net, BPMSpecification specification) throws ConfigurationException {
+        return new SymbolicVerifier(net, specification);
+    }
+
     /**
      * Loads a BPMSpecification from the given String.
      *
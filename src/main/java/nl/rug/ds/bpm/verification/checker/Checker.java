@@ -5,6 +5,7 @@ import nl.rug.ds.bpm.specification.jaxb.Formula;
 import nl.rug.ds.bpm.specification.jaxb.Specification;
 import nl.rug.ds.bpm.util.exception.CheckerException;
 import nl.rug.ds.bpm.verification.event.VerificationEvent;
+import nl.rug.ds.bpm.verification.event.listener.VerificationEventListener;
 import nl.rug.ds.bpm.verification.map.AtomicPropositionMap;
 import nl.rug.ds.bpm.verification.model.State;
 import nl.rug.ds.bpm.verification.model.Structure;
@@ -12,18 +13,21 @@ import nl.rug.ds.bpm.verification.model.Structure;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Class that implements calling a model checker and parsing its results.
  */
 public abstract class Checker {
     protected static File out;
-    protected static int idc = 0;
+    protected static final AtomicInteger idc = new AtomicInteger();
 
     protected int id;
     protected StringBuilder inputChecker, outputChecker;
     protected File executable;
     protected List<CheckerFormula> formulas;
+    protected VerificationEventListener verificationEventListener;
+    protected long timeout;
 
     /**
      * Creates a Checker.
@@ -31,7 +35,7 @@ public abstract class Checker {
      * @param executable file that contains the path to the model checker's executable.
      */
     public Checker(File executable) {
-        id = idc++;
+        id = idc.getAndIncrement();
         this.executable = executable;
 
         formulas = new ArrayList<>();
@@ -52,6 +56,48 @@ public abstract class Checker {
         }
     }
 
+    /**
+     * Returns the maximum time a single call to checkModel may take.
+     *
+     * @return the timeout in milliseconds, or 0 if there is none.
+     */
+    public long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Sets the maximum time a single call to checkModel may take, after which it fails with a CheckerException.
+     * Only applies to Checkers that call an external process.
+     *
+     * @param timeout the timeout in milliseconds, or 0 for none.
+     */
+    public void setTimeout(long timeout) {
+        if (timeout < 0)
+            throw new IllegalArgumentException("Timeout must not be negative");
+
+        this.timeout = timeout;
+    }
+
+    /**
+     * Sets the listener that is notified of each result as soon as it is complete, while checkModel is running.
+     * Results are still returned by checkModel as well. Listeners may be called from threads other than the caller's.
+     *
+     * @param verificationEventListener the listener, or null.
+     */
+    public void setVerificationEventListener(VerificationEventListener verificationEventListener) {
+        this.verificationEventListener = verificationEventListener;
+    }
+
+    /**
+     * Notifies the listener, if any, of the given completed result.
+     *
+     * @param event the completed result, or null.
+     */
+    protected void publish(VerificationEvent event) {
+        if (event != null && verificationEventListener != null)
+            verificationEventListener.verificationEvent(event);
+    }
+
     /**
      * Returns the input for the Checker.
      *
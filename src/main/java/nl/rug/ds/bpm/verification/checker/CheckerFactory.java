@@ -7,11 +7,56 @@ import java.io.File;
  */
 public abstract class CheckerFactory {
 	protected File executable;
+	protected int concurrency;
+	protected long timeout;
 	
 	public CheckerFactory(File executable) {
 		this.executable = executable;
+		concurrency = Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * Returns the maximum number of Checkers that Verifiers use concurrently.
+	 *
+	 * @return the maximum number of concurrent Checkers.
+	 */
+	public int getConcurrency() {
+		return concurrency;
+	}
+
+	/**
+	 * Sets the maximum number of Checkers that Verifiers use concurrently. Use 1 to check sequentially.
+	 *
+	 * @param concurrency the maximum number of concurrent Checkers.
+	 */
+	public void setConcurrency(int concurrency) {
+		if (concurrency < 1)
+			throw new IllegalArgumentException("Concurrency must be positive");
+
+		this.concurrency = concurrency;
 	}
 	
+	/**
+	 * Returns the maximum time a single model check of created Checkers that call an external process may take.
+	 *
+	 * @return the timeout in milliseconds, or 0 if there is none.
+	 */
+	public long getTimeout() {
+		return timeout;
+	}
+
+	/**
+	 * Sets the maximum time a single model check of created Checkers that call an external process may take.
+	 *
+	 * @param timeout the timeout in milliseconds, or 0 for none.
+	 */
+	public void setTimeout(long timeout) {
+		if (timeout < 0)
+			throw new IllegalArgumentException("Timeout must not be negative");
+
+		this.timeout = timeout;
+	}
+
 	public abstract Checker getChecker();
 
 	public void release(Checker checker) { return; }
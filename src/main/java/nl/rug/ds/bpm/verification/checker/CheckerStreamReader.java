@@ -0,0 +1,55 @@
+package nl.rug.ds.bpm.verification.checker;
+
+import nl.rug.ds.bpm.util.log.LogEvent;
+import nl.rug.ds.bpm.util.log.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Daemon thread that reads an output stream of a model checker process line by line, and passes each line to a
+ * consumer as soon as it is read. Using a reader per stream prevents a process from blocking on a full pipe buffer
+ * of a stream that is not being read. The stream is read until its end, even if the consumer fails on a line.
+ */
+public class CheckerStreamReader extends Thread {
+	private static final AtomicInteger count = new AtomicInteger();
+
+	private final InputStream stream;
+	private final Consumer<String> consumer;
+
+	/**
+	 * Creates and starts a CheckerStreamReader.
+	 *
+	 * @param stream   the stream to read.
+	 * @param consumer the consumer of the lines read.
+	 */
+	public CheckerStreamReader(InputStream stream, Consumer<String> consumer) {
+		super("bpm-checker-reader-" + count.incrementAndGet());
+		this.stream = stream;
+		this.consumer = consumer;
+
+		setDaemon(true);
+		start();
+	}
+
+	@Override
+	public void run() {
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				try {
+					consumer.accept(line);
+				} catch (RuntimeException e) {
+					// Keep draining the stream, such that the process does not block
+					Logger.log("Failed to parse checker output: " + line, LogEvent.ERROR);
+				}
+			}
+		} catch (IOException e) {
+			Logger.log("Stopped reading checker output: " + e.getMessage(), LogEvent.VERBOSE);
+		}
+	}
+}
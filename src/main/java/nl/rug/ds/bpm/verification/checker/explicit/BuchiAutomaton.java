@@ -0,0 +1,255 @@
+package nl.rug.ds.bpm.verification.checker.explicit;
+
+import nl.rug.ds.bpm.verification.checker.formula.TemporalFormula;
+import nl.rug.ds.bpm.verification.checker.formula.TemporalOperator;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generalized Buchi automaton of an LTL formula, constructed with the tableau of Gerth, Peled, Vardi, and Wolper.
+ * <p>
+ * Each node is labeled with the literals that must hold in the State read when entering the node. Past subformulas
+ * are treated as literals, and are evaluated by a PastMonitor. An accepting run visits each acceptance set infinitely
+ * often, and there is an acceptance set for every until subformula.
+ * </p>
+ */
+public class BuchiAutomaton {
+	private static final int INIT = -1;
+
+	private final List<Node> nodes;
+	private final int[] initial;
+	private final int[][] successors;
+	private final List<BitSet> acceptance;
+
+	private static class Node {
+		private final Set<Integer> incoming;
+		private final Set<TemporalFormula> pending, old, next;
+		private int id;
+
+		private Node(Set<Integer> incoming, Set<TemporalFormula> pending, Set<TemporalFormula> old, Set<TemporalFormula> next) {
+			this.incoming = incoming;
+			this.pending = pending;
+			this.old = old;
+			this.next = next;
+		}
+
+		private Node copy() {
+			return new Node(new HashSet<>(incoming), new LinkedHashSet<>(pending), new LinkedHashSet<>(old), new LinkedHashSet<>(next));
+		}
+	}
+
+	private BuchiAutomaton(TemporalFormula formula) {
+		nodes = new ArrayList<>();
+
+		Set<Integer> incoming = new HashSet<>();
+		incoming.add(INIT);
+		Set<TemporalFormula> pending = new LinkedHashSet<>();
+		pending.add(formula);
+		expand(new Node(incoming, pending, new LinkedHashSet<>(), new LinkedHashSet<>()));
+
+		List<Integer> init = new ArrayList<>();
+		List<List<Integer>> next = new ArrayList<>();
+		for (int i = 0; i < nodes.size(); i++)
+			next.add(new ArrayList<>());
+
+		for (Node node : nodes)
+			for (int source : node.incoming)
+				if (source == INIT)
+					init.add(node.id);
+				else
+					next.get(source).add(node.id);
+
+		initial = init.stream().mapToInt(Integer::intValue).toArray();
+		successors = new int[nodes.size()][];
+		for (int i = 0; i < nodes.size(); i++)
+			successors[i] = next.get(i).stream().mapToInt(Integer::intValue).toArray();
+
+		acceptance = new ArrayList<>();
+		for (TemporalFormula until : untils(formula, new LinkedHashSet<>())) {
+			BitSet accepting = new BitSet(nodes.size());
+			for (Node node : nodes)
+				if (!node.old.contains(until) || node.old.contains(until.getRight()))
+					accepting.set(node.id);
+			acceptance.add(accepting);
+		}
+	}
+
+	/**
+	 * Creates the automaton that accepts exactly the paths that satisfy the given formula.
+	 *
+	 * @param formula an LTL formula in negation normal form, i.e., with negations applied to literals only, and
+	 *                without F, G, implications, and equivalences outside of past subformulas.
+	 * @return the automaton.
+	 */
+	public static BuchiAutomaton of(TemporalFormula formula) {
+		return new BuchiAutomaton(formula);
+	}
+
+	/**
+	 * Returns the number of nodes.
+	 *
+	 * @return the number of nodes.
+	 */
+	public int size() {
+		return nodes.size();
+	}
+
+	/**
+	 * Returns the nodes a run may start in.
+	 *
+	 * @return the initial nodes.
+	 */
+	public int[] getInitial() {
+		return initial;
+	}
+
+	/**
+	 * Returns the nodes a run may move to from the given node.
+	 *
+	 * @param node the node.
+	 * @return the successor nodes.
+	 */
+	public int[] getSuccessors(int node) {
+		return successors[node];
+	}
+
+	/**
+	 * Returns the literals that must hold in the State read when entering the given node.
+	 *
+	 * @param node the node.
+	 * @return the literals.
+	 */
+	public Set<TemporalFormula> getLiterals(int node) {
+		Set<TemporalFormula> literals = new LinkedHashSet<>();
+		for (TemporalFormula formula : nodes.get(node).old)
+			if (isLiteral(formula))
+				literals.add(formula);
+		return literals;
+	}
+
+	/**
+	 * Returns the acceptance sets, one per until subformula. If there are none, all runs are accepting.
+	 *
+	 * @return the acceptance sets.
+	 */
+	public List<BitSet> getAcceptance() {
+		return acceptance;
+	}
+
+	private void expand(Node node) {
+		if (node.pending.isEmpty()) {
+			for (Node known : nodes) {
+				if (known.old.equals(node.old) && known.next.equals(node.next)) {
+					known.incoming.addAll(node.incoming);
+					return;
+				}
+			}
+
+			node.id = nodes.size();
+			nodes.add(node);
+
+			Set<Integer> incoming = new HashSet<>();
+			incoming.add(node.id);
+			expand(new Node(incoming, new LinkedHashSet<>(node.next), new LinkedHashSet<>(), new LinkedHashSet<>()));
+			return;
+		}
+
+		TemporalFormula formula = node.pending.iterator().next();
+		node.pending.remove(formula);
+
+		if (node.old.contains(formula)) {
+			expand(node);
+			return;
+		}
+
+		TemporalFormula left = formula.getLeft(), right = formula.getRight();
+
+		switch (formula.getOperator()) {
+			case AND:
+				node.old.add(formula);
+				addPending(node, left);
+				addPending(node, right);
+				expand(node);
+				break;
+			case OR: {
+				Node other = node.copy();
+				node.old.add(formula);
+				addPending(node, left);
+				other.old.add(formula);
+				addPending(other, right);
+				expand(node);
+				expand(other);
+				break;
+			}
+			case X:
+				node.old.add(formula);
+				node.next.add(left);
+				expand(node);
+				break;
+			case U: {
+				Node other = node.copy();
+				node.old.add(formula);
+				addPending(node, left);
+				node.next.add(formula);
+				other.old.add(formula);
+				addPending(other, right);
+				expand(node);
+				expand(other);
+				break;
+			}
+			case V: {
+				Node other = node.copy();
+				node.old.add(formula);
+				addPending(node, right);
+				node.next.add(formula);
+				other.old.add(formula);
+				addPending(other, left);
+				addPending(other, right);
+				expand(node);
+				expand(other);
+				break;
+			}
+			default:
+				if (formula.equals(TemporalFormula.FALSE) || node.old.contains(TemporalFormula.not(formula)))
+					return;
+				node.old.add(formula);
+				expand(node);
+		}
+	}
+
+	private static void addPending(Node node, TemporalFormula formula) {
+		if (!node.old.contains(formula))
+			node.pending.add(formula);
+	}
+
+	private static boolean isLiteral(TemporalFormula formula) {
+		switch (formula.getOperator()) {
+			case AND:
+			case OR:
+			case X:
+			case U:
+			case V:
+			case TRUE:
+				return false;
+			default:
+				return true;
+		}
+	}
+
+	private static Set<TemporalFormula> untils(TemporalFormula formula, Set<TemporalFormula> untils) {
+		if (formula.getOperator() == TemporalOperator.U)
+			untils.add(formula);
+		if (formula.getOperator().isLinear() || formula.getOperator() == TemporalOperator.AND || formula.getOperator() == TemporalOperator.OR) {
+			if (formula.getLeft() != null)
+				untils(formula.getLeft(), untils);
+			if (formula.getRight() != null)
+				untils(formula.getRight(), untils);
+		}
+		return untils;
+	}
+}
@@ -0,0 +1,428 @@
+package nl.rug.ds.bpm.verification.checker.explicit;
+
+import nl.rug.ds.bpm.util.exception.CheckerException;
+import nl.rug.ds.bpm.verification.checker.formula.TemporalFormula;
+import nl.rug.ds.bpm.verification.checker.formula.TemporalOperator;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Class that evaluates CTL formulas on a StateGraph using explicit-state fixpoints.
+ * <p>
+ * Satisfaction sets are BitSets over the States of the graph. Predecessor images are computed in parallel over blocks
+ * of States, and until and globally operators with linear time backward searches. Fairness constraints restrict path
+ * quantifiers to paths that satisfy each constraint infinitely often, as in NuSMV2.
+ * </p>
+ */
+public class CTLEvaluator {
+	private static final int PARALLEL_THRESHOLD = 1 << 12;
+
+	private final StateGraph graph;
+	private final List<BitSet> fairness;
+	private final Map<TemporalFormula, BitSet> cache;
+	private final BitSet all;
+	private BitSet fair;
+
+	/**
+	 * Creates a CTLEvaluator.
+	 *
+	 * @param graph    the StateGraph to evaluate formulas on.
+	 * @param fairness the fairness constraints, which may be empty.
+	 * @throws CheckerException when a fairness constraint is not a CTL formula.
+	 */
+	public CTLEvaluator(StateGraph graph, List<TemporalFormula> fairness) throws CheckerException {
+		this.graph = graph;
+		cache = new HashMap<>();
+
+		all = new BitSet(graph.size());
+		all.set(0, graph.size());
+
+		// Fairness constraints themselves are evaluated over all paths
+		fair = all;
+		this.fairness = new ArrayList<>();
+		for (TemporalFormula constraint : fairness)
+			this.fairness.add(evaluate(constraint));
+
+		if (!this.fairness.isEmpty()) {
+			fair = existsGlobally(all);
+			cache.clear();
+		}
+	}
+
+	/**
+	 * Returns the fair States, i.e., the States from which a fair path starts.
+	 *
+	 * @return the fair States. The returned set must not be modified.
+	 */
+	public BitSet getFair() {
+		return fair;
+	}
+
+	/**
+	 * Returns the States that satisfy each fairness constraint.
+	 *
+	 * @return the States that satisfy each fairness constraint. The returned sets must not be modified.
+	 */
+	public List<BitSet> getFairnessConstraints() {
+		return fairness;
+	}
+
+	/**
+	 * Returns true iff the given formula holds in all fair initial States.
+	 *
+	 * @param formula the formula.
+	 * @return true iff the formula holds.
+	 * @throws CheckerException when the formula is not a CTL formula.
+	 */
+	public boolean holds(TemporalFormula formula) throws CheckerException {
+		return getViolating(formula) < 0;
+	}
+
+	/**
+	 * Returns a fair initial State in which the given formula does not hold.
+	 *
+	 * @param formula the formula.
+	 * @return the index of the State, or -1 if the formula holds.
+	 * @throws CheckerException when the formula is not a CTL formula.
+	 */
+	public int getViolating(TemporalFormula formula) throws CheckerException {
+		BitSet violating = (BitSet) graph.getInitial().clone();
+		violating.and(fair);
+		violating.andNot(evaluate(formula));
+		return violating.nextSetBit(0);
+	}
+
+	/**
+	 * Returns the States in which the given formula holds.
+	 *
+	 * @param formula the formula.
+	 * @return the States in which the formula holds. The returned set must not be modified.
+	 * @throws CheckerException when the formula is not a CTL formula.
+	 */
+	public BitSet evaluate(TemporalFormula formula) throws CheckerException {
+		BitSet result = cache.get(formula);
+		if (result == null) {
+			result = compute(formula);
+			cache.put(formula, result);
+		}
+		return result;
+	}
+
+	private BitSet compute(TemporalFormula formula) throws CheckerException {
+		TemporalFormula left = formula.getLeft(), right = formula.getRight();
+
+		switch (formula.getOperator()) {
+			case TRUE:
+				return all;
+			case FALSE:
+				return new BitSet();
+			case ATOM:
+				return graph.getLabel(formula.getAtom());
+			case NOT:
+				return not(evaluate(left));
+			case AND:
+				return and(evaluate(left), evaluate(right));
+			case OR:
+				return or(evaluate(left), evaluate(right));
+			case IMPLIES:
+				return or(not(evaluate(left)), evaluate(right));
+			case IFF:
+				return not(xor(evaluate(left), evaluate(right)));
+			case EX:
+				return pre(and(evaluate(left), fair));
+			case AX:
+				return not(pre(and(not(evaluate(left)), fair)));
+			case EF:
+				return existsUntil(all, and(evaluate(left), fair));
+			case AG:
+				return not(existsUntil(all, and(not(evaluate(left)), fair)));
+			case EG:
+				return existsGlobally(evaluate(left));
+			case AF:
+				return not(existsGlobally(not(evaluate(left))));
+			case EU:
+				return existsUntil(evaluate(left), and(evaluate(right), fair));
+			case AU: {
+				BitSet notRight = not(evaluate(right));
+				BitSet violated = existsUntil(notRight, and(and(not(evaluate(left)), notRight), fair));
+				violated.or(existsGlobally(notRight));
+				return not(violated);
+			}
+			default:
+				throw new CheckerException("Operator " + formula.getOperator() + " is not a CTL operator in " + formula);
+		}
+	}
+
+	/**
+	 * Returns the States that have a next State in the given set.
+	 *
+	 * @param target the set.
+	 * @return the States that have a next State in the given set.
+	 */
+	public BitSet pre(BitSet target) {
+		int n = graph.size();
+		int[] offsets = graph.getNextOffsets(), next = graph.getNextIndices();
+		long[] words = new long[(n + 63) >>> 6];
+
+		IntStream blocks = IntStream.range(0, words.length);
+		if (n >= PARALLEL_THRESHOLD)
+			blocks = blocks.parallel();
+
+		blocks.forEach(w -> {
+			long word = 0L;
+			for (int i = w << 6; i < Math.min(n, (w + 1) << 6); i++) {
+				for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+					if (target.get(next[k])) {
+						word |= 1L << (i & 63);
+						break;
+					}
+				}
+			}
+			words[w] = word;
+		});
+
+		return BitSet.valueOf(words);
+	}
+
+	/**
+	 * Returns the States from which a path through the first set reaches the second set.
+	 *
+	 * @param path   the set of States the path may pass through.
+	 * @param target the set of States to reach.
+	 * @return the States that satisfy E [ path U target ].
+	 */
+	public BitSet existsUntil(BitSet path, BitSet target) {
+		int[] offsets = graph.getPreviousOffsets(), previous = graph.getPreviousIndices();
+		BitSet result = (BitSet) target.clone();
+		int[] queue = new int[graph.size()];
+		int head = 0, tail = 0;
+
+		for (int i = target.nextSetBit(0); i >= 0; i = target.nextSetBit(i + 1))
+			queue[tail++] = i;
+
+		while (head < tail) {
+			int i = queue[head++];
+			for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+				int j = previous[k];
+				if (!result.get(j) && path.get(j)) {
+					result.set(j);
+					queue[tail++] = j;
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the States from which a (fair) path stays within the given set forever.
+	 *
+	 * @param path the set of States the path must stay within.
+	 * @return the States that satisfy EG path.
+	 */
+	public BitSet existsGlobally(BitSet path) {
+		if (fairness.isEmpty())
+			return greatestFixpoint(path);
+
+		// Emerson-Lei: Z = path & AND_i EX E [ Z U (Z & f_i) ], as the states along a fair path all lie in Z
+		BitSet z = greatestFixpoint(path);
+		while (true) {
+			BitSet next = (BitSet) z.clone();
+			for (BitSet constraint : fairness)
+				next.and(pre(existsUntil(z, and(z, constraint))));
+
+			if (next.equals(z))
+				return z;
+			z = next;
+		}
+	}
+
+	/**
+	 * Removes States without a next State within the given set from that set until none remain.
+	 */
+	private BitSet greatestFixpoint(BitSet path) {
+		int[] nextOffsets = graph.getNextOffsets(), next = graph.getNextIndices();
+		int[] previousOffsets = graph.getPreviousOffsets(), previous = graph.getPreviousIndices();
+		BitSet result = (BitSet) path.clone();
+		int[] count = new int[graph.size()];
+		int[] queue = new int[graph.size()];
+		int head = 0, tail = 0;
+
+		for (int i = result.nextSetBit(0); i >= 0; i = result.nextSetBit(i + 1)) {
+			for (int k = nextOffsets[i]; k < nextOffsets[i + 1]; k++)
+				if (result.get(next[k]))
+					count[i]++;
+			if (count[i] == 0)
+				queue[tail++] = i;
+		}
+
+		while (head < tail) {
+			int i = queue[head++];
+			result.clear(i);
+			for (int k = previousOffsets[i]; k < previousOffsets[i + 1]; k++) {
+				int j = previous[k];
+				if (result.get(j) && --count[j] == 0)
+					queue[tail++] = j;
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns a path of States that demonstrates why the given formula does not hold in the given State, starting
+	 * with that State. The path follows witnesses of the negated formula as far as they are existential.
+	 *
+	 * @param formula the formula.
+	 * @param state   the index of a State in which the formula does not hold.
+	 * @return the indices of the States along the path.
+	 * @throws CheckerException when the formula is not a CTL formula.
+	 */
+	public List<Integer> getCounterExample(TemporalFormula formula, int state) throws CheckerException {
+		List<Integer> path = new ArrayList<>();
+		path.add(state);
+		witness(formula.negate(), path);
+		return path;
+	}
+
+	private void witness(TemporalFormula formula, List<Integer> path) throws CheckerException {
+		int state = path.get(path.size() - 1);
+		TemporalFormula left = formula.getLeft(), right = formula.getRight();
+
+		switch (formula.getOperator()) {
+			case AND:
+				witness(left.isPropositional() ? right : left, path);
+				break;
+			case OR:
+				if (!left.isPropositional() && evaluate(left).get(state))
+					witness(left, path);
+				else if (evaluate(right).get(state))
+					witness(right, path);
+				break;
+			case EX: {
+				int next = successor(state, and(evaluate(left), fair));
+				if (next >= 0) {
+					path.add(next);
+					witness(left, path);
+				}
+				break;
+			}
+			case EF:
+				witness(TemporalFormula.binary(TemporalOperator.EU, TemporalFormula.TRUE, left), path);
+				break;
+			case EU: {
+				List<Integer> prefix = search(state, evaluate(left), and(evaluate(right), fair));
+				if (prefix != null) {
+					path.addAll(prefix);
+					witness(right, path);
+				}
+				break;
+			}
+			case EG:
+				lasso(evaluate(formula), path);
+				break;
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * Extends the given path with a lasso within the given set, visiting each fairness constraint on the way.
+	 */
+	private void lasso(BitSet within, List<Integer> path) {
+		for (BitSet constraint : fairness) {
+			List<Integer> prefix = search(path.get(path.size() - 1), within, and(within, constraint));
+			if (prefix != null)
+				path.addAll(prefix);
+		}
+
+		Map<Integer, Integer> visited = new HashMap<>();
+		int state = path.get(path.size() - 1);
+		visited.put(state, path.size() - 1);
+
+		while (true) {
+			int next = successor(state, within);
+			if (next < 0)
+				return;
+
+			path.add(next);
+			if (visited.putIfAbsent(next, path.size() - 1) != null)
+				return;
+			state = next;
+		}
+	}
+
+	/**
+	 * Returns the shortest path, excluding the given State, that passes through the first set and ends in the second.
+	 */
+	private List<Integer> search(int state, BitSet within, BitSet target) {
+		if (target.get(state))
+			return new ArrayList<>();
+
+		int[] offsets = graph.getNextOffsets(), next = graph.getNextIndices();
+		Map<Integer, Integer> parent = new HashMap<>();
+		int[] queue = new int[graph.size()];
+		int head = 0, tail = 0;
+		queue[tail++] = state;
+		parent.put(state, -1);
+
+		while (head < tail) {
+			int i = queue[head++];
+			if (i != state && !within.get(i))
+				continue;
+
+			for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+				int j = next[k];
+				if (parent.putIfAbsent(j, i) != null)
+					continue;
+
+				if (target.get(j)) {
+					List<Integer> path = new ArrayList<>();
+					for (int p = j; p != state; p = parent.get(p))
+						path.add(0, p);
+					return path;
+				}
+				queue[tail++] = j;
+			}
+		}
+
+		return null;
+	}
+
+	private int successor(int state, BitSet target) {
+		int[] offsets = graph.getNextOffsets(), next = graph.getNextIndices();
+		for (int k = offsets[state]; k < offsets[state + 1]; k++)
+			if (target.get(next[k]))
+				return next[k];
+		return -1;
+	}
+
+	private BitSet not(BitSet set) {
+		BitSet result = (BitSet) all.clone();
+		result.andNot(set);
+		return result;
+	}
+
+	private static BitSet and(BitSet a, BitSet b) {
+		BitSet result = (BitSet) a.clone();
+		result.and(b);
+		return result;
+	}
+
+	private static BitSet or(BitSet a, BitSet b) {
+		BitSet result = (BitSet) a.clone();
+		result.or(b);
+		return result;
+	}
+
+	private static BitSet xor(BitSet a, BitSet b) {
+		BitSet result = (BitSet) a.clone();
+		result.xor(b);
+		return result;
+	}
+}
@@ -0,0 +1,131 @@
+package nl.rug.ds.bpm.verification.checker.explicit;
+
+import nl.rug.ds.bpm.expression.CompositeExpression;
+import nl.rug.ds.bpm.specification.jaxb.Formula;
+import nl.rug.ds.bpm.specification.jaxb.Specification;
+import nl.rug.ds.bpm.util.exception.CheckerException;
+import nl.rug.ds.bpm.util.exception.FormulaException;
+import nl.rug.ds.bpm.util.log.LogEvent;
+import nl.rug.ds.bpm.util.log.Logger;
+import nl.rug.ds.bpm.verification.checker.Checker;
+import nl.rug.ds.bpm.verification.checker.CheckerFormula;
+import nl.rug.ds.bpm.verification.checker.formula.TemporalFormula;
+import nl.rug.ds.bpm.verification.event.VerificationEvent;
+import nl.rug.ds.bpm.verification.map.AtomicPropositionMap;
+import nl.rug.ds.bpm.verification.model.State;
+import nl.rug.ds.bpm.verification.model.Structure;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Class that model checks CTL and LTL formulas on the in-memory Structure, without calling an external model checker.
+ * <p>
+ * Fairness constraints are respected as in NuSMV2. Counterexamples are paths through the Structure that lead from a
+ * violating initial State along witnesses of the negated formula, or, for LTL, lasso shaped paths of which the last
+ * State closes the cycle. They are reported in the same format as parsed from NuSMV2 traces.
+ * </p>
+ */
+public class ExplicitChecker extends Checker {
+	private StateGraph graph;
+
+	/**
+	 * Creates an ExplicitChecker.
+	 */
+	public ExplicitChecker() {
+		super(null);
+	}
+
+	@Override
+	public void addFormula(Formula formula, Specification specification, AtomicPropositionMap<CompositeExpression> atomicPropositionMap) {
+		try {
+			ExplicitFormula explicitFormula = new ExplicitFormula(formula, specification, atomicPropositionMap);
+			formulas.add(explicitFormula);
+			Logger.log("Including specification " + specification.getId() + " with the formula " + explicitFormula.getInputFormula(), LogEvent.VERBOSE);
+		} catch (FormulaException e) {
+			Logger.log("Failed to include specification " + specification.getId(), LogEvent.ERROR);
+		}
+	}
+
+	@Override
+	public void createModel(Structure<? extends State<?>> structure) throws CheckerException {
+		graph = StateGraph.of(structure);
+
+		if (Logger.getLogLevel() <= LogEvent.DEBUG) {
+			inputChecker.append("-- ").append(structure.stats()).append("\n");
+			for (CheckerFormula formula : formulas)
+				inputChecker.append(formula.getCheckerFormula()).append("\n");
+		}
+	}
+
+	@Override
+	public List<VerificationEvent> checkModel() throws CheckerException {
+		if (graph == null)
+			throw new CheckerException("No model created");
+
+		List<TemporalFormula> fairness = new ArrayList<>();
+		for (CheckerFormula formula : formulas)
+			if (((ExplicitFormula) formula).isLanguage("FAIRNESS"))
+				fairness.add(((ExplicitFormula) formula).getTemporalFormula());
+
+		CTLEvaluator evaluator = new CTLEvaluator(graph, fairness);
+		LTLEvaluator ltlEvaluator = null;
+		List<VerificationEvent> results = new ArrayList<>();
+
+		for (CheckerFormula formula : formulas) {
+			ExplicitFormula explicitFormula = (ExplicitFormula) formula;
+			if (explicitFormula.isLanguage("FAIRNESS"))
+				continue;
+
+			TemporalFormula temporalFormula = explicitFormula.getTemporalFormula();
+			List<Integer> counterExample;
+
+			if (explicitFormula.isLanguage("CTLSPEC") && temporalFormula.isBranching()) {
+				int violating = evaluator.getViolating(temporalFormula);
+				counterExample = (violating < 0 ? null : evaluator.getCounterExample(temporalFormula, violating));
+			} else if (explicitFormula.isLanguage("LTLSPEC") && temporalFormula.isLinear()) {
+				if (ltlEvaluator == null)
+					ltlEvaluator = new LTLEvaluator(graph, evaluator.getFairnessConstraints());
+				counterExample = ltlEvaluator.getCounterExample(temporalFormula);
+			} else {
+				Logger.log("Unsupported formula " + explicitFormula.getCheckerFormula(), LogEvent.WARNING);
+				continue;
+			}
+
+			VerificationEvent event = new VerificationEvent(formula, counterExample == null);
+			if (counterExample != null)
+				event.setCounterExample(getCounterExample(formula, counterExample));
+
+			Logger.log("-- specification " + formula.getOutputFormula() + " is " + (counterExample == null), LogEvent.DEBUG);
+			results.add(event);
+			publish(event);
+		}
+
+		formulas.clear();
+		return results;
+	}
+
+	/**
+	 * Maps the given path of States to the original expressions of the atomic propositions that hold in each State.
+	 *
+	 * @param formula the formula that the counterexample pertains to.
+	 * @param path    the indices of the States along the path.
+	 * @return the counterexample.
+	 */
+	protected List<List<String>> getCounterExample(CheckerFormula formula, List<Integer> path) {
+		List<List<String>> trace = new ArrayList<>();
+
+		for (int index : path) {
+			List<String> aps = new ArrayList<>();
+			for (String ap : new TreeSet<>(graph.getState(index).getAtomicPropositions())) {
+				CompositeExpression expression = formula.getAtomicPropositionMap().getID(ap);
+				if (expression != null)
+					aps.add(expression.getOriginalExpression());
+			}
+			trace.add(aps);
+		}
+
+		return trace;
+	}
+}
@@ -0,0 +1,19 @@
+package nl.rug.ds.bpm.verification.checker.explicit;
+
+import nl.rug.ds.bpm.verification.checker.Checker;
+import nl.rug.ds.bpm.verification.checker.CheckerFactory;
+
+/**
+ * Factory that provides ExplicitCheckers, which model check in-process and therefore require no executable.
+ */
+public class ExplicitCheckerFactory extends CheckerFactory {
+
+	public ExplicitCheckerFactory() {
+		super(null);
+	}
+
+	@Override
+	public Checker getChecker() {
+		return new ExplicitChecker();
+	}
+}
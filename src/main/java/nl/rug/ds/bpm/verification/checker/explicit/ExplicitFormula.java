@@ -0,0 +1,51 @@
+package nl.rug.ds.bpm.verification.checker.explicit;
+
+import nl.rug.ds.bpm.expression.CompositeExpression;
+import nl.rug.ds.bpm.specification.jaxb.Formula;
+import nl.rug.ds.bpm.specification.jaxb.Specification;
+import nl.rug.ds.bpm.util.exception.FormulaException;
+import nl.rug.ds.bpm.verification.checker.CheckerFormula;
+import nl.rug.ds.bpm.verification.checker.formula.FormulaParser;
+import nl.rug.ds.bpm.verification.checker.formula.TemporalFormula;
+import nl.rug.ds.bpm.verification.map.AtomicPropositionMap;
+
+/**
+ * Class that maps formulas from input to parsed TemporalFormulas over output propositions.
+ */
+public class ExplicitFormula extends CheckerFormula {
+	private final TemporalFormula temporalFormula;
+
+	/**
+	 * Creates a new ExplicitFormula.
+	 *
+	 * @param formula              the input formula in its original XML Formula class format.
+	 * @param specification        the specification, in its original XML Specification class format.
+	 * @param atomicPropositionMap the AtomicPropositionMap that is to be used to map between input propositions and output propositions used during model checking.
+	 * @throws FormulaException when mapping or parsing fails.
+	 */
+	public ExplicitFormula(Formula formula, Specification specification, AtomicPropositionMap<CompositeExpression> atomicPropositionMap) throws FormulaException {
+		super(formula, specification, atomicPropositionMap);
+
+		this.checkerFormula = formula.getLanguage() + " " + outputFormula;
+		this.temporalFormula = FormulaParser.parse(outputFormula);
+	}
+
+	/**
+	 * Returns the parsed formula over output propositions.
+	 *
+	 * @return the parsed formula.
+	 */
+	public TemporalFormula getTemporalFormula() {
+		return temporalFormula;
+	}
+
+	/**
+	 * Returns true iff the language of this formula equals the given language, ignoring case.
+	 *
+	 * @param language the language, e.g., CTLSPEC, LTLSPEC, or FAIRNESS.
+	 * @return true iff the language of this formula equals the given language.
+	 */
+	public boolean isLanguage(String language) {
+		return formula.getLanguage().equalsIgnoreCase(language);
+	}
+}
@@ -0,0 +1,282 @@
+package nl.rug.ds.bpm.verification.checker.explicit;
+
+import nl.rug.ds.bpm.util.exception.CheckerException;
+import nl.rug.ds.bpm.verification.checker.formula.TemporalFormula;
+import nl.rug.ds.bpm.verification.checker.formula.TemporalOperator;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Class that model checks LTL formulas on a StateGraph by searching for accepting runs of the product of the graph
+ * and the BuchiAutomaton of the negated formula.
+ * <p>
+ * The product is explored on-the-fly from the initial States with a nested depth-first search, such that exploration
+ * stops at the first accepting cycle. The generalized acceptance sets of the automaton, together with the fairness
+ * constraints, are degeneralized with a counter. An accepting cycle is a path that violates the formula, and is
+ * returned as a lasso shaped counterexample.
+ * </p>
+ */
+public class LTLEvaluator {
+	private final StateGraph graph;
+	private final List<BitSet> fairness;
+
+	private BuchiAutomaton automaton;
+	private PastMonitor monitor;
+	private List<Set<TemporalFormula>> literals;
+	private int conditions;
+
+	/**
+	 * A State of the product of the StateGraph and the BuchiAutomaton.
+	 */
+	private static class Product {
+		private final int state, node, counter;
+		private final long past;
+		private final int hash;
+
+		private Product(int state, int node, int counter, long past) {
+			this.state = state;
+			this.node = node;
+			this.counter = counter;
+			this.past = past;
+			hash = Objects.hash(state, node, counter, past);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Product))
+				return false;
+			Product other = (Product) o;
+			return state == other.state && node == other.node && counter == other.counter && past == other.past;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
+	/**
+	 * A depth-first search frame with the remaining successors of a product State.
+	 */
+	private static class Frame {
+		private final Product product;
+		private final List<Product> successors;
+		private int next;
+
+		private Frame(Product product, List<Product> successors) {
+			this.product = product;
+			this.successors = successors;
+		}
+	}
+
+	/**
+	 * Creates an LTLEvaluator.
+	 *
+	 * @param graph    the StateGraph to evaluate formulas on.
+	 * @param fairness the States that satisfy each fairness constraint, which may be empty.
+	 */
+	public LTLEvaluator(StateGraph graph, List<BitSet> fairness) {
+		this.graph = graph;
+		this.fairness = fairness;
+	}
+
+	/**
+	 * Returns a fair path from an initial State that violates the given formula.
+	 *
+	 * @param formula the LTL formula, which may contain past operators.
+	 * @return the indices of the States along the path, of which the last State closes the cycle, or null if the
+	 * formula holds.
+	 * @throws CheckerException when the formula is not an LTL formula.
+	 */
+	public List<Integer> getCounterExample(TemporalFormula formula) throws CheckerException {
+		if (!formula.isLinear())
+			throw new CheckerException("Formula " + formula + " is not an LTL formula");
+
+		TemporalFormula negated = normalize(formula, true);
+		automaton = BuchiAutomaton.of(negated);
+		monitor = new PastMonitor(graph, negated);
+		conditions = automaton.getAcceptance().size() + fairness.size();
+
+		literals = new ArrayList<>();
+		for (int node = 0; node < automaton.size(); node++)
+			literals.add(automaton.getLiterals(node));
+
+		List<Product> initial = new ArrayList<>();
+		BitSet states = graph.getInitial();
+		for (int s = states.nextSetBit(0); s >= 0; s = states.nextSetBit(s + 1)) {
+			long past = monitor.initial(s);
+			for (int node : automaton.getInitial())
+				if (consistent(node, s, past))
+					initial.add(new Product(s, node, 0, past));
+		}
+
+		return search(initial);
+	}
+
+	/**
+	 * Searches for an accepting cycle with a nested depth-first search.
+	 */
+	private List<Integer> search(List<Product> initial) {
+		Set<Product> outer = new HashSet<>(), inner = new HashSet<>();
+		Set<Product> onStack = new HashSet<>();
+		Deque<Frame> stack = new ArrayDeque<>();
+
+		for (Product start : initial) {
+			if (!outer.add(start))
+				continue;
+
+			stack.push(new Frame(start, successors(start)));
+			onStack.add(start);
+
+			while (!stack.isEmpty()) {
+				Frame frame = stack.peek();
+
+				if (frame.next < frame.successors.size()) {
+					Product next = frame.successors.get(frame.next++);
+					if (outer.add(next)) {
+						stack.push(new Frame(next, successors(next)));
+						onStack.add(next);
+					}
+					continue;
+				}
+
+				if (isAccepting(frame.product)) {
+					List<Product> cycle = cycle(frame.product, onStack, inner);
+					if (cycle != null)
+						return lasso(stack, cycle);
+				}
+
+				stack.pop();
+				onStack.remove(frame.product);
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Searches for a path from the given accepting product State to a product State on the outer stack.
+	 */
+	private List<Product> cycle(Product seed, Set<Product> onStack, Set<Product> inner) {
+		Map<Product, Product> parent = new HashMap<>();
+		Deque<Product> pending = new ArrayDeque<>();
+		pending.push(seed);
+
+		while (!pending.isEmpty()) {
+			Product product = pending.pop();
+
+			for (Product next : successors(product)) {
+				if (onStack.contains(next)) {
+					List<Product> path = new ArrayList<>();
+					path.add(next);
+					for (Product p = product; p != seed; p = parent.get(p))
+						path.add(0, p);
+					return path;
+				}
+
+				if (inner.add(next)) {
+					parent.put(next, product);
+					pending.push(next);
+				}
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns the States along the outer stack, followed by the given cycle back onto the stack.
+	 */
+	private List<Integer> lasso(Deque<Frame> stack, List<Product> cycle) {
+		List<Integer> path = new ArrayList<>();
+
+		Iterator<Frame> frames = stack.descendingIterator();
+		while (frames.hasNext())
+			path.add(frames.next().product.state);
+		for (Product product : cycle)
+			path.add(product.state);
+
+		return path;
+	}
+
+	private List<Product> successors(Product product) {
+		int[] offsets = graph.getNextOffsets(), next = graph.getNextIndices();
+		int counter = (conditions > 0 && satisfies(product, product.counter) ? (product.counter + 1) % conditions : product.counter);
+		List<Product> successors = new ArrayList<>();
+
+		for (int k = offsets[product.state]; k < offsets[product.state + 1]; k++) {
+			int s = next[k];
+			long past = monitor.next(s, product.past);
+			for (int node : automaton.getSuccessors(product.node))
+				if (consistent(node, s, past))
+					successors.add(new Product(s, node, counter, past));
+		}
+
+		return successors;
+	}
+
+	private boolean isAccepting(Product product) {
+		return conditions == 0 || (product.counter == 0 && satisfies(product, 0));
+	}
+
+	private boolean satisfies(Product product, int condition) {
+		List<BitSet> acceptance = automaton.getAcceptance();
+		return (condition < acceptance.size() ? acceptance.get(condition).get(product.node) : fairness.get(condition - acceptance.size()).get(product.state));
+	}
+
+	private boolean consistent(int node, int state, long past) {
+		for (TemporalFormula literal : literals.get(node))
+			if (!monitor.holds(literal, state, past))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Returns the (negated) formula in negation normal form over AND, OR, X, U, and V, treating past subformulas as
+	 * literals.
+	 */
+	private static TemporalFormula normalize(TemporalFormula formula, boolean negate) {
+		TemporalFormula left = formula.getLeft(), right = formula.getRight();
+
+		switch (formula.getOperator()) {
+			case TRUE:
+				return negate ? TemporalFormula.FALSE : TemporalFormula.TRUE;
+			case FALSE:
+				return negate ? TemporalFormula.TRUE : TemporalFormula.FALSE;
+			case NOT:
+				return normalize(left, !negate);
+			case AND:
+				return TemporalFormula.binary(negate ? TemporalOperator.OR : TemporalOperator.AND, normalize(left, negate), normalize(right, negate));
+			case OR:
+				return TemporalFormula.binary(negate ? TemporalOperator.AND : TemporalOperator.OR, normalize(left, negate), normalize(right, negate));
+			case IMPLIES:
+				return TemporalFormula.binary(negate ? TemporalOperator.AND : TemporalOperator.OR, normalize(left, !negate), normalize(right, negate));
+			case IFF:
+				return TemporalFormula.binary(TemporalOperator.OR,
+						TemporalFormula.binary(TemporalOperator.AND, normalize(left, false), normalize(right, negate)),
+						TemporalFormula.binary(TemporalOperator.AND, normalize(left, true), normalize(right, !negate)));
+			case X:
+				return TemporalFormula.unary(TemporalOperator.X, normalize(left, negate));
+			case F:
+				return TemporalFormula.binary(negate ? TemporalOperator.V : TemporalOperator.U, negate ? TemporalFormula.FALSE : TemporalFormula.TRUE, normalize(left, negate));
+			case G:
+				return TemporalFormula.binary(negate ? TemporalOperator.U : TemporalOperator.V, negate ? TemporalFormula.TRUE : TemporalFormula.FALSE, normalize(left, negate));
+			case U:
+				return TemporalFormula.binary(negate ? TemporalOperator.V : TemporalOperator.U, normalize(left, negate), normalize(right, negate));
+			case V:
+				return TemporalFormula.binary(negate ? TemporalOperator.U : TemporalOperator.V, normalize(left, negate), normalize(right, negate));
+			default:
+				return negate ? TemporalFormula.not(formula) : formula;
+		}
+	}
+}
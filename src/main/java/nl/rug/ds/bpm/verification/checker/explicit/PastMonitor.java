@@ -0,0 +1,154 @@
+package nl.rug.ds.bpm.verification.checker.explicit;
+
+import nl.rug.ds.bpm.util.exception.CheckerException;
+import nl.rug.ds.bpm.verification.checker.formula.TemporalFormula;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class that evaluates the propositional and past subformulas of an LTL formula along a path.
+ * <p>
+ * The values of past subformulas only depend on the current State and their values in the previous step. They are
+ * therefore tracked as a bit vector that is updated deterministically with each step, and can be evaluated as
+ * literals by a BuchiAutomaton.
+ * </p>
+ */
+public class PastMonitor {
+	private static final int MAXIMUM = Long.SIZE;
+
+	private final StateGraph graph;
+	private final List<TemporalFormula> slots;
+	private final Map<TemporalFormula, Integer> index;
+
+	/**
+	 * Creates a PastMonitor for the past subformulas of the given formula.
+	 *
+	 * @param graph   the StateGraph to evaluate on.
+	 * @param formula the LTL formula.
+	 * @throws CheckerException when a past operator is applied to a future formula, or there are too many past subformulas.
+	 */
+	public PastMonitor(StateGraph graph, TemporalFormula formula) throws CheckerException {
+		this.graph = graph;
+		slots = new ArrayList<>();
+		index = new HashMap<>();
+
+		collect(formula, false);
+
+		if (slots.size() > MAXIMUM)
+			throw new CheckerException("Too many past subformulas in " + formula);
+	}
+
+	/**
+	 * Returns the values of the past subformulas in the given initial State.
+	 *
+	 * @param state the index of the initial State.
+	 * @return the values of the past subformulas.
+	 */
+	public long initial(int state) {
+		return step(state, 0L, true);
+	}
+
+	/**
+	 * Returns the values of the past subformulas in the given State, reached from a State with the given values.
+	 *
+	 * @param state    the index of the State.
+	 * @param previous the values of the past subformulas in the previous State.
+	 * @return the values of the past subformulas.
+	 */
+	public long next(int state, long previous) {
+		return step(state, previous, false);
+	}
+
+	/**
+	 * Returns true iff the given propositional formula, which may contain past subformulas, holds.
+	 *
+	 * @param formula the formula.
+	 * @param state   the index of the State.
+	 * @param values  the values of the past subformulas in the State.
+	 * @return true iff the formula holds.
+	 */
+	public boolean holds(TemporalFormula formula, int state, long values) {
+		switch (formula.getOperator()) {
+			case TRUE:
+				return true;
+			case FALSE:
+				return false;
+			case ATOM:
+				return graph.getLabel(formula.getAtom()).get(state);
+			case NOT:
+				return !holds(formula.getLeft(), state, values);
+			case AND:
+				return holds(formula.getLeft(), state, values) && holds(formula.getRight(), state, values);
+			case OR:
+				return holds(formula.getLeft(), state, values) || holds(formula.getRight(), state, values);
+			case IMPLIES:
+				return !holds(formula.getLeft(), state, values) || holds(formula.getRight(), state, values);
+			case IFF:
+				return holds(formula.getLeft(), state, values) == holds(formula.getRight(), state, values);
+			default:
+				return bit(values, index.get(formula));
+		}
+	}
+
+	private long step(int state, long previous, boolean initial) {
+		long values = 0L;
+
+		for (int i = 0; i < slots.size(); i++) {
+			TemporalFormula formula = slots.get(i);
+			boolean value;
+
+			switch (formula.getOperator()) {
+				case Y:
+					value = !initial && bit(previous, index.get(formula.getLeft()));
+					break;
+				case O:
+					value = bit(values, index.get(formula.getLeft())) || (!initial && bit(previous, i));
+					break;
+				case H:
+					value = bit(values, index.get(formula.getLeft())) && (initial || bit(previous, i));
+					break;
+				default:
+					value = holds(formula, state, values);
+			}
+
+			if (value)
+				values |= 1L << i;
+		}
+
+		return values;
+	}
+
+	/**
+	 * Adds the past subformulas of the given formula, and their operands, such that operands precede their operators.
+	 */
+	private void collect(TemporalFormula formula, boolean past) throws CheckerException {
+		boolean pastOperator = formula.getOperator().isPast();
+
+		if (past && !formula.getOperator().isPropositional() && !pastOperator)
+			throw new CheckerException("Future operator within past operator in " + formula);
+
+		if (formula.getLeft() != null)
+			collect(formula.getLeft(), past || pastOperator);
+		if (formula.getRight() != null)
+			collect(formula.getRight(), past || pastOperator);
+
+		if (pastOperator) {
+			slot(formula.getLeft());
+			slot(formula);
+		}
+	}
+
+	private void slot(TemporalFormula formula) {
+		if (!index.containsKey(formula)) {
+			index.put(formula, slots.size());
+			slots.add(formula);
+		}
+	}
+
+	private static boolean bit(long values, int i) {
+		return (values & (1L << i)) != 0;
+	}
+}
@@ -0,0 +1,198 @@
+package nl.rug.ds.bpm.verification.checker.explicit;
+
+import nl.rug.ds.bpm.verification.model.State;
+import nl.rug.ds.bpm.verification.model.Structure;
+import nl.rug.ds.bpm.verification.model.generic.AbstractStructure;
+import nl.rug.ds.bpm.verification.model.generic.CompressedRelation;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable index based view of a Structure used by in-process model checkers.
+ * <p>
+ * States are numbered from 0 to the number of States. Next and previous States are stored in compressed sparse row
+ * format, and the States in which an atomic proposition holds as a BitSet. The compressed relation of a frozen
+ * Structure is used as is.
+ * </p>
+ */
+public class StateGraph {
+	private final State<?>[] states;
+	private final int[] nextOffsets, nextIndices;
+	private final int[] previousOffsets, previousIndices;
+	private final BitSet initial;
+	private final Map<String, BitSet> labels;
+
+	private StateGraph(State<?>[] states, int[] nextOffsets, int[] nextIndices, int[] previousOffsets, int[] previousIndices, BitSet initial) {
+		this.states = states;
+		this.nextOffsets = nextOffsets;
+		this.nextIndices = nextIndices;
+		this.previousOffsets = previousOffsets;
+		this.previousIndices = previousIndices;
+		this.initial = initial;
+
+		labels = new HashMap<>();
+		for (int i = 0; i < states.length; i++)
+			for (String ap : states[i].getAtomicPropositions())
+				labels.computeIfAbsent(ap, k -> new BitSet(states.length)).set(i);
+	}
+
+	/**
+	 * Creates a StateGraph of the given Structure.
+	 *
+	 * @param structure the Structure.
+	 * @return the StateGraph.
+	 */
+	public static StateGraph of(Structure<? extends State<?>> structure) {
+		CompressedRelation<?> relation = (structure instanceof AbstractStructure<?> ? ((AbstractStructure<?>) structure).getRelation() : null);
+
+		State<?>[] states;
+		int[] nextOffsets, nextIndices, previousOffsets, previousIndices;
+		Map<State<?>, Integer> index = new IdentityHashMap<>();
+
+		if (relation != null) {
+			states = new State<?>[relation.size()];
+			for (int i = 0; i < states.length; i++) {
+				states[i] = relation.getState(i);
+				index.put(states[i], i);
+			}
+
+			nextOffsets = relation.getNextOffsets();
+			nextIndices = relation.getNextIndices();
+			previousOffsets = relation.getPreviousOffsets();
+			previousIndices = relation.getPreviousIndices();
+		} else {
+			states = structure.getStates().toArray(new State<?>[0]);
+			for (int i = 0; i < states.length; i++)
+				index.put(states[i], i);
+
+			nextOffsets = new int[states.length + 1];
+			int[] inDegree = new int[states.length];
+			int count = 0;
+			for (int i = 0; i < states.length; i++) {
+				for (Object next : states[i].getNextStates()) {
+					Integer j = index.get(next);
+					if (j != null) {
+						inDegree[j]++;
+						count++;
+					}
+				}
+				nextOffsets[i + 1] = count;
+			}
+
+			nextIndices = new int[count];
+			previousOffsets = new int[states.length + 1];
+			for (int i = 0; i < states.length; i++)
+				previousOffsets[i + 1] = previousOffsets[i] + inDegree[i];
+
+			previousIndices = new int[count];
+			int[] fill = new int[states.length];
+			int k = 0;
+			for (int i = 0; i < states.length; i++) {
+				for (Object next : states[i].getNextStates()) {
+					Integer j = index.get(next);
+					if (j != null) {
+						nextIndices[k++] = j;
+						previousIndices[previousOffsets[j] + fill[j]++] = i;
+					}
+				}
+			}
+		}
+
+		BitSet initial = new BitSet(states.length);
+		for (State<?> s : structure.getInitial()) {
+			Integer i = index.get(s);
+			if (i != null)
+				initial.set(i);
+		}
+
+		return new StateGraph(states, nextOffsets, nextIndices, previousOffsets, previousIndices, initial);
+	}
+
+	/**
+	 * Returns the number of States.
+	 *
+	 * @return the number of States.
+	 */
+	public int size() {
+		return states.length;
+	}
+
+	/**
+	 * Returns the State at the given index.
+	 *
+	 * @param index the index.
+	 * @return the State.
+	 */
+	public State<?> getState(int index) {
+		return states[index];
+	}
+
+	/**
+	 * Returns the offsets of the next States of each State into getNextIndices().
+	 *
+	 * @return the offsets, of length size() + 1.
+	 */
+	public int[] getNextOffsets() {
+		return nextOffsets;
+	}
+
+	/**
+	 * Returns the indices of the next States of all States.
+	 *
+	 * @return the indices of the next States.
+	 */
+	public int[] getNextIndices() {
+		return nextIndices;
+	}
+
+	/**
+	 * Returns the offsets of the previous States of each State into getPreviousIndices().
+	 *
+	 * @return the offsets, of length size() + 1.
+	 */
+	public int[] getPreviousOffsets() {
+		return previousOffsets;
+	}
+
+	/**
+	 * Returns the indices of the previous States of all States.
+	 *
+	 * @return the indices of the previous States.
+	 */
+	public int[] getPreviousIndices() {
+		return previousIndices;
+	}
+
+	/**
+	 * Returns the initial States. The returned set must not be modified.
+	 *
+	 * @return the initial States.
+	 */
+	public BitSet getInitial() {
+		return initial;
+	}
+
+	/**
+	 * Returns the States in which the given atomic proposition holds. The returned set must not be modified.
+	 *
+	 * @param ap the atomic proposition.
+	 * @return the States in which the atomic proposition holds.
+	 */
+	public BitSet getLabel(String ap) {
+		BitSet label = labels.get(ap);
+		return (label == null ? new BitSet() : label);
+	}
+
+	/**
+	 * Returns the atomic propositions that hold in some State.
+	 *
+	 * @return the atomic propositions.
+	 */
+	public Set<String> getAtomicPropositions() {
+		return labels.keySet();
+	}
+}
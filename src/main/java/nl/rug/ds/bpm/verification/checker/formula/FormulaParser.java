@@ -0,0 +1,198 @@
+package nl.rug.ds.bpm.verification.checker.formula;
+
+import nl.rug.ds.bpm.util.exception.FormulaException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class that parses CTL and LTL formulas in the NuSMV2 input syntax into TemporalFormulas.
+ * <p>
+ * Operators bind, from weakest to strongest: {@code <->}, {@code ->} (right associative), {@code |}, {@code &},
+ * the binary LTL operators {@code U} and {@code V} (right associative), and the unary operators {@code !}, {@code AX},
+ * {@code EX}, {@code AF}, {@code EF}, {@code AG}, {@code EG}, {@code X}, {@code F}, {@code G}, {@code Y}, {@code O},
+ * and {@code H}. Until in CTL is written as {@code A [ p U q ]} or {@code E [ p U q ]}.
+ * </p>
+ */
+public class FormulaParser {
+	private static final Map<String, TemporalOperator> UNARY = Map.ofEntries(
+			Map.entry("AX", TemporalOperator.AX),
+			Map.entry("EX", TemporalOperator.EX),
+			Map.entry("AF", TemporalOperator.AF),
+			Map.entry("EF", TemporalOperator.EF),
+			Map.entry("AG", TemporalOperator.AG),
+			Map.entry("EG", TemporalOperator.EG),
+			Map.entry("X", TemporalOperator.X),
+			Map.entry("F", TemporalOperator.F),
+			Map.entry("G", TemporalOperator.G),
+			Map.entry("Y", TemporalOperator.Y),
+			Map.entry("O", TemporalOperator.O),
+			Map.entry("H", TemporalOperator.H));
+
+	private final String input;
+	private final List<String> tokens;
+	private int position;
+
+	private FormulaParser(String input) throws FormulaException {
+		this.input = input;
+		tokens = tokenize(input);
+		position = 0;
+	}
+
+	/**
+	 * Parses the given formula.
+	 *
+	 * @param formula the formula in the NuSMV2 input syntax.
+	 * @return the parsed TemporalFormula.
+	 * @throws FormulaException when the formula is malformed.
+	 */
+	public static TemporalFormula parse(String formula) throws FormulaException {
+		FormulaParser parser = new FormulaParser(formula);
+		TemporalFormula parsed = parser.parseIff();
+
+		if (parser.position < parser.tokens.size())
+			throw parser.error("Unexpected " + parser.tokens.get(parser.position));
+
+		return parsed;
+	}
+
+	private TemporalFormula parseIff() throws FormulaException {
+		TemporalFormula left = parseImplies();
+		while (accept("<->"))
+			left = TemporalFormula.binary(TemporalOperator.IFF, left, parseImplies());
+		return left;
+	}
+
+	private TemporalFormula parseImplies() throws FormulaException {
+		TemporalFormula left = parseOr();
+		if (accept("->"))
+			return TemporalFormula.binary(TemporalOperator.IMPLIES, left, parseImplies());
+		return left;
+	}
+
+	private TemporalFormula parseOr() throws FormulaException {
+		TemporalFormula left = parseAnd();
+		while (accept("|"))
+			left = TemporalFormula.binary(TemporalOperator.OR, left, parseAnd());
+		return left;
+	}
+
+	private TemporalFormula parseAnd() throws FormulaException {
+		TemporalFormula left = parseUntil();
+		while (accept("&"))
+			left = TemporalFormula.binary(TemporalOperator.AND, left, parseUntil());
+		return left;
+	}
+
+	private TemporalFormula parseUntil() throws FormulaException {
+		TemporalFormula left = parseUnary();
+		if (accept("U"))
+			return TemporalFormula.binary(TemporalOperator.U, left, parseUntil());
+		if (accept("V"))
+			return TemporalFormula.binary(TemporalOperator.V, left, parseUntil());
+		return left;
+	}
+
+	private TemporalFormula parseUnary() throws FormulaException {
+		if (accept("!"))
+			return TemporalFormula.unary(TemporalOperator.NOT, parseUnary());
+
+		TemporalOperator operator = UNARY.get(peek());
+		if (operator != null) {
+			position++;
+			return TemporalFormula.unary(operator, parseUnary());
+		}
+
+		return parsePrimary();
+	}
+
+	private TemporalFormula parsePrimary() throws FormulaException {
+		String token = next();
+
+		if (token.equals("(")) {
+			TemporalFormula inner = parseIff();
+			expect(")");
+			return inner;
+		}
+
+		if (token.equalsIgnoreCase("TRUE"))
+			return TemporalFormula.TRUE;
+		if (token.equalsIgnoreCase("FALSE"))
+			return TemporalFormula.FALSE;
+
+		if ((token.equals("A") || token.equals("E")) && accept("[")) {
+			TemporalFormula inner = parseIff();
+			expect("]");
+
+			if (inner.getOperator() != TemporalOperator.U)
+				throw error("Expected until within " + token + " [ ]");
+
+			return TemporalFormula.binary(token.equals("A") ? TemporalOperator.AU : TemporalOperator.EU, inner.getLeft(), inner.getRight());
+		}
+
+		if (!Character.isLetter(token.charAt(0)) && token.charAt(0) != '_')
+			throw error("Unexpected " + token);
+		if (UNARY.containsKey(token) || token.equals("U") || token.equals("V"))
+			throw error("Missing operand of " + token);
+
+		return TemporalFormula.atom(token);
+	}
+
+	private String peek() {
+		return (position < tokens.size() ? tokens.get(position) : "");
+	}
+
+	private String next() throws FormulaException {
+		if (position >= tokens.size())
+			throw error("Unexpected end");
+		return tokens.get(position++);
+	}
+
+	private boolean accept(String token) {
+		if (peek().equals(token)) {
+			position++;
+			return true;
+		}
+		return false;
+	}
+
+	private void expect(String token) throws FormulaException {
+		if (!accept(token))
+			throw error("Expected " + token);
+	}
+
+	private FormulaException error(String message) {
+		return new FormulaException(message + " at token " + position + " in formula " + input);
+	}
+
+	private static List<String> tokenize(String input) throws FormulaException {
+		List<String> tokens = new ArrayList<>();
+		int i = 0;
+
+		while (i < input.length()) {
+			char c = input.charAt(i);
+
+			if (Character.isWhitespace(c))
+				i++;
+			else if (input.startsWith("<->", i)) {
+				tokens.add("<->");
+				i += 3;
+			} else if (input.startsWith("->", i)) {
+				tokens.add("->");
+				i += 2;
+			} else if ("!&|()[]".indexOf(c) >= 0) {
+				tokens.add(String.valueOf(c));
+				i++;
+			} else if (Character.isLetterOrDigit(c) || c == '_') {
+				int start = i;
+				while (i < input.length() && (Character.isLetterOrDigit(input.charAt(i)) || "_$#.".indexOf(input.charAt(i)) >= 0))
+					i++;
+				tokens.add(input.substring(start, i));
+			} else
+				throw new FormulaException("Unexpected character " + c + " in formula " + input);
+		}
+
+		return tokens;
+	}
+}
@@ -0,0 +1,245 @@
+package nl.rug.ds.bpm.verification.checker.formula;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+/**
+ * Immutable syntax tree of a temporal (CTL or LTL) formula over atomic propositions.
+ */
+public class TemporalFormula {
+	public static final TemporalFormula TRUE = new TemporalFormula(TemporalOperator.TRUE, null, null, null);
+	public static final TemporalFormula FALSE = new TemporalFormula(TemporalOperator.FALSE, null, null, null);
+
+	private final TemporalOperator operator;
+	private final String atom;
+	private final TemporalFormula left, right;
+	private final int hash;
+
+	private TemporalFormula(TemporalOperator operator, String atom, TemporalFormula left, TemporalFormula right) {
+		this.operator = operator;
+		this.atom = atom;
+		this.left = left;
+		this.right = right;
+		hash = Objects.hash(operator, atom, left, right);
+	}
+
+	/**
+	 * Creates a formula that holds iff the given atomic proposition holds.
+	 *
+	 * @param atom the atomic proposition.
+	 * @return the formula.
+	 */
+	public static TemporalFormula atom(String atom) {
+		return new TemporalFormula(TemporalOperator.ATOM, atom, null, null);
+	}
+
+	/**
+	 * Creates a formula with the given unary operator.
+	 *
+	 * @param operator the unary operator.
+	 * @param operand  the operand.
+	 * @return the formula.
+	 */
+	public static TemporalFormula unary(TemporalOperator operator, TemporalFormula operand) {
+		if (operator.getArity() != 1)
+			throw new IllegalArgumentException("Operator " + operator + " is not unary");
+
+		return new TemporalFormula(operator, null, operand, null);
+	}
+
+	/**
+	 * Creates a formula with the given binary operator.
+	 *
+	 * @param operator the binary operator.
+	 * @param left     the left operand.
+	 * @param right    the right operand.
+	 * @return the formula.
+	 */
+	public static TemporalFormula binary(TemporalOperator operator, TemporalFormula left, TemporalFormula right) {
+		if (operator.getArity() != 2)
+			throw new IllegalArgumentException("Operator " + operator + " is not binary");
+
+		return new TemporalFormula(operator, null, left, right);
+	}
+
+	/**
+	 * Creates the negation of the given formula, removing a double negation.
+	 *
+	 * @param operand the formula.
+	 * @return the negation.
+	 */
+	public static TemporalFormula not(TemporalFormula operand) {
+		if (operand.operator == TemporalOperator.NOT)
+			return operand.left;
+		if (operand == TRUE)
+			return FALSE;
+		if (operand == FALSE)
+			return TRUE;
+
+		return unary(TemporalOperator.NOT, operand);
+	}
+
+	/**
+	 * Returns the negation of this CTL formula, with negations pushed inwards through propositional and universal
+	 * operators, such that the negation of a universal formula is an existential formula where possible.
+	 *
+	 * @return the negation.
+	 */
+	public TemporalFormula negate() {
+		switch (operator) {
+			case NOT:
+				return left;
+			case AND:
+				return binary(TemporalOperator.OR, left.negate(), right.negate());
+			case OR:
+				return binary(TemporalOperator.AND, left.negate(), right.negate());
+			case IMPLIES:
+				return binary(TemporalOperator.AND, left, right.negate());
+			case AX:
+				return unary(TemporalOperator.EX, left.negate());
+			case AF:
+				return unary(TemporalOperator.EG, left.negate());
+			case AG:
+				return unary(TemporalOperator.EF, left.negate());
+			case AU: {
+				TemporalFormula notRight = right.negate();
+				return binary(TemporalOperator.OR,
+						binary(TemporalOperator.EU, notRight, binary(TemporalOperator.AND, left.negate(), notRight)),
+						unary(TemporalOperator.EG, notRight));
+			}
+			default:
+				return not(this);
+		}
+	}
+
+	/**
+	 * Returns the operator of this formula.
+	 *
+	 * @return the operator.
+	 */
+	public TemporalOperator getOperator() {
+		return operator;
+	}
+
+	/**
+	 * Returns the atomic proposition of this formula, if its operator is ATOM.
+	 *
+	 * @return the atomic proposition, or null.
+	 */
+	public String getAtom() {
+		return atom;
+	}
+
+	/**
+	 * Returns the (left) operand of this formula.
+	 *
+	 * @return the (left) operand, or null.
+	 */
+	public TemporalFormula getLeft() {
+		return left;
+	}
+
+	/**
+	 * Returns the right operand of this formula.
+	 *
+	 * @return the right operand, or null.
+	 */
+	public TemporalFormula getRight() {
+		return right;
+	}
+
+	/**
+	 * Returns true iff this formula and its operands only use propositional and CTL operators.
+	 *
+	 * @return true iff this formula is a CTL formula.
+	 */
+	public boolean isBranching() {
+		return (operator.isPropositional() || operator.isBranching()) && operands(TemporalFormula::isBranching);
+	}
+
+	/**
+	 * Returns true iff this formula and its operands only use propositional and LTL operators.
+	 *
+	 * @return true iff this formula is an LTL formula.
+	 */
+	public boolean isLinear() {
+		return !operator.isBranching() && operands(TemporalFormula::isLinear);
+	}
+
+	/**
+	 * Returns true iff this formula contains no temporal operators.
+	 *
+	 * @return true iff this formula is propositional.
+	 */
+	public boolean isPropositional() {
+		return operator.isPropositional() && operands(TemporalFormula::isPropositional);
+	}
+
+	/**
+	 * Returns the atomic propositions used in this formula.
+	 *
+	 * @return the atomic propositions used in this formula.
+	 */
+	public Set<String> getAtoms() {
+		Set<String> atoms = new TreeSet<>();
+		collectAtoms(atoms);
+		return atoms;
+	}
+
+	private void collectAtoms(Set<String> atoms) {
+		if (atom != null)
+			atoms.add(atom);
+		if (left != null)
+			left.collectAtoms(atoms);
+		if (right != null)
+			right.collectAtoms(atoms);
+	}
+
+	private boolean operands(Predicate<TemporalFormula> predicate) {
+		return (left == null || predicate.test(left)) && (right == null || predicate.test(right));
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (!(o instanceof TemporalFormula))
+			return false;
+
+		TemporalFormula other = (TemporalFormula) o;
+		return hash == other.hash && operator == other.operator && Objects.equals(atom, other.atom) && Objects.equals(left, other.left) && Objects.equals(right, other.right);
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	/**
+	 * Returns this formula in the NuSMV2 input syntax.
+	 *
+	 * @return this formula in the NuSMV2 input syntax.
+	 */
+	@Override
+	public String toString() {
+		switch (operator) {
+			case TRUE:
+			case FALSE:
+				return operator.getSymbol();
+			case ATOM:
+				return atom;
+			case NOT:
+				return "!" + left;
+			case AU:
+				return "A [" + left + " U " + right + "]";
+			case EU:
+				return "E [" + left + " U " + right + "]";
+			default:
+				if (operator.getArity() == 1)
+					return operator.getSymbol() + " (" + left + ")";
+				return "(" + left + " " + operator.getSymbol() + " " + right + ")";
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package nl.rug.ds.bpm.verification.checker.formula;
+
+/**
+ * Operators of temporal formulas in the NuSMV2 input syntax.
+ */
+public enum TemporalOperator {
+	TRUE("TRUE", 0),
+	FALSE("FALSE", 0),
+	ATOM("", 0),
+	NOT("!", 1),
+	AND("&", 2),
+	OR("|", 2),
+	IMPLIES("->", 2),
+	IFF("<->", 2),
+
+	AX("AX", 1),
+	EX("EX", 1),
+	AF("AF", 1),
+	EF("EF", 1),
+	AG("AG", 1),
+	EG("EG", 1),
+	AU("U", 2),
+	EU("U", 2),
+
+	X("X", 1),
+	F("F", 1),
+	G("G", 1),
+	U("U", 2),
+	V("V", 2),
+
+	Y("Y", 1),
+	O("O", 1),
+	H("H", 1);
+
+	private final String symbol;
+	private final int arity;
+
+	TemporalOperator(String symbol, int arity) {
+		this.symbol = symbol;
+		this.arity = arity;
+	}
+
+	/**
+	 * Returns the symbol of this operator.
+	 *
+	 * @return the symbol of this operator.
+	 */
+	public String getSymbol() {
+		return symbol;
+	}
+
+	/**
+	 * Returns the number of operands of this operator.
+	 *
+	 * @return the number of operands of this operator.
+	 */
+	public int getArity() {
+		return arity;
+	}
+
+	/**
+	 * Returns true iff this operator is a propositional operator or constant.
+	 *
+	 * @return true iff this operator is a propositional operator or constant.
+	 */
+	public boolean isPropositional() {
+		return ordinal() <= IFF.ordinal();
+	}
+
+	/**
+	 * Returns true iff this operator is a CTL path quantified operator.
+	 *
+	 * @return true iff this operator is a CTL path quantified operator.
+	 */
+	public boolean isBranching() {
+		return ordinal() >= AX.ordinal() && ordinal() <= EU.ordinal();
+	}
+
+	/**
+	 * Returns true iff this operator is an LTL future operator.
+	 *
+	 * @return true iff this operator is an LTL future operator.
+	 */
+	public boolean isLinear() {
+		return ordinal() >= X.ordinal() && ordinal() <= V.ordinal();
+	}
+
+	/**
+	 * Returns true iff this operator is an LTL past operator.
+	 *
+	 * @return true iff this operator is an LTL past operator.
+	 */
+	public boolean isPast() {
+		return ordinal() >= Y.ordinal();
+	}
+}
@@ -9,14 +9,23 @@ import nl.rug.ds.bpm.util.log.LogEvent;
 import nl.rug.ds.bpm.util.log.Logger;
 import nl.rug.ds.bpm.verification.checker.Checker;
 import nl.rug.ds.bpm.verification.checker.CheckerFormula;
+import nl.rug.ds.bpm.verification.checker.CheckerStreamReader;
 import nl.rug.ds.bpm.verification.event.VerificationEvent;
 import nl.rug.ds.bpm.verification.map.AtomicPropositionMap;
 import nl.rug.ds.bpm.verification.model.State;
 import nl.rug.ds.bpm.verification.model.Structure;
 
-import java.io.*;
+import java.io.File;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -27,8 +36,14 @@ public class NuSMVChecker extends Checker {
 	protected final static Pattern regexSpecificationResultLine = Pattern.compile("^\\s*--\\s*specification\\s*(.*)\\s+is\\s(true|false)$");
 	protected final static Pattern regexSpecificationCounterExampleStateLine = Pattern.compile("^\\s+state\\s=\\s(.*)\\s*$");
 	protected final static Pattern regexSpecificationCounterExampleAPLine = Pattern.compile("^\\s+(.*)\\s=\\s(FALSE|TRUE)\\s*$");
+	protected final static Pattern regexSpecificationCounterExampleHeaderLine = Pattern.compile("^\\s*->\\s*State:.*<-\\s*$");
 
+	protected final static Pattern regexWhitespace = Pattern.compile("\\s+");
+
+	protected NuSMVEncoding encoding = NuSMVEncoding.ENUMERATED;
 	private File file;
+	private Map<String, Deque<CheckerFormula>> formulaIndex;
+	private final Set<CheckerFormula> matched = Collections.newSetFromMap(new IdentityHashMap<>());
 
 	/**
 	 * Creates a NuSMV2 model checker.
@@ -39,11 +54,30 @@ public class NuSMVChecker extends Checker {
 		super(checker);
 	}
 
+	/**
+	 * Returns the encoding used to write models.
+	 *
+	 * @return the encoding.
+	 */
+	public NuSMVEncoding getEncoding() {
+		return encoding;
+	}
+
+	/**
+	 * Sets the encoding used to write models.
+	 *
+	 * @param encoding the encoding.
+	 */
+	public void setEncoding(NuSMVEncoding encoding) {
+		this.encoding = encoding;
+	}
+
 	@Override
 	public void addFormula(Formula formula, Specification specification, AtomicPropositionMap<CompositeExpression> atomicPropositionMap) {
 		try {
 			NuSMVFormula nuSMVFormula = new NuSMVFormula(formula, specification, atomicPropositionMap);
 			formulas.add(nuSMVFormula);
+			formulaIndex = null;
 			Logger.log("Including specification " + specification.getId() + " with the formula " + nuSMVFormula.getInputFormula(), LogEvent.VERBOSE);
 		} catch (FormulaException e) {
 			Logger.log("Failed to include specification " + specification.getId(), LogEvent.ERROR);
@@ -54,9 +88,9 @@ public class NuSMVChecker extends Checker {
 	public void createModel(Structure<? extends State<?>> structure) throws CheckerException {
 		NuSMVFileWriter fileWriter;
 		if (out == null)
-			fileWriter = new NuSMVFileWriter(structure, formulas, id);
+			fileWriter = new NuSMVFileWriter(structure, formulas, id, encoding);
 		else
-			fileWriter = new NuSMVFileWriter(structure, formulas, id, out);
+			fileWriter = new NuSMVFileWriter(structure, formulas, id, out, encoding);
 
 		file = fileWriter.getFile();
 		inputChecker.append(fileWriter.getContents());
@@ -64,87 +98,88 @@ public class NuSMVChecker extends Checker {
 
 	@Override
 	public List<VerificationEvent> checkModel() throws CheckerException {
-		List<VerificationEvent> results;
+		List<VerificationEvent> results = new ArrayList<>();
+		StringBuilder errors = new StringBuilder();
+		VerificationEvent[] event = new VerificationEvent[1];
+		Process proc = null;
+
 		try {
-			Process proc = Runtime.getRuntime().exec(executable.getAbsoluteFile() + " " + file.getAbsolutePath());
+			proc = Runtime.getRuntime().exec(executable.getAbsoluteFile() + " " + file.getAbsolutePath());
 
-			results = parseResults(proc);
+			CheckerStreamReader stdout = new CheckerStreamReader(proc.getInputStream(), line -> {
+				Logger.log(line, LogEvent.DEBUG);
+				event[0] = parseLine(line, event[0], results);
+			});
+			CheckerStreamReader stderr = new CheckerStreamReader(proc.getErrorStream(), line -> errors.append(line).append("\n"));
 
-			List<String> errors = getErrors(proc);
-			for (String line : errors)
-				outputChecker.append(line + "\n");
+			if (!waitFor(proc)) {
+				proc.destroyForcibly();
+				throw new CheckerException("NuSMV2 did not finish within " + timeout + " ms");
+			}
 
-			proc.waitFor();
-			proc.destroy();
+			stdout.join();
+			stderr.join();
+			publish(event[0]);
+			outputChecker.append(errors);
+		} catch (CheckerException e) {
+			throw e;
 		} catch (Exception e) {
-			e.printStackTrace();
+			Logger.log("Failed to call NuSMV2: " + e.getMessage(), LogEvent.ERROR);
 			throw new CheckerException("Failed to call NuSMV2:");
+		} finally {
+			if (proc != null)
+				proc.destroy();
+			removeMatchedFormulas();
 		}
 
 		return results;
 	}
 
 	/**
-	 * Reads and returns the error stream of the given process.
+	 * Waits for the given process to finish, or until the timeout expires.
 	 *
-	 * @param proc the process for which to read the error stream.
-	 * @return a list of lines read.
-	 * @throws IOException when reading the error stream fails.
+	 * @param proc the process.
+	 * @return true iff the process finished.
+	 * @throws InterruptedException when interrupted while waiting.
 	 */
-	private List<String> getErrors(Process proc) throws IOException {
-		List<String> results = new ArrayList<>();
-
-		String line = null;
-		//errorstream
-		InputStream stderr = proc.getErrorStream();
-		InputStreamReader isr = new InputStreamReader(stderr);
-		BufferedReader br = new BufferedReader(isr);
-		while ((line = br.readLine()) != null) {
-			results.add(line);
-		}
-		br.close();
+	private boolean waitFor(Process proc) throws InterruptedException {
+		if (timeout > 0)
+			return proc.waitFor(timeout, TimeUnit.MILLISECONDS);
 
-		return results;
+		proc.waitFor();
+		return true;
 	}
 
 	/**
-	 * Reads and parses the results returned by the model checker.
+	 * Parses a line of output of the model checker. Publishes the event of a true result at once, as it has no counter
+	 * example, and the event of a false result once the next result starts, as its counter example is then complete.
 	 *
-	 * @param proc the process from which to read the results.
-	 * @return a list of events that describe the results of verification.
-	 * @throws IOException when reading the results fails.
+	 * @param line    the line.
+	 * @param event   the event of the result that is currently parsed, or null.
+	 * @param results the list of results to add new results to.
+	 * @return the event of the result that is currently parsed, or null.
 	 */
-	private List<VerificationEvent> parseResults(Process proc) throws IOException {
-		List<VerificationEvent> results = new ArrayList<>();
-		VerificationEvent event = null;
-
-		//inputStream
-		String line = null;
-		InputStream stdin = proc.getInputStream();
-		InputStreamReader in = new InputStreamReader(stdin);
-		BufferedReader bir = new BufferedReader(in);
-
-		while ((line = bir.readLine()) != null) {
-			Logger.log(line, LogEvent.DEBUG);
-
-			Matcher regexSpecificationResultLineMatcher = regexSpecificationResultLine.matcher(line);
-			Matcher regexSpecificationCounterExampleStateLineMatcher = regexSpecificationCounterExampleStateLine.matcher(line);
-			Matcher regexSpecificationCounterExampleAPLineMatcher = regexSpecificationCounterExampleAPLine.matcher(line);
-
-			if (regexSpecificationResultLineMatcher.matches()) {
-				event = createResult(regexSpecificationResultLineMatcher.group(1), regexSpecificationResultLineMatcher.group(2));
-				results.add(event);
-			} else if (regexSpecificationCounterExampleStateLineMatcher.matches()) {
-				addCounterExampleState(event);
-			} else if (regexSpecificationCounterExampleAPLineMatcher.matches()) {
-				setCounterExampleStateAP(event, regexSpecificationCounterExampleAPLineMatcher.group(1), regexSpecificationCounterExampleAPLineMatcher.group(2));
+	protected VerificationEvent parseLine(String line, VerificationEvent event, List<VerificationEvent> results) {
+		Matcher regexSpecificationResultLineMatcher = regexSpecificationResultLine.matcher(line);
+		Matcher regexSpecificationCounterExampleAPLineMatcher = regexSpecificationCounterExampleAPLine.matcher(line);
+
+		if (regexSpecificationResultLineMatcher.matches()) {
+			publish(event);
+			event = createResult(regexSpecificationResultLineMatcher.group(1), regexSpecificationResultLineMatcher.group(2));
+			results.add(event);
+
+			if (event.getVerificationResult()) {
+				publish(event);
+				event = null;
 			}
+		} else if (encoding == NuSMVEncoding.BINARY ? regexSpecificationCounterExampleHeaderLine.matcher(line).matches() : regexSpecificationCounterExampleStateLine.matcher(line).matches()) {
+			addCounterExampleState(event);
+		} else if (regexSpecificationCounterExampleAPLineMatcher.matches()) {
+			if (encoding != NuSMVEncoding.BINARY || !regexSpecificationCounterExampleAPLineMatcher.group(1).trim().startsWith(NuSMVEncoding.BIT_PREFIX))
+				setCounterExampleStateAP(event, regexSpecificationCounterExampleAPLineMatcher.group(1), regexSpecificationCounterExampleAPLineMatcher.group(2));
 		}
 
-		bir.close();
-		in.close();
-
-		return results;
+		return event;
 	}
 
 	/**
@@ -158,7 +193,7 @@ public class NuSMVChecker extends Checker {
 		VerificationEvent event = new VerificationEvent(parseFormula(formula), Boolean.parseBoolean(result));
 
 		if (event.getFormula() != null)
-			formulas.remove(event.getFormula());
+			matched.add(event.getFormula());
 
 		return event;
 	}
@@ -202,12 +237,44 @@ public class NuSMVChecker extends Checker {
 	}
 
 	/**
-	 * Matches and returns the first CheckerFormula that equals the given formula in String format.
+	 * Matches and returns the first unmatched CheckerFormula that equals the given formula in String format, ignoring
+	 * differences in whitespace. Formulas are looked up in an index by their normalized output formula, such that
+	 * matching all results is linear in the number of formulas. Equal formulas are matched in order of addition.
 	 *
 	 * @param formula the given formula in String format.
-	 * @return the first CheckerFormula that equals the given formula in String format, or null.
+	 * @return the first unmatched CheckerFormula that equals the given formula in String format, or null.
 	 */
 	protected CheckerFormula parseFormula(String formula) {
-		return formulas.stream().filter(f -> f.equals(formula.trim())).findFirst().orElse(null);
+		if (formulaIndex == null) {
+			formulaIndex = new HashMap<>();
+			for (CheckerFormula checkerFormula : formulas)
+				if (!matched.contains(checkerFormula))
+					formulaIndex.computeIfAbsent(normalize(checkerFormula.getOutputFormula()), k -> new ArrayDeque<>()).add(checkerFormula);
+		}
+
+		Deque<CheckerFormula> candidates = formulaIndex.get(normalize(formula));
+		return (candidates == null ? null : candidates.poll());
+	}
+
+	/**
+	 * Removes the CheckerFormulas for which a result was parsed from the formulas of this checker.
+	 */
+	protected void removeMatchedFormulas() {
+		if (!matched.isEmpty())
+			formulas.removeIf(matched::contains);
+
+		matched.clear();
+		formulaIndex = null;
+	}
+
+	/**
+	 * Returns the given formula with all whitespace removed, as NuSMV2 prints formulas with its own spacing, such as a
+	 * space between an operator and an opening parenthesis.
+	 *
+	 * @param formula the formula.
+	 * @return the normalized formula.
+	 */
+	protected static String normalize(String formula) {
+		return regexWhitespace.matcher(formula).replaceAll("");
 	}
 }
@@ -0,0 +1,23 @@
+package nl.rug.ds.bpm.verification.checker.nusmv2;
+
+/**
+ * Encodings of a Structure into a NuSMV2 model.
+ */
+public enum NuSMVEncoding {
+	/**
+	 * A single enumerated state variable, an atomic proposition definition per state disjunction, and a next state
+	 * case per state.
+	 */
+	ENUMERATED,
+
+	/**
+	 * A binary encoded state index over boolean variables, atomic proposition definitions as boolean functions of the
+	 * index bits, and a TRANS relation grouped by sets of next states. Builds faster for large Structures.
+	 */
+	BINARY;
+
+	/**
+	 * The prefix of the boolean variables that encode the state index in the BINARY encoding.
+	 */
+	public static final String BIT_PREFIX = "bit";
+}
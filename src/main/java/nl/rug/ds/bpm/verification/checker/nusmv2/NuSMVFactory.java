@@ -9,13 +9,36 @@ import java.io.File;
  * Created by Heerko Groefsema on 09-Jun-17.
  */
 public class NuSMVFactory extends CheckerFactory {
+	private NuSMVEncoding encoding = NuSMVEncoding.ENUMERATED;
 	
 	public NuSMVFactory(File executable) {
 		super(executable);
 	}
 	
+	/**
+	 * Returns the encoding used by created Checkers to write models.
+	 *
+	 * @return the encoding.
+	 */
+	public NuSMVEncoding getEncoding() {
+		return encoding;
+	}
+
+	/**
+	 * Sets the encoding used by created Checkers to write models. The BINARY encoding builds faster for large
+	 * structures.
+	 *
+	 * @param encoding the encoding.
+	 */
+	public void setEncoding(NuSMVEncoding encoding) {
+		this.encoding = encoding;
+	}
+
 	@Override
 	public Checker getChecker() {
-		return new NuSMVChecker(executable);
+		NuSMVChecker checker = new NuSMVChecker(executable);
+		checker.setEncoding(encoding);
+		checker.setTimeout(timeout);
+		return checker;
 	}
 }
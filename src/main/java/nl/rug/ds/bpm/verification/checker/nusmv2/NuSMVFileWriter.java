@@ -1,20 +1,48 @@
 package nl.rug.ds.bpm.verification.checker.nusmv2;
 
 import nl.rug.ds.bpm.util.exception.CheckerException;
+import nl.rug.ds.bpm.util.log.LogEvent;
+import nl.rug.ds.bpm.util.log.Logger;
 import nl.rug.ds.bpm.verification.checker.CheckerFormula;
 import nl.rug.ds.bpm.verification.model.State;
 import nl.rug.ds.bpm.verification.model.Structure;
+import nl.rug.ds.bpm.verification.model.generic.AbstractStructure;
+import nl.rug.ds.bpm.verification.model.generic.CompressedRelation;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeSet;
+
+/**
+ * Class that writes a Structure and formulas to a NuSMV2 input file.
+ * <p>
+ * The model is streamed to the file, and is only kept in memory when debug logging is enabled.
+ * The Structure is written using either the ENUMERATED or the BINARY NuSMVEncoding.
+ * </p>
+ */
 public class NuSMVFileWriter {
+	private static final int BUFFER_SIZE = 1 << 16;
+
 	private File file;
-	private String contents;
+	private NuSMVEncoding encoding = NuSMVEncoding.ENUMERATED;
+	private Writer writer;
+	private StringBuilder contents;
 
 	public NuSMVFileWriter(Structure<? extends State<?>> structure, List<CheckerFormula> formulas, int id) throws CheckerException {
 		try {
@@ -30,128 +58,294 @@ public class NuSMVFileWriter {
 		create(structure, formulas, id);
 	}
 
+	public NuSMVFileWriter(Structure<? extends State<?>> structure, List<CheckerFormula> formulas, int id, NuSMVEncoding encoding) throws CheckerException {
+		try {
+			file = File.createTempFile("model" + id, ".smv");
+		} catch (IOException e) {
+			throw new CheckerException("Failed to write to file" + file.toString());
+		}
+		this.encoding = encoding;
+		create(structure, formulas, id);
+	}
+
+	public NuSMVFileWriter(Structure<? extends State<?>> structure, List<CheckerFormula> formulas, int id, File outputLocation, NuSMVEncoding encoding) throws CheckerException {
+		file = new File(outputLocation, "model" + id + ".smv");
+		this.encoding = encoding;
+		create(structure, formulas, id);
+	}
+
 	public File getFile() {
 		return file;
 	}
 
+	/**
+	 * Returns the contents of the written file, if debug logging was enabled while writing.
+	 *
+	 * @return the contents, or an empty String if the contents were not kept.
+	 */
 	public String getContents() {
-		return contents;
+		return (contents == null ? "" : contents.toString());
 	}
 
 	private void create(Structure<? extends State<?>> structure, List<CheckerFormula> formulas, int id) throws CheckerException {
-		StringBuilder sb = new StringBuilder();
-
-		sb.append("MODULE main\n");
-		sb.append(convertVAR(structure));
-		sb.append(convertDEFINE(structure));
-		sb.append(convertASSIGN(structure));
-		sb.append(convertFORMULAS(formulas));
-
-		contents = sb.toString();
-
-		try {
-			if (file.length() > 0) {
-				file.delete();
-				file.createNewFile();
+		if (Logger.getLogLevel() <= LogEvent.DEBUG)
+			contents = new StringBuilder();
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+			 Writer out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+			writer = out;
+
+			write("MODULE main\n");
+			if (encoding == NuSMVEncoding.BINARY)
+				convertBINARY(structure);
+			else {
+				convertVAR(structure);
+				convertDEFINE(structure);
+				convertASSIGN(structure);
 			}
+			convertFORMULAS(formulas);
+			write("\n");
 		} catch (IOException e) {
-			throw new CheckerException("Failed to overwrite file" +  file.toString());
+			throw new CheckerException("Failed to write to file" + file.toString());
+		} finally {
+			writer = null;
 		}
+	}
 
-
-		try {
-			PrintWriter writer = new PrintWriter(file);
-			writer.println(contents);
-			writer.flush();
-			writer.close();
-		} catch (IOException e) {
-			throw new CheckerException("Failed to write to file" +  file.toString());
-		}
+	private void write(String s) throws IOException {
+		writer.write(s);
+		if (contents != null)
+			contents.append(s);
 	}
 
-	private String convertVAR(Structure<? extends State<?>> structure) {
-		StringBuilder v = new StringBuilder("\tVAR\n\t\t state:{");
+	private void convertVAR(Structure<? extends State<?>> structure) throws IOException {
+		write("\tVAR\n\t\t state:{");
 
 		Iterator<? extends State<?>> i = structure.getStates().iterator();
 		while (i.hasNext()) {
-			v.append(i.next().getId());
-			if (i.hasNext()) v.append(",");
+			write(i.next().getId());
+			if (i.hasNext()) write(",");
 		}
 
-		v.append("}; \n");
-
-		return v.toString();
+		write("}; \n");
 	}
 
-	private String convertDEFINE(Structure<? extends State<?>> structure) {
-		StringBuilder d = new StringBuilder("\tDEFINE\n");
+	private void convertDEFINE(Structure<? extends State<?>> structure) throws IOException {
+		write("\tDEFINE\n");
 
-		Iterator<String> i = structure.getAtomicPropositions().iterator();
-		while (i.hasNext()) {
-			String ap = i.next();
-			d.append("\t\t " + ap + " := ");
+		Map<String, List<State<?>>> index = indexStates(structure);
+
+		for (String ap : structure.getAtomicPropositions()) {
+			write("\t\t " + ap + " := ");
 
-			Iterator<State<?>> j = findStates(structure, ap).iterator();
+			Iterator<State<?>> j = index.getOrDefault(ap, List.of()).iterator();
 			while (j.hasNext()) {
-				State<?> s = j.next();
-				d.append("( state = " + s.getId() + " )");
-				if (j.hasNext()) d.append(" | ");
+				write("( state = " + j.next().getId() + " )");
+				if (j.hasNext()) write(" | ");
 			}
-			d.append(";\n");
+			write(";\n");
 		}
-
-		return d.toString();
 	}
 
-	private String convertASSIGN(Structure<? extends State<?>> structure) throws CheckerException {
-		StringBuilder a = new StringBuilder("\tASSIGN\n\t\tinit(state) := {");
-
+	private void convertASSIGN(Structure<? extends State<?>> structure) throws CheckerException, IOException {
 		//Safety
 		for (State<?> s : structure.getSinkStates()) {
 			if (s.getNextStates().isEmpty())
 				throw new CheckerException("State without next");
 		}
 
+		write("\tASSIGN\n\t\tinit(state) := {");
+
 		Iterator<? extends State<?>> i = structure.getInitial().iterator();
 		while (i.hasNext()) {
-			a.append(i.next().getId());
-			if (i.hasNext()) a.append(",");
+			write(i.next().getId());
+			if (i.hasNext()) write(",");
 		}
-		a.append("};\n");
+		write("};\n");
+
+		write("\t\tnext(state) := \n\t\t\tcase\n");
 
-		a.append("\t\tnext(state) := \n\t\t\tcase\n");
-		for (State<?> s : structure.getStates()) {
-			a.append("\t\t\t\tstate = " + s.getId() + " : {");
+		CompressedRelation<?> relation = (structure instanceof AbstractStructure<?> ? ((AbstractStructure<?>) structure).getRelation() : null);
+		if (relation != null)
+			convertNEXT(relation);
+		else
+			for (State<?> s : structure.getStates()) {
+				write("\t\t\t\tstate = " + s.getId() + " : {");
 
-			Iterator<? extends State<?>> k = s.getNextStates().iterator();
-			if (k.hasNext())
+				Iterator<? extends State<?>> k = s.getNextStates().iterator();
 				while (k.hasNext()) {
-					a.append(k.next().getId());
-					if (k.hasNext()) a.append(",");
+					write(k.next().getId());
+					if (k.hasNext()) write(",");
 				}
-			a.append("};\n");
+				write("};\n");
+			}
+
+		write("\t\t\tesac;\n");
+	}
+
+	private void convertNEXT(CompressedRelation<?> relation) throws IOException {
+		int[] offsets = relation.getNextOffsets();
+		int[] next = relation.getNextIndices();
+
+		for (int i = 0; i < relation.size(); i++) {
+			write("\t\t\t\tstate = " + relation.getState(i).getId() + " : {");
+			for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+				write(relation.getState(next[k]).getId());
+				if (k + 1 < offsets[i + 1]) write(",");
+			}
+			write("};\n");
+		}
+	}
+
+	/**
+	 * Writes the given structure using the BINARY encoding. States are numbered such that states with equal atomic
+	 * propositions are adjacent, and each set of state numbers is written as a disjunction of aligned cubes over the
+	 * state bits. Unused state numbers are unreachable, and therefore serve as don't cares in atomic proposition
+	 * definitions and transition conditions, but never in initial or next states.
+	 *
+	 * @param structure the structure.
+	 * @throws CheckerException when the structure contains a state without next states.
+	 * @throws IOException when writing fails.
+	 */
+	private void convertBINARY(Structure<? extends State<?>> structure) throws CheckerException, IOException {
+		//Safety
+		for (State<?> s : structure.getSinkStates()) {
+			if (s.getNextStates().isEmpty())
+				throw new CheckerException("State without next");
 		}
 
-		a.append("\t\t\tesac;\n");
+		// Sorted by label rather than by its hash code, as labels with equal hash codes would otherwise interleave
+		Map<State<?>, String> labels = new IdentityHashMap<>();
+		for (State<?> s : structure.getStates())
+			labels.put(s, String.join(",", new TreeSet<>(s.getAtomicPropositions())));
+
+		List<State<?>> states = new ArrayList<>(structure.getStates());
+		states.sort(Comparator.comparing(labels::get));
+
+		Map<State<?>, Integer> index = new IdentityHashMap<>();
+		for (State<?> s : states)
+			index.put(s, index.size());
+
+		int n = states.size();
+		int bits = (n <= 1 ? 1 : 32 - Integer.numberOfLeadingZeros(n - 1));
+
+		write("\tVAR\n");
+		for (int b = 0; b < bits; b++)
+			write("\t\t " + NuSMVEncoding.BIT_PREFIX + b + " : boolean;\n");
+
+		write("\tDEFINE\n");
+		Map<String, List<State<?>>> apIndex = indexStates(structure);
+		for (String ap : structure.getAtomicPropositions())
+			write("\t\t " + ap + " := " + cubes(codes(apIndex.getOrDefault(ap, List.of()), index), n, bits, true, false) + ";\n");
+
+		write("\tINIT\n\t\t" + cubes(codes(structure.getInitial(), index), n, bits, false, false) + ";\n");
+
+		Map<List<Integer>, List<State<?>>> groups = new LinkedHashMap<>();
+		for (State<?> s : states) {
+			List<Integer> next = new ArrayList<>();
+			for (int code : codes(s.getNextStates(), index))
+				next.add(code);
+			groups.computeIfAbsent(next, k -> new ArrayList<>()).add(s);
+		}
 
-		return a.toString();
+		write("\tTRANS\n\t\tcase\n");
+		for (Map.Entry<List<Integer>, List<State<?>>> group : groups.entrySet()) {
+			int[] next = group.getKey().stream().mapToInt(Integer::intValue).toArray();
+			write("\t\t\t" + cubes(codes(group.getValue(), index), n, bits, true, false) + " : " + cubes(next, n, bits, false, true) + ";\n");
+		}
+		write("\t\t\tTRUE : FALSE;\n\t\tesac;\n");
 	}
 
-	private String convertFORMULAS(List<CheckerFormula> formulas) {
-		StringBuilder f = new StringBuilder();
-		for (CheckerFormula formula : formulas) {
-			f.append(formula.getCheckerFormula() + "\n");
+	private int[] codes(Iterable<? extends State<?>> states, Map<State<?>, Integer> index) {
+		int[] codes = new int[16];
+		int size = 0;
+
+		for (State<?> s : states) {
+			Integer code = index.get(s);
+			if (code != null) {
+				if (size == codes.length)
+					codes = Arrays.copyOf(codes, size * 2);
+				codes[size++] = code;
+			}
+		}
+
+		codes = Arrays.copyOf(codes, size);
+		Arrays.sort(codes);
+		return codes;
+	}
+
+	/**
+	 * Returns a disjunction of aligned cubes over the state bits that covers exactly the given sorted state numbers,
+	 * and optionally any unused state number.
+	 *
+	 * @param codes     the sorted state numbers.
+	 * @param n         the number of used state numbers.
+	 * @param bits      the number of state bits.
+	 * @param dontCare  whether unused state numbers may be covered.
+	 * @param next      whether the cubes range over the next state bits.
+	 * @return the boolean expression.
+	 */
+	public static String cubes(int[] codes, int n, int bits, boolean dontCare, boolean next) {
+		if (codes.length == 0)
+			return "FALSE";
+
+		StringJoiner or = new StringJoiner(" | ");
+		int i = 0;
+		while (i < codes.length) {
+			int j = i;
+			while (j + 1 < codes.length && codes[j + 1] == codes[j] + 1)
+				j++;
+
+			int start = codes[i];
+			int end = (dontCare && codes[j] + 1 == n ? 1 << bits : codes[j] + 1);
+
+			while (start < end) {
+				int size = Integer.highestOneBit(end - start);
+				if (start != 0)
+					size = Math.min(size, Integer.lowestOneBit(start));
+
+				or.add(cube(start, Integer.numberOfTrailingZeros(size), bits, next));
+				start += size;
+			}
+
+			i = j + 1;
 		}
-		return f.toString();
+
+		return or.toString();
+	}
+
+	private static String cube(int start, int free, int bits, boolean next) {
+		if (free >= bits)
+			return "TRUE";
+
+		StringJoiner and = new StringJoiner(" & ", "(", ")");
+		for (int b = bits - 1; b >= free; b--) {
+			String bit = (next ? "next(" + NuSMVEncoding.BIT_PREFIX + b + ")" : NuSMVEncoding.BIT_PREFIX + b);
+			and.add(((start >> b) & 1) == 1 ? bit : "!" + bit);
+		}
+
+		return and.toString();
+	}
+
+	private void convertFORMULAS(List<CheckerFormula> formulas) throws IOException {
+		for (CheckerFormula formula : formulas)
+			write(formula.getCheckerFormula() + "\n");
 	}
 
-	private List<State<?>> findStates(Structure<? extends State<?>> structure, String ap) {
-		List<State<?>> sub = new ArrayList<>(structure.getStates().size() / structure.getAtomicPropositions().size());
+	/**
+	 * Builds an inverted index from each atomic proposition to the states in which it holds, in a single pass over
+	 * the states of the given structure.
+	 *
+	 * @param structure the structure.
+	 * @return a map from atomic propositions to states.
+	 */
+	private Map<String, List<State<?>>> indexStates(Structure<? extends State<?>> structure) {
+		Map<String, List<State<?>>> index = new HashMap<>();
 
 		for (State<?> s : structure.getStates())
-			if (s.getAtomicPropositions().contains(ap))
-				sub.add(s);
+			for (String ap : s.getAtomicPropositions())
+				index.computeIfAbsent(ap, k -> new ArrayList<>()).add(s);
 
-		return sub;
+		return index;
 	}
 }
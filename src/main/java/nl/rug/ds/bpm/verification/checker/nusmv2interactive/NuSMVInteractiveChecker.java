@@ -13,16 +13,21 @@ import nl.rug.ds.bpm.verification.model.Structure;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
  * Class used to call the NuSMV2 model checker interactively and parse its results.
  */
 public class NuSMVInteractiveChecker extends NuSMVChecker {
+	private static final String PROBE = "bpm-probe";
+	private static final long PROBE_TIMEOUT = 5000;
+
 	private File file;
 	private final Process proc;
 	private final NuSMVScanner scanner;
+	private int uses;
+	private boolean failed;
 
 	/**
 	 * Creates an interactive NuSMV2 model checker.
@@ -40,14 +45,67 @@ public class NuSMVInteractiveChecker extends NuSMVChecker {
 		}
 	}
 
+	/**
+	 * Returns the number of times this checker checked a model.
+	 *
+	 * @return the number of uses.
+	 */
+	public int getUses() {
+		return uses;
+	}
+
+	/**
+	 * Returns whether the last check of a model failed.
+	 *
+	 * @return true iff the last check failed.
+	 */
+	public boolean hasFailed() {
+		return failed;
+	}
+
+	/**
+	 * Returns whether the NuSMV2 process is still running and responsive as far as known, without communicating.
+	 *
+	 * @return true iff the process is alive.
+	 */
+	public boolean isAlive() {
+		return scanner.isAlive();
+	}
+
+	/**
+	 * Probes the NuSMV2 process by letting it echo a token.
+	 *
+	 * @return true iff the process echoed the token in time.
+	 */
+	public boolean probe() {
+		if (!scanner.isAlive())
+			return false;
+
+		boolean echoed = false;
+		scanner.setTimeout(PROBE_TIMEOUT);
+		try {
+			scanner.writeln("echo " + PROBE);
+			while (scanner.hasNext())
+				echoed |= scanner.next().trim().equals(PROBE);
+		} catch (CheckerException e) {
+			Logger.log("NuSMV2 process failed probe: " + e.getMessage(), LogEvent.WARNING);
+		}
+		// Discards the errors up to the probe, such that the next check starts clean
+		scanner.getErrors();
+		echoed &= scanner.isAlive();
+
+		if (echoed)
+			failed = false;
+		return echoed;
+	}
+
 	@Override
 	public void destroy() {
 		try {
-			scanner.writeln("quit");
 			scanner.close();
 
-			proc.waitFor();
-			proc.destroy();
+			if (!proc.waitFor(1, TimeUnit.SECONDS))
+				proc.destroyForcibly();
 		} catch (Exception e) {
 			Logger.log("Failed to stop checker process", LogEvent.ERROR);
 		}
@@ -62,9 +120,9 @@ public class NuSMVInteractiveChecker extends NuSMVChecker {
 
         NuSMVFileWriter fileWriter;
         if (out == null)
-            fileWriter = new NuSMVFileWriter(structure, formulaList, id);
+            fileWriter = new NuSMVFileWriter(structure, formulaList, id, encoding);
         else
-            fileWriter = new NuSMVFileWriter(structure, formulaList, id, out);
+            fileWriter = new NuSMVFileWriter(structure, formulaList, id, out, encoding);
 
 		file = fileWriter.getFile();
 		inputChecker.append(fileWriter.getContents());
@@ -73,6 +131,9 @@ public class NuSMVInteractiveChecker extends NuSMVChecker {
 	@Override
 	public List<VerificationEvent> checkModel() throws CheckerException {
 		List<VerificationEvent> results = new ArrayList<>();
+		scanner.setTimeout(timeout);
+		uses++;
+		failed = true;
 		try {
 			Logger.log("Writing reset", LogEvent.DEBUG);
 			scanner.writeln("reset");
@@ -95,29 +156,19 @@ public class NuSMVInteractiveChecker extends NuSMVChecker {
 				while (scanner.hasNext()) {
 					line = scanner.next();
 					Logger.log(line, LogEvent.DEBUG);
-
-					Matcher regexSpecificationResultLineMatcher = regexSpecificationResultLine.matcher(line);
-					Matcher regexSpecificationCounterExampleStateLineMatcher = regexSpecificationCounterExampleStateLine.matcher(line);
-					Matcher regexSpecificationCounterExampleAPLineMatcher = regexSpecificationCounterExampleAPLine.matcher(line);
-
-					if (regexSpecificationResultLineMatcher.matches()) {
-						event = createResult(regexSpecificationResultLineMatcher.group(1), regexSpecificationResultLineMatcher.group(2));
-						results.add(event);
-					} else if (regexSpecificationCounterExampleStateLineMatcher.matches()) {
-						addCounterExampleState(event);
-					} else if (regexSpecificationCounterExampleAPLineMatcher.matches()) {
-						setCounterExampleStateAP(event, regexSpecificationCounterExampleAPLineMatcher.group(1), regexSpecificationCounterExampleAPLineMatcher.group(2));
-					}
+					event = parseLine(line, event, results);
 				}
+				publish(event);
 			}
 
-
+			failed = false;
 		} catch (Exception e) {
 			while (scanner.hasNext())
 				outputChecker.append(scanner.next()).append("\n");
-			e.printStackTrace();
+			Logger.log("Failed to call NuSMV2: " + e.getMessage(), LogEvent.ERROR);
 			throw new CheckerException("Failed to call NuSMV2:\n" + outputChecker);
 		} finally {
+			removeMatchedFormulas();
 			for (String line : scanner.getErrors()) {
 				String trimmed = line.trim().strip();
 				if (!trimmed.isEmpty())
@@ -1,56 +1,406 @@
 package nl.rug.ds.bpm.verification.checker.nusmv2interactive;
 
 import nl.rug.ds.bpm.util.exception.CheckerException;
+import nl.rug.ds.bpm.util.log.LogEvent;
+import nl.rug.ds.bpm.util.log.Logger;
 import nl.rug.ds.bpm.verification.checker.Checker;
 import nl.rug.ds.bpm.verification.checker.CheckerFactory;
+import nl.rug.ds.bpm.verification.checker.nusmv2.NuSMVEncoding;
 
 import java.io.File;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
+ * Factory that provides interactive NuSMV2 checkers from a pool of running NuSMV2 processes.
+ * <p>
+ * The pool keeps at least a minimum number of processes running, spawning them ahead of demand, and starts at most a
+ * maximum number of processes, beyond which getChecker waits for a release. Released checkers are retired instead of
+ * reused when their process died, when they reached the maximum number of uses, or when their last check failed and
+ * they do not answer a probe. Optionally, a maintenance task periodically retires processes that were idle for too
+ * long, probes the remaining idle processes one at a time, and replaces retired processes to maintain the minimum size.
+ * Once destroyed, the factory no longer provides checkers.
+ * </p>
  * Created by Heerko Groefsema on 09-Jun-17.
  */
 public class NuSMVInteractiveFactory extends CheckerFactory {
-	private List<Checker> checkerPool;
-	
+	private final Deque<Idle> idle;
+	private final ScheduledExecutorService maintenance;
+	private ScheduledFuture<?> maintenanceTask;
+	private NuSMVEncoding encoding = NuSMVEncoding.ENUMERATED;
+
+	private int size;
+	private int minSize = 0;
+	private int maxSize = Integer.MAX_VALUE;
+	private int maxUses = 0;
+	private long idleTimeout = 0;
+	private boolean destroyed;
+
+	/**
+	 * An idle checker, together with the time it was released.
+	 */
+	private static class Idle {
+		private final NuSMVInteractiveChecker checker;
+		private final long since;
+
+		private Idle(NuSMVInteractiveChecker checker) {
+			this.checker = checker;
+			since = System.currentTimeMillis();
+		}
+	}
+
 	public NuSMVInteractiveFactory(File executable) {
 		super(executable);
-		checkerPool = new ArrayList<>();
+		idle = new ArrayDeque<>();
+		maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "bpm-checker-pool");
+			thread.setDaemon(true);
+			return thread;
+		});
 	}
 
 	public NuSMVInteractiveFactory(File executable, int poolSize) {
 		this(executable);
+		minSize = poolSize;
+		warm();
+	}
 
-		while (checkerPool.size() < poolSize) {
-			try {
-				checkerPool.add(new NuSMVInteractiveChecker(executable));
-			} catch (CheckerException e) {
-				e.printStackTrace();
-			}
-		}
+	/**
+	 * Returns the encoding used by created Checkers to write models.
+	 *
+	 * @return the encoding.
+	 */
+	public synchronized NuSMVEncoding getEncoding() {
+		return encoding;
+	}
+
+	/**
+	 * Sets the encoding used by created Checkers to write models. The BINARY encoding builds faster for large
+	 * structures.
+	 *
+	 * @param encoding the encoding.
+	 */
+	public synchronized void setEncoding(NuSMVEncoding encoding) {
+		this.encoding = encoding;
+	}
+
+	/**
+	 * Returns the minimum number of processes kept running.
+	 *
+	 * @return the minimum number of processes.
+	 */
+	public synchronized int getMinSize() {
+		return minSize;
+	}
+
+	/**
+	 * Sets the minimum number of processes kept running, and spawns processes in the background to reach it.
+	 *
+	 * @param minSize the minimum number of processes.
+	 */
+	public synchronized void setMinSize(int minSize) {
+		if (minSize < 0 || minSize > maxSize)
+			throw new IllegalArgumentException("Minimum size must be between 0 and the maximum size");
+
+		this.minSize = minSize;
+		scheduleWarm();
+	}
+
+	/**
+	 * Returns the maximum number of processes running at the same time.
+	 *
+	 * @return the maximum number of processes.
+	 */
+	public synchronized int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Sets the maximum number of processes running at the same time. When all are in use, getChecker waits until a
+	 * checker is released. Should therefore be at least the concurrency of Verifiers using this factory.
+	 *
+	 * @param maxSize the maximum number of processes.
+	 */
+	public synchronized void setMaxSize(int maxSize) {
+		if (maxSize < 1 || maxSize < minSize)
+			throw new IllegalArgumentException("Maximum size must be positive and at least the minimum size");
+
+		this.maxSize = maxSize;
 	}
-	
+
+	/**
+	 * Returns the number of checks after which a process is replaced.
+	 *
+	 * @return the maximum number of uses, or 0 if unlimited.
+	 */
+	public synchronized int getMaxUses() {
+		return maxUses;
+	}
+
+	/**
+	 * Sets the number of checks after which a process is replaced, which bounds the memory a long running process
+	 * accumulates.
+	 *
+	 * @param maxUses the maximum number of uses, or 0 for unlimited.
+	 */
+	public synchronized void setMaxUses(int maxUses) {
+		if (maxUses < 0)
+			throw new IllegalArgumentException("Maximum uses must not be negative");
+
+		this.maxUses = maxUses;
+	}
+
+	/**
+	 * Returns the time after which idle processes beyond the minimum size are stopped.
+	 *
+	 * @return the idle timeout in milliseconds, or 0 if there is none.
+	 */
+	public synchronized long getIdleTimeout() {
+		return idleTimeout;
+	}
+
+	/**
+	 * Sets the time after which idle processes beyond the minimum size are stopped.
+	 *
+	 * @param idleTimeout the idle timeout in milliseconds, or 0 for none.
+	 */
+	public synchronized void setIdleTimeout(long idleTimeout) {
+		if (idleTimeout < 0)
+			throw new IllegalArgumentException("Idle timeout must not be negative");
+
+		this.idleTimeout = idleTimeout;
+	}
+
+	/**
+	 * Schedules maintenance of the pool at the given interval, which evicts processes idle for longer than the idle
+	 * timeout, probes the other idle processes, and spawns processes to reach the minimum size.
+	 *
+	 * @param interval the interval in milliseconds, or 0 to disable maintenance.
+	 */
+	public synchronized void setMaintenanceInterval(long interval) {
+		if (interval < 0)
+			throw new IllegalArgumentException("Maintenance interval must not be negative");
+
+		if (maintenanceTask != null)
+			maintenanceTask.cancel(false);
+		maintenanceTask = (interval == 0 ? null : maintenance.scheduleWithFixedDelay(this::maintain, interval, interval, TimeUnit.MILLISECONDS));
+	}
+
+	/**
+	 * Returns the number of running processes, idle or in use.
+	 *
+	 * @return the number of running processes.
+	 */
+	public synchronized int getSize() {
+		return size;
+	}
+
+	/**
+	 * Obtains an idle checker, or spawns one if the maximum size is not reached, and waits for a release otherwise.
+	 *
+	 * @return the checker, or null if it could not be started, if interrupted, or if this factory was destroyed.
+	 */
 	@Override
-	public synchronized Checker getChecker() {
-		Checker checker = null;
-		try {
-			checker = (checkerPool.size() > 0 ? checkerPool.remove(0) : new NuSMVInteractiveChecker(executable));
-		} catch (CheckerException e) {
-			e.printStackTrace();
+	public Checker getChecker() {
+		NuSMVInteractiveChecker checker = null;
+
+		while (checker == null) {
+			NuSMVInteractiveChecker dead = null;
+			synchronized (this) {
+				if (destroyed) {
+					Logger.log("NuSMV2 checker requested after the pool was destroyed", LogEvent.WARNING);
+					return null;
+				}
+
+				Idle next = idle.pollFirst();
+				if (next != null && !next.checker.isAlive())
+					dead = next.checker;
+				else if (next != null)
+					checker = next.checker;
+				else if (size < maxSize)
+					size++;
+				else {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return null;
+					}
+					continue;
+				}
+			}
+
+			if (dead != null) {
+				retire(dead);
+				continue;
+			}
+
+			if (checker == null) {
+				checker = spawn();
+				if (checker == null) {
+					synchronized (this) {
+						size--;
+						notifyAll();
+					}
+					return null;
+				}
+
+				synchronized (this) {
+					if (destroyed) {
+						size--;
+						notifyAll();
+						checker.destroy();
+						return null;
+					}
+				}
+			}
 		}
+
+		synchronized (this) {
+			checker.setEncoding(encoding);
+			checker.setTimeout(timeout);
+		}
+
+		scheduleWarm();
 		return checker;
 	}
 
 	@Override
-	public synchronized void release(Checker checker) {
-		checkerPool.add(checker);
+	public void release(Checker checker) {
+		NuSMVInteractiveChecker interactiveChecker = (NuSMVInteractiveChecker) checker;
+		interactiveChecker.getFormulas().clear();
+
+		boolean healthy = interactiveChecker.isAlive() && (!interactiveChecker.hasFailed() || interactiveChecker.probe());
+		boolean recycle;
+		synchronized (this) {
+			recycle = !destroyed && healthy && (maxUses == 0 || interactiveChecker.getUses() < maxUses);
+			if (recycle) {
+				idle.addFirst(new Idle(interactiveChecker));
+				notifyAll();
+			}
+		}
+
+		if (!recycle) {
+			Logger.log("Replacing NuSMV2 process after " + interactiveChecker.getUses() + " use(s)" + (healthy ? "" : " as it is unhealthy"), LogEvent.VERBOSE);
+			retire(interactiveChecker);
+			scheduleWarm();
+		}
 	}
 
 	@Override
 	public void destroy() {
-		for (Checker checker: checkerPool)
+		List<NuSMVInteractiveChecker> checkers = new ArrayList<>();
+		synchronized (this) {
+			destroyed = true;
+			for (Idle next : idle)
+				checkers.add(next.checker);
+			idle.clear();
+			size -= checkers.size();
+			notifyAll();
+		}
+
+		maintenance.shutdownNow();
+		for (NuSMVInteractiveChecker checker : checkers)
 			checker.destroy();
-		checkerPool.clear();
+	}
+
+	/**
+	 * Spawns processes until the minimum size is reached.
+	 */
+	private void warm() {
+		while (true) {
+			synchronized (this) {
+				if (destroyed || size >= minSize)
+					return;
+				size++;
+			}
+
+			NuSMVInteractiveChecker checker = spawn();
+			synchronized (this) {
+				if (checker == null || destroyed) {
+					size--;
+					if (checker != null)
+						checker.destroy();
+					return;
+				}
+
+				idle.addLast(new Idle(checker));
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Evicts processes that were idle for too long, probes the remaining idle processes, and spawns processes to reach
+	 * the minimum size. Idle processes are taken from the pool one at a time, such that the others remain available
+	 * while one is probed.
+	 */
+	private void maintain() {
+		List<Idle> checked;
+		synchronized (this) {
+			checked = new ArrayList<>(idle);
+		}
+
+		long now = System.currentTimeMillis();
+		for (Idle next : checked) {
+			boolean evict;
+			synchronized (this) {
+				// Skip processes that were obtained meanwhile
+				if (destroyed || !idle.remove(next))
+					continue;
+				evict = idleTimeout > 0 && now - next.since > idleTimeout && size > minSize;
+			}
+
+			if (evict || !next.checker.probe())
+				retire(next.checker);
+			else {
+				boolean recycle;
+				synchronized (this) {
+					recycle = !destroyed;
+					if (recycle) {
+						idle.addLast(next);
+						notifyAll();
+					}
+				}
+				if (!recycle)
+					retire(next.checker);
+			}
+		}
+
+		warm();
+	}
+
+	private NuSMVInteractiveChecker spawn() {
+		try {
+			return new NuSMVInteractiveChecker(executable);
+		} catch (CheckerException e) {
+			Logger.log("Failed to start NuSMV2 process", LogEvent.ERROR);
+			return null;
+		}
+	}
+
+	/**
+	 * Stops the process of the given checker, which must not be idle.
+	 */
+	private void retire(NuSMVInteractiveChecker checker) {
+		synchronized (this) {
+			size--;
+			notifyAll();
+		}
+		checker.destroy();
+	}
+
+	/**
+	 * Spawns processes in the background if the pool is below its minimum size.
+	 */
+	private synchronized void scheduleWarm() {
+		if (!destroyed && size < minSize)
+			maintenance.execute(this::warm);
 	}
 }
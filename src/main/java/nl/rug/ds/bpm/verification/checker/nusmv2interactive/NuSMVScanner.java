@@ -1,52 +1,148 @@
 package nl.rug.ds.bpm.verification.checker.nusmv2interactive;
 
+import nl.rug.ds.bpm.util.exception.CheckerException;
 import nl.rug.ds.bpm.util.log.LogEvent;
 import nl.rug.ds.bpm.util.log.Logger;
+import nl.rug.ds.bpm.verification.checker.CheckerStreamReader;
 
 import java.io.*;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Scanner;
-
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class that writes commands to an interactive NuSMV2 process, and reads its responses.
+ * <p>
+ * Both output streams of the process are read by dedicated threads. The standard output is split into responses at
+ * each prompt, such that every command written is answered by exactly one response. The error stream is collected
+ * continuously, such that the process never blocks on a full pipe buffer. As the error stream is not split at prompts,
+ * getErrors lets the process echo a marker to it, and returns the lines up to that marker, such that lines written late
+ * are never attributed to a later command.
+ * </p>
+ */
 public class NuSMVScanner {
-	private Process proc;
-	private Scanner inputStream;
-	private PrintStream outputStream;
+	private static final String PROMPT = "NuSMV >";
+	private static final String[] END = new String[0];
+	private static final String MARKER = "bpm-sync-";
+	private static final long POLL = 100;
+
+	private final Process proc;
+	private final PrintStream outputStream;
+	private final BlockingQueue<String[]> responses;
+	private final BlockingQueue<String> errors;
+	private final CheckerStreamReader errorReader;
 	private String[] input;
 	private int index;
-
-	public NuSMVScanner(Process proc) {
+	private long timeout;
+	private int markers;
+	private volatile boolean closed;
+
+	/**
+	 * Creates a NuSMVScanner, and reads the initial response of the given process.
+	 *
+	 * @param proc the interactive NuSMV2 process.
+	 * @throws CheckerException when the process does not respond.
+	 */
+	public NuSMVScanner(Process proc) throws CheckerException {
 		input = new String[0];
 		index = 0;
 
 		this.proc = proc;
+		outputStream = new PrintStream(proc.getOutputStream());
+		responses = new LinkedBlockingQueue<>();
+		errors = new LinkedBlockingQueue<>();
 
-		OutputStream out = proc.getOutputStream();
-		outputStream = new PrintStream(out);
+		Thread reader = new Thread(this::readResponses, "bpm-checker-prompt-reader");
+		reader.setDaemon(true);
+		reader.start();
+		errorReader = new CheckerStreamReader(proc.getErrorStream(), errors::add);
 
-		InputStream stdin = proc.getInputStream();
-		InputStreamReader in = new InputStreamReader(stdin);
-		inputStream = new Scanner(in);
+		read();
+	}
 
-		inputStream.useDelimiter("\\s*NuSMV\\s>");
+	/**
+	 * Sets the maximum time to wait for a response.
+	 *
+	 * @param timeout the timeout in milliseconds, or 0 for none.
+	 */
+	public void setTimeout(long timeout) {
+		this.timeout = timeout;
+	}
 
-		read();
+	/**
+	 * Returns whether the process still accepts commands.
+	 *
+	 * @return true iff the process is alive and has not timed out or stopped.
+	 */
+	public boolean isAlive() {
+		return !closed && proc.isAlive();
 	}
 
-	private void read() {
-		input = inputStream.next().split("\\R");
-		index = 0;
+	/**
+	 * Splits the standard output of the process into responses at each prompt.
+	 */
+	private void readResponses() {
+		StringBuilder response = new StringBuilder();
+
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(proc.getInputStream()))) {
+			int c;
+			while ((c = reader.read()) >= 0) {
+				response.append((char) c);
+
+				if (c == '>' && response.length() >= PROMPT.length() && response.indexOf(PROMPT, response.length() - PROMPT.length()) >= 0) {
+					response.setLength(response.length() - PROMPT.length());
+					responses.add(response.toString().strip().split("\\R"));
+					response.setLength(0);
+				}
+			}
+		} catch (IOException e) {
+			Logger.log("Stopped reading NuSMV2 output: " + e.getMessage(), LogEvent.VERBOSE);
+		}
+
+		closed = true;
+		responses.add(END);
 	}
 
-	public void writeln(String message) {
+	private void read() throws CheckerException {
+		String[] response;
 		try {
-			outputStream.println(message);
-			outputStream.flush();
-			read();
+			response = (timeout > 0 ? responses.poll(timeout, TimeUnit.MILLISECONDS) : responses.take());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CheckerException("Interrupted while waiting for NuSMV2");
+		}
+
+		if (response == null) {
+			// Later responses can no longer be matched to their commands
+			closed = true;
+			proc.destroyForcibly();
+			throw new CheckerException("NuSMV2 did not respond within " + timeout + " ms");
 		}
-		catch (Exception e) {
-			Logger.log("Failed to read NuSMV2 feedback for message " + message, LogEvent.ERROR);
+
+		if (response == END) {
+			responses.add(END);
+			throw new CheckerException("NuSMV2 stopped");
 		}
+
+		input = response;
+		index = 0;
+	}
+
+	/**
+	 * Writes the given command to the process, and reads its response.
+	 *
+	 * @param message the command.
+	 * @throws CheckerException when the process does not respond.
+	 */
+	public void writeln(String message) throws CheckerException {
+		if (closed)
+			throw new CheckerException("NuSMV2 stopped");
+
+		outputStream.println(message);
+		outputStream.flush();
+		read();
 	}
 
 	public boolean hasNext() {
@@ -57,32 +153,71 @@ public class NuSMVScanner {
 		return (input.length > index ? input[index++] : "");
 	}
 
+	/**
+	 * Returns and clears the lines written to the error stream by the commands written so far. Lets the process echo a
+	 * marker to its error stream, and waits until the marker is read. Replaces the current response. When the marker
+	 * is not read in time, the process is stopped, as its later errors can no longer be matched to their commands.
+	 *
+	 * @return the lines written to the error stream.
+	 */
 	public List<String> getErrors() {
 		List<String> results = new ArrayList<>();
 
-		//errorstream
-		InputStream stderr = proc.getErrorStream();
-		InputStreamReader isr = new InputStreamReader(stderr);
-		BufferedReader br = new BufferedReader(isr);
+		String line;
+		if (!closed) {
+			String marker = MARKER + (++markers);
+			try {
+				writeln("echo -2 " + marker);
 
-		try {
-			if (br.ready()) {
-				String line = null;
-				while ((line = br.readLine()) != null) {
+				long deadline = (timeout > 0 ? System.currentTimeMillis() + timeout : 0);
+				while ((line = pollError(deadline)) != null) {
+					if (line.trim().equals(marker))
+						return results;
 					results.add(line);
 				}
+			} catch (CheckerException e) {
+				Logger.log("Failed to synchronize NuSMV2 errors: " + e.getMessage(), LogEvent.VERBOSE);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
 			}
-			br.close();
+
+			closed = true;
+			proc.destroyForcibly();
 		}
-		catch (Exception e) {}
+
+		while ((line = errors.poll()) != null)
+			results.add(line);
 
 		return results;
 	}
 
+	/**
+	 * Waits for the next line of the error stream until the given deadline.
+	 *
+	 * @return the line, or null if the deadline passed or the error stream ended.
+	 */
+	private String pollError(long deadline) throws InterruptedException {
+		while (true) {
+			String line = errors.poll(POLL, TimeUnit.MILLISECONDS);
+			if (line != null)
+				return line;
+			if (!errorReader.isAlive() && errors.isEmpty())
+				return null;
+			if (deadline > 0 && System.currentTimeMillis() >= deadline)
+				return null;
+		}
+	}
+
+	/**
+	 * Asks the process to quit, and closes its input.
+	 */
 	public void close() {
-		writeln("quit");
+		if (!closed) {
+			outputStream.println("quit");
+			outputStream.flush();
+		}
 
+		closed = true;
 		outputStream.close();
-		inputStream.close();
 	}
 }
@@ -2,6 +2,7 @@ package nl.rug.ds.bpm.verification.checker.nuxmv;
 
 import nl.rug.ds.bpm.verification.checker.Checker;
 import nl.rug.ds.bpm.verification.checker.CheckerFactory;
+import nl.rug.ds.bpm.verification.checker.nusmv2.NuSMVEncoding;
 
 import java.io.File;
 
@@ -9,13 +10,36 @@ import java.io.File;
  * Created by Heerko Groefsema on 09-Jun-17.
  */
 public class NuXMVFactory extends CheckerFactory {
+	private NuSMVEncoding encoding = NuSMVEncoding.ENUMERATED;
 	
 	public NuXMVFactory(File executable) {
 		super(executable);
 	}
 	
+	/**
+	 * Returns the encoding used by created Checkers to write models.
+	 *
+	 * @return the encoding.
+	 */
+	public NuSMVEncoding getEncoding() {
+		return encoding;
+	}
+
+	/**
+	 * Sets the encoding used by created Checkers to write models. The BINARY encoding builds faster for large
+	 * structures.
+	 *
+	 * @param encoding the encoding.
+	 */
+	public void setEncoding(NuSMVEncoding encoding) {
+		this.encoding = encoding;
+	}
+
 	@Override
 	public Checker getChecker() {
-		return new NuXMVChecker(executable);
+		NuXMVChecker checker = new NuXMVChecker(executable);
+		checker.setEncoding(encoding);
+		checker.setTimeout(timeout);
+		return checker;
 	}
 }
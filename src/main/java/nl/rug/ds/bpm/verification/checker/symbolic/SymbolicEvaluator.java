@@ -0,0 +1,330 @@
+package nl.rug.ds.bpm.verification.checker.symbolic;
+
+import nl.rug.ds.bpm.util.bdd.BDDManager;
+import nl.rug.ds.bpm.util.exception.CheckerException;
+import nl.rug.ds.bpm.verification.checker.formula.TemporalFormula;
+import nl.rug.ds.bpm.verification.checker.formula.TemporalOperator;
+import nl.rug.ds.bpm.verification.model.symbolic.SymbolicStructure;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Class that evaluates CTL formulas on a frozen SymbolicStructure using symbolic fixpoints.
+ * <p>
+ * Satisfaction sets are BDDs over the current variables of the structure, restricted to its reachable States. Fairness
+ * constraints restrict path quantifiers to paths that satisfy each constraint infinitely often, as in NuSMV2.
+ * Counterexamples are paths of single States, which are found with breadth-first searches over images of the relation.
+ * </p>
+ */
+public class SymbolicEvaluator {
+	private final SymbolicStructure structure;
+	private final BDDManager manager;
+	private final List<Integer> fairness;
+	private final Map<TemporalFormula, Integer> cache;
+	private final int all;
+	private int fair;
+
+	/**
+	 * Creates a SymbolicEvaluator.
+	 *
+	 * @param structure the frozen SymbolicStructure to evaluate formulas on.
+	 * @param fairness  the fairness constraints, which may be empty.
+	 * @throws CheckerException when a fairness constraint is not a CTL formula.
+	 */
+	public SymbolicEvaluator(SymbolicStructure structure, List<TemporalFormula> fairness) throws CheckerException {
+		this.structure = structure;
+		manager = structure.getManager();
+		cache = new HashMap<>();
+		all = structure.getReachable();
+
+		// Fairness constraints themselves are evaluated over all paths
+		fair = all;
+		this.fairness = new ArrayList<>();
+		for (TemporalFormula constraint : fairness)
+			this.fairness.add(evaluate(constraint));
+
+		if (!this.fairness.isEmpty()) {
+			fair = existsGlobally(all);
+			cache.clear();
+		}
+	}
+
+	/**
+	 * Returns the fair States, i.e., the States from which a fair path starts.
+	 *
+	 * @return the BDD of the fair States.
+	 */
+	public int getFair() {
+		return fair;
+	}
+
+	/**
+	 * Returns true iff the given formula holds in all fair initial States.
+	 *
+	 * @param formula the formula.
+	 * @return true iff the formula holds.
+	 * @throws CheckerException when the formula is not a CTL formula.
+	 */
+	public boolean holds(TemporalFormula formula) throws CheckerException {
+		return getViolating(formula) == BDDManager.FALSE;
+	}
+
+	/**
+	 * Returns a fair initial State in which the given formula does not hold.
+	 *
+	 * @param formula the formula.
+	 * @return the BDD of the State, or FALSE if the formula holds.
+	 * @throws CheckerException when the formula is not a CTL formula.
+	 */
+	public int getViolating(TemporalFormula formula) throws CheckerException {
+		int violating = manager.andNot(manager.and(structure.getInitial(), fair), evaluate(formula));
+		return (violating == BDDManager.FALSE ? BDDManager.FALSE : structure.pick(violating));
+	}
+
+	/**
+	 * Returns the States in which the given formula holds.
+	 *
+	 * @param formula the formula.
+	 * @return the BDD of the States in which the formula holds.
+	 * @throws CheckerException when the formula is not a CTL formula.
+	 */
+	public int evaluate(TemporalFormula formula) throws CheckerException {
+		Integer result = cache.get(formula);
+		if (result == null) {
+			result = compute(formula);
+			cache.put(formula, result);
+		}
+		return result;
+	}
+
+	private int compute(TemporalFormula formula) throws CheckerException {
+		TemporalFormula left = formula.getLeft(), right = formula.getRight();
+
+		switch (formula.getOperator()) {
+			case TRUE:
+				return all;
+			case FALSE:
+				return BDDManager.FALSE;
+			case ATOM:
+				return structure.getLabel(formula.getAtom());
+			case NOT:
+				return not(evaluate(left));
+			case AND:
+				return manager.and(evaluate(left), evaluate(right));
+			case OR:
+				return manager.or(evaluate(left), evaluate(right));
+			case IMPLIES:
+				return manager.or(not(evaluate(left)), evaluate(right));
+			case IFF:
+				return not(manager.xor(evaluate(left), evaluate(right)));
+			case EX:
+				return pre(manager.and(evaluate(left), fair));
+			case AX:
+				return not(pre(manager.and(not(evaluate(left)), fair)));
+			case EF:
+				return existsUntil(all, manager.and(evaluate(left), fair));
+			case AG:
+				return not(existsUntil(all, manager.and(not(evaluate(left)), fair)));
+			case EG:
+				return existsGlobally(evaluate(left));
+			case AF:
+				return not(existsGlobally(not(evaluate(left))));
+			case EU:
+				return existsUntil(evaluate(left), manager.and(evaluate(right), fair));
+			case AU: {
+				int notRight = not(evaluate(right));
+				int violated = existsUntil(notRight, manager.and(manager.and(not(evaluate(left)), notRight), fair));
+				return not(manager.or(violated, existsGlobally(notRight)));
+			}
+			default:
+				throw new CheckerException("Operator " + formula.getOperator() + " is not a CTL operator in " + formula);
+		}
+	}
+
+	/**
+	 * Returns the reachable States that have a next State in the given set.
+	 *
+	 * @param target the BDD of the set.
+	 * @return the BDD of the States that have a next State in the given set.
+	 */
+	public int pre(int target) {
+		return manager.and(all, structure.pre(target));
+	}
+
+	/**
+	 * Returns the States from which a path through the first set reaches the second set, as a least fixpoint.
+	 *
+	 * @param path   the BDD of the States the path may pass through.
+	 * @param target the BDD of the States to reach.
+	 * @return the BDD of the States that satisfy E [ path U target ].
+	 */
+	public int existsUntil(int path, int target) {
+		int result = target, frontier = target;
+
+		while (frontier != BDDManager.FALSE) {
+			int next = manager.or(result, manager.and(path, pre(frontier)));
+			frontier = manager.andNot(next, result);
+			result = next;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the States from which a (fair) path stays within the given set forever, as a greatest fixpoint.
+	 *
+	 * @param path the BDD of the States the path must stay within.
+	 * @return the BDD of the States that satisfy EG path.
+	 */
+	public int existsGlobally(int path) {
+		int z = path;
+
+		while (true) {
+			int next = manager.and(path, pre(z));
+			// Emerson-Lei: Z = path & AND_i EX E [ Z U (Z & f_i) ], as the states along a fair path all lie in Z
+			for (int constraint : fairness)
+				next = manager.and(next, pre(existsUntil(z, manager.and(z, constraint))));
+
+			if (next == z)
+				return z;
+			z = next;
+		}
+	}
+
+	/**
+	 * Returns a path of States that demonstrates why the given formula does not hold in the given State, starting
+	 * with that State. The path follows witnesses of the negated formula as far as they are existential.
+	 *
+	 * @param formula the formula.
+	 * @param state   the BDD of a single State in which the formula does not hold.
+	 * @return the BDDs of the States along the path.
+	 * @throws CheckerException when the formula is not a CTL formula.
+	 */
+	public List<Integer> getCounterExample(TemporalFormula formula, int state) throws CheckerException {
+		List<Integer> path = new ArrayList<>();
+		path.add(state);
+		witness(formula.negate(), path);
+		return path;
+	}
+
+	private void witness(TemporalFormula formula, List<Integer> path) throws CheckerException {
+		int state = path.get(path.size() - 1);
+		TemporalFormula left = formula.getLeft(), right = formula.getRight();
+
+		switch (formula.getOperator()) {
+			case AND:
+				witness(left.isPropositional() ? right : left, path);
+				break;
+			case OR:
+				if (!left.isPropositional() && contains(evaluate(left), state))
+					witness(left, path);
+				else if (contains(evaluate(right), state))
+					witness(right, path);
+				break;
+			case EX: {
+				int next = successor(state, manager.and(evaluate(left), fair));
+				if (next != BDDManager.FALSE) {
+					path.add(next);
+					witness(left, path);
+				}
+				break;
+			}
+			case EF:
+				witness(TemporalFormula.binary(TemporalOperator.EU, TemporalFormula.TRUE, left), path);
+				break;
+			case EU: {
+				List<Integer> prefix = search(state, evaluate(left), manager.and(evaluate(right), fair));
+				if (prefix != null) {
+					path.addAll(prefix);
+					witness(right, path);
+				}
+				break;
+			}
+			case EG:
+				lasso(evaluate(formula), path);
+				break;
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * Extends the given path with a lasso within the given set, visiting each fairness constraint on the way.
+	 */
+	private void lasso(int within, List<Integer> path) {
+		for (int constraint : fairness) {
+			List<Integer> prefix = search(path.get(path.size() - 1), within, manager.and(within, constraint));
+			if (prefix != null)
+				path.addAll(prefix);
+		}
+
+		// States are single assignments, of which the BDDs are canonical
+		Set<Integer> visited = new HashSet<>();
+		int state = path.get(path.size() - 1);
+		visited.add(state);
+
+		while (true) {
+			int next = successor(state, within);
+			if (next == BDDManager.FALSE)
+				return;
+
+			path.add(next);
+			if (!visited.add(next))
+				return;
+			state = next;
+		}
+	}
+
+	/**
+	 * Returns the shortest path, excluding the given State, that passes through the first set and ends in the second.
+	 * The breadth-first layers of images are kept to trace back a path from the first State found in the second set.
+	 */
+	private List<Integer> search(int state, int within, int target) {
+		if (contains(target, state))
+			return new ArrayList<>();
+
+		List<Integer> layers = new ArrayList<>();
+		layers.add(state);
+		int visited = state, frontier = state;
+
+		while (frontier != BDDManager.FALSE) {
+			int next = manager.andNot(structure.image(frontier), visited);
+			int found = manager.and(next, target);
+
+			if (found != BDDManager.FALSE) {
+				List<Integer> path = new ArrayList<>();
+				int current = structure.pick(found);
+				path.add(current);
+				for (int i = layers.size() - 1; i > 0; i--) {
+					current = structure.pick(manager.and(layers.get(i), structure.pre(current)));
+					path.add(0, current);
+				}
+				return path;
+			}
+
+			frontier = manager.and(next, within);
+			visited = manager.or(visited, next);
+			layers.add(frontier);
+		}
+
+		return null;
+	}
+
+	private int successor(int state, int target) {
+		int next = manager.and(structure.image(state), target);
+		return (next == BDDManager.FALSE ? BDDManager.FALSE : structure.pick(next));
+	}
+
+	private boolean contains(int set, int state) {
+		return manager.and(set, state) != BDDManager.FALSE;
+	}
+
+	private int not(int set) {
+		return manager.andNot(all, set);
+	}
+}
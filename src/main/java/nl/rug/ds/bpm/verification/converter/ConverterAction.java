@@ -1,22 +1,26 @@
 package nl.rug.ds.bpm.verification.converter;
 
 import nl.rug.ds.bpm.petrinet.interfaces.element.TransitionI;
+import nl.rug.ds.bpm.verification.converter.generic.ExplorationItem;
 import nl.rug.ds.bpm.verification.model.State;
 
 import java.util.Set;
-import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
 
 public interface ConverterAction<S extends State<S>> {
 
     /**
-     * Computes the initial States and starts the RecursiveAction computation.
+     * Computes the initial States and explores the state space from there.
      */
     void computeInitial();
 
     /**
-     * Overriden method from RecursiveAction that computes a step to calculate the structure.
+     * Computes the next States of the given unexplored State, and passes each new unexplored State to the given frontier.
+     *
+     * @param item     the unexplored State.
+     * @param frontier the consumer of new unexplored States.
      */
-    void compute();
+    void compute(ExplorationItem<S> item, Consumer<ExplorationItem<S>> frontier);
 
     /**
      * Returns true iff the created State was new to the Structure by comparing it with the returned State found.
@@ -41,13 +45,4 @@ public interface ConverterAction<S extends State<S>> {
      * @param sink the State to turn into a sink.
      */
     void makeSink(S sink);
-
-    /**
-     * Obtains the set of next ConverterActions from the State created by the current ConverterAction and the obtained set of enabled Transitions.
-     *
-     * @param created the State created by the current ConverterAction.
-     * @param enabled the obtained set of enabled Transitions.
-     * @return a set of ConverterActions.
-     */
-    Set<? extends RecursiveAction> nextActions(S created, Set<? extends TransitionI> enabled);
 }
@@ -6,59 +6,71 @@ import nl.rug.ds.bpm.petrinet.interfaces.net.VerifiableNet;
 import nl.rug.ds.bpm.verification.converter.ConverterAction;
 import nl.rug.ds.bpm.verification.model.generic.AbstractState;
 
-import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ForkJoinPool;
-import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Executor;
 
 /**
  * An abstract ConverterAction.
  */
-public abstract class AbstractConverterAction<S extends AbstractState<S>> extends RecursiveAction implements ConverterAction<S> {
-    private ForkJoinPool forkJoinPool;
-
+public abstract class AbstractConverterAction<S extends AbstractState<S>> implements ConverterAction<S> {
     protected VerifiableNet net;
     protected MarkingI marking;
-    protected TransitionI fired;
-    protected Set<? extends TransitionI> previousParallelEnabledTransitions;
 
-    protected static long report = 0;
+    protected Executor executor;
+    protected int parallelism;
+    protected int frontierCapacity;
 
     /**
      * Creates an abstract ConverterAction.
      *
-     * @param net     a VerifiableNet.
-     * @param marking the initial Marking of the VerifiableNet.
+     * @param net         a VerifiableNet.
+     * @param marking     the initial Marking of the VerifiableNet.
+     * @param executor    the Executor to explore on, which is not shut down by this ConverterAction.
+     * @param parallelism the number of workers to submit to the given Executor.
      */
-    public AbstractConverterAction(VerifiableNet net, MarkingI marking) {
+    public AbstractConverterAction(VerifiableNet net, MarkingI marking, Executor executor, int parallelism) {
         this.net = net;
         this.marking = marking;
+        this.executor = executor;
+        this.parallelism = parallelism;
 
-        forkJoinPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors() * 2, ForkJoinPool.defaultForkJoinWorkerThreadFactory, Thread.getDefaultUncaughtExceptionHandler(), true);
+        frontierCapacity = ExplorationEngine.DEFAULT_FRONTIER_CAPACITY;
     }
 
     /**
-     * Creates an abstract ConverterAction.
+     * Sets the maximum number of unexplored States that are shared between workers.
+     *
+     * @param frontierCapacity the maximum number of shared unexplored States.
+     */
+    public void setFrontierCapacity(int frontierCapacity) {
+        this.frontierCapacity = frontierCapacity;
+    }
+
+    /**
+     * Explores the state space from the given unexplored initial States, and blocks until it is fully explored.
      *
-     * @param net     a VerifiableNet.
-     * @param marking the Marking of the VerifiableNet after firing the Transition fired.
-     * @param fired   the Transition that fired to obtain marking.
+     * @param initial the unexplored initial States.
      */
-    public AbstractConverterAction(ForkJoinPool forkJoinPool, VerifiableNet net, MarkingI marking, TransitionI fired, Set<? extends TransitionI> previousParallelEnabledTransitions) {
-        this(net, marking);
-        this.forkJoinPool = forkJoinPool;
-        this.fired = fired;
-        this.previousParallelEnabledTransitions = new HashSet<>(previousParallelEnabledTransitions);
-        this.previousParallelEnabledTransitions.remove(fired);
+    protected void explore(List<ExplorationItem<S>> initial) {
+        new ExplorationEngine<>(this, parallelism, frontierCapacity).explore(initial, executor);
     }
 
     /**
-     * Returns the pool this task is assigned to.
+     * Returns true iff the given next enabled Transitions include all the given previously enabled Transitions, except
+     * the fired Transition. Parallel enabled Transitions that did not fire must remain enabled in the next State.
      *
-     * @return the pool this task is assigned to
+     * @param next     the (parallel) enabled Transitions after firing.
+     * @param previous the (parallel) enabled Transitions before firing.
+     * @param fired    the fired Transition.
+     * @return true iff next contains previous, except fired.
      */
-    protected ForkJoinPool getForkJoinPool() {
-        return forkJoinPool;
+    protected boolean containsRemaining(Set<? extends TransitionI> next, Set<? extends TransitionI> previous, TransitionI fired) {
+        for (TransitionI transition : previous)
+            if (!transition.equals(fired) && !next.contains(transition))
+                return false;
+
+        return true;
     }
 
     /**
@@ -92,13 +104,4 @@ public abstract class AbstractConverterAction<S extends AbstractState<S>> extend
         sink.addNext(sink);
         sink.addPrevious(sink);
     }
-
-    public synchronized boolean report() {
-        report++;
-
-        if (report >= 10000)
-            report = 0;
-
-        return (report == 0);
-    }
 }
@@ -0,0 +1,178 @@
+package nl.rug.ds.bpm.verification.converter.generic;
+
+import nl.rug.ds.bpm.util.log.LogEvent;
+import nl.rug.ds.bpm.util.log.Logger;
+import nl.rug.ds.bpm.verification.converter.ConverterAction;
+import nl.rug.ds.bpm.verification.model.State;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Class that explores a state space with a fixed number of workers and a bounded, shared frontier of unexplored States.
+ * <p>
+ * Each worker explores States from its own stack first, and shares newly found States through the shared frontier
+ * only while the shared frontier is below its capacity. Once it is full, workers continue depth-first on their own
+ * stacks, which keeps the number of queued items proportional to the number of unexplored States.
+ * </p>
+ * <p>
+ * The first failure of any worker stops all workers, and is rethrown to the caller once they are stopped, such that a
+ * partially explored state space is never mistaken for a complete one.
+ * </p>
+ *
+ * @param <S> the type of State.
+ */
+public class ExplorationEngine<S extends State<S>> {
+    public static final int DEFAULT_FRONTIER_CAPACITY = 4096;
+    private static final long REPORT_INTERVAL = 100000;
+
+    private final ConverterAction<S> action;
+    private final int parallelism;
+    private final int capacity;
+
+    private final ConcurrentLinkedQueue<ExplorationItem<S>> frontier;
+    private final AtomicInteger frontierSize;
+    private final AtomicLong pending;
+    private final AtomicLong explored;
+    private final AtomicReference<Throwable> failure;
+
+    /**
+     * Creates an ExplorationEngine.
+     *
+     * @param action      the ConverterAction that computes the next States of an unexplored State.
+     * @param parallelism the number of workers.
+     * @param capacity    the maximum number of unexplored States in the shared frontier.
+     */
+    public ExplorationEngine(ConverterAction<S> action, int parallelism, int capacity) {
+        this.action = action;
+        this.parallelism = Math.max(1, parallelism);
+        this.capacity = Math.max(this.parallelism, capacity);
+
+        frontier = new ConcurrentLinkedQueue<>();
+        frontierSize = new AtomicInteger();
+        pending = new AtomicLong();
+        explored = new AtomicLong();
+        failure = new AtomicReference<>();
+    }
+
+    /**
+     * Explores the state space from the given unexplored States using the given Executor, and blocks until all
+     * reachable States are explored, or until all workers stopped after a failure or an interrupt.
+     *
+     * @param initial  the initial unexplored States.
+     * @param executor the Executor to run the workers on.
+     * @throws CancellationException when the calling thread is interrupted, after the workers stopped.
+     * @throws RuntimeException      the first exception thrown while computing next States, after the workers stopped.
+     */
+    public void explore(Collection<ExplorationItem<S>> initial, Executor executor) {
+        for (ExplorationItem<S> item : initial) {
+            pending.incrementAndGet();
+            frontierSize.incrementAndGet();
+            frontier.offer(item);
+        }
+
+        CountDownLatch done = new CountDownLatch(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            try {
+                executor.execute(() -> {
+                    try {
+                        work();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                Logger.log("Exploration worker rejected, continuing with fewer workers.", LogEvent.WARNING);
+                done.countDown();
+            }
+        }
+
+        boolean interrupted = false;
+        while (true) {
+            try {
+                done.await();
+                break;
+            } catch (InterruptedException e) {
+                if (!interrupted)
+                    Logger.log("Model too big.", LogEvent.CRITICAL);
+                interrupted = true;
+                failure.compareAndSet(null, new CancellationException("Exploration interrupted"));
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+
+        // Explore any remaining States on the calling thread, e.g., when all workers were rejected
+        if (failure.get() == null && pending.get() > 0)
+            work();
+
+        Throwable cause = failure.get();
+        if (cause instanceof RuntimeException)
+            throw (RuntimeException) cause;
+        if (cause instanceof Error)
+            throw (Error) cause;
+    }
+
+    /**
+     * Returns the number of explored States.
+     *
+     * @return the number of explored States.
+     */
+    public long getExploredCount() {
+        return explored.get();
+    }
+
+    private void work() {
+        ArrayDeque<ExplorationItem<S>> stack = new ArrayDeque<>();
+
+        while (failure.get() == null) {
+            ExplorationItem<S> item = stack.pollLast();
+
+            if (item == null) {
+                item = frontier.poll();
+                if (item != null)
+                    frontierSize.decrementAndGet();
+            }
+
+            if (item == null) {
+                if (pending.get() == 0 || Thread.currentThread().isInterrupted())
+                    return;
+                LockSupport.parkNanos(50000);
+                continue;
+            }
+
+            try {
+                action.compute(item, next -> push(next, stack));
+            } catch (RuntimeException | Error e) {
+                Logger.log("Failed to explore state " + item.getState().getId() + ": " + e.getMessage(), LogEvent.ERROR);
+                failure.compareAndSet(null, e);
+                return;
+            } finally {
+                pending.decrementAndGet();
+            }
+
+            if (explored.incrementAndGet() % REPORT_INTERVAL == 0)
+                Logger.log("Explored " + explored.get() + " states with " + pending.get() + " unexplored states left", LogEvent.INFO);
+        }
+    }
+
+    private void push(ExplorationItem<S> item, ArrayDeque<ExplorationItem<S>> stack) {
+        pending.incrementAndGet();
+
+        if (frontierSize.incrementAndGet() <= capacity)
+            frontier.offer(item);
+        else {
+            frontierSize.decrementAndGet();
+            stack.addLast(item);
+        }
+    }
+}
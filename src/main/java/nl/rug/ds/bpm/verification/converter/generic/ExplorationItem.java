@@ -0,0 +1,58 @@
+package nl.rug.ds.bpm.verification.converter.generic;
+
+import nl.rug.ds.bpm.petrinet.interfaces.element.TransitionI;
+import nl.rug.ds.bpm.petrinet.interfaces.marking.MarkingI;
+import nl.rug.ds.bpm.verification.model.State;
+
+import java.util.Set;
+
+/**
+ * Class that represents an unexplored State, i.e., a State of which the next States have not yet been computed.
+ *
+ * @param <S> the type of State.
+ */
+public class ExplorationItem<S extends State<S>> {
+    private final S state;
+    private final MarkingI marking;
+    private final Set<? extends TransitionI> enabled;
+
+    /**
+     * Creates an ExplorationItem.
+     *
+     * @param state   the unexplored State.
+     * @param marking the Marking the State represents.
+     * @param enabled the (parallel) enabled Transitions the State represents.
+     */
+    public ExplorationItem(S state, MarkingI marking, Set<? extends TransitionI> enabled) {
+        this.state = state;
+        this.marking = marking;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns the unexplored State.
+     *
+     * @return the State.
+     */
+    public S getState() {
+        return state;
+    }
+
+    /**
+     * Returns the Marking the unexplored State represents.
+     *
+     * @return the Marking.
+     */
+    public MarkingI getMarking() {
+        return marking;
+    }
+
+    /**
+     * Returns the (parallel) enabled Transitions the unexplored State represents.
+     *
+     * @return the set of enabled Transitions, which must not be modified.
+     */
+    public Set<? extends TransitionI> getEnabled() {
+        return enabled;
+    }
+}
@@ -1,33 +1,47 @@
 package nl.rug.ds.bpm.verification.converter.kripke;
 
+import nl.rug.ds.bpm.expression.CompositeExpression;
 import nl.rug.ds.bpm.petrinet.interfaces.element.TransitionI;
 import nl.rug.ds.bpm.petrinet.interfaces.marking.ConditionalMarkingI;
+import nl.rug.ds.bpm.petrinet.interfaces.marking.DataMarkingI;
 import nl.rug.ds.bpm.petrinet.interfaces.marking.MarkingI;
 import nl.rug.ds.bpm.petrinet.interfaces.net.VerifiableNet;
 import nl.rug.ds.bpm.util.exception.ConverterException;
 import nl.rug.ds.bpm.util.log.LogEvent;
 import nl.rug.ds.bpm.util.log.Logger;
 import nl.rug.ds.bpm.verification.converter.generic.AbstractConverterAction;
+import nl.rug.ds.bpm.verification.converter.generic.ExplorationItem;
+import nl.rug.ds.bpm.verification.map.AtomicPropositionLabel;
+import nl.rug.ds.bpm.verification.model.generic.factory.ImplicationIndex;
 import nl.rug.ds.bpm.verification.model.kripke.KripkeState;
 import nl.rug.ds.bpm.verification.model.kripke.KripkeStructure;
 import nl.rug.ds.bpm.verification.model.kripke.factory.KripkeFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ForkJoinPool;
-import java.util.concurrent.RecursiveAction;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 /**
- * Class that converts a given VerifiableNet into a KripkeStructure using RecursiveActions.
+ * Class that converts a given VerifiableNet into a KripkeStructure using an ExplorationEngine.
  */
 public class KripkeStructureConverterAction extends AbstractConverterAction<KripkeState> {
-	private final KripkeFactory kripkeFactory;
-	private final KripkeStructure kripkeStructure;
-	private KripkeState previous;
+	protected final KripkeFactory kripkeFactory;
+	protected final KripkeStructure kripkeStructure;
+
+	private AtomicPropositionLabel visible;
+	private NetStructure netStructure;
+	private Set<String> invisible;
+	private final AtomicLong reduced;
 
 	/**
-	 * Creates a KripkeStructureConverterAction to compute the initial States and start the RecursiveAction computation.
+	 * Creates a KripkeStructureConverterAction to compute the initial States and explore the state space.
 	 *
 	 * @param net             a VerifiableNet
 	 * @param marking         the initial Marking of the VerifiableNet.
@@ -35,118 +49,274 @@ public class KripkeStructureConverterAction extends AbstractConverterAction<Krip
 	 * @param kripkeStructure the KripkeStructure to populate.
 	 */
 	public KripkeStructureConverterAction(VerifiableNet net, MarkingI marking, KripkeFactory factory, KripkeStructure kripkeStructure) {
-		super(net, marking);
+		super(net, marking, factory.getExecutor(), factory.getParallelism());
 		kripkeFactory = factory;
 		this.kripkeStructure = kripkeStructure;
+		reduced = new AtomicLong();
+	}
+
+	/**
+	 * Enables partial-order reduction with respect to the given atomic propositions, or disables it if null.
+	 * <p>
+	 * With partial-order reduction, a State is expanded by a single Transition, instead of all its enabled Transitions,
+	 * if that Transition is invisible, i.e., does not change the given atomic propositions, and cannot conflict with
+	 * the Transitions it postpones. The resulting structure is stutter equivalent to the full structure with respect
+	 * to the given atomic propositions, and may therefore only be used for specifications without next operators.
+	 * Conflicts are detected through the parallel enabled sets of the current Marking, which is sufficient for
+	 * (extended) free-choice nets, as Transitions that share an input place are then enabled simultaneously.
+	 * The reduction therefore requires the structure of the Net, see {@link #setNetStructure(NetStructure)}, and
+	 * States are fully expanded if it is not given or if the Net is not (extended) free-choice.
+	 * Nets with data are always fully expanded, as their Transitions may alter shared variables.
+	 * </p>
+	 *
+	 * @param visible the atomic propositions used by the specifications, or null to disable the reduction.
+	 */
+	public void setVisiblePropositions(Set<String> visible) {
+		this.visible = (visible == null ? null : kripkeFactory.createLabel(visible));
+	}
+
+	/**
+	 * Sets the structure of the Net, which partial-order reduction uses to verify that the Net is (extended)
+	 * free-choice, and to determine which Transitions are invisible.
+	 *
+	 * @param netStructure the structure of the Net, or null to disable partial-order reduction.
+	 */
+	public void setNetStructure(NetStructure netStructure) {
+		this.netStructure = netStructure;
 	}
 
-    /**
-     * Creates a KripkeStructureConverterAction to compute subsequent States of the RecursiveAction computation.
-     *
-     * @param net             a VerifiableNet
-     * @param marking         the subsequent Marking of the VerifiableNet obtained after firing the Transition fired.
-     * @param fired           the Transition fired to obtain marking.
-     * @param factory         the StructureFactory used.
-     * @param kripkeStructure the KripkeStructure to populate.
-     * @param previous        the State obtained in the previous computation step.
-     */
-    public KripkeStructureConverterAction(ForkJoinPool forkJoinPool, VerifiableNet net, MarkingI marking, TransitionI fired, Set<? extends TransitionI> previousParallelEnabledTransitions, KripkeFactory factory, KripkeStructure kripkeStructure, KripkeState previous) {
-        super(forkJoinPool, net, marking, fired, previousParallelEnabledTransitions);
-        this.kripkeFactory = factory;
-        this.kripkeStructure = kripkeStructure;
-        this.previous = previous;
-    }
+	/**
+	 * Creates the State that represents the given Marking with the given set of (parallel) enabled Transitions.
+	 *
+	 * @param marking the Marking.
+	 * @param enabled the set of (parallel) enabled Transitions.
+	 * @return the created State.
+	 */
+	protected KripkeState createState(MarkingI marking, Set<? extends TransitionI> enabled) {
+		return kripkeFactory.createState(marking, enabled);
+	}
 
 	/**
-	 * Computes the initial States and starts the RecursiveAction computation.
+	 * Computes the initial States and explores the state space from there.
 	 */
 	@Override
 	public void computeInitial() {
-        Set<RecursiveAction> nextActions = new HashSet<>();
+		List<ExplorationItem<KripkeState>> initial = new ArrayList<>();
+		invisible = (visible == null ? null : computeInvisibleTransitions());
 
-        if (marking instanceof ConditionalMarkingI)
-            for (String condition : kripkeStructure.getConditions())
-                ((ConditionalMarkingI) marking).addCondition(condition);
+		if (marking instanceof ConditionalMarkingI)
+			for (String condition : kripkeStructure.getConditions())
+				((ConditionalMarkingI) marking).addCondition(condition);
 
-        for (Set<? extends TransitionI> enabled : net.getParallelEnabledTransitions(marking)) {
-            KripkeState created = kripkeFactory.createState(marking, enabled);
+		for (Set<? extends TransitionI> enabled : net.getParallelEnabledTransitions(marking)) {
+			KripkeState created = createState(marking, enabled);
 
-            try {
-                KripkeState found = kripkeStructure.addInitial(created);
+			try {
+				KripkeState found = kripkeStructure.addInitial(created);
 
 				if (isNew(created, found)) {
 					if (!isSink(enabled))
-                        nextActions.addAll(nextActions(found, enabled));
-                    else {
-                        makeSink(created);
-                        Logger.log("Encountered empty initial marking, setting sink state.", LogEvent.WARNING);
-                    }
-                }
-            } catch (ConverterException e) {
-                Logger.log("Encountered issue adding initial marking.", LogEvent.ERROR);
-            }
-        }
-
-        for (RecursiveAction action : nextActions)
-            getForkJoinPool().execute(action);
-
-        getForkJoinPool().shutdown();
-        try {
-            if (getForkJoinPool().awaitTermination(1, TimeUnit.DAYS))
-                getForkJoinPool().shutdownNow();
-        } catch (InterruptedException exception) {
-            Logger.log("Model too big.", LogEvent.CRITICAL);
-        }
-    }
+						initial.add(new ExplorationItem<>(found, marking, enabled));
+					else {
+						makeSink(created);
+						Logger.log("Encountered empty initial marking, setting sink state.", LogEvent.WARNING);
+					}
+				}
+			} catch (ConverterException e) {
+				Logger.log("Encountered issue adding initial marking.", LogEvent.ERROR);
+			}
+		}
+
+		explore(initial);
+
+		if (invisible != null)
+			Logger.log("Partial-order reduction expanded " + reduced.get() + " states by a single transition", LogEvent.VERBOSE);
+	}
 
 	/**
-	 * Overriden method from RecursiveAction that computes a step to calculate the Kripke structure.
+	 * Fires each enabled Transition of the given unexplored State, and adds the resulting States as next States.
+	 *
+	 * @param item     the unexplored State.
+	 * @param frontier the consumer of new unexplored States.
 	 */
 	@Override
-    public void compute() {
-        if (marking.getMarkedPlaces().isEmpty()) {
-            makeSink(previous);
-            Logger.log("Encountered empty marking, adding sink state.", LogEvent.WARNING);
-        } else {
-            for (Set<? extends TransitionI> enabled : net.getParallelEnabledTransitions(marking)) {
-                if (!enabled.containsAll(previousParallelEnabledTransitions)) continue;
-
-                KripkeState created = kripkeFactory.createState(marking, enabled);
-
-                try {
-                    KripkeState found = kripkeStructure.addNext(previous, created);
-
-                    if (isNew(created, found)) {
-                        if (isSink(enabled))
-                            makeSink(found);
-
-                        for (RecursiveAction action : nextActions(found, enabled))
-                            getForkJoinPool().execute(action);
-                    }
-                } catch (ConverterException e) {
-                    Logger.log("Maximum state space reached", LogEvent.CRITICAL);
+	public void compute(ExplorationItem<KripkeState> item, Consumer<ExplorationItem<KripkeState>> frontier) {
+		KripkeState previous = item.getState();
+
+		if (invisible != null && !hasData(item.getMarking()) && computeAmple(item, frontier)) {
+			reduced.incrementAndGet();
+			return;
+		}
+
+		for (TransitionI transition : item.getEnabled()) {
+			for (MarkingI step : net.fireTransition(transition, item.getMarking())) {
+				if (step.getMarkedPlaces().isEmpty()) {
+					makeSink(previous);
+					Logger.log("Encountered empty marking, adding sink state.", LogEvent.WARNING);
+					continue;
+				}
+
+				for (Set<? extends TransitionI> enabled : net.getParallelEnabledTransitions(step)) {
+					if (!containsRemaining(enabled, item.getEnabled(), transition)) continue;
+
+					KripkeState created = createState(step, enabled);
+
+					try {
+						KripkeState found = kripkeStructure.addNext(previous, created);
+
+						if (isNew(created, found)) {
+							if (isSink(enabled))
+								makeSink(found);
+							else
+								frontier.accept(new ExplorationItem<>(found, step, enabled));
+						}
+					} catch (ConverterException e) {
+						Logger.log("Maximum state space reached", LogEvent.CRITICAL);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Attempts to expand the given unexplored State by a single enabled Transition (i.e., an ample set of size one).
+	 * A Transition qualifies if it is invisible, unguarded, is enabled in every parallel enabled set of the current
+	 * Marking, fires deterministically, and yields next States that agree with the current State on all visible atomic
+	 * propositions. To ensure postponed Transitions are not ignored along cycles, the expansion is only reduced if
+	 * all next States are new; otherwise, the State is fully expanded by the caller.
+	 *
+	 * @param item     the unexplored State.
+	 * @param frontier the consumer of new unexplored States.
+	 * @return true iff the State was expanded by a single Transition, false if it must be fully expanded.
+	 */
+	private boolean computeAmple(ExplorationItem<KripkeState> item, Consumer<ExplorationItem<KripkeState>> frontier) {
+		if (item.getEnabled().size() < 2)
+			return false;
+
+		Collection<? extends Set<? extends TransitionI>> parallel = net.getParallelEnabledTransitions(item.getMarking());
+		AtomicPropositionLabel current = item.getState().getAtomicPropositions().retain(visible);
+
+		for (TransitionI transition : item.getEnabled()) {
+			if (!invisible.contains(transition.getId()) || transition.getGuard() != null || !enabledInAll(transition, parallel))
+				continue;
+
+			Collection<? extends MarkingI> steps = net.fireTransition(transition, item.getMarking());
+			if (steps.size() != 1)
+				continue;
+
+			MarkingI step = steps.iterator().next();
+			if (step.getMarkedPlaces().isEmpty())
+				continue;
+
+			List<KripkeState> created = new ArrayList<>();
+			List<Set<? extends TransitionI>> createdEnabled = new ArrayList<>();
+			boolean invisible = true;
+
+			for (Set<? extends TransitionI> enabled : net.getParallelEnabledTransitions(step)) {
+				if (!containsRemaining(enabled, item.getEnabled(), transition)) continue;
+
+				KripkeState next = createState(step, enabled);
+				if (!next.getAtomicPropositions().retain(visible).equals(current)) {
+					invisible = false;
+					break;
 				}
+
+				created.add(next);
+				createdEnabled.add(enabled);
 			}
+
+			if (!invisible || created.isEmpty())
+				continue;
+
+			boolean allNew = true;
+			for (int i = 0; i < created.size(); i++) {
+				try {
+					KripkeState found = kripkeStructure.addNext(item.getState(), created.get(i));
+
+					if (isNew(created.get(i), found)) {
+						if (isSink(createdEnabled.get(i)))
+							makeSink(found);
+						else
+							frontier.accept(new ExplorationItem<>(found, step, createdEnabled.get(i)));
+					} else
+						allNew = false;
+				} catch (ConverterException e) {
+					Logger.log("Maximum state space reached", LogEvent.CRITICAL);
+					return true;
+				}
+			}
+
+			return allNew;
 		}
 
-        if (report())
-            Logger.log("Pool of " + getForkJoinPool().getQueuedTaskCount() + " jobs with " + getForkJoinPool().getRunningThreadCount() + " active workers", LogEvent.INFO);
-    }
+		return false;
+	}
 
 	/**
-	 * Obtains the set of next ConverterActions from the State created by this ConverterAction and the obtained set of enabled Transitions.
+	 * Returns the identifiers of the Transitions that are invisible, i.e., that cannot change the visible atomic
+	 * propositions in any Marking, or null if partial-order reduction cannot be applied to the Net.
+	 * <p>
+	 * Atomic propositions express which Transitions are enabled, such that a visible atomic proposition depends on the
+	 * Transitions whose identifiers its expression mentions. Their enabling depends on the input places of these
+	 * Transitions, which, in an (extended) free-choice net, are also the input places of all Transitions they are in
+	 * conflict with. A Transition is invisible if it neither consumes from nor produces into any of these places.
+	 * </p>
 	 *
-	 * @param created the State created by this ConverterAction.
-	 * @param enabled the obtained set of enabled Transitions.
-	 * @return a set of ConverterActions.
+	 * @return the identifiers of the invisible Transitions, or null.
 	 */
-	@Override
-	public Set<? extends RecursiveAction> nextActions(KripkeState created, Set<? extends TransitionI> enabled) {
-		Set<KripkeStructureConverterAction> nextActions = new HashSet<>();
-		for (TransitionI transition : enabled)
-			for (MarkingI step : net.fireTransition(transition, marking))
-                nextActions.add(new KripkeStructureConverterAction(getForkJoinPool(), this.net, step, transition, enabled, this.kripkeFactory, this.kripkeStructure, created));
+	private Set<String> computeInvisibleTransitions() {
+		if (netStructure == null) {
+			Logger.log("The structure of the net is unknown, disabling partial-order reduction", LogEvent.WARNING);
+			return null;
+		}
+
+		Collection<? extends TransitionI> transitions = netStructure.getTransitions();
+
+		Map<String, Set<String>> presets = new HashMap<>();
+		for (TransitionI transition : transitions) {
+			Set<String> preset = netStructure.getPreset(transition);
+			for (String place : preset) {
+				Set<String> known = presets.putIfAbsent(place, preset);
+				if (known != null && !known.equals(preset)) {
+					Logger.log("The net is not (extended) free-choice, disabling partial-order reduction", LogEvent.WARNING);
+					return null;
+				}
+			}
+		}
+
+		Set<String> identifiers = new HashSet<>();
+		for (String ap : visible) {
+			CompositeExpression expression = kripkeFactory.getAtomicPropositionMap().getID(ap);
+			if (expression == null) {
+				Logger.log("Atomic proposition " + ap + " has no expression, disabling partial-order reduction", LogEvent.WARNING);
+				return null;
+			}
+			identifiers.addAll(ImplicationIndex.getIdentifiers(expression));
+		}
+
+		Set<String> relevant = new HashSet<>();
+		for (TransitionI transition : transitions)
+			if (identifiers.contains(transition.getId()) || identifiers.contains(transition.getName()) || (transition.isTau() && identifiers.contains("tau")))
+				relevant.addAll(netStructure.getPreset(transition));
+
+		Set<String> invisible = new HashSet<>();
+		for (TransitionI transition : transitions)
+			if (Collections.disjoint(relevant, netStructure.getPreset(transition)) && Collections.disjoint(relevant, netStructure.getPostset(transition)))
+				invisible.add(transition.getId());
+
+		Logger.log(invisible.size() + " of " + transitions.size() + " transitions are invisible to partial-order reduction", LogEvent.VERBOSE);
+		return invisible;
+	}
+
+	private boolean hasData(MarkingI marking) {
+		return marking instanceof DataMarkingI && !((DataMarkingI) marking).getBindings().isEmpty();
+	}
+
+	private boolean enabledInAll(TransitionI transition, Collection<? extends Set<? extends TransitionI>> parallel) {
+		for (Set<? extends TransitionI> enabled : parallel)
+			if (!enabled.contains(transition))
+				return false;
 
-		return nextActions;
+		return true;
 	}
 }
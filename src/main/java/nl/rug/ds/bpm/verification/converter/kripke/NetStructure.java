@@ -0,0 +1,36 @@
+package nl.rug.ds.bpm.verification.converter.kripke;
+
+import nl.rug.ds.bpm.petrinet.interfaces.element.TransitionI;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Interface to the arcs of a Net, which partial-order reduction requires to decide whether the Net is (extended)
+ * free-choice and which Transitions are invisible, and which a VerifiableNet does not expose.
+ */
+public interface NetStructure {
+
+	/**
+	 * Returns all Transitions of the Net.
+	 *
+	 * @return the Transitions.
+	 */
+	Collection<? extends TransitionI> getTransitions();
+
+	/**
+	 * Returns the identifiers of the input places of the given Transition.
+	 *
+	 * @param transition the Transition.
+	 * @return the identifiers of the input places.
+	 */
+	Set<String> getPreset(TransitionI transition);
+
+	/**
+	 * Returns the identifiers of the output places of the given Transition.
+	 *
+	 * @param transition the Transition.
+	 * @return the identifiers of the output places.
+	 */
+	Set<String> getPostset(TransitionI transition);
+}
@@ -0,0 +1,173 @@
+package nl.rug.ds.bpm.verification.converter.kripke;
+
+import nl.rug.ds.bpm.petrinet.interfaces.element.TransitionI;
+import nl.rug.ds.bpm.petrinet.interfaces.marking.MarkingI;
+import nl.rug.ds.bpm.petrinet.interfaces.net.VerifiableNet;
+import nl.rug.ds.bpm.util.exception.ConverterException;
+import nl.rug.ds.bpm.util.log.LogEvent;
+import nl.rug.ds.bpm.util.log.Logger;
+import nl.rug.ds.bpm.verification.converter.generic.ExplorationItem;
+import nl.rug.ds.bpm.verification.map.AtomicPropositionLabel;
+import nl.rug.ds.bpm.verification.model.kripke.KripkeState;
+import nl.rug.ds.bpm.verification.model.kripke.KripkeStructure;
+import nl.rug.ds.bpm.verification.model.kripke.factory.KripkeFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Class that converts a given VerifiableNet into a stutter reduced KripkeStructure while exploring.
+ * <p>
+ * States only hold the relevant atomic propositions. A State whose only step leads to a State with the same
+ * relevant atomic propositions is stutter equivalent to that next State. Such next States are therefore not added
+ * to the structure, but explored on behalf of the State they were reached from, such that chains of stuttering steps
+ * collapse into a single State, and cycles of stuttering steps into a single State with itself as next State.
+ * Every created State is claimed once, atomically, either by itself or by the State it collapses into, such that a
+ * State is never both added and collapsed. The resulting structure is stutter equivalent to the projected full
+ * structure, and can be reduced further by the StutterOptimizer.
+ * </p>
+ */
+public class StutterStructureConverterAction extends KripkeStructureConverterAction {
+	private final AtomicPropositionLabel relevant;
+	private final ConcurrentHashMap<KripkeState, KripkeState> claimed;
+	private final AtomicLong collapsed;
+
+	/**
+	 * Creates a StutterStructureConverterAction to compute the initial States and explore the state space.
+	 *
+	 * @param net             a VerifiableNet
+	 * @param marking         the initial Marking of the VerifiableNet.
+	 * @param factory         the StructureFactory used.
+	 * @param kripkeStructure the KripkeStructure to populate.
+	 * @param relevant        the relevant atomic propositions to project States onto.
+	 */
+	public StutterStructureConverterAction(VerifiableNet net, MarkingI marking, KripkeFactory factory, KripkeStructure kripkeStructure, Set<String> relevant) {
+		super(net, marking, factory, kripkeStructure);
+		this.relevant = factory.createLabel(relevant);
+		claimed = new ConcurrentHashMap<>();
+		collapsed = new AtomicLong();
+	}
+
+	/**
+	 * Creates the State that represents the given Marking with the given set of (parallel) enabled Transitions,
+	 * projected onto the relevant atomic propositions.
+	 *
+	 * @param marking the Marking.
+	 * @param enabled the set of (parallel) enabled Transitions.
+	 * @return the created State.
+	 */
+	@Override
+	protected KripkeState createState(MarkingI marking, Set<? extends TransitionI> enabled) {
+		return kripkeFactory.createProjectedState(marking, enabled, relevant);
+	}
+
+	/**
+	 * Computes the initial States and explores the state space from there.
+	 */
+	@Override
+	public void computeInitial() {
+		super.computeInitial();
+		Logger.log("Collapsed " + collapsed.get() + " stuttering states while converting", LogEvent.VERBOSE);
+	}
+
+	/**
+	 * Fires each enabled Transition of the given unexplored State, and adds the resulting States as next States of
+	 * the State the unexplored State is represented by. Collapses the next State if it is the only next State and
+	 * holds the same relevant atomic propositions.
+	 *
+	 * @param item     the unexplored State.
+	 * @param frontier the consumer of new unexplored States.
+	 */
+	@Override
+	public void compute(ExplorationItem<KripkeState> item, Consumer<ExplorationItem<KripkeState>> frontier) {
+		KripkeState previous = item.getState();
+		List<ExplorationItem<KripkeState>> steps = new ArrayList<>();
+
+		for (TransitionI transition : item.getEnabled()) {
+			for (MarkingI step : net.fireTransition(transition, item.getMarking())) {
+				if (step.getMarkedPlaces().isEmpty()) {
+					makeSink(previous);
+					Logger.log("Encountered empty marking, adding sink state.", LogEvent.WARNING);
+					continue;
+				}
+
+				for (Set<? extends TransitionI> enabled : net.getParallelEnabledTransitions(step))
+					if (containsRemaining(enabled, item.getEnabled(), transition))
+						steps.add(new ExplorationItem<>(createState(step, enabled), step, enabled));
+			}
+		}
+
+		if (steps.size() == 1 && collapse(previous, steps.get(0), frontier))
+			return;
+
+		for (ExplorationItem<KripkeState> step : steps)
+			addNext(previous, step, frontier);
+	}
+
+	/**
+	 * Collapses the given next State into the given State if it holds the same relevant atomic propositions and is
+	 * not yet claimed, by exploring it on behalf of the given State. Initial States are never collapsed, as they are
+	 * added before exploration.
+	 *
+	 * @param previous the State.
+	 * @param step     the only next State, which is not yet added to the structure.
+	 * @param frontier the consumer of new unexplored States.
+	 * @return true iff the next State was collapsed.
+	 */
+	private boolean collapse(KripkeState previous, ExplorationItem<KripkeState> step, Consumer<ExplorationItem<KripkeState>> frontier) {
+		KripkeState created = step.getState();
+
+		if (isSink(step.getEnabled()) || !created.getAtomicPropositions().equals(previous.getAtomicPropositions()) || kripkeStructure.getStates().contains(created))
+			return false;
+
+		KripkeState representative = claimed.putIfAbsent(created, previous);
+
+		if (representative == null) {
+			collapsed.incrementAndGet();
+			frontier.accept(new ExplorationItem<>(previous, step.getMarking(), step.getEnabled()));
+		} else
+			addNext(previous, representative);
+
+		return true;
+	}
+
+	/**
+	 * Adds the given next State to the structure, unless it was claimed before, in which case the State that claimed
+	 * it is added as next State instead.
+	 *
+	 * @param previous the State.
+	 * @param step     the next State, which is not yet added to the structure.
+	 * @param frontier the consumer of new unexplored States.
+	 */
+	private void addNext(KripkeState previous, ExplorationItem<KripkeState> step, Consumer<ExplorationItem<KripkeState>> frontier) {
+		KripkeState created = step.getState();
+		KripkeState representative = claimed.putIfAbsent(created, created);
+
+		if (representative != null) {
+			addNext(previous, representative);
+			return;
+		}
+
+		try {
+			KripkeState found = kripkeStructure.addNext(previous, created);
+
+			if (isNew(created, found)) {
+				if (isSink(step.getEnabled()))
+					makeSink(found);
+				else
+					frontier.accept(step);
+			}
+		} catch (ConverterException e) {
+			Logger.log("Maximum state space reached", LogEvent.CRITICAL);
+		}
+	}
+
+	private void addNext(KripkeState previous, KripkeState representative) {
+		previous.addNext(representative);
+		representative.addPrevious(previous);
+	}
+}
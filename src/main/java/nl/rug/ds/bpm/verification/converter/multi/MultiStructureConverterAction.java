@@ -8,27 +8,26 @@ import nl.rug.ds.bpm.util.exception.ConverterException;
 import nl.rug.ds.bpm.util.log.LogEvent;
 import nl.rug.ds.bpm.util.log.Logger;
 import nl.rug.ds.bpm.verification.converter.generic.AbstractConverterAction;
+import nl.rug.ds.bpm.verification.converter.generic.ExplorationItem;
 import nl.rug.ds.bpm.verification.model.multi.MultiState;
 import nl.rug.ds.bpm.verification.model.multi.MultiStructure;
 import nl.rug.ds.bpm.verification.model.multi.factory.MultiFactory;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.concurrent.ForkJoinPool;
-import java.util.concurrent.RecursiveAction;
-import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
- * Class that converts a given VerifiableNet into a MultiStructure using RecursiveActions.
+ * Class that converts a given VerifiableNet into a MultiStructure using an ExplorationEngine.
  */
 public class MultiStructureConverterAction extends AbstractConverterAction<MultiState> {
     private final MultiFactory multiFactory;
     private final MultiStructure multiStructure;
-    private MultiState previous;
 
     /**
-     * Creates a MultiStructureConverterAction to compute the initial States and start the RecursiveAction computation.
+     * Creates a MultiStructureConverterAction to compute the initial States and explore the state space.
      *
      * @param net            a VerifiableNet
      * @param marking        the initial Marking of the VerifiableNet.
@@ -36,34 +35,17 @@ public class MultiStructureConverterAction extends AbstractConverterAction<Multi
      * @param multiStructure the MultiStructure to populate.
      */
     public MultiStructureConverterAction(VerifiableNet net, MarkingI marking, MultiFactory factory, MultiStructure multiStructure) {
-        super(net, marking);
+        super(net, marking, factory.getExecutor(), factory.getParallelism());
         this.multiFactory = factory;
         this.multiStructure = multiStructure;
     }
 
     /**
-     * Creates a MultiStructureConverterAction to compute subsequent States of the RecursiveAction computation.
-     *
-     * @param net            a VerifiableNet
-     * @param marking        the subsequent Marking of the VerifiableNet obtained after firing the Transition fired.
-     * @param fired          the Transition fired to obtain marking.
-     * @param factory        the StructureFactory used.
-     * @param multiStructure the MultiStructure to populate.
-     * @param previous       the State obtained in the previous computation step.
-     */
-    public MultiStructureConverterAction(ForkJoinPool forkJoinPool, VerifiableNet net, MarkingI marking, TransitionI fired, Set<? extends TransitionI> previousParallelEnabledTransitions, MultiFactory factory, MultiStructure multiStructure, MultiState previous) {
-        super(forkJoinPool, net, marking, fired, previousParallelEnabledTransitions);
-        this.multiFactory = factory;
-        this.multiStructure = multiStructure;
-        this.previous = previous;
-    }
-
-    /**
-     * Computes the initial States and starts the RecursiveAction computation.
+     * Computes the initial States and explores the state space from there.
      */
     @Override
     public void computeInitial() {
-        Set<RecursiveAction> nextActions = new HashSet<>();
+        List<ExplorationItem<MultiState>> initial = new ArrayList<>();
 
         for (Set<? extends TransitionI> enabled : net.getParallelEnabledTransitions(marking)) {
             Set<CompositeExpression> guardExpressions = multiFactory.getGuardExpressions(enabled);
@@ -82,7 +64,7 @@ public class MultiStructureConverterAction extends AbstractConverterAction<Multi
                 MultiState found = multiStructure.addInitial(created, stateExpression, guardExpression);
 
                 if (isNew(created, found) && !isSink(enabled))
-                    nextActions.addAll(nextActions(found, enabled));
+                    initial.add(new ExplorationItem<>(found, marking, enabled));
                 else {
                     multiStructure.addNext(found, found, stateExpression, guardExpression); //makeSink(found);
 
@@ -93,73 +75,50 @@ public class MultiStructureConverterAction extends AbstractConverterAction<Multi
             }
         }
 
-        for (RecursiveAction action : nextActions)
-            getForkJoinPool().execute(action);
-
-        getForkJoinPool().shutdown();
-        try {
-            if (getForkJoinPool().awaitTermination(1, TimeUnit.DAYS))
-                getForkJoinPool().shutdownNow();
-        } catch (InterruptedException exception) {
-            Logger.log("Model too big.", LogEvent.CRITICAL);
-        }
+        explore(initial);
     }
 
+    /**
+     * Fires each enabled Transition of the given unexplored State, and adds the resulting States as next States.
+     *
+     * @param item     the unexplored State.
+     * @param frontier the consumer of new unexplored States.
+     */
     @Override
-    public void compute() {
-        Set<RecursiveAction> nextActions = new HashSet<>();
-
-        for (Set<? extends TransitionI> enabled : net.getParallelEnabledTransitions(marking)) {
-            if (!enabled.containsAll(previousParallelEnabledTransitions)) continue;
-
-            Set<CompositeExpression> expressions = multiFactory.getEnabledExpressions(enabled);
-            Set<CompositeExpression> guardExpressions = multiFactory.getGuardExpressions(enabled);
-            expressions.addAll(multiFactory.getDataExpressions(marking));
-
-            TreeSet<String> AP = multiFactory.addAtomicPropositions(expressions);
-            expressions.addAll(guardExpressions);
-            AP.addAll(multiFactory.addAtomicPropositions(multiFactory.inferExpressions(expressions)));
-
-            MultiState created = multiFactory.createState(marking.toString(), AP);
-            CompositeExpression stateExpression = multiFactory.composeExpressions(expressions);
-            CompositeExpression guardExpression = multiFactory.composeExpressions(guardExpressions);
-
-            try {
-                MultiState found = multiStructure.addNext(previous, created, stateExpression, guardExpression);
-
-                if (isNew(created, found)) {
-                    if (isSink(enabled)) {
-                        multiStructure.addNext(found, found, stateExpression, guardExpression); //makeSink(found);
+    public void compute(ExplorationItem<MultiState> item, Consumer<ExplorationItem<MultiState>> frontier) {
+        MultiState previous = item.getState();
+
+        for (TransitionI transition : item.getEnabled()) {
+            for (MarkingI step : net.fireTransition(transition, item.getMarking())) {
+                for (Set<? extends TransitionI> enabled : net.getParallelEnabledTransitions(step)) {
+                    if (!containsRemaining(enabled, item.getEnabled(), transition)) continue;
+
+                    Set<CompositeExpression> expressions = multiFactory.getEnabledExpressions(enabled);
+                    Set<CompositeExpression> guardExpressions = multiFactory.getGuardExpressions(enabled);
+                    expressions.addAll(multiFactory.getDataExpressions(step));
+
+                    TreeSet<String> AP = multiFactory.addAtomicPropositions(expressions);
+                    expressions.addAll(guardExpressions);
+                    AP.addAll(multiFactory.addAtomicPropositions(multiFactory.inferExpressions(expressions)));
+
+                    MultiState created = multiFactory.createState(step.toString(), AP);
+                    CompositeExpression stateExpression = multiFactory.composeExpressions(expressions);
+                    CompositeExpression guardExpression = multiFactory.composeExpressions(guardExpressions);
+
+                    try {
+                        MultiState found = multiStructure.addNext(previous, created, stateExpression, guardExpression);
+
+                        if (isNew(created, found)) {
+                            if (isSink(enabled))
+                                multiStructure.addNext(found, found, stateExpression, guardExpression); //makeSink(found);
+                            else
+                                frontier.accept(new ExplorationItem<>(found, step, enabled));
+                        }
+                    } catch (ConverterException e) {
+                        Logger.log("Encountered issue adding initial marking.", LogEvent.ERROR);
                     }
-
-                    nextActions.addAll(nextActions(found, enabled));
                 }
-            } catch (ConverterException e) {
-                Logger.log("Encountered issue adding initial marking.", LogEvent.ERROR);
             }
         }
-
-        if (report())
-            Logger.log("Pool of " + getForkJoinPool().getQueuedTaskCount() + " jobs with " + getForkJoinPool().getRunningThreadCount() + " active workers", LogEvent.INFO);
-
-        for (RecursiveAction action : nextActions)
-            getForkJoinPool().execute(action);
-    }
-
-    /**
-     * Obtains the set of next ConverterActions from the State created by this ConverterAction and the obtained set of enabled Transitions.
-     *
-     * @param created the State created by this ConverterAction.
-     * @param enabled the obtained set of enabled Transitions.
-     * @return a set of ConverterActions.
-     */
-    @Override
-    public Set<? extends RecursiveAction> nextActions(MultiState created, Set<? extends TransitionI> enabled) {
-        Set<MultiStructureConverterAction> nextActions = new HashSet<>();
-        for (TransitionI transition : enabled)
-            for (MarkingI step : net.fireTransition(transition, marking))
-                nextActions.add(new MultiStructureConverterAction(getForkJoinPool(), this.net, step, transition, enabled, this.multiFactory, this.multiStructure, created));
-
-        return nextActions;
     }
 }
@@ -0,0 +1,176 @@
+package nl.rug.ds.bpm.verification.converter.symbolic;
+
+import nl.rug.ds.bpm.petrinet.interfaces.element.TransitionI;
+import nl.rug.ds.bpm.petrinet.interfaces.marking.ConditionalMarkingI;
+import nl.rug.ds.bpm.petrinet.interfaces.marking.DataMarkingI;
+import nl.rug.ds.bpm.petrinet.interfaces.marking.MarkingI;
+import nl.rug.ds.bpm.petrinet.interfaces.net.VerifiableNet;
+import nl.rug.ds.bpm.util.exception.ConverterException;
+import nl.rug.ds.bpm.util.log.LogEvent;
+import nl.rug.ds.bpm.util.log.Logger;
+import nl.rug.ds.bpm.verification.model.kripke.factory.KripkeFactory;
+import nl.rug.ds.bpm.verification.model.symbolic.SymbolicState;
+import nl.rug.ds.bpm.verification.model.symbolic.SymbolicStructure;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Class that converts a given VerifiableNet into a SymbolicStructure.
+ * <p>
+ * The state space is explored breadth-first by firing Transitions, as the VerifiableNet does not expose its flow
+ * relation. Only the frontier of unexplored States is kept explicitly; the reachable States, the relation, and the
+ * atomic propositions are added to the BDDs of the SymbolicStructure. The atomic propositions of a State are computed
+ * by the given KripkeFactory, such that they equal those of the corresponding KripkeState.
+ * </p>
+ */
+public class SymbolicStructureConverterAction {
+	private final VerifiableNet net;
+	private final MarkingI marking;
+	private final KripkeFactory factory;
+	private final SymbolicStructure structure;
+
+	/**
+	 * An unexplored State, together with the Marking and (parallel) enabled Transitions it was created from.
+	 */
+	private static class Item {
+		private final SymbolicState state;
+		private final MarkingI marking;
+		private final Set<? extends TransitionI> enabled;
+
+		private Item(SymbolicState state, MarkingI marking, Set<? extends TransitionI> enabled) {
+			this.state = state;
+			this.marking = marking;
+			this.enabled = enabled;
+		}
+	}
+
+	/**
+	 * Creates a SymbolicStructureConverterAction to compute the initial States and explore the state space.
+	 *
+	 * @param net       a VerifiableNet.
+	 * @param marking   the initial Marking of the VerifiableNet.
+	 * @param factory   the KripkeFactory used to compute the atomic propositions of States.
+	 * @param structure the SymbolicStructure to populate.
+	 */
+	public SymbolicStructureConverterAction(VerifiableNet net, MarkingI marking, KripkeFactory factory, SymbolicStructure structure) {
+		this.net = net;
+		this.marking = marking;
+		this.factory = factory;
+		this.structure = structure;
+	}
+
+	/**
+	 * Computes the initial States and explores the state space from there.
+	 *
+	 * @throws ConverterException when the net has data or is not safe, which the symbolic encoding does not support.
+	 */
+	public void computeInitial() throws ConverterException {
+		if (marking instanceof ConditionalMarkingI)
+			for (String condition : structure.getConditions())
+				((ConditionalMarkingI) marking).addCondition(condition);
+
+		Deque<Item> frontier = new ArrayDeque<>();
+		Collection<? extends Set<? extends TransitionI>> initial = net.getParallelEnabledTransitions(marking);
+		orderVariables(initial);
+
+		for (Set<? extends TransitionI> enabled : initial) {
+			SymbolicState state = createState(marking, enabled);
+
+			if (structure.addInitial(state, createLabel(marking, enabled))) {
+				if (!enabled.isEmpty())
+					frontier.add(new Item(state, marking, enabled));
+				else {
+					structure.addNext(state, state);
+					Logger.log("Encountered empty initial marking, setting sink state.", LogEvent.WARNING);
+				}
+			}
+		}
+
+		while (!frontier.isEmpty())
+			compute(frontier.poll(), frontier);
+	}
+
+	/**
+	 * Fires each enabled Transition of the given unexplored State, and adds the resulting States as next States.
+	 *
+	 * @param item     the unexplored State.
+	 * @param frontier the queue of unexplored States.
+	 * @throws ConverterException when the net has data or is not safe.
+	 */
+	private void compute(Item item, Deque<Item> frontier) throws ConverterException {
+		for (TransitionI transition : item.enabled) {
+			for (MarkingI step : net.fireTransition(transition, item.marking)) {
+				if (step.getMarkedPlaces().isEmpty()) {
+					structure.addNext(item.state, item.state);
+					Logger.log("Encountered empty marking, adding sink state.", LogEvent.WARNING);
+					continue;
+				}
+
+				for (Set<? extends TransitionI> enabled : net.getParallelEnabledTransitions(step)) {
+					if (!containsRemaining(enabled, item.enabled, transition)) continue;
+
+					SymbolicState state = createState(step, enabled);
+					boolean isNew = structure.addState(state, createLabel(step, enabled), transition.getId());
+					structure.addNext(item.state, state);
+
+					if (isNew) {
+						if (enabled.isEmpty())
+							structure.addNext(state, state);
+						else
+							frontier.add(new Item(state, step, enabled));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Orders the variable of each initially enabled Transition after those of the places it consumes, which are found
+	 * by firing it, as the VerifiableNet does not expose its flow relation.
+	 *
+	 * @param initial the (parallel) enabled Transitions of the initial Marking.
+	 */
+	private void orderVariables(Collection<? extends Set<? extends TransitionI>> initial) {
+		for (Set<? extends TransitionI> enabled : initial) {
+			for (TransitionI transition : enabled) {
+				for (MarkingI step : net.fireTransition(transition, marking)) {
+					Set<String> consumed = new HashSet<>(marking.getMarkedPlaces());
+					consumed.removeAll(step.getMarkedPlaces());
+					structure.addVariables(consumed, transition.getId());
+				}
+			}
+		}
+	}
+
+	private SymbolicState createState(MarkingI marking, Set<? extends TransitionI> enabled) throws ConverterException {
+		if (marking instanceof DataMarkingI && !((DataMarkingI) marking).getBindings().isEmpty())
+			throw new ConverterException("Symbolic structures do not support nets with data");
+
+		// A State only records which places are marked, such that markings with more tokens would be merged
+		for (String place : marking.getMarkedPlaces())
+			if (marking.getTokens(place) > 1)
+				throw new ConverterException("Symbolic structures do not support unsafe nets, place " + place + " holds " + marking.getTokens(place) + " tokens");
+
+		Set<String> transitions = new HashSet<>();
+		for (TransitionI transition : enabled)
+			transitions.add(transition.getId());
+
+		return new SymbolicState(new HashSet<>(marking.getMarkedPlaces()), transitions);
+	}
+
+	private Set<String> createLabel(MarkingI marking, Set<? extends TransitionI> enabled) {
+		return factory.createState(marking, enabled).getAtomicPropositions();
+	}
+
+	private boolean containsRemaining(Set<? extends TransitionI> next, Set<? extends TransitionI> previous, TransitionI fired) {
+		for (TransitionI transition : previous)
+			if (!transition.equals(fired) && !next.contains(transition))
+				return false;
+
+		return true;
+	}
+}
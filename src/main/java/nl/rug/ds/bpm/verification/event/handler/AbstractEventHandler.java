@@ -10,15 +10,15 @@ public abstract class AbstractEventHandler<L, E> {
         listenerSet = new HashSet<>();
     }
 
-    public void addEventListener(L listener) {
+    public synchronized void addEventListener(L listener) {
         listenerSet.add(listener);
     }
 
-    public void removeEventListener(L listener) {
+    public synchronized void removeEventListener(L listener) {
         listenerSet.remove(listener);
     }
 
-    public void fireEvent(E event) {
+    public synchronized void fireEvent(E event) {
         notify(event);
     }
 
@@ -0,0 +1,100 @@
+package nl.rug.ds.bpm.verification.map;
+
+import nl.rug.ds.bpm.util.hash.Fingerprint;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dense index of atomic propositions, that encodes sets of atomic propositions as AtomicPropositionLabels.
+ * <p>
+ * An index is owned by a factory, or by a single label created without one, such that it is released together with
+ * the states that use it. Labels of the same index compare word-wise, labels of different indices element-wise.
+ * Lookups do not lock, and new atomic propositions are assigned the next free index.
+ * </p>
+ */
+public class AtomicPropositionIndex {
+    private final ConcurrentHashMap<String, Integer> indices;
+    private volatile String[] indexed;
+    private volatile long[] fingerprints;
+    private int count;
+
+    /**
+     * Creates an empty index.
+     */
+    public AtomicPropositionIndex() {
+        indices = new ConcurrentHashMap<>();
+        indexed = new String[64];
+        fingerprints = new long[64];
+        count = 0;
+    }
+
+    /**
+     * Returns the index of the given atomic proposition, and assigns the next free index if it has none yet.
+     *
+     * @param ap the atomic proposition.
+     * @return the index of the given atomic proposition.
+     */
+    public int indexOf(String ap) {
+        Integer index = indices.get(ap);
+        return (index != null ? index : assign(ap));
+    }
+
+    /**
+     * Returns the index of the given atomic proposition, without assigning one.
+     *
+     * @param ap the atomic proposition.
+     * @return the index of the given atomic proposition, or -1 if it has no index.
+     */
+    public int findIndex(String ap) {
+        Integer index = indices.get(ap);
+        return (index != null ? index : -1);
+    }
+
+    /**
+     * Returns the atomic proposition with the given index.
+     *
+     * @param index the index.
+     * @return the atomic proposition.
+     */
+    public String get(int index) {
+        return indexed[index];
+    }
+
+    /**
+     * Returns the 64-bit fingerprint of the atomic proposition with the given index, which does not depend on the index.
+     *
+     * @param index the index.
+     * @return the fingerprint of the atomic proposition.
+     */
+    public long fingerprint(int index) {
+        return fingerprints[index];
+    }
+
+    /**
+     * Returns the number of indexed atomic propositions.
+     *
+     * @return the number of indexed atomic propositions.
+     */
+    public int size() {
+        return indices.size();
+    }
+
+    private synchronized int assign(String ap) {
+        Integer index = indices.get(ap);
+
+        if (index == null) {
+            if (count == indexed.length) {
+                fingerprints = Arrays.copyOf(fingerprints, count * 2);
+                indexed = Arrays.copyOf(indexed, count * 2);
+            }
+            fingerprints[count] = Fingerprint.of(ap);
+            indexed[count] = ap;
+            index = count++;
+            // Published last, such that readers that find the index also find the atomic proposition
+            indices.put(ap, index);
+        }
+
+        return index;
+    }
+}
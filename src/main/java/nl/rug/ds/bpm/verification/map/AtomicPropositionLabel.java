@@ -0,0 +1,293 @@
+package nl.rug.ds.bpm.verification.map;
+
+import nl.rug.ds.bpm.util.hash.Fingerprint;
+
+import java.util.*;
+
+/**
+ * Immutable set of atomic propositions, encoded as a bit set over the dense indices of an AtomicPropositionIndex.
+ * <p>
+ * Labels are intended to be interned, such that states with the same atomic propositions share a single label.
+ * Equality, containment, and removal between labels of the same index are word-wise operations. The fingerprint of a
+ * label does not depend on its index, and labels iterate over their atomic propositions in lexicographic order.
+ * </p>
+ */
+public final class AtomicPropositionLabel extends AbstractSet<String> {
+    public static final AtomicPropositionLabel EMPTY = new AtomicPropositionLabel(new AtomicPropositionIndex(), new long[0]);
+
+    private final AtomicPropositionIndex index;
+    private final long[] words;
+    private final int size;
+    private final int hashCode;
+    private final long fingerprint;
+    private volatile String[] sorted;
+
+    private AtomicPropositionLabel(AtomicPropositionIndex index, long[] words) {
+        this.index = index;
+
+        int length = words.length;
+        while (length > 0 && words[length - 1] == 0)
+            length--;
+        this.words = (length == words.length ? words : Arrays.copyOf(words, length));
+
+        int size = 0;
+        int hashCode = 0;
+        long fingerprint = 0;
+        for (int i = nextIndex(0); i >= 0; i = nextIndex(i + 1)) {
+            size++;
+            hashCode += index.get(i).hashCode();
+            fingerprint += index.fingerprint(i);
+        }
+        this.size = size;
+        this.hashCode = hashCode;
+        this.fingerprint = Fingerprint.mix(fingerprint + size);
+    }
+
+    /**
+     * Returns a label that contains the given atomic propositions, over an index of its own.
+     *
+     * @param atomicPropositions the atomic propositions.
+     * @return the given set if it is a label already, and a new label otherwise.
+     */
+    public static AtomicPropositionLabel of(Collection<String> atomicPropositions) {
+        if (atomicPropositions instanceof AtomicPropositionLabel)
+            return (AtomicPropositionLabel) atomicPropositions;
+        if (atomicPropositions.isEmpty())
+            return EMPTY;
+
+        return of(new AtomicPropositionIndex(), atomicPropositions);
+    }
+
+    /**
+     * Returns a label that contains the given atomic propositions, over the given index.
+     *
+     * @param index              the index.
+     * @param atomicPropositions the atomic propositions.
+     * @return the given set if it is a label of the given index already, and a new label otherwise.
+     */
+    public static AtomicPropositionLabel of(AtomicPropositionIndex index, Collection<String> atomicPropositions) {
+        if (atomicPropositions instanceof AtomicPropositionLabel && ((AtomicPropositionLabel) atomicPropositions).index == index)
+            return (AtomicPropositionLabel) atomicPropositions;
+
+        long[] words = new long[0];
+        for (String ap : atomicPropositions) {
+            int i = index.indexOf(ap);
+            if ((i >> 6) >= words.length)
+                words = Arrays.copyOf(words, (i >> 6) + 1);
+            words[i >> 6] |= 1L << i;
+        }
+
+        return new AtomicPropositionLabel(index, words);
+    }
+
+    /**
+     * Returns the words of the given set of atomic propositions over the index of this label. Atomic propositions
+     * without an index are skipped, unless they must be assigned one.
+     */
+    private long[] wordsOf(Collection<String> atomicPropositions, boolean assign) {
+        if (atomicPropositions instanceof AtomicPropositionLabel && ((AtomicPropositionLabel) atomicPropositions).index == index)
+            return ((AtomicPropositionLabel) atomicPropositions).words;
+        if (assign)
+            return of(index, atomicPropositions).words;
+
+        long[] words = new long[0];
+        for (String ap : atomicPropositions) {
+            int i = index.findIndex(ap);
+            if (i < 0)
+                continue;
+            if ((i >> 6) >= words.length)
+                words = Arrays.copyOf(words, (i >> 6) + 1);
+            words[i >> 6] |= 1L << i;
+        }
+        return words;
+    }
+
+    /**
+     * Returns the index over which this label is encoded.
+     *
+     * @return the index.
+     */
+    public AtomicPropositionIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Returns whether the atomic proposition with the given index is contained in this label.
+     *
+     * @param index the index of the atomic proposition.
+     * @return true iff the atomic proposition is contained in this label.
+     */
+    public boolean contains(int index) {
+        return index >= 0 && (index >> 6) < words.length && (words[index >> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Returns the next index of an atomic proposition that is contained in this label, starting at the given index.
+     *
+     * @param from the index to start at.
+     * @return the next index, or -1 if there is none.
+     */
+    public int nextIndex(int from) {
+        int w = from >> 6;
+        if (w >= words.length)
+            return -1;
+
+        long word = words[w] & (-1L << from);
+        while (true) {
+            if (word != 0)
+                return (w << 6) + Long.numberOfTrailingZeros(word);
+            if (++w == words.length)
+                return -1;
+            word = words[w];
+        }
+    }
+
+    /**
+     * Returns a label with the atomic propositions of this label that are not contained in the given set.
+     *
+     * @param atomicPropositions the atomic propositions to remove.
+     * @return the resulting label, or this if nothing was removed.
+     */
+    public AtomicPropositionLabel without(Collection<String> atomicPropositions) {
+        long[] other = wordsOf(atomicPropositions, false);
+        long[] result = Arrays.copyOf(words, words.length);
+        boolean changed = false;
+
+        for (int i = 0; i < Math.min(result.length, other.length); i++) {
+            changed |= (result[i] & other[i]) != 0;
+            result[i] &= ~other[i];
+        }
+
+        return (changed ? new AtomicPropositionLabel(index, result) : this);
+    }
+
+    /**
+     * Returns a label with the atomic propositions of this label that are also contained in the given set.
+     *
+     * @param atomicPropositions the atomic propositions to retain.
+     * @return the resulting label, or this if nothing was removed.
+     */
+    public AtomicPropositionLabel retain(Collection<String> atomicPropositions) {
+        long[] other = wordsOf(atomicPropositions, false);
+        long[] result = Arrays.copyOf(words, Math.min(words.length, other.length));
+        boolean changed = result.length < words.length;
+
+        for (int i = 0; i < result.length; i++) {
+            changed |= (result[i] & ~other[i]) != 0;
+            result[i] &= other[i];
+        }
+
+        return (changed ? new AtomicPropositionLabel(index, result) : this);
+    }
+
+    /**
+     * Returns a label with the atomic propositions of both this label and the given set.
+     *
+     * @param atomicPropositions the atomic propositions to add.
+     * @return the resulting label, or this if nothing was added.
+     */
+    public AtomicPropositionLabel with(Collection<String> atomicPropositions) {
+        long[] other = wordsOf(atomicPropositions, true);
+        long[] result = Arrays.copyOf(words, Math.max(words.length, other.length));
+        boolean changed = false;
+
+        for (int i = 0; i < other.length; i++) {
+            changed |= (other[i] & ~result[i]) != 0;
+            result[i] |= other[i];
+        }
+
+        return (changed ? new AtomicPropositionLabel(index, result) : this);
+    }
+
+    /**
+     * Returns the 64-bit fingerprint of this label.
+     *
+     * @return the fingerprint.
+     */
+    public long fingerprint() {
+        return fingerprint;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof String && contains(index.findIndex((String) o));
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        if (!(c instanceof AtomicPropositionLabel) || ((AtomicPropositionLabel) c).index != index)
+            return super.containsAll(c);
+
+        long[] other = ((AtomicPropositionLabel) c).words;
+        if (other.length > words.length)
+            return false;
+        for (int i = 0; i < other.length; i++)
+            if ((other[i] & ~words[i]) != 0)
+                return false;
+        return true;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private final String[] atomicPropositions = sorted();
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < atomicPropositions.length;
+            }
+
+            @Override
+            public String next() {
+                if (next == atomicPropositions.length)
+                    throw new NoSuchElementException();
+                return atomicPropositions[next++];
+            }
+        };
+    }
+
+    /**
+     * Returns the atomic propositions of this label in lexicographic order, which are sorted once on first use.
+     */
+    private String[] sorted() {
+        String[] atomicPropositions = sorted;
+        if (atomicPropositions == null) {
+            atomicPropositions = new String[size];
+            int n = 0;
+            for (int i = nextIndex(0); i >= 0; i = nextIndex(i + 1))
+                atomicPropositions[n++] = index.get(i);
+            Arrays.sort(atomicPropositions);
+            sorted = atomicPropositions;
+        }
+        return atomicPropositions;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o instanceof AtomicPropositionLabel) {
+            AtomicPropositionLabel label = (AtomicPropositionLabel) o;
+            if (hashCode != label.hashCode || fingerprint != label.fingerprint)
+                return false;
+            return (index == label.index ? Arrays.equals(words, label.words) : super.equals(o));
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+}
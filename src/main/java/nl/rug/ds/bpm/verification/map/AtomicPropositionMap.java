@@ -4,26 +4,43 @@ import nl.rug.ds.bpm.util.comparator.ComparableComparator;
 import nl.rug.ds.bpm.util.comparator.StringComparator;
 import nl.rug.ds.bpm.util.log.LogEvent;
 import nl.rug.ds.bpm.util.log.Logger;
-import nl.rug.ds.bpm.util.map.TreeBiMap;
 
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Created by p256867 on 4-4-2017.
+ * <p>
+ * Bi-directional map between ids and atomic propositions. Lookups of existing ids do not lock, whereas new atomic
+ * propositions are created under the lock of the map, such that each id is numbered once and numbers have no gaps.
+ * Both directions are sorted, such that key sets are ordered as before.
+ * </p>
+ * <p>
+ * The version of the map changes whenever an id is remapped or a specification id is added, such that clients that
+ * cache lookups can detect that their cache may be stale.
+ * </p>
  */
 public class AtomicPropositionMap<T extends Comparable<T>> {
-    private int n;
+    private final AtomicInteger n;
+    private final AtomicInteger specificationCount;
+    private final AtomicLong version;
     private String ap;
-    private TreeBiMap<T, String> map;
-    private Set<T> specificationIds;
+    private final ConcurrentSkipListMap<T, String> map;
+    private final ConcurrentSkipListMap<String, T> reverse;
+    private final Set<T> specificationIds;
 
     public AtomicPropositionMap() {
         ap = "n";
-        n = 0;
-        map = new TreeBiMap<T, String>(new ComparableComparator<T>(), new StringComparator());
-        specificationIds = new TreeSet<T>(new ComparableComparator<T>());
+        n = new AtomicInteger();
+        specificationCount = new AtomicInteger();
+        version = new AtomicLong();
+        map = new ConcurrentSkipListMap<T, String>(new ComparableComparator<T>());
+        reverse = new ConcurrentSkipListMap<String, T>(new StringComparator());
+        specificationIds = new ConcurrentSkipListSet<T>(new ComparableComparator<T>());
     }
 
     public AtomicPropositionMap(String apIdentifier) {
@@ -33,31 +50,55 @@ public class AtomicPropositionMap<T extends Comparable<T>> {
 
     public AtomicPropositionMap(String apIdentifier, Map<T, String> map) {
         this(apIdentifier);
-        this.map.putAll(map);
+        for (Map.Entry<T, String> entry : map.entrySet())
+            put(entry.getKey(), entry.getValue());
     }
 
-    public synchronized String addSpecificationId(T id) {
-        specificationIds.add(id);
+    public String addSpecificationId(T id) {
+        if (specificationIds.add(id)) {
+            specificationCount.incrementAndGet();
+            version.incrementAndGet();
+        }
         return addID(id);
     }
 
-    public synchronized String addID(T id) {
-        if (!map.containsKey(id)) {
-            String nid = ap + n++;
-            map.put(id, nid);
-            Logger.log("Mapping " + id.toString() + " to " + nid, LogEvent.DEBUG);
+    /**
+     * Obtains the atomic proposition of the given id, or maps the id to a new atomic proposition. A new atomic
+     * proposition is only numbered by the thread that maps it, and is published in the reverse direction before the
+     * forward direction, such that any thread that obtains it can also look up its id.
+     *
+     * @param id the id.
+     * @return the atomic proposition of the id.
+     */
+    public String addID(T id) {
+        String existing = map.get(id);
+        if (existing != null)
+            return existing;
+
+        // The mapping function of a ConcurrentSkipListMap may run more than once unless it is called under a lock
+        synchronized (this) {
+            return map.computeIfAbsent(id, key -> {
+                String nid = ap + n.getAndIncrement();
+                reverse.put(nid, key);
+                Logger.log("Mapping " + key.toString() + " to " + nid, LogEvent.DEBUG);
+                return nid;
+            });
         }
-        return map.get(id);
     }
 
-    public synchronized void addID(T id, String ap) {
-        map.put(id, ap);
+    public void addID(T id, String ap) {
+        put(id, ap);
         Logger.log("Remapping " + id.toString() + " to " + ap, LogEvent.DEBUG);
     }
 
-    public synchronized void merge(AtomicPropositionMap<T> atomicPropositionMap) {
-        map.putAll(atomicPropositionMap.getMap());
-        specificationIds.addAll(atomicPropositionMap.getSpecificationIds());
+    public void merge(AtomicPropositionMap<T> atomicPropositionMap) {
+        for (Map.Entry<T, String> entry : atomicPropositionMap.getMap().entrySet())
+            put(entry.getKey(), entry.getValue());
+        for (T id : atomicPropositionMap.getSpecificationIds())
+            if (specificationIds.add(id)) {
+                specificationCount.incrementAndGet();
+                version.incrementAndGet();
+            }
     }
 
     public boolean contains(T id) {
@@ -69,7 +110,7 @@ public class AtomicPropositionMap<T extends Comparable<T>> {
     }
 
     public T getID(String ap) {
-        return map.getKey(ap);
+        return reverse.get(ap);
     }
 
     public Set<T> getIDKeys() {
@@ -77,14 +118,44 @@ public class AtomicPropositionMap<T extends Comparable<T>> {
     }
 
     public Set<String> getAPKeys() {
-        return (Set<String>) map.values();
+        return reverse.keySet();
     }
 
     public Set<T> getSpecificationIds() {
         return specificationIds;
     }
 
+    /**
+     * Returns the number of specification ids, which, unlike the size of the set of specification ids, is obtained in
+     * constant time.
+     *
+     * @return the number of specification ids.
+     */
+    public int getSpecificationCount() {
+        return specificationCount.get();
+    }
+
+    /**
+     * Returns the version of this map, which changes whenever an id is remapped or a specification id is added. The
+     * version changes after the map itself, such that a lookup made after obtaining a version is at least as recent as
+     * that version.
+     *
+     * @return the version.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
     public Map<T, String> getMap() {
         return map;
     }
+
+    private synchronized void put(T id, String ap) {
+        reverse.put(ap, id);
+        String previous = map.put(id, ap);
+        if (previous != null && !previous.equals(ap))
+            reverse.remove(previous, id);
+        if (!ap.equals(previous))
+            version.incrementAndGet();
+    }
 }
@@ -9,9 +9,11 @@ import java.util.Set;
 public interface State<S extends State<S>> extends Comparable<S> {
 
     /**
-     * Sets the unique id of the state.
+     * Sets the unique id of the state. Called by the structure that the state is inserted in.
+     *
+     * @param idNumber the unique state number within that structure.
      */
-    void setId();
+    void setId(long idNumber);
 
     /**
      * Returns the unique id of this state.
@@ -34,6 +36,14 @@ public interface State<S extends State<S>> extends Comparable<S> {
      */
     String hash();
 
+    /**
+     * Returns the 64-bit fingerprint of this state, i.e., a hash of the contents that identify this state.
+     * Equal states have equal fingerprints, but states with equal fingerprints are not necessarily equal.
+     *
+     * @return the fingerprint of this state.
+     */
+    long fingerprint();
+
     /**
      * Returns the set of atomic proportions that hold in this state.
      *
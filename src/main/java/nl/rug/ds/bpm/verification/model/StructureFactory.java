@@ -9,6 +9,7 @@ import nl.rug.ds.bpm.verification.map.AtomicPropositionMap;
 
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Executor;
 
 public interface StructureFactory<S extends State<S>, K extends Structure<S>> {
 
@@ -124,4 +125,12 @@ public interface StructureFactory<S extends State<S>, K extends Structure<S>> {
      * @return a new ConverterAction.
      */
     AbstractConverterAction createConverter(VerifiableNet net, MarkingI marking, K structure);
+
+    /**
+     * Sets the Executor on which the ConverterActions created by this factory explore.
+     *
+     * @param executor    the Executor, which remains owned by the caller.
+     * @param parallelism the number of workers per exploration.
+     */
+    void setExecutor(Executor executor, int parallelism);
 }
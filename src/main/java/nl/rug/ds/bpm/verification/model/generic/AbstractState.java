@@ -1,79 +1,53 @@
 package nl.rug.ds.bpm.verification.model.generic;
 
-import nl.rug.ds.bpm.util.comparator.ComparableComparator;
-import nl.rug.ds.bpm.util.log.LogEvent;
-import nl.rug.ds.bpm.util.log.Logger;
+import nl.rug.ds.bpm.util.hash.Fingerprint;
+import nl.rug.ds.bpm.verification.map.AtomicPropositionLabel;
 import nl.rug.ds.bpm.verification.model.State;
 
 import java.util.HashSet;
 import java.util.Set;
-import java.util.TreeSet;
-import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * An abstract state of a transition system.
  */
 public abstract class AbstractState<S extends State<S>> implements State<S> {
-    protected static ReentrantLock lock = new ReentrantLock();
-    protected static long stateID = 0;
-    protected long idNumber;
-    protected String id;
-    protected String hash;
-    protected Set<String> atomicPropositions;
+    protected long idNumber = -1;
+    protected long fingerprint;
+    protected AtomicPropositionLabel atomicPropositions;
     protected Set<S> nextStates, previousStates;
+    protected CompressedRelation<S> relation;
+    protected int index = -1;
 
     /**
      * Creates an abstract state.
      *
-     * @param atomicPropositions The set of atomic propositions that hold in this state.
+     * @param atomicPropositions The set of atomic propositions that hold in this state, preferably an interned label.
      */
     public AbstractState(Set<String> atomicPropositions) {
-        this.atomicPropositions = new TreeSet<String>(new ComparableComparator<String>());
-        this.atomicPropositions.addAll(atomicPropositions);
-
-        hash = String.join("", atomicPropositions);
+        this.atomicPropositions = AtomicPropositionLabel.of(atomicPropositions);
+        updateFingerprint();
 
         nextStates = new HashSet<>();
         previousStates = new HashSet<>();
-        setId();
     }
 
     /**
-     * Sets the state ID to start counting from.
+     * Sets the unique id of the state. Called by the structure that the state is inserted in, such that states that
+     * are discarded as duplicates never obtain an id.
      *
-     * @param start the ID to start counting from.
-     */
-    public static void setStartID(long start) {
-        lock.lock();
-        try {
-            stateID = start;
-        } catch (Exception e) {
-            Logger.log("Failed to write state ID.", LogEvent.ERROR);
-        } finally {
-            lock.unlock();
-        }
-    }
-
-    /**
-     * Resets the state ID to start counting from to 0.
+     * @param idNumber the unique state number within that structure.
      */
-    public static void resetStartID() {
-        setStartID(0);
+    public void setId(long idNumber) {
+        this.idNumber = idNumber;
     }
 
     /**
-     * Sets the unique id of the state.
+     * Returns the prefix of the id of this state.
+     *
+     * @return the prefix.
      */
-    public void setId() {
-        lock.lock();
-        try {
-            this.idNumber = stateID++;
-            this.id = "S" + idNumber;
-        } catch (Exception e) {
-            Logger.log("Failed to write state ID.", LogEvent.ERROR);
-        } finally {
-            lock.unlock();
-        }
+    protected String getIdPrefix() {
+        return "S";
     }
 
     /**
@@ -82,7 +56,7 @@ public abstract class AbstractState<S extends State<S>> implements State<S> {
      * @return the unique id of this state.
      */
     public String getId() {
-        return id;
+        return getIdPrefix() + idNumber;
     }
 
     /**
@@ -95,13 +69,39 @@ public abstract class AbstractState<S extends State<S>> implements State<S> {
         return idNumber;
     }
 
+    /**
+     * Recomputes the fingerprint of this state from its components.
+     */
+    protected void updateFingerprint() {
+        fingerprint = Fingerprint.mix(atomicPropositions.fingerprint());
+    }
+
     /**
      * Returns the hash code representing this state.
      *
      * @return the hash code representing this state.
      */
     public String hash() {
-        return hash;
+        return String.join("", atomicPropositions);
+    }
+
+    /**
+     * Returns the 64-bit fingerprint of this state.
+     *
+     * @return the fingerprint of this state.
+     */
+    @Override
+    public long fingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Returns the 64-bit fingerprint of the set of atomic propositions that hold in this state.
+     *
+     * @return the fingerprint of the atomic propositions.
+     */
+    public long apFingerprint() {
+        return atomicPropositions.fingerprint();
     }
 
     /**
@@ -109,18 +109,27 @@ public abstract class AbstractState<S extends State<S>> implements State<S> {
      *
      * @return the set of atomic proportions that hold in this state.
      */
-    public Set<String> getAtomicPropositions() {
+    public AtomicPropositionLabel getAtomicPropositions() {
         return atomicPropositions;
     }
 
+    /**
+     * Replaces the set of atomic propositions that hold in this state and recreates hashes.
+     *
+     * @param label the (interned) label of atomic propositions.
+     */
+    public void setAtomicPropositions(AtomicPropositionLabel label) {
+        atomicPropositions = label;
+        updateFingerprint();
+    }
+
     /**
      * Removes a set of atomic propositions from holding in this state and recreates hashes.
      *
      * @param APs the set of atomic propositions to remove.
      */
     public void removeAtomicPropositions(Set<String> APs) {
-        atomicPropositions.removeAll(APs);
-        hash = String.join("", atomicPropositions);
+        setAtomicPropositions(atomicPropositions.without(APs));
     }
 
     /**
@@ -129,17 +138,18 @@ public abstract class AbstractState<S extends State<S>> implements State<S> {
      * @param APs the set of atomic propositions to add.
      */
     public void addAtomicPropositions(Set<String> APs) {
-        atomicPropositions.addAll(APs);
-        hash = String.join("", atomicPropositions);
+        setAtomicPropositions(atomicPropositions.with(APs));
     }
 
     /**
      * Add a state as a next state that is accessible from this state.
+     * Locks only this state, such that relations of different states may be added concurrently.
      *
      * @param s the next state.
      * @return true if the set of next states did not already contain the given state.
      */
-    public boolean addNext(S s) {
+    public synchronized boolean addNext(S s) {
+        thaw();
         return nextStates.add(s);
     }
 
@@ -149,26 +159,40 @@ public abstract class AbstractState<S extends State<S>> implements State<S> {
      * @param s the set of next states.
      * @return true if the set of next states changed as a result of this call.
      */
-    public boolean addNext(Set<S> s) {
+    public synchronized boolean addNext(Set<S> s) {
+        thaw();
         return nextStates.addAll(s);
     }
 
+    /**
+     * Replaces the set of next states that are accessible from this state.
+     *
+     * @param s the set of next states.
+     */
+    public synchronized void setNextStates(Set<S> s) {
+        thaw();
+        nextStates = new HashSet<>(s);
+    }
+
     /**
      * Returns the set of next states that are accessible from this state.
+     * The returned set is an unmodifiable view if this state is frozen.
      *
      * @return the set of next states that are accessible from this state.
      */
     public Set<S> getNextStates() {
-        return nextStates;
+        return (relation == null ? nextStates : relation.getNextStates(index));
     }
 
     /**
      * Add a state as a previous state from which this state is accessible.
+     * Locks only this state, such that relations of different states may be added concurrently.
      *
      * @param s the previous state.
      * @return true if the set of previous states did not already contain the given state.
      */
-    public boolean addPrevious(S s) {
+    public synchronized boolean addPrevious(S s) {
+        thaw();
         return previousStates.add(s);
     }
 
@@ -178,17 +202,81 @@ public abstract class AbstractState<S extends State<S>> implements State<S> {
      * @param s the set of previous states.
      * @return true if the set of previous states changed as a result of this call.
      */
-    public boolean addPrevious(Set<S> s) {
+    public synchronized boolean addPrevious(Set<S> s) {
+        thaw();
         return previousStates.addAll(s);
     }
 
+    /**
+     * Replaces the set of previous states from which this state is accessible.
+     *
+     * @param s the set of previous states.
+     */
+    public synchronized void setPreviousStates(Set<S> s) {
+        thaw();
+        previousStates = new HashSet<>(s);
+    }
+
     /**
      * Returns the set of previous states from which this state is accessible.
+     * The returned set is an unmodifiable view if this state is frozen.
      *
      * @return the set of previous states from which this state is accessible.
      */
     public Set<S> getPreviousStates() {
-        return previousStates;
+        return (relation == null ? previousStates : relation.getPreviousStates(index));
+    }
+
+    /**
+     * Returns the index of this state within the last compressed relation it was included in.
+     *
+     * @return the index, or -1 if this state was never included in a compressed relation.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Sets the index of this state within a compressed relation.
+     *
+     * @param index the index.
+     */
+    void setIndex(int index) {
+        this.index = index;
+    }
+
+    /**
+     * Freezes this state, i.e., releases its own sets of next and previous states in favor of the given compressed
+     * relation, which must include this state at its current index.
+     *
+     * @param relation the compressed relation.
+     */
+    synchronized void freeze(CompressedRelation<S> relation) {
+        this.relation = relation;
+        nextStates = null;
+        previousStates = null;
+    }
+
+    /**
+     * Thaws this state if it is frozen, i.e., copies its next and previous states from its compressed relation into
+     * sets of its own, and invalidates the compressed relation.
+     */
+    protected synchronized void thaw() {
+        if (relation != null) {
+            nextStates = new HashSet<>(relation.getNextStates(index));
+            previousStates = new HashSet<>(relation.getPreviousStates(index));
+            relation.invalidate();
+            relation = null;
+        }
+    }
+
+    /**
+     * Returns whether this state is frozen, i.e., whether its relations are stored in a compressed relation.
+     *
+     * @return true iff this state is frozen.
+     */
+    public boolean isFrozen() {
+        return relation != null;
     }
 
     /**
@@ -200,9 +288,20 @@ public abstract class AbstractState<S extends State<S>> implements State<S> {
         return getNextStates().stream().anyMatch(s -> s == this);
     }
 
+    /**
+     * Returns true iff the contents of this state equal the contents of the given state of the same class.
+     * Called only when the fingerprints of both states are equal, to rule out fingerprint collisions.
+     *
+     * @param o the given state.
+     * @return true iff the contents of this state equal those of the given state.
+     */
+    protected boolean contentEquals(S o) {
+        return atomicPropositions.equals(o.getAtomicPropositions());
+    }
+
     @Override
     public String toString() {
-        return id + ": {" + hash + "}";
+        return getId() + ": {" + hash() + "}";
     }
 
     @Override
@@ -213,9 +312,14 @@ public abstract class AbstractState<S extends State<S>> implements State<S> {
             return -1;
         if (this.getClass() != o.getClass())
             return -1;
-        return hash.compareTo(o.hash());
+        if (fingerprint != o.fingerprint())
+            return Long.compare(fingerprint, o.fingerprint());
+        if (contentEquals(o))
+            return 0;
+        return hash().compareTo(o.hash());
     }
 
+    @SuppressWarnings("unchecked")
     @Override
     public boolean equals(Object arg0) {
         if (this == arg0)
@@ -223,7 +327,12 @@ public abstract class AbstractState<S extends State<S>> implements State<S> {
         if (arg0 == null)
             return false;
         if (this.getClass() == arg0.getClass())
-            return hash.equals(((AbstractState<?>) arg0).hash());
+            return fingerprint == ((AbstractState<?>) arg0).fingerprint() && contentEquals((S) arg0);
         else return false;
     }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(fingerprint);
+    }
 }
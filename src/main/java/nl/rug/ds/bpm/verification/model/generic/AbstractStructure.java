@@ -3,6 +3,7 @@ package nl.rug.ds.bpm.verification.model.generic;
 import nl.rug.ds.bpm.specification.jaxb.Condition;
 import nl.rug.ds.bpm.util.comparator.ComparableComparator;
 import nl.rug.ds.bpm.util.exception.ConverterException;
+import nl.rug.ds.bpm.util.set.ConcurrentInternSet;
 import nl.rug.ds.bpm.verification.model.ConditionalStructure;
 import nl.rug.ds.bpm.verification.model.Structure;
 
@@ -10,7 +11,10 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * An abstract transition system representing a (Kripke) structure.
@@ -18,20 +22,24 @@ import java.util.stream.Collectors;
 public abstract class AbstractStructure<S extends AbstractState<S>> implements Structure<S>, ConditionalStructure {
     protected static long maximum = Long.MAX_VALUE;
 
-    protected TreeSet<String> atomicPropositions;
-    protected TreeSet<S> states;
+    protected ConcurrentSkipListSet<String> atomicPropositions;
+    protected ConcurrentInternSet<S> states;
     protected TreeSet<S> initial;
 
     protected HashSet<String> conditions;
 
+    protected volatile CompressedRelation<S> relation;
+    protected final AtomicLong nextId;
+
     /**
      * Creates an abstract structure.
      */
     public AbstractStructure() {
-        atomicPropositions = new TreeSet<String>(new ComparableComparator<String>());
-        states = new TreeSet<S>(new ComparableComparator<S>());
+        atomicPropositions = new ConcurrentSkipListSet<String>(new ComparableComparator<String>());
+        states = new ConcurrentInternSet<S>();
         initial = new TreeSet<S>(new ComparableComparator<S>());
         conditions = new HashSet<>();
+        nextId = new AtomicLong();
     }
 
     /**
@@ -92,25 +100,39 @@ public abstract class AbstractStructure<S extends AbstractState<S>> implements S
     /**
      * Add a state to the transition system.
      *
+     * <p>
+     * Does not lock the structure, such that concurrent converter actions may add states simultaneously.
+     * The maximum number of states is checked optimistically, and may therefore be exceeded by the number of concurrent callers.
+     * </p>
+     *
      * @param s the state
      * @return s if new, otherwise the equaling known state.
      * @throws ConverterException if the maximum number of states was reached.
      */
-    public synchronized S addState(S s) throws ConverterException {
+    public S addState(S s) throws ConverterException {
         if (states.size() >= maximum || atomicPropositions.size() >= maximum)
             throw new ConverterException("Maximum state space reached (at " + maximum + " states/propositions)");
 
-        S known = states.ceiling(s);
+        S known = states.intern(s, this::assignId);
 
-        if (!s.equals(known)) {
-            known = s;
-            states.add(s);
+        if (known == s) {
             atomicPropositions.addAll(s.getAtomicPropositions());
+            invalidate();
         }
 
         return known;
     }
 
+    /**
+     * Assigns the next unique id of this transition system to the given state.
+     * Ids are dense, as only states that are actually inserted are assigned an id.
+     *
+     * @param s the state.
+     */
+    protected void assignId(S s) {
+        s.setId(nextId.getAndIncrement());
+    }
+
     /**
      * Add a relation from the given current state to the given next state, add the given next state to the transition system if it is not known.
      *
@@ -119,6 +141,7 @@ public abstract class AbstractStructure<S extends AbstractState<S>> implements S
      * The given next state will be added to this transition system if it is not yet known.
      * Adds the (known) given next state as a next state of the given current state.
      * Adds the given current state as a previous state of the (known) given next state.
+     * Only the states involved are locked, such that relations between other states may be added simultaneously.
      * </p>
      *
      * @param current a state current to this transition system.
@@ -126,7 +149,7 @@ public abstract class AbstractStructure<S extends AbstractState<S>> implements S
      * @return either the added next state or an already known state that equals the added state.
      * @throws ConverterException if the maximum number of states was reached.
      */
-    public synchronized S addNext(S current, S next) throws ConverterException {
+    public S addNext(S current, S next) throws ConverterException {
         if (states.size() >= maximum || atomicPropositions.size() >= maximum)
             throw new ConverterException("Maximum state space reached (at " + maximum + " states/propositions)");
 
@@ -138,12 +161,50 @@ public abstract class AbstractStructure<S extends AbstractState<S>> implements S
         return known;
     }
 
+    /**
+     * Freezes this transition system, i.e., stores its relations in a compressed relation, and releases the sets of
+     * next and previous states of its states. Should be called once the transition system is complete.
+     * Modifying the transition system afterwards thaws the modified states and invalidates the compressed relation.
+     *
+     * @return the compressed relation.
+     */
+    public CompressedRelation<S> freeze() {
+        CompressedRelation<S> relation = new CompressedRelation<>(states);
+
+        for (int i = 0; i < relation.size(); i++)
+            relation.getState(i).freeze(relation);
+
+        this.relation = relation;
+        return relation;
+    }
+
+    /**
+     * Returns the compressed relation of this transition system, if it is frozen and has not been modified since.
+     *
+     * @return the compressed relation, or null if there is no valid compressed relation.
+     */
+    public CompressedRelation<S> getRelation() {
+        CompressedRelation<S> relation = this.relation;
+        return (relation != null && relation.isValid() ? relation : null);
+    }
+
+    /**
+     * Invalidates the compressed relation of this transition system, if any.
+     */
+    protected void invalidate() {
+        CompressedRelation<S> relation = this.relation;
+        if (relation != null) {
+            relation.invalidate();
+            this.relation = null;
+        }
+    }
+
     /**
      * Returns the set of atomic propositions that hold throughout the different states included in this transition system.
      *
      * @return the set of atomic propositions that hold throughout the different states included in this transition system.
      */
-    public TreeSet<String> getAtomicPropositions() {
+    public ConcurrentSkipListSet<String> getAtomicPropositions() {
         return atomicPropositions;
     }
 
@@ -171,6 +232,10 @@ public abstract class AbstractStructure<S extends AbstractState<S>> implements S
      * @return the set of sink states included in this transition system, i.e., states with itself as next state.
      */
     public Set<S> getSinkStates() {
+        CompressedRelation<S> relation = getRelation();
+        if (relation != null)
+            return IntStream.range(0, relation.size()).filter(relation::isSink).mapToObj(relation::getState).collect(Collectors.toSet());
+
         return states.stream().filter(s -> s.getNextStates().size() == 1).filter(s -> s.getNextStates().iterator().next() == s).collect(Collectors.toSet());
     }
 
@@ -198,6 +263,10 @@ public abstract class AbstractStructure<S extends AbstractState<S>> implements S
      * @return the number of different relations as next states within the different states of this transition system.
      */
     public long getRelationCount() {
+        CompressedRelation<S> relation = getRelation();
+        if (relation != null)
+            return relation.getRelationCount();
+
         return states.stream().mapToLong(n -> n.getNextStates().size()).sum();
     }
 
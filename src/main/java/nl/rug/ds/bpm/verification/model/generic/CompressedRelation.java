@@ -0,0 +1,260 @@
+package nl.rug.ds.bpm.verification.model.generic;
+
+import nl.rug.ds.bpm.util.log.LogEvent;
+import nl.rug.ds.bpm.util.log.Logger;
+import nl.rug.ds.bpm.verification.model.State;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Immutable relation of a finished transition system in compressed sparse row (CSR) format.
+ * <p>
+ * States are indexed from 0 to the number of states. The next states of the state at index i are the states at the
+ * indices getNextIndices()[getNextOffsets()[i]] up to getNextIndices()[getNextOffsets()[i + 1]], and likewise for
+ * previous states. A relation is invalidated as soon as any of its states is modified.
+ * </p>
+ *
+ * @param <S> the type of states, which must extend AbstractState.
+ */
+public class CompressedRelation<S extends State<S>> {
+    private final Object[] states;
+    private final int[] nextOffsets, nextIndices;
+    private final int[] previousOffsets, previousIndices;
+    private volatile boolean valid;
+
+    /**
+     * Creates a compressed relation from the current next states of the given states, and assigns each state its index.
+     * Relations to states outside the given collection are ignored.
+     *
+     * @param states the states of the transition system.
+     */
+    @SuppressWarnings("unchecked")
+    public CompressedRelation(Collection<S> states) {
+        this.states = states.toArray();
+
+        // Obtain the next states before reassigning indices, as states that are frozen in another relation resolve their next states by index
+        Set<S>[] next = new Set[this.states.length];
+        for (int i = 0; i < this.states.length; i++)
+            next[i] = state(i).getNextStates();
+
+        for (int i = 0; i < this.states.length; i++)
+            ((AbstractState<?>) this.states[i]).setIndex(i);
+
+        nextOffsets = new int[this.states.length + 1];
+        previousOffsets = new int[this.states.length + 1];
+
+        int[] inDegree = new int[this.states.length];
+        int count = 0;
+        for (int i = 0; i < this.states.length; i++) {
+            for (S s : next[i]) {
+                int j = indexOf(s);
+                if (j >= 0) {
+                    inDegree[j]++;
+                    count++;
+                }
+            }
+            nextOffsets[i + 1] = count;
+        }
+
+        for (int i = 0; i < this.states.length; i++)
+            previousOffsets[i + 1] = previousOffsets[i] + inDegree[i];
+
+        nextIndices = new int[count];
+        previousIndices = new int[count];
+        int[] fill = new int[this.states.length];
+        int ignored = 0;
+
+        for (int i = 0; i < this.states.length; i++) {
+            int k = nextOffsets[i];
+            for (S s : next[i]) {
+                int j = indexOf(s);
+                if (j >= 0) {
+                    nextIndices[k++] = j;
+                    previousIndices[previousOffsets[j] + fill[j]++] = i;
+                } else
+                    ignored++;
+            }
+        }
+
+        if (ignored > 0)
+            Logger.log("Ignored " + ignored + " relation(s) to states outside of the structure", LogEvent.WARNING);
+
+        valid = true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private S state(int index) {
+        return (S) states[index];
+    }
+
+    private int indexOf(S state) {
+        int index = ((AbstractState<?>) state).getIndex();
+        return (index >= 0 && index < states.length && states[index] == state ? index : -1);
+    }
+
+    /**
+     * Returns whether this relation still reflects the states it was created from.
+     *
+     * @return true iff none of the states was modified since this relation was created.
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * Marks this relation as outdated.
+     */
+    public void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * Returns the number of states of this relation.
+     *
+     * @return the number of states.
+     */
+    public int size() {
+        return states.length;
+    }
+
+    /**
+     * Returns the number of relations, i.e., the number of pairs of a state and a next state.
+     *
+     * @return the number of relations.
+     */
+    public int getRelationCount() {
+        return nextIndices.length;
+    }
+
+    /**
+     * Returns the state at the given index.
+     *
+     * @param index the index.
+     * @return the state.
+     */
+    public S getState(int index) {
+        return state(index);
+    }
+
+    /**
+     * Returns the offsets of the next states of each state into getNextIndices(), followed by the number of relations.
+     *
+     * @return the offsets, which must not be modified.
+     */
+    public int[] getNextOffsets() {
+        return nextOffsets;
+    }
+
+    /**
+     * Returns the indices of the next states of all states, grouped by state.
+     *
+     * @return the indices, which must not be modified.
+     */
+    public int[] getNextIndices() {
+        return nextIndices;
+    }
+
+    /**
+     * Returns the offsets of the previous states of each state into getPreviousIndices(), followed by the number of relations.
+     *
+     * @return the offsets, which must not be modified.
+     */
+    public int[] getPreviousOffsets() {
+        return previousOffsets;
+    }
+
+    /**
+     * Returns the indices of the previous states of all states, grouped by state.
+     *
+     * @return the indices, which must not be modified.
+     */
+    public int[] getPreviousIndices() {
+        return previousIndices;
+    }
+
+    /**
+     * Returns whether the state at the given index is a sink, i.e., has itself as its only next state.
+     *
+     * @param index the index of the state.
+     * @return true iff the state is a sink.
+     */
+    public boolean isSink(int index) {
+        return nextOffsets[index + 1] - nextOffsets[index] == 1 && nextIndices[nextOffsets[index]] == index;
+    }
+
+    /**
+     * Returns an unmodifiable view of the next states of the state at the given index.
+     *
+     * @param index the index of the state.
+     * @return the set of next states.
+     */
+    public Set<S> getNextStates(int index) {
+        return new IndexedSet(nextIndices, nextOffsets[index], nextOffsets[index + 1]);
+    }
+
+    /**
+     * Returns an unmodifiable view of the previous states of the state at the given index.
+     *
+     * @param index the index of the state.
+     * @return the set of previous states.
+     */
+    public Set<S> getPreviousStates(int index) {
+        return new IndexedSet(previousIndices, previousOffsets[index], previousOffsets[index + 1]);
+    }
+
+    /**
+     * Unmodifiable set view of a range of indices.
+     */
+    private class IndexedSet extends AbstractSet<S> {
+        private final int[] indices;
+        private final int from, to;
+
+        private IndexedSet(int[] indices, int from, int to) {
+            this.indices = indices;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof AbstractState<?>))
+                return false;
+
+            int index = ((AbstractState<?>) o).getIndex();
+            if (index < 0 || index >= states.length || states[index] != o)
+                return false;
+            for (int k = from; k < to; k++)
+                if (indices[k] == index)
+                    return true;
+            return false;
+        }
+
+        @Override
+        public Iterator<S> iterator() {
+            return new Iterator<S>() {
+                private int k = from;
+
+                @Override
+                public boolean hasNext() {
+                    return k < to;
+                }
+
+                @Override
+                public S next() {
+                    if (k >= to)
+                        throw new NoSuchElementException();
+                    return state(indices[k++]);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+}
@@ -1,12 +1,14 @@
 package nl.rug.ds.bpm.verification.model.generic;
 
+import nl.rug.ds.bpm.util.hash.Fingerprint;
 import nl.rug.ds.bpm.verification.model.State;
 
+import java.util.Objects;
 import java.util.Set;
 
 public abstract class MarkedState<S extends MarkedState<S>> extends AbstractState<S> implements State<S> {
     protected String marking;
-    protected String APHash;
+    protected long markingFingerprint;
 
     /**
      * Creates a marked state.
@@ -15,7 +17,6 @@ public abstract class MarkedState<S extends MarkedState<S>> extends AbstractStat
      */
     public MarkedState(Set<String> atomicPropositions) {
         super(atomicPropositions);
-        APHash = hash;
     }
 
     /**
@@ -27,32 +28,36 @@ public abstract class MarkedState<S extends MarkedState<S>> extends AbstractStat
     public MarkedState(String marking, Set<String> atomicPropositions) {
         this(atomicPropositions);
         this.marking = marking;
-        hash = marking + "=" + APHash;
+        markingFingerprint = Fingerprint.of(marking);
+        updateFingerprint();
+    }
+
+    @Override
+    protected void updateFingerprint() {
+        fingerprint = (marking == null ? Fingerprint.mix(atomicPropositions.fingerprint()) : Fingerprint.combine(markingFingerprint, atomicPropositions.fingerprint()));
     }
 
     /**
-     * Returns the hash of the atomic propositions.
+     * Returns the marking of this state.
      *
-     * @return the hash of the atomic propositions.
+     * @return the marking, or null if this state does not represent a marking.
      */
-    public String APHash() {
-        return APHash;
+    public String getMarking() {
+        return marking;
     }
 
     @Override
-    public void removeAtomicPropositions(Set<String> APs) {
-        atomicPropositions.removeAll(APs);
-
-        APHash = String.join("", atomicPropositions);
-        hash = marking + "=" + APHash;
+    public String hash() {
+        return (marking == null ? APHash() : marking + "=" + APHash());
     }
 
-    @Override
-    public void addAtomicPropositions(Set<String> APs) {
-        atomicPropositions.addAll(APs);
-
-        APHash = String.join("", atomicPropositions);
-        hash = marking + "=" + APHash;
+    /**
+     * Returns the hash of the atomic propositions.
+     *
+     * @return the hash of the atomic propositions.
+     */
+    public String APHash() {
+        return String.join("", atomicPropositions);
     }
 
     /**
@@ -62,7 +67,22 @@ public abstract class MarkedState<S extends MarkedState<S>> extends AbstractStat
      * @return true if the same set of atomic propositions hold in this state and the given Kripke state.
      */
     public boolean atomicPropositionsEquals(S o) {
-        return APHash.equals(o.APHash());
+        return atomicPropositions.equals(o.getAtomicPropositions());
+    }
+
+    @Override
+    protected boolean contentEquals(S o) {
+        return Objects.equals(marking, o.getMarking()) && super.contentEquals(o);
     }
 
+    /**
+     * Returns a hash code based on the marking only, such that it remains valid when atomic propositions are removed
+     * while this state is contained in a hashed set.
+     *
+     * @return the hash code of this state.
+     */
+    @Override
+    public int hashCode() {
+        return (marking == null ? super.hashCode() : Long.hashCode(markingFingerprint));
+    }
 }
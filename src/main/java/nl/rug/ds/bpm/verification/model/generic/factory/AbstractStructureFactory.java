@@ -7,39 +7,222 @@ import nl.rug.ds.bpm.petrinet.interfaces.element.TransitionI;
 import nl.rug.ds.bpm.petrinet.interfaces.marking.DataMarkingI;
 import nl.rug.ds.bpm.petrinet.interfaces.marking.MarkingI;
 import nl.rug.ds.bpm.util.comparator.ComparableComparator;
+import nl.rug.ds.bpm.util.set.ConcurrentInternSet;
+import nl.rug.ds.bpm.verification.map.AtomicPropositionIndex;
+import nl.rug.ds.bpm.verification.map.AtomicPropositionLabel;
 import nl.rug.ds.bpm.verification.map.AtomicPropositionMap;
 import nl.rug.ds.bpm.verification.model.StructureFactory;
 import nl.rug.ds.bpm.verification.model.generic.AbstractState;
 import nl.rug.ds.bpm.verification.model.generic.AbstractStructure;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Abstract factory to create Structure, States, and ConverterActions.
+ * <p>
+ * A factory is used for a single Net. The expressions of its Transitions and data bindings are therefore parsed once,
+ * on first use, and cached together with their atomic propositions, such that exploration does not call the parser.
+ * </p>
  */
 public abstract class AbstractStructureFactory<S extends AbstractState<S>, K extends AbstractStructure<S>> implements StructureFactory<S, K> {
     public final static CompositeExpression tau = ExpressionBuilder.parseExpression("tau");
 
     protected AtomicPropositionMap<CompositeExpression> apMap;
+    protected AtomicPropositionIndex apIndex;
+    protected ConcurrentInternSet<AtomicPropositionLabel> labels;
+
+    private final Map<String, CompositeExpression[]> transitionExpressions;
+    private final Map<String, Map<String, CompositeExpression>> dataExpressions;
+    private final Map<IdentityKey, Resolved> resolved;
+    private volatile Implications implications;
+
+    private static int defaultParallelism = Runtime.getRuntime().availableProcessors();
+    private static ExecutorService sharedExecutor;
+
+    protected Executor executor;
+    protected int parallelism;
 
     /**
-     * Creates an abstract Structure factory.
+     * Creates an abstract Structure factory that explores using the shared executor.
      */
     public AbstractStructureFactory() {
         apMap = new AtomicPropositionMap<>();
-        apMap.addID(tau);
+        apIndex = new AtomicPropositionIndex();
+        labels = new ConcurrentInternSet<>();
+
+        transitionExpressions = new ConcurrentHashMap<>();
+        dataExpressions = new ConcurrentHashMap<>();
+        resolved = new ConcurrentHashMap<>();
+        resolve(tau);
     }
 
     /**
-     * Obtains, or creates, the atomic proposition that represents the given expression.
+     * Key that compares expressions by identity, as the cached expressions are shared instances.
+     */
+    private static final class IdentityKey {
+        private final Object object;
+
+        private IdentityKey(Object object) {
+            this.object = object;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof IdentityKey && ((IdentityKey) o).object == object;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(object);
+        }
+    }
+
+    /**
+     * Atomic proposition of a cached expression, together with the version of the map it was obtained at.
+     */
+    private static final class Resolved {
+        private final long version;
+        private final String ap;
+
+        private Resolved(long version, String ap) {
+            this.version = version;
+            this.ap = ap;
+        }
+    }
+
+    /**
+     * Index of the specification expressions, together with the version of the map it was built at.
+     */
+    private static final class Implications {
+        private final long version;
+        private final ImplicationIndex index;
+
+        private Implications(long version, ImplicationIndex index) {
+            this.version = version;
+            this.index = index;
+        }
+    }
+
+    /**
+     * Gets the default number of threads used to explore state spaces.
+     *
+     * @return the default number of threads.
+     */
+    public static synchronized int getDefaultParallelism() {
+        return defaultParallelism;
+    }
+
+    /**
+     * Sets the default number of threads used to explore state spaces. Replaces the shared executor, if any, once the
+     * explorations that currently use it are finished.
+     *
+     * @param parallelism the default number of threads.
+     */
+    public static synchronized void setDefaultParallelism(int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("Parallelism must be positive");
+
+        if (parallelism != defaultParallelism && sharedExecutor != null) {
+            sharedExecutor.shutdown();
+            sharedExecutor = null;
+        }
+        defaultParallelism = parallelism;
+    }
+
+    /**
+     * Returns the long-lived executor that is shared by all factories that were not given an executor of their own.
+     * The executor is created on first use, and runs on daemon threads such that it does not keep the JVM alive.
+     *
+     * @return the shared executor.
+     */
+    public static synchronized ExecutorService getSharedExecutor() {
+        if (sharedExecutor == null) {
+            AtomicInteger count = new AtomicInteger();
+            sharedExecutor = Executors.newFixedThreadPool(defaultParallelism, runnable -> {
+                Thread thread = new Thread(runnable, "bpm-exploration-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return sharedExecutor;
+    }
+
+    /**
+     * Sets the executor on which the converters created by this factory explore, and the number of workers they
+     * submit to it. The executor is owned by the caller, and is not shut down by this factory.
+     *
+     * @param executor    the executor, or null to use the shared executor.
+     * @param parallelism the number of workers per exploration, which should not exceed the number of threads of the executor.
+     */
+    public void setExecutor(Executor executor, int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("Parallelism must be positive");
+
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Returns the executor on which the converters created by this factory explore.
+     *
+     * @return the executor set on this factory, or the shared executor.
+     */
+    public Executor getExecutor() {
+        return (executor == null ? getSharedExecutor() : executor);
+    }
+
+    /**
+     * Returns the number of workers the converters created by this factory submit to its executor.
+     *
+     * @return the number of workers.
+     */
+    public int getParallelism() {
+        return (executor == null ? getDefaultParallelism() : parallelism);
+    }
+
+    /**
+     * Obtains the interned label that represents the given set of atomic propositions, such that states with equal
+     * atomic propositions share a single label. Labels are encoded over the index of this factory, which is released
+     * together with the factory.
+     *
+     * @param atomicPropositions the set of atomic propositions.
+     * @return the interned label.
+     */
+    public AtomicPropositionLabel createLabel(Set<String> atomicPropositions) {
+        return labels.intern(AtomicPropositionLabel.of(apIndex, atomicPropositions));
+    }
+
+    /**
+     * Obtains, or creates, the atomic proposition that represents the given expression. Cached expressions are looked
+     * up again once the map changed since they were cached, as their ids may have been remapped.
      *
      * @param expression the expression.
      * @return the atomic proposition.
      */
     @Override
-    public synchronized String addAtomicProposition(CompositeExpression expression) {
-        return apMap.addID(expression);
+    public String addAtomicProposition(CompositeExpression expression) {
+        IdentityKey key = new IdentityKey(expression);
+        Resolved cached = resolved.get(key);
+        if (cached == null)
+            return apMap.addID(expression);
+
+        long version = apMap.getVersion();
+        if (cached.version == version)
+            return cached.ap;
+
+        String ap = apMap.addID(expression);
+        resolved.put(key, new Resolved(version, ap));
+        return ap;
     }
 
     /**
@@ -49,7 +232,7 @@ public abstract class AbstractStructureFactory<S extends AbstractState<S>, K ext
      * @return the atomic proposition.
      */
     @Override
-    public synchronized String addAtomicProposition(String expression) {
+    public String addAtomicProposition(String expression) {
         return addAtomicProposition(ExpressionBuilder.parseExpression(expression));
     }
 
@@ -60,7 +243,7 @@ public abstract class AbstractStructureFactory<S extends AbstractState<S>, K ext
      * @return an ordered set of atomic propositions.
      */
     @Override
-    public synchronized TreeSet<String> addAtomicPropositions(Set<CompositeExpression> expressions) {
+    public TreeSet<String> addAtomicPropositions(Set<CompositeExpression> expressions) {
         TreeSet<String> ap = new TreeSet<String>(new ComparableComparator<String>());
 
         for (CompositeExpression expression : expressions)
@@ -80,12 +263,57 @@ public abstract class AbstractStructureFactory<S extends AbstractState<S>, K ext
         TreeSet<CompositeExpression> expressions = new TreeSet<>(new ComparableComparator<CompositeExpression>());
 
         if (marking instanceof DataMarkingI)
-            for (String b : ((DataMarkingI) marking).getBindings().keySet())
-                expressions.add(ExpressionBuilder.parseExpression((b + " == " + ((DataMarkingI) marking).getBindings().get(b))));
+            for (Map.Entry<String, ?> binding : ((DataMarkingI) marking).getBindings().entrySet())
+                expressions.add(getDataExpression(binding.getKey(), String.valueOf(binding.getValue())));
 
         return expressions;
     }
 
+    /**
+     * Returns the cached expression that a variable is bound to a value, and parses and resolves it on first use.
+     *
+     * @param variable the variable.
+     * @param value    the value.
+     * @return the expression.
+     */
+    private CompositeExpression getDataExpression(String variable, String value) {
+        return dataExpressions.computeIfAbsent(variable, v -> new ConcurrentHashMap<>())
+                .computeIfAbsent(value, v -> resolve(ExpressionBuilder.parseExpression(variable + " == " + value)));
+    }
+
+    /**
+     * Returns the cached expressions that hold if the given Transition is enabled, and parses and resolves them on
+     * first use.
+     *
+     * @param transition the Transition.
+     * @return the expressions of the identifier, the name, if any, and tau, if the Transition is silent.
+     */
+    private CompositeExpression[] getEnabledExpressions(TransitionI transition) {
+        return transitionExpressions.computeIfAbsent(transition.getId(), id -> {
+            List<CompositeExpression> expressions = new ArrayList<>(3);
+
+            expressions.add(resolve(ExpressionBuilder.parseExpression(id)));
+            if (!transition.getName().isEmpty())
+                expressions.add(resolve(ExpressionBuilder.parseExpression(transition.getName())));
+            if (transition.isTau())
+                expressions.add(AbstractStructureFactory.tau);
+
+            return expressions.toArray(new CompositeExpression[0]);
+        });
+    }
+
+    /**
+     * Obtains, or creates, the atomic proposition of the given expression, and caches it for the expression instance.
+     *
+     * @param expression the expression.
+     * @return the expression.
+     */
+    private CompositeExpression resolve(CompositeExpression expression) {
+        long version = apMap.getVersion();
+        resolved.put(new IdentityKey(expression), new Resolved(version, apMap.addID(expression)));
+        return expression;
+    }
+
 
     /**
      * Returns a set of expressions that hold based on the set of enabled transitions.
@@ -97,15 +325,9 @@ public abstract class AbstractStructureFactory<S extends AbstractState<S>, K ext
     public Set<CompositeExpression> getEnabledExpressions(Set<? extends TransitionI> enabled) {
         TreeSet<CompositeExpression> expressions = new TreeSet<>(new ComparableComparator<CompositeExpression>());
 
-        for (TransitionI transition : enabled) {
-            expressions.add(ExpressionBuilder.parseExpression(transition.getId()));
-
-            if (!transition.getName().isEmpty())
-                expressions.add(ExpressionBuilder.parseExpression(transition.getName()));
+        for (TransitionI transition : enabled)
+            Collections.addAll(expressions, getEnabledExpressions(transition));
 
-            if (transition.isTau())
-                expressions.add(AbstractStructureFactory.tau);
-        }
         return expressions;
     }
 
@@ -133,33 +355,44 @@ public abstract class AbstractStructureFactory<S extends AbstractState<S>, K ext
      * Returns the set of Expressions that follow from the given Expression.
      *
      * @param expression the Expression of what holds.
-     * @return an ordered set of Expressions that follow from stateExpression.
+     * @return an unmodifiable ordered set of Expressions that follow from stateExpression.
      */
     @Override
     public Set<CompositeExpression> inferExpressions(CompositeExpression expression) {
-        TreeSet<CompositeExpression> expressions = new TreeSet<>(new ComparableComparator<CompositeExpression>());
-
-        for (CompositeExpression e : apMap.getSpecificationIds()) {
-            boolean implied = e.isFulfilledBy(expression);
-
-            if (implied) {
-                expressions.add(e);
-                //Logger.log("Evaluated expression " + expression + " => " + e + " as " + implied, LogEvent.INFO);
-            }
-        }
-
-        return expressions;
+        return getImplicationIndex().infer(expression);
     }
 
     /**
      * Returns the set of Expressions that follow from the given set of Expressions.
      *
      * @param expressions the set of Expressions of what holds.
-     * @return an ordered set of Expressions that follow from stateExpression.
+     * @return an unmodifiable ordered set of Expressions that follow from stateExpression.
      */
     @Override
     public Set<CompositeExpression> inferExpressions(Set<CompositeExpression> expressions) {
-        return inferExpressions(composeExpressions(expressions));
+        return getImplicationIndex().infer(expressions, composeExpressions(expressions));
+    }
+
+    /**
+     * Returns the index of the specification expressions, and rebuilds it if the map changed since it was last built.
+     *
+     * @return the index.
+     */
+    protected ImplicationIndex getImplicationIndex() {
+        Implications current = implications;
+        if (current != null && current.version == apMap.getVersion())
+            return current.index;
+
+        synchronized (this) {
+            long version = apMap.getVersion();
+            if (implications == null || implications.version != version) {
+                List<CompositeExpression> specifications = new ArrayList<>(apMap.getSpecificationIds());
+                for (CompositeExpression specification : specifications)
+                    resolve(specification);
+                implications = new Implications(version, new ImplicationIndex(specifications));
+            }
+            return implications.index;
+        }
     }
 
     /**
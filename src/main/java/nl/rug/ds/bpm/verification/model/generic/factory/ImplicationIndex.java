@@ -0,0 +1,147 @@
+package nl.rug.ds.bpm.verification.model.generic.factory;
+
+import nl.rug.ds.bpm.expression.CompositeExpression;
+import nl.rug.ds.bpm.expression.ExpressionBuilder;
+import nl.rug.ds.bpm.util.comparator.ComparableComparator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Index of specification expressions that infers which of them are fulfilled by the expression of a State.
+ * <p>
+ * Specification expressions are indexed by the identifiers they mention, i.e., variables and Transition identifiers,
+ * such that only those that share an identifier with the State expression are evaluated. A specification expression
+ * that shares no identifier with a (satisfiable) State expression is fulfilled by it iff it is valid, which is
+ * evaluated once. Inferred sets are memoized by the canonical form of the State expression, of which single expressions
+ * and sets of expressions have separate forms.
+ * </p>
+ */
+public class ImplicationIndex {
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_.]*");
+    private static final int MEMO_LIMIT = 1 << 16;
+    private static final String EXPRESSION_KEY = "e:";
+    private static final String SET_KEY = "s:";
+
+    private final int size;
+    private final Map<String, List<CompositeExpression>> index;
+    private final List<CompositeExpression> valid;
+    private final Map<String, Set<CompositeExpression>> memo;
+
+    /**
+     * Creates an index of the given specification expressions.
+     *
+     * @param specifications the specification expressions.
+     */
+    public ImplicationIndex(Collection<CompositeExpression> specifications) {
+        size = specifications.size();
+        index = new HashMap<>();
+        valid = new ArrayList<>();
+        memo = new ConcurrentHashMap<>();
+
+        CompositeExpression truth = ExpressionBuilder.parseExpression("true");
+        for (CompositeExpression specification : specifications) {
+            for (String identifier : getIdentifiers(specification))
+                index.computeIfAbsent(identifier, i -> new ArrayList<>()).add(specification);
+
+            if (specification.isFulfilledBy(truth))
+                valid.add(specification);
+        }
+    }
+
+    /**
+     * Returns the number of specification expressions this index was created for.
+     *
+     * @return the number of specification expressions.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the specification expressions that are fulfilled by the given State expression.
+     *
+     * @param expression the expression of what holds in a State.
+     * @return an unmodifiable ordered set of the fulfilled specification expressions.
+     */
+    public Set<CompositeExpression> infer(CompositeExpression expression) {
+        return infer(EXPRESSION_KEY + expression, expression);
+    }
+
+    /**
+     * Returns the specification expressions that are fulfilled by the conjunction of the given expressions.
+     *
+     * @param expressions the expressions of what holds in a State.
+     * @param conjunction the conjunction of the expressions.
+     * @return an unmodifiable ordered set of the fulfilled specification expressions.
+     */
+    public Set<CompositeExpression> infer(Collection<CompositeExpression> expressions, CompositeExpression conjunction) {
+        return infer(SET_KEY + canonicalize(expressions), conjunction);
+    }
+
+    /**
+     * Returns the specification expressions that are fulfilled by the given State expression.
+     *
+     * @param key        the memo key of the State expression.
+     * @param expression the expression of what holds in a State.
+     * @return an unmodifiable ordered set of the fulfilled specification expressions.
+     */
+    private Set<CompositeExpression> infer(String key, CompositeExpression expression) {
+        Set<CompositeExpression> inferred = memo.get(key);
+        if (inferred != null)
+            return inferred;
+
+        TreeSet<CompositeExpression> expressions = new TreeSet<>(new ComparableComparator<CompositeExpression>());
+        expressions.addAll(valid);
+
+        Map<CompositeExpression, Boolean> evaluated = new IdentityHashMap<>();
+        for (String identifier : getIdentifiers(expression))
+            for (CompositeExpression specification : index.getOrDefault(identifier, Collections.emptyList()))
+                if (evaluated.putIfAbsent(specification, Boolean.TRUE) == null && specification.isFulfilledBy(expression))
+                    expressions.add(specification);
+
+        inferred = Collections.unmodifiableSet(expressions);
+        if (memo.size() < MEMO_LIMIT)
+            memo.putIfAbsent(key, inferred);
+
+        return inferred;
+    }
+
+    /**
+     * Returns the canonical form of the conjunction of the given expressions, which does not depend on their order.
+     *
+     * @param expressions the expressions.
+     * @return the canonical form.
+     */
+    public static String canonicalize(Collection<CompositeExpression> expressions) {
+        List<String> parts = new ArrayList<>(expressions.size());
+        for (CompositeExpression expression : expressions)
+            parts.add(expression.toString());
+        Collections.sort(parts);
+        return String.join(" && ", parts);
+    }
+
+    /**
+     * Returns the identifiers mentioned by the given expression, i.e., its variables and Transition identifiers.
+     *
+     * @param expression the expression.
+     * @return the ordered set of identifiers.
+     */
+    public static Set<String> getIdentifiers(CompositeExpression expression) {
+        Set<String> identifiers = new TreeSet<>();
+        Matcher matcher = IDENTIFIER.matcher(expression.toString());
+        while (matcher.find())
+            identifiers.add(matcher.group());
+        return identifiers;
+    }
+}
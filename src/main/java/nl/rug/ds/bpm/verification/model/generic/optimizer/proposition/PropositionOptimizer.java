@@ -1,9 +1,12 @@
 package nl.rug.ds.bpm.verification.model.generic.optimizer.proposition;
 
 import nl.rug.ds.bpm.util.comparator.StringComparator;
+import nl.rug.ds.bpm.verification.map.AtomicPropositionLabel;
 import nl.rug.ds.bpm.verification.model.generic.AbstractState;
 import nl.rug.ds.bpm.verification.model.generic.AbstractStructure;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -37,14 +40,18 @@ public class PropositionOptimizer {
 
     /**
      * Optimizes the given Structure by removing the given set of unused atomic propositions.
+     * Each distinct label is reduced once, such that states with equal labels keep sharing a single reduced label.
      *
      * @param AP the set of atomic propositions to remove.
      */
     public void optimize(Set<String> AP) {
         optimizedPropositions.addAll(AP);
 
+        AtomicPropositionLabel removed = AtomicPropositionLabel.of(AP);
+        Map<AtomicPropositionLabel, AtomicPropositionLabel> reduced = new HashMap<>();
+
         for (AbstractState<?> s : structure.getStates())
-            s.removeAtomicPropositions(AP);
+            s.setAtomicPropositions(reduced.computeIfAbsent(s.getAtomicPropositions(), label -> label.without(removed)));
 
         structure.getAtomicPropositions().removeAll(AP);
     }
@@ -1,7 +1,6 @@
 package nl.rug.ds.bpm.verification.model.kripke;
 
 import nl.rug.ds.bpm.verification.model.generic.MarkedState;
-import nl.rug.ds.bpm.verification.model.kripke.postprocess.stutter.Block;
 
 import java.util.Set;
 
@@ -9,10 +8,6 @@ import java.util.Set;
  * Class that implements a state of a Kripke structure transition system.
  */
 public class KripkeState extends MarkedState<KripkeState> {
-    private boolean flag = false;
-    private Block block;
-
-
     /**
      * Creates a Kripke structure state.
      *
@@ -31,47 +26,4 @@ public class KripkeState extends MarkedState<KripkeState> {
     public KripkeState(String marking, Set<String> atomicPropositions) {
         super(marking, atomicPropositions);
     }
-
-    /**
-     * Returns the stutter flag of the KripkeState.
-     *
-     * @return true if the flag is set.
-     */
-    public boolean getFlag() {
-        return flag;
-    }
-
-    /**
-     * Sets the stutter flag of the KripkeState.
-     *
-     * @param flag boolean signifying whether the flag is set or not.
-     */
-    public void setFlag(boolean flag) {
-        this.flag = flag;
-    }
-
-    /**
-     * Resets the stutter Block this state belongs to.
-     */
-    public void resetBlock() {
-        block = null;
-    }
-
-    /**
-     * Gets the stutter Block this state belongs to
-     *
-     * @return the Block
-     */
-    public Block getBlock() {
-        return block;
-    }
-
-    /**
-     * Sets the stutter Block this state belongs to.
-     *
-     * @param block the Block.
-     */
-    public void setBlock(Block block) {
-        this.block = block;
-    }
 }
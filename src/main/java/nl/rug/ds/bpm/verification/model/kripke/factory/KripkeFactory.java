@@ -4,8 +4,12 @@ import nl.rug.ds.bpm.expression.CompositeExpression;
 import nl.rug.ds.bpm.petrinet.interfaces.element.TransitionI;
 import nl.rug.ds.bpm.petrinet.interfaces.marking.MarkingI;
 import nl.rug.ds.bpm.petrinet.interfaces.net.VerifiableNet;
+import nl.rug.ds.bpm.util.exception.ConverterException;
 import nl.rug.ds.bpm.verification.converter.kripke.KripkeStructureConverterAction;
+import nl.rug.ds.bpm.verification.converter.kripke.StutterStructureConverterAction;
+import nl.rug.ds.bpm.verification.map.AtomicPropositionLabel;
 import nl.rug.ds.bpm.verification.model.StructureFactory;
+import nl.rug.ds.bpm.verification.model.generic.CompressedRelation;
 import nl.rug.ds.bpm.verification.model.generic.factory.AbstractStructureFactory;
 import nl.rug.ds.bpm.verification.model.kripke.KripkeState;
 import nl.rug.ds.bpm.verification.model.kripke.KripkeStructure;
@@ -25,6 +29,45 @@ public class KripkeFactory extends AbstractStructureFactory<KripkeState, KripkeS
         return new KripkeStructure();
     }
 
+    /**
+     * Creates a new Kripke structure with copies of the States and relations of the given Kripke structure, such
+     * that the copy can be relabeled and reduced without exploring the Net again. Freezes both structures.
+     *
+     * @param source the Kripke structure to copy.
+     * @return the new Kripke structure.
+     * @throws ConverterException if the maximum number of states was reached.
+     */
+    public KripkeStructure createStructure(KripkeStructure source) throws ConverterException {
+        KripkeStructure structure = new KripkeStructure(source.getConditions());
+
+        CompressedRelation<KripkeState> relation = source.getRelation();
+        if (relation == null)
+            relation = source.freeze();
+
+        KripkeState[] states = new KripkeState[relation.size()];
+        for (int i = 0; i < states.length; i++) {
+            KripkeState state = relation.getState(i);
+            states[i] = (state.getMarking() == null ? new KripkeState(state.getAtomicPropositions()) : new KripkeState(state.getMarking(), state.getAtomicPropositions()));
+
+            if (source.getInitial().contains(state))
+                structure.addInitial(states[i]);
+            else
+                structure.addState(states[i]);
+        }
+
+        int[] offsets = relation.getNextOffsets();
+        int[] indices = relation.getNextIndices();
+        for (int i = 0; i < states.length; i++) {
+            for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+                states[i].addNext(states[indices[k]]);
+                states[indices[k]].addPrevious(states[i]);
+            }
+        }
+
+        structure.freeze();
+        return structure;
+    }
+
     /**
      * Creates a new Kripke structure State for a given set of atomic propositions.
      *
@@ -33,7 +76,7 @@ public class KripkeFactory extends AbstractStructureFactory<KripkeState, KripkeS
      */
     @Override
     public KripkeState createState(Set<String> atomicPropositions) {
-        return new KripkeState(atomicPropositions);
+        return new KripkeState(createLabel(atomicPropositions));
     }
 
     /**
@@ -45,7 +88,7 @@ public class KripkeFactory extends AbstractStructureFactory<KripkeState, KripkeS
      */
     @Override
     public KripkeState createState(String marking, Set<String> atomicPropositions) {
-        return new KripkeState(marking, atomicPropositions);
+        return new KripkeState(marking, createLabel(atomicPropositions));
     }
 
     /**
@@ -68,6 +111,26 @@ public class KripkeFactory extends AbstractStructureFactory<KripkeState, KripkeS
         return createState(marking.toString(), AP);
     }
 
+    /**
+     * Creates a new Kripke structure State for a given Marking of a Net and a set of (parallel) enabled Transitions,
+     * that only holds the given relevant atomic propositions. As states that differ in irrelevant atomic propositions
+     * must remain distinguishable, the enabled Transitions are included in the marking of the State.
+     *
+     * @param marking     the Marking that should hold in the created State.
+     * @param transitions the set of (parallel) enabled Transitions.
+     * @param relevant    the relevant atomic propositions.
+     * @return the created State.
+     */
+    public KripkeState createProjectedState(MarkingI marking, Set<? extends TransitionI> transitions, AtomicPropositionLabel relevant) {
+        KripkeState full = createState(marking, transitions);
+
+        TreeSet<String> enabled = new TreeSet<>();
+        for (TransitionI transition : transitions)
+            enabled.add(transition.getId());
+
+        return new KripkeState(marking + " " + enabled, labels.intern(full.getAtomicPropositions().retain(relevant)));
+    }
+
     /**
      * Creates a new KripkeStructureConverterAction.
      *
@@ -80,4 +143,18 @@ public class KripkeFactory extends AbstractStructureFactory<KripkeState, KripkeS
     public KripkeStructureConverterAction createConverter(VerifiableNet net, MarkingI marking, KripkeStructure structure) {
         return new KripkeStructureConverterAction(net, marking, this, structure);
     }
+
+    /**
+     * Creates a new StutterStructureConverterAction, which projects States onto the given relevant atomic propositions
+     * and collapses stuttering steps while converting.
+     *
+     * @param net       a VerifiableNet.
+     * @param marking   the initial Marking.
+     * @param structure the Kripke Structure to populate.
+     * @param relevant  the relevant atomic propositions.
+     * @return a new StutterStructureConverterAction.
+     */
+    public StutterStructureConverterAction createStutterConverter(VerifiableNet net, MarkingI marking, KripkeStructure structure, Set<String> relevant) {
+        return new StutterStructureConverterAction(net, marking, this, structure, relevant);
+    }
 }
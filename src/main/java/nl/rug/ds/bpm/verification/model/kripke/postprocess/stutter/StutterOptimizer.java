@@ -2,22 +2,50 @@ package nl.rug.ds.bpm.verification.model.kripke.postprocess.stutter;
 
 import nl.rug.ds.bpm.util.log.LogEvent;
 import nl.rug.ds.bpm.util.log.Logger;
+import nl.rug.ds.bpm.verification.model.generic.CompressedRelation;
 import nl.rug.ds.bpm.verification.model.kripke.KripkeState;
 import nl.rug.ds.bpm.verification.model.kripke.KripkeStructure;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Class that calculates stutter equivalent partitions of Kripke structures and reduces the state space accordingly.
+ * <p>
+ * Partitions are refined as by Groote and Vaandrager, on the compressed relation of the Kripke structure. States are
+ * identified by their index, and each block is a contiguous range of a permutation of the states, such that a block is
+ * split by moving the states of one part to the front of its range. Transitions between states of the same block are
+ * inert. A block is split by a splitter block into the states that can reach, through inert transitions, a state with
+ * a transition into the splitter, and the other states, if both are non-empty. That is the case iff some bottom state
+ * of the block, i.e., a state without inert transitions, has no transition into the splitter, such that blocks that
+ * are not split are never searched.
+ * </p>
+ * <p>
+ * States on an inert cycle behave as a single state. The strongly connected components of the inert transitions are
+ * therefore computed once, as refinement never splits them, and bottom states are in fact bottom components.
+ * </p>
  */
 public class StutterOptimizer {
 	private int count, eventCount;
 	private final KripkeStructure kripke;
 	private final Set<KripkeState> stutterStates;
-	private final List<Block> toBeProcessed;
-	private final List<Block> stable;
-	private final List<Block> BL;
+
+	private CompressedRelation<KripkeState> relation;
+	private int[] nextOffsets, nextIndices, previousOffsets, previousIndices;
+
+	private int[] block, position, states;
+	private int[] begin, end, marked;
+	private int blockCount;
+	private boolean[] mark, touched, queued;
+
+	private int[] component, bottomCount, markedBottom, exit;
+	private boolean[] bottom, markedComponent;
+	private int stamp;
+	private int[] queue;
+	private int queueSize;
 
 	/**
 	 * Creates a StutterOptimizer for the given Kripke structure.
@@ -27,10 +55,6 @@ public class StutterOptimizer {
 	public StutterOptimizer(KripkeStructure kripke) {
 		this.kripke = kripke;
 
-		toBeProcessed = new LinkedList<>();
-		stable = new LinkedList<>();
-		BL = new LinkedList<>();
-
 		count = 0;
 		eventCount = 160000;
 		stutterStates = new HashSet<>();
@@ -40,179 +64,423 @@ public class StutterOptimizer {
 	 * Partitions the Kripke structure into stutter equivalent blocks. The Kripke structure must be preprocessed first.
 	 */
 	public void partition() {
-		while (!toBeProcessed.isEmpty()) {
-			Logger.log("Checking stutter block (" + (1 + BL.size() + stable.size()) + "/" + (toBeProcessed.size() + BL.size() + stable.size()) + ") for any required splits", LogEvent.VERBOSE);
-			Block bAccent = toBeProcessed.get(0);
-			// Scan incoming relations
-			for (KripkeState entryState : bAccent.getEntry()) {
-				// Take start state and raise its flag
-				entryState.setFlag(true);
-				// Test state's block flag, raise and add to BL if not raised
-				if (!entryState.getBlock().getFlag()) {
-					BL.add(entryState.getBlock());
-					entryState.getBlock().setFlag(true);
+		int[] touchedBlocks = new int[block.length + 1];
+
+		while (queueSize > 0) {
+			int splitter = queue[--queueSize];
+			queued[splitter] = false;
+			Logger.log("Checking stutter block (" + (blockCount - queueSize) + "/" + blockCount + ") for any required splits", LogEvent.DEBUG);
+
+			// Mark the states with a transition into the splitter, per block at the front of its range, and skip
+			// unreachable states, which have no block
+			int touchedCount = 0;
+			for (int i = begin[splitter]; i < end[splitter]; i++) {
+				int s = states[i];
+				for (int k = previousOffsets[s]; k < previousOffsets[s + 1]; k++) {
+					int p = previousIndices[k];
+					int b = block[p];
+					if (b < 0 || b == splitter || mark[p])
+						continue;
+
+					if (!touched[b]) {
+						touched[b] = true;
+						touchedBlocks[touchedCount++] = b;
+					}
+					markState(p);
 				}
 			}
 
-			// Scan BL
-			for (Block b : BL) {
-				boolean isSplitter = false;
-				Iterator<KripkeState> i = b.getBottom().iterator();
-				while (i.hasNext() && !isSplitter)
-					isSplitter = !i.next().getFlag();
+			for (int t = 0; t < touchedCount; t++) {
+				int b = touchedBlocks[t];
+				touched[b] = false;
 
-				if (isSplitter) {
-					Logger.log("Splitting stutter block " + b + " with " + b.size() + " state(s))", LogEvent.DEBUG);
-
-					toBeProcessed.remove(b);
-					stable.remove(b);
+				if (markedBottom[b] < bottomCount[b]) {
+					closeInert(b);
+					split(b);
+				} else
+					unmark(b);
+			}
+		}
+	}
 
-					Block b2 = b.split();
-					toBeProcessed.add(b);
-					toBeProcessed.add(b2);
+	/**
+	 * Marks the given state, and moves it to the marked front of the range of its block.
+	 */
+	private void markState(int s) {
+		int b = block[s];
+		mark[s] = true;
+		swap(position[s], begin[b] + marked[b]++);
+
+		int c = component[s];
+		if (bottom[c] && !markedComponent[c]) {
+			markedComponent[c] = true;
+			markedBottom[b]++;
+		}
+	}
 
-					b.reinit();
+	/**
+	 * Extends the marked states of the given block with the states that reach them through inert transitions. The
+	 * marked front of the range of the block serves as the queue of the search.
+	 */
+	private void closeInert(int b) {
+		for (int i = begin[b]; i < begin[b] + marked[b]; i++) {
+			int s = states[i];
+			for (int k = previousOffsets[s]; k < previousOffsets[s + 1]; k++) {
+				int p = previousIndices[k];
+				if (block[p] == b && !mark[p])
+					markState(p);
+			}
+		}
+	}
 
+	private void unmark(int b) {
+		for (int i = begin[b]; i < begin[b] + marked[b]; i++) {
+			mark[states[i]] = false;
+			markedComponent[component[states[i]]] = false;
+		}
+		marked[b] = 0;
+		markedBottom[b] = 0;
+	}
 
-					//if additional bottom states are created, clear stable
-					if (b2.reinit()) {
-						toBeProcessed.addAll(stable);
-						stable.clear();
-					}
+	/**
+	 * Splits the marked front of the given block off into a new block. The unmarked states cannot reach the marked
+	 * states, so only the new block can have gained bottom components. The new block is then rechecked against the
+	 * blocks it has transitions into.
+	 */
+	private void split(int b) {
+		int split = blockCount++;
+		begin[split] = begin[b];
+		end[split] = begin[b] + marked[b];
+		begin[b] = end[split];
+		bottomCount[split] = markedBottom[b];
+		bottomCount[b] -= markedBottom[b];
+		Logger.log("Split stutter block into blocks with " + (end[split] - begin[split]) + " and " + (end[b] - begin[b]) + " state(s)", LogEvent.DEBUG);
+
+		for (int i = begin[split]; i < end[split]; i++) {
+			block[states[i]] = split;
+			mark[states[i]] = false;
+			markedComponent[component[states[i]]] = false;
+		}
+		marked[b] = 0;
+		markedBottom[b] = 0;
+
+		enqueue(split);
+		enqueue(b);
+
+		// Components of which all inert transitions led into the other block are now bottom components
+		stamp++;
+		for (int i = begin[split]; i < end[split]; i++) {
+			int s = states[i], c = component[s];
+			if (!bottom[c])
+				for (int k = nextOffsets[s]; k < nextOffsets[s + 1] && exit[c] != stamp; k++)
+					if (block[nextIndices[k]] == split && component[nextIndices[k]] != c)
+						exit[c] = stamp;
+		}
 
-					Logger.log("Split stutter block into block " + b + " and block " + b2 + " with " + b.size() + " and " + b2.size() + " state(s))", LogEvent.DEBUG);
-				}
+		boolean added = false;
+		for (int i = begin[split]; i < end[split]; i++) {
+			int c = component[states[i]];
+			if (!bottom[c] && exit[c] != stamp) {
+				bottom[c] = true;
+				bottomCount[split]++;
+				added = true;
 			}
-			BL.clear();
+		}
 
-			//reset flags
-			for (KripkeState entryState : bAccent.getEntry()) {
-				entryState.setFlag(false);
-				entryState.getBlock().setFlag(false);
+		if (added) {
+			for (int i = begin[split]; i < end[split]; i++) {
+				int s = states[i];
+				for (int k = nextOffsets[s]; k < nextOffsets[s + 1]; k++)
+					enqueue(block[nextIndices[k]]);
 			}
+		}
+	}
 
-			//move to stable
-			stable.add(bAccent);
-			toBeProcessed.remove(bAccent);
+	private void enqueue(int b) {
+		if (!queued[b]) {
+			queued[b] = true;
+			queue[queueSize++] = b;
 		}
 	}
 
+	private void swap(int i, int j) {
+		int s = states[i], t = states[j];
+		states[i] = t;
+		states[j] = s;
+		position[t] = i;
+		position[s] = j;
+	}
+
 	/**
 	 * Reduces the Kripke structure into the calculated partitions. The Kripke structure must be partitioned first.
+	 * Freezes the reduced Kripke structure.
 	 */
 	public void reduce() {
-		Map<Block, KripkeState> stateMap = new HashMap<>();
-
-		// Assign state to each block
-		for (Block b : stable) {
-			if (b.size() > 0) {
-				KripkeState s = b.getBottom().get(0);
-				stateMap.put(b, s);
-				stutterStates.addAll(b.getBottom().stream().filter(state -> state != s).collect(Collectors.toSet()));
-				stutterStates.addAll(b.getNonbottom());
+		KripkeState[] representative = new KripkeState[blockCount];
+
+		// Assign a bottom state to each block
+		for (int b = 0; b < blockCount; b++) {
+			int r = states[begin[b]];
+			for (int i = begin[b]; i < end[b]; i++) {
+				if (isBottom(states[i])) {
+					r = states[i];
+					break;
+				}
 			}
+			representative[b] = relation.getState(r);
+
+			for (int i = begin[b]; i < end[b]; i++)
+				if (states[i] != r)
+					stutterStates.add(relation.getState(states[i]));
 		}
 
-		// Remove empty blocks
-		// If they're not assigned a state, they're empty.
-		stable.retainAll(stateMap.keySet());
+		for (int s = 0; s < block.length; s++)
+			if (block[s] < 0)
+				stutterStates.add(relation.getState(s));
 
 		// Remap relations to assigned states
-		for (Block b : stable) {
-			Logger.log("Merging states in stutter block with size " + (b.getBottom().size() + b.getNonbottom().size()), LogEvent.VERBOSE);
-
-			KripkeState s = stateMap.get(b);
-
-			Set<KripkeState> previous = new HashSet<>(b.getBottom().stream().flatMap(prev -> prev.getPreviousStates().stream()).filter(state -> state.getBlock() != b).map(state -> stateMap.get(state.getBlock())).toList());
-			Set<KripkeState> next = new HashSet<>(b.getBottom().stream().flatMap(prev -> prev.getNextStates().stream()).filter(state -> state.getBlock() != b).map(state -> stateMap.get(state.getBlock())).toList());
-
-			previous.addAll(b.getNonbottom().stream().flatMap(prev -> prev.getPreviousStates().stream()).filter(state -> state.getBlock() != b).map(state -> stateMap.get(state.getBlock())).toList());
-			next.addAll(b.getNonbottom().stream().flatMap(prev -> prev.getNextStates().stream()).filter(state -> state.getBlock() != b).map(state -> stateMap.get(state.getBlock())).toList());
-
-			if (next.isEmpty()) {
-				next.add(s);
-				previous.add(s);
+		List<Set<KripkeState>> next = new ArrayList<>(blockCount), previous = new ArrayList<>(blockCount);
+		for (int b = 0; b < blockCount; b++) {
+			Logger.log("Merging states in stutter block with size " + (end[b] - begin[b]), LogEvent.DEBUG);
+
+			Set<KripkeState> n = new HashSet<>(), p = new HashSet<>();
+			for (int i = begin[b]; i < end[b]; i++) {
+				int s = states[i];
+				for (int k = nextOffsets[s]; k < nextOffsets[s + 1]; k++)
+					if (block[nextIndices[k]] != b)
+						n.add(representative[block[nextIndices[k]]]);
+				for (int k = previousOffsets[s]; k < previousOffsets[s + 1]; k++)
+					if (block[previousIndices[k]] >= 0 && block[previousIndices[k]] != b)
+						p.add(representative[block[previousIndices[k]]]);
 			}
 
-			s.getNextStates().clear();
-			s.getNextStates().addAll(next);
+			if (n.isEmpty()) {
+				n.add(representative[b]);
+				p.add(representative[b]);
+			}
 
-			s.getPreviousStates().clear();
-			s.getPreviousStates().addAll(previous);
+			next.add(n);
+			previous.add(p);
+		}
 
-			// If block contains initial states, remove them and add the assigned state
-			Set<KripkeState> initRem = kripke.getInitial().stream().filter(state -> state.getBlock() == b).collect(Collectors.toSet());
+		Set<KripkeState> initial = new HashSet<>();
+		for (KripkeState s : kripke.getInitial())
+			initial.add(representative[block[s.getIndex()]]);
+		kripke.getInitial().clear();
+		kripke.getInitial().addAll(initial);
 
-			if (!initRem.isEmpty()) {
-				kripke.getInitial().removeAll(initRem);
-				kripke.getInitial().add(s);
-			}
+		for (int b = 0; b < blockCount; b++) {
+			representative[b].setNextStates(next.get(b));
+			representative[b].setPreviousStates(previous.get(b));
 		}
 
 		kripke.getStates().clear();
-		kripke.getStates().addAll(stateMap.values());
+		kripke.getStates().addAll(Arrays.asList(representative));
+
+		kripke.freeze();
+	}
 
-		for (KripkeState state : kripke.getStates())
-			state.resetBlock();
+	private boolean isBottom(int s) {
+		return bottom[component[s]];
 	}
 
 	/**
 	 * Assigns states in the Kripke structure to initial, non-stutter equivalent, partitions.
+	 * <p>
+	 * States reachable from the initial states are grouped by the connected components of the transitions between
+	 * states with equal atomic propositions, after which sink states that share a component are given blocks of their
+	 * own. Unreachable states are not assigned a block, and are removed on reduction.
+	 * </p>
 	 */
 	public void preprocess() {
-		for (KripkeState s : kripke.getInitial()) {
-			Block b = new Block();
-			b.addState(s);
-			s.setBlock(b);
-			toBeProcessed.add(b);
-
-			count++;
-			treeSearchPreprocess(s);
+		relation = kripke.getRelation();
+		if (relation == null)
+			relation = kripke.freeze();
+
+		nextOffsets = relation.getNextOffsets();
+		nextIndices = relation.getNextIndices();
+		previousOffsets = relation.getPreviousOffsets();
+		previousIndices = relation.getPreviousIndices();
+
+		int n = relation.size();
+		int[] parent = new int[n];
+		Arrays.fill(parent, -1);
+
+		// Depth-first search from the initial states that unites states with equal atomic propositions
+		int[] stack = new int[n];
+		int top = 0;
+		for (KripkeState initial : kripke.getInitial()) {
+			int i = initial.getIndex();
+			if (parent[i] < 0) {
+				parent[i] = i;
+				stack[top++] = i;
+				count++;
+			}
+
+			while (top > 0) {
+				int s = stack[--top];
+				KripkeState state = relation.getState(s);
+
+				for (int k = nextOffsets[s]; k < nextOffsets[s + 1]; k++) {
+					int t = nextIndices[k];
+					boolean equal = state.atomicPropositionsEquals(relation.getState(t));
+
+					if (parent[t] < 0) {
+						parent[t] = (equal ? find(parent, s) : t);
+						stack[top++] = t;
+
+						count++;
+						if (count >= eventCount) {
+							Logger.log("Partitioning states into stutter blocks (at " + count + " states)", LogEvent.VERBOSE);
+							eventCount += 160000;
+						}
+					} else if (equal) {
+						int a = find(parent, s), b = find(parent, t);
+						if (a != b)
+							parent[b] = a;
+					}
+				}
+			}
 		}
 
-		for (KripkeState sink : kripke.getSinkStates().stream().filter(state -> state.getBlock().size() > 1).collect(Collectors.toSet())) {
-			Block b = new Block();
-			sink.getBlock().getNonbottom().remove(sink);
-			sink.setBlock(b);
-			b.addState(sink);
-			toBeProcessed.add(b);
+		// Number the components, and count their states
+		block = new int[n];
+		int[] size = new int[n];
+		for (int s = 0; s < n; s++)
+			if (parent[s] >= 0)
+				size[find(parent, s)]++;
+
+		int[] number = new int[n];
+		Arrays.fill(number, -1);
+		for (int s = 0; s < n; s++) {
+			if (parent[s] < 0)
+				block[s] = -1;
+			else if (relation.isSink(s) && size[find(parent, s)] > 1)
+				block[s] = blockCount++;
+			else {
+				int root = find(parent, s);
+				if (number[root] < 0)
+					number[root] = blockCount++;
+				block[s] = number[root];
+			}
 		}
 
-		for (Block b : toBeProcessed) {
-			b.init();
-			Logger.log("Created stutter block with " + b.size() + " state(s))", LogEvent.DEBUG);
+		computeComponents();
+
+		// Lay out the blocks as contiguous ranges
+		begin = new int[n + 1];
+		end = new int[n + 1];
+		for (int s = 0; s < n; s++)
+			if (block[s] >= 0)
+				end[block[s]]++;
+		for (int b = 1; b < blockCount; b++)
+			end[b] += end[b - 1];
+		for (int b = 0; b < blockCount; b++)
+			begin[b] = (b == 0 ? 0 : end[b - 1]);
+
+		states = new int[end[Math.max(0, blockCount - 1)]];
+		position = new int[n];
+		int[] fill = Arrays.copyOf(begin, blockCount);
+		for (int s = 0; s < n; s++) {
+			if (block[s] >= 0) {
+				position[s] = fill[block[s]]++;
+				states[position[s]] = s;
+			}
 		}
+
+		marked = new int[n + 1];
+		mark = new boolean[n];
+		touched = new boolean[n + 1];
+		queued = new boolean[n + 1];
+		queue = new int[n + 1];
+		for (int b = blockCount - 1; b >= 0; b--)
+			enqueue(b);
+
+		Logger.log("Created " + blockCount + " stutter block(s) for " + count + " state(s)", LogEvent.DEBUG);
 	}
 
-	private void treeSearchPreprocess(KripkeState s) {
-		for (KripkeState next : s.getNextStates()) {
-			if (next.getBlock() == null) {
-				if (s.atomicPropositionsEquals(next)) {
-					s.getBlock().addState(next);
-					next.setBlock(s.getBlock());
+	/**
+	 * Computes the strongly connected components of the inert transitions with an iterative version of Tarjan's
+	 * algorithm, and counts the bottom components of each block.
+	 */
+	private void computeComponents() {
+		int n = block.length;
+		component = new int[n];
+		int[] index = new int[n], low = new int[n], edge = new int[n];
+		int[] stack = new int[n], calls = new int[n];
+		boolean[] onStack = new boolean[n];
+		Arrays.fill(index, -1);
+		Arrays.fill(component, -1);
+		int counter = 0, components = 0, top = 0;
+
+		for (int root = 0; root < n; root++) {
+			if (block[root] < 0 || index[root] >= 0)
+				continue;
+
+			int depth = 0;
+			calls[depth++] = root;
+			index[root] = low[root] = counter++;
+			edge[root] = nextOffsets[root];
+			stack[top++] = root;
+			onStack[root] = true;
+
+			while (depth > 0) {
+				int v = calls[depth - 1];
+
+				if (edge[v] < nextOffsets[v + 1]) {
+					int t = nextIndices[edge[v]++];
+					if (t == v || block[t] != block[v])
+						continue;
+
+					if (index[t] < 0) {
+						index[t] = low[t] = counter++;
+						edge[t] = nextOffsets[t];
+						stack[top++] = t;
+						onStack[t] = true;
+						calls[depth++] = t;
+					} else if (onStack[t])
+						low[v] = Math.min(low[v], index[t]);
 				} else {
-					Block b = new Block();
-					b.addState(next);
-					next.setBlock(b);
-					toBeProcessed.add(b);
+					depth--;
+					if (low[v] == index[v]) {
+						int t;
+						do {
+							t = stack[--top];
+							onStack[t] = false;
+							component[t] = components;
+						} while (t != v);
+						components++;
+					}
+					if (depth > 0)
+						low[calls[depth - 1]] = Math.min(low[calls[depth - 1]], low[v]);
 				}
+			}
+		}
 
-				count++;
-				if (count >= eventCount) {
-					Logger.log("Partitioning states into stutter blocks (at " + count + " states)", LogEvent.VERBOSE);
-					eventCount += 160000;
-				}
+		bottom = new boolean[components];
+		Arrays.fill(bottom, true);
+		for (int s = 0; s < n; s++)
+			if (block[s] >= 0)
+				for (int k = nextOffsets[s]; k < nextOffsets[s + 1]; k++)
+					if (block[nextIndices[k]] == block[s] && component[nextIndices[k]] != component[s])
+						bottom[component[s]] = false;
+
+		bottomCount = new int[n + 1];
+		for (int s = 0; s < n; s++)
+			if (block[s] >= 0 && bottom[component[s]] && index[s] == low[s])
+				bottomCount[block[s]]++;
+
+		markedBottom = new int[n + 1];
+		markedComponent = new boolean[components];
+		exit = new int[components];
+	}
 
-				treeSearchPreprocess(next);
-			} else {
-				if (s.atomicPropositionsEquals(next) && s.getBlock() != next.getBlock()) {
-					Block merge = next.getBlock();
-					toBeProcessed.remove(merge);
-					s.getBlock().merge(merge);
-				}
-				//else already preprocessed correctly
-			}
+	private static int find(int[] parent, int s) {
+		while (parent[s] != s) {
+			parent[s] = parent[parent[s]];
+			s = parent[s];
 		}
+		return s;
 	}
 
 	/**
@@ -224,18 +492,31 @@ public class StutterOptimizer {
 	public String toString(boolean fullOutput) {
 		StringBuilder sb = new StringBuilder();
 		sb.append("Reduction of ").append(stutterStates.size()).append(" states");
-		if (fullOutput) {
+		if (fullOutput && relation != null) {
 			sb.append("\nUnstable Block Partitions:\n");
-			for (Block b : toBeProcessed)
-				sb.append(b.toString()).append("\n");
+			for (int i = 0; i < queueSize; i++)
+				sb.append(toString(queue[i])).append("\n");
 			sb.append("Stable Block Partitions:\n");
-			for (Block b : stable)
-				sb.append(b.toString()).append("\n");
+			for (int b = 0; b < blockCount; b++)
+				if (!queued[b])
+					sb.append(toString(b)).append("\n");
 		}
 
 		return sb.toString();
 	}
 
+	private String toString(int b) {
+		StringBuilder bottom = new StringBuilder(), nonbottom = new StringBuilder();
+		for (int i = begin[b]; i < end[b]; i++) {
+			StringBuilder sb = (isBottom(states[i]) ? bottom : nonbottom);
+			if (sb.length() > 0)
+				sb.append(", ");
+			sb.append(relation.getState(states[i]));
+		}
+
+		return "{b: " + bottom + (nonbottom.length() > 0 ? " | nb: " + nonbottom : "") + "}";
+	}
+
 	/**
 	 * Returns the removed states.
 	 *
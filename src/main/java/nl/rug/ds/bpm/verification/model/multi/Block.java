@@ -40,16 +40,8 @@ public class Block extends AbstractState<Block> {
     }
 
     @Override
-    public void setId() {
-        lock.lock();
-        try {
-            this.idNumber = stateID++;
-            this.id = "B" + idNumber;
-        } catch (Exception e) {
-            Logger.log("Failed to write state ID.", LogEvent.ERROR);
-        } finally {
-            lock.unlock();
-        }
+    protected String getIdPrefix() {
+        return "B";
     }
 
     /**
@@ -227,7 +219,7 @@ public class Block extends AbstractState<Block> {
      * @return whether this block can merge with the given block.
      */
     public boolean canMerge(Block other) {
-        return other != this && this.equals(other);
+        return other != this && atomicPropositions.equals(other.getAtomicPropositions());
     }
 
     /**
@@ -340,31 +332,77 @@ public class Block extends AbstractState<Block> {
     }
 
     /**
-     * Finds strongly connected components within this block using Tarjan's algorithm.
+     * Finds strongly connected components within this block using Tarjan's algorithm. The depth-first search keeps
+     * its own stack of states and their remaining next states, such that deep blocks do not overflow the thread stack.
      */
     private void tarjanSCC() {
-        Stack<MultiState> stack = new Stack<>();
+        int size = states.size() + exitStates.size();
+
+        // Index the concatenation of the states and exit states, such that the index of a next state is found in constant time
+        MultiState[] joined = new MultiState[size];
+        Map<MultiState, Integer> indices = new IdentityHashMap<>(size);
+        int i = 0;
+        for (MultiState state : states) {
+            indices.put(state, i);
+            joined[i++] = state;
+        }
+        for (MultiState state : exitStates) {
+            indices.put(state, i);
+            joined[i++] = state;
+        }
 
-        int[] ids = new int[states.size() + exitStates.size()];
-        int[] low = new int[states.size() + exitStates.size()];
+        int[] ids = new int[size];
+        int[] low = new int[size];
+        Arrays.fill(ids, -1); //-1 equals unvisited
+        Arrays.fill(low, -1);
 
         sccid = 0;
         scc = 0;
 
-        for (int i = 0; i < states.size() + exitStates.size(); i++) {
-            ids[i] = -1; //-1 equals unvisited
-            low[i] = -1;
-        }
-
-        Iterator<MultiState> statesIterator = states.iterator();
-        Iterator<MultiState> exitIterator = exitStates.iterator();
-
-        // To prevent having to copy the set into a list to have access to get and indexOf methods, we pass both a state and an index to dfsSCC.
-        // We obtain the state from the concatenation of the states and exitstates iterators.
-        for (int i = 0; i < states.size() + exitStates.size(); i++) {
-            MultiState state = (statesIterator.hasNext() ? statesIterator.next() : exitIterator.next());
-            if (ids[i] == -1)
-                dfsSCC(state, i, ids, low, stack);
+        Deque<MultiState> stack = new ArrayDeque<>();
+        int[] calls = new int[size];
+        @SuppressWarnings("unchecked")
+        Iterator<MultiState>[] next = new Iterator[size];
+
+        for (int root = 0; root < size; root++) {
+            if (ids[root] != -1)
+                continue;
+
+            int depth = 0;
+            calls[depth++] = root;
+            visit(joined[root], root, ids, low, stack, next);
+
+            while (depth > 0) {
+                int at = calls[depth - 1];
+
+                if (next[at].hasNext()) {
+                    MultiState state = next[at].next();
+                    if (state.getParent(partition) != this) //only include states within this block
+                        continue;
+
+                    int to = indices.get(state);
+                    if (ids[to] == -1) {
+                        calls[depth++] = to;
+                        visit(state, to, ids, low, stack, next);
+                    } else if (state.getFlag(partition))
+                        low[at] = Math.min(low[at], ids[to]);
+                } else {
+                    depth--;
+                    next[at] = null;
+
+                    if (ids[at] == low[at]) {
+                        MultiState p = null;
+                        while (!stack.isEmpty() && p != joined[at]) {
+                            p = stack.pop();
+                            p.setFlag(partition, false);
+                        }
+                        scc++;
+                    }
+
+                    if (depth > 0)
+                        low[calls[depth - 1]] = Math.min(low[calls[depth - 1]], low[at]);
+                }
+            }
         }
 
         // Reset flags
@@ -377,56 +415,14 @@ public class Block extends AbstractState<Block> {
             Logger.log("Block " + this.getId() + " SCC ids = " + Arrays.toString(ids) + " low = " + Arrays.toString(low), LogEvent.DEBUG);
     }
 
-    private void dfsSCC(MultiState state, int at, int[] ids, int[] low, Stack<MultiState> stack) {
+    private void visit(MultiState state, int at, int[] ids, int[] low, Deque<MultiState> stack, Iterator<MultiState>[] next) {
         ids[at] = sccid;
         low[at] = sccid;
         sccid++;
 
         stack.push(state);
         state.setFlag(partition, true);
-
-        for (MultiState next : state.getNextStates(partition)) {
-            if (next.getParent(partition) == this) { //only include states within this block
-                int to = joinedIndexOf(next);
-                if (ids[to] == -1) {
-                    dfsSCC(next, to, ids, low, stack);
-                    low[at] = Math.min(low[at], low[to]);
-                } else if (next.getFlag(partition))
-                    low[at] = Math.min(low[at], ids[to]);
-            }
-        }
-
-        if (ids[at] == low[at]) {
-            MultiState p = null;
-            while (!stack.isEmpty() && p != state) {
-                p = stack.pop();
-                p.setFlag(partition, false);
-            }
-            scc++;
-        }
-    }
-
-    /**
-     * Method to obtain the index of a given state within the concatenation of the set states and the set exitstates.
-     * Sets don't have an indexOf method. To not have to copy the set to a list to calculate SCC, we use the headset
-     * method.
-     *
-     * @param state the given state of which we would like the index.
-     * @return the index of the state.
-     */
-    private int joinedIndexOf(MultiState state) {
-        int index = -1;
-
-        SortedSet<MultiState> stateshead = states.headSet(state, true);
-        if (!stateshead.isEmpty() && stateshead.last() == state)
-            index = stateshead.size() - 1;
-        else {
-            SortedSet<MultiState> exithead = exitStates.headSet(state, true);
-            if (!exithead.isEmpty() && exithead.last() == state)
-                index = states.size() + exithead.size() - 1;
-        }
-
-        return index;
+        next[at] = state.getNextStates(partition).iterator();
     }
 
     /**
@@ -449,11 +445,27 @@ public class Block extends AbstractState<Block> {
             return -1;
         if (this.getClass() != o.getClass())
             return -1;
-        return id.compareTo(o.getId());
+        return Long.compare(idNumber, o.getIdNumber());
+    }
+
+    /**
+     * Blocks are identified by their id, as multiple blocks with equal atomic propositions may exist within a partition.
+     *
+     * @param o the object to compare to.
+     * @return true iff o is this block.
+     */
+    @Override
+    public boolean equals(Object o) {
+        return this == o;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(this);
     }
 
     @Override
     public String toString() {
-        return partition.getId() + " " + id + ": {" + hash + " | " + states.stream().map(State::getId).collect(Collectors.joining(",")) + " + " + exitStates.stream().map(State::getId).collect(Collectors.joining(",")) + " }";
+        return partition.getId() + " " + getId() + ": {" + hash() + " | " + states.stream().map(State::getId).collect(Collectors.joining(",")) + " + " + exitStates.stream().map(State::getId).collect(Collectors.joining(",")) + " }";
     }
 }
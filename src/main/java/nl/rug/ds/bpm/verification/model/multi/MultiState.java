@@ -5,6 +5,7 @@ import nl.rug.ds.bpm.util.comparator.ComparableComparator;
 import nl.rug.ds.bpm.verification.model.generic.MarkedState;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -22,9 +23,9 @@ public class MultiState extends MarkedState<MultiState> {
      */
     public MultiState(Set<String> atomicPropositions) {
         super(atomicPropositions);
-        parents = new HashMap<>();
-        nextSubStates = new HashMap<>();
-        flags = new HashMap<>();
+        parents = new ConcurrentHashMap<>();
+        nextSubStates = new ConcurrentHashMap<>();
+        flags = new ConcurrentHashMap<>();
     }
 
     /**
@@ -35,9 +36,9 @@ public class MultiState extends MarkedState<MultiState> {
      */
     public MultiState(String marking, Set<String> atomicPropositions) {
         super(marking, atomicPropositions);
-        parents = new HashMap<>();
-        nextSubStates = new HashMap<>();
-        flags = new HashMap<>();
+        parents = new ConcurrentHashMap<>();
+        nextSubStates = new ConcurrentHashMap<>();
+        flags = new ConcurrentHashMap<>();
     }
 
     /**
@@ -48,9 +49,7 @@ public class MultiState extends MarkedState<MultiState> {
      */
     public void setParent(Partition partition, Block block) {
         parents.put(partition, block);
-
-        if (!nextSubStates.containsKey(partition))
-            nextSubStates.put(partition, new TreeSet<MultiState>(new ComparableComparator<MultiState>()));
+        nextSubStates.computeIfAbsent(partition, p -> new TreeSet<MultiState>(new ComparableComparator<MultiState>()));
     }
 
     /**
@@ -92,7 +91,7 @@ public class MultiState extends MarkedState<MultiState> {
      * @return the set of next states that are accessible from this state.
      */
     public Set<MultiState> getNextStates(Partition partition) {
-        return (nextSubStates.containsKey(partition) ? nextSubStates.get(partition) : new HashSet<MultiState>());
+        return nextSubStates.getOrDefault(partition, new HashSet<MultiState>());
     }
 
     /**
@@ -128,6 +127,6 @@ public class MultiState extends MarkedState<MultiState> {
 
     @Override
     public String toString() {
-        return id + ": {" + hash + " | " + parents.values().stream().map(Object::toString).collect(Collectors.joining(",")) + " }";
+        return getId() + ": {" + hash() + " | " + parents.values().stream().map(Object::toString).collect(Collectors.joining(",")) + " }";
     }
 }
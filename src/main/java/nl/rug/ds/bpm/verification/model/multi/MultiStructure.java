@@ -62,7 +62,7 @@ public class MultiStructure extends AbstractStructure<MultiState> {
             if (partition.contradicts(stateExpression) || partition.contradicts(guardExpression))
                 partition.addState(found);
             else
-                partition.addInitial(state);
+                partition.addInitial(found);
         }
 
         return super.addInitial(state);
@@ -73,7 +73,7 @@ public class MultiStructure extends AbstractStructure<MultiState> {
      * Add a relation to the transition system from the given current state to the given next state, add the given next
      * state to the transition system if it is not known. Adds the next state to each partition of this multistructure,
      * but only adds the relation iff the conditions of the partition does not contradict the given state- and
-     * guard-expression.
+     * guard-expression. Each partition locks itself, such that the multistructure as a whole is not locked.
      *
      * @param current         a state current to this transition system.
      * @param next            the state that must become accessible from the given current state.
@@ -82,7 +82,7 @@ public class MultiStructure extends AbstractStructure<MultiState> {
      * @return created if new, otherwise the equaling known state.
      * @throws ConverterException if the maximum number of states was reached.
      */
-    public synchronized MultiState addNext(MultiState current, MultiState next, CompositeExpression stateExpression, CompositeExpression guardExpression) throws ConverterException {
+    public MultiState addNext(MultiState current, MultiState next, CompositeExpression stateExpression, CompositeExpression guardExpression) throws ConverterException {
         MultiState found = this.addNext(current, next);
 
         for (Partition partition : partitions) {
@@ -6,6 +6,8 @@ import nl.rug.ds.bpm.expression.LogicalType;
 import nl.rug.ds.bpm.specification.jaxb.SpecificationSet;
 import nl.rug.ds.bpm.util.comparator.ComparableComparator;
 import nl.rug.ds.bpm.util.exception.ConverterException;
+import nl.rug.ds.bpm.util.set.ConcurrentInternSet;
+import nl.rug.ds.bpm.verification.map.AtomicPropositionLabel;
 import nl.rug.ds.bpm.verification.model.generic.AbstractStructure;
 
 import java.util.Set;
@@ -20,6 +22,8 @@ public class Partition extends AbstractStructure<Block> {
     private final Set<MultiState> initialSubStates;
     private final SpecificationSet specificationSet;
     private final CompositeExpression conditionExpression;
+    private final AtomicPropositionLabel relevantPropositions;
+    private final ConcurrentInternSet<AtomicPropositionLabel> labels;
 
     /**
      * Creates a substructure.
@@ -32,6 +36,9 @@ public class Partition extends AbstractStructure<Block> {
         this.specificationSet = specificationSet;
         this.atomicPropositions.addAll(atomicPropositions);
 
+        relevantPropositions = AtomicPropositionLabel.of(atomicPropositions);
+        labels = new ConcurrentInternSet<>();
+
         initialSubStates = new TreeSet<>(new ComparableComparator<MultiState>());
 
         conditionExpression = new CompositeExpression(LogicalType.AND);
@@ -59,7 +66,7 @@ public class Partition extends AbstractStructure<Block> {
      */
     public synchronized MultiState addInitial(MultiState s) throws ConverterException {
         MultiState known = addState(s);
-        initialSubStates.add(s);
+        initialSubStates.add(known);
 
         return known;
     }
@@ -143,13 +150,8 @@ public class Partition extends AbstractStructure<Block> {
      * @param atomicPropositions a given set of atomic propositions
      * @return the set of relevant atomic propositions to this Partition within a given set.
      */
-    public Set<String> createAtomicPropositions(Set<String> atomicPropositions) {
-        TreeSet<String> ap = new TreeSet<String>(new ComparableComparator<String>());
-
-        ap.addAll(atomicPropositions);
-        ap.retainAll(this.atomicPropositions);
-
-        return ap;
+    public AtomicPropositionLabel createAtomicPropositions(Set<String> atomicPropositions) {
+        return labels.intern(AtomicPropositionLabel.of(atomicPropositions).retain(relevantPropositions));
     }
 
     /**
@@ -159,9 +161,8 @@ public class Partition extends AbstractStructure<Block> {
      * @return the created Block.
      */
     public synchronized Block createParent(Set<String> atomicPropositions) {
-        TreeSet<String> ap = new TreeSet<String>(new ComparableComparator<String>());
-        ap.addAll(atomicPropositions);
-        Block state = new Block(ap, this);
+        Block state = new Block(labels.intern(AtomicPropositionLabel.of(atomicPropositions)), this);
+        assignId(state);
         states.add(state);
 
         return state;
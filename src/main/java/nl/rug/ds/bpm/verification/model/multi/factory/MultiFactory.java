@@ -30,7 +30,7 @@ public class MultiFactory extends AbstractStructureFactory<MultiState, MultiStru
      */
     @Override
     public MultiState createState(Set<String> atomicPropositions) {
-        return new MultiState(atomicPropositions);
+        return new MultiState(createLabel(atomicPropositions));
     }
 
     /**
@@ -42,7 +42,7 @@ public class MultiFactory extends AbstractStructureFactory<MultiState, MultiStru
      */
     @Override
     public MultiState createState(String marking, Set<String> atomicPropositions) {
-        return new MultiState(marking, atomicPropositions);
+        return new MultiState(marking, createLabel(atomicPropositions));
     }
 
     @Override
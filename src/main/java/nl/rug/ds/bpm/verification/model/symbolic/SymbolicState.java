@@ -0,0 +1,45 @@
+package nl.rug.ds.bpm.verification.model.symbolic;
+
+import java.util.Set;
+
+/**
+ * State of a SymbolicStructure, identified by its marked places and its (parallel) enabled Transitions.
+ */
+public class SymbolicState {
+	private final Set<String> markedPlaces;
+	private final Set<String> enabled;
+
+	/**
+	 * Creates a SymbolicState.
+	 *
+	 * @param markedPlaces the identifiers of the marked places.
+	 * @param enabled      the identifiers of the (parallel) enabled Transitions.
+	 */
+	public SymbolicState(Set<String> markedPlaces, Set<String> enabled) {
+		this.markedPlaces = markedPlaces;
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Returns the identifiers of the marked places.
+	 *
+	 * @return the identifiers of the marked places.
+	 */
+	public Set<String> getMarkedPlaces() {
+		return markedPlaces;
+	}
+
+	/**
+	 * Returns the identifiers of the (parallel) enabled Transitions.
+	 *
+	 * @return the identifiers of the (parallel) enabled Transitions.
+	 */
+	public Set<String> getEnabled() {
+		return enabled;
+	}
+
+	@Override
+	public String toString() {
+		return markedPlaces + " " + enabled;
+	}
+}
@@ -0,0 +1,433 @@
+package nl.rug.ds.bpm.verification.model.symbolic;
+
+import nl.rug.ds.bpm.specification.jaxb.Condition;
+import nl.rug.ds.bpm.util.bdd.BDDManager;
+import nl.rug.ds.bpm.verification.model.ConditionalStructure;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Transition system of which the States, relation, and atomic propositions are encoded as BDDs.
+ * <p>
+ * A State is encoded by a boolean variable per place, which holds iff the place is marked, and a boolean variable per
+ * Transition, which holds iff the Transition is in the (parallel) enabled set of the State. The encoding therefore
+ * assumes safe nets, in which a place holds at most one token. Each variable has a current and a next copy, which are
+ * adjacent in the variable order. Variables are added while States are added, and are false in all earlier States.
+ * Only the frontier of an exploration needs to be kept explicitly, as SymbolicStates.
+ * </p>
+ * <p>
+ * The size of the BDDs depends on the variable order, which is kept local where the net structure is known: a
+ * Transition is placed after the places it consumes, and the new places and Transitions of a State after the
+ * Transition that was fired to reach it. Otherwise, the places that a Transition produces would end up far from the
+ * places it consumes, such that n parallel branches would take a number of nodes exponential in n.
+ * </p>
+ * <p>
+ * Each added State and relation leaves the previous BDDs of the reachable States, the relation, and the labels as
+ * garbage. Garbage is therefore collected after additions once the BDDManager deems it due, with the BDDs of this
+ * structure as roots.
+ * </p>
+ */
+public class SymbolicStructure implements ConditionalStructure {
+	private final BDDManager manager;
+	private final Map<String, Integer> places, transitions;
+	private final Set<String> conditions;
+	private final Map<String, Integer> labels;
+
+	private int[] current, next;
+	private int count;
+	private int initial, reachable, relation;
+	private int currentCube, nextCube, toCurrent, toNext;
+	private boolean frozen;
+
+	/**
+	 * Creates an empty SymbolicStructure.
+	 */
+	public SymbolicStructure() {
+		this(new BDDManager());
+	}
+
+	/**
+	 * Creates an empty SymbolicStructure that encodes its BDDs with the given BDDManager, which must not be shared.
+	 *
+	 * @param manager the BDDManager.
+	 */
+	public SymbolicStructure(BDDManager manager) {
+		this.manager = manager;
+		places = new HashMap<>();
+		transitions = new HashMap<>();
+		conditions = new HashSet<>();
+		labels = new HashMap<>();
+
+		current = new int[16];
+		next = new int[16];
+		initial = reachable = relation = BDDManager.FALSE;
+	}
+
+	/**
+	 * Returns the BDDManager of this structure.
+	 *
+	 * @return the BDDManager.
+	 */
+	public BDDManager getManager() {
+		return manager;
+	}
+
+	/**
+	 * Adds the given State to the initial and reachable States.
+	 *
+	 * @param state the State.
+	 * @param label the atomic propositions that hold in the State.
+	 * @return true iff the State was not yet reachable.
+	 */
+	public boolean addInitial(SymbolicState state, Set<String> label) {
+		checkModifiable();
+		allocate(state);
+		initial = manager.or(initial, encode(state));
+		return addState(state, label);
+	}
+
+	/**
+	 * Adds the given State to the reachable States.
+	 *
+	 * @param state the State.
+	 * @param label the atomic propositions that hold in the State.
+	 * @return true iff the State was not yet reachable.
+	 */
+	public boolean addState(SymbolicState state, Set<String> label) {
+		return addState(state, label, null);
+	}
+
+	/**
+	 * Adds the given State, which is reached by firing the given Transition, to the reachable States. The variables of
+	 * new places and Transitions of the State are ordered directly after the variable of the fired Transition.
+	 *
+	 * @param state the State.
+	 * @param label the atomic propositions that hold in the State.
+	 * @param fired the identifier of the fired Transition, or null if unknown.
+	 * @return true iff the State was not yet reachable.
+	 */
+	public boolean addState(SymbolicState state, Set<String> label, String fired) {
+		checkModifiable();
+		allocate(state, (fired == null ? -1 : transitions.getOrDefault(fired, -1)));
+		int encoded = encode(state);
+
+		if (manager.and(reachable, encoded) != BDDManager.FALSE)
+			return false;
+
+		reachable = manager.or(reachable, encoded);
+		for (String ap : label)
+			labels.merge(ap, encoded, manager::or);
+
+		collectGarbage();
+		return true;
+	}
+
+	/**
+	 * Adds the variables of the given places, if new, and of the given Transition, if new, directly after the last of
+	 * these places in the variable order. Used to order the variables of the initial States, of which the places that
+	 * each Transition consumes are only known by firing it.
+	 *
+	 * @param consumed   the identifiers of the places that the Transition consumes.
+	 * @param transition the identifier of the Transition.
+	 */
+	public void addVariables(Set<String> consumed, String transition) {
+		checkModifiable();
+		int last = -1;
+		for (String place : consumed) {
+			int index = variable(places, place, -1);
+			if (last < 0 || manager.getLevel(current[index]) > manager.getLevel(current[last]))
+				last = index;
+		}
+		variable(transitions, transition, last);
+	}
+
+	/**
+	 * Adds a relation between the given reachable States.
+	 *
+	 * @param from the current State.
+	 * @param to   the next State.
+	 */
+	public void addNext(SymbolicState from, SymbolicState to) {
+		checkModifiable();
+		allocate(from);
+		allocate(to);
+		relation = manager.or(relation, manager.and(encode(from), encode(to, Arrays.copyOf(next, count))));
+		collectGarbage();
+	}
+
+	/**
+	 * Returns the BDD over current variables of the given State, of which all variables must exist.
+	 *
+	 * @param state the State.
+	 * @return the BDD of the State.
+	 */
+	public int encode(SymbolicState state) {
+		return encode(state, getVariables());
+	}
+
+	private int encode(SymbolicState state, int[] variables) {
+		boolean[] values = new boolean[count];
+
+		for (String place : state.getMarkedPlaces())
+			values[places.get(place)] = true;
+		for (String transition : state.getEnabled())
+			values[transitions.get(transition)] = true;
+
+		return manager.cube(variables, values);
+	}
+
+	/**
+	 * Prevents further modification, and prepares the images and pre-images used to verify this structure.
+	 */
+	public void freeze() {
+		if (frozen)
+			return;
+		frozen = true;
+
+		int[] currentVariables = getVariables();
+		int[] nextVariables = Arrays.copyOf(next, count);
+		currentCube = manager.cube(currentVariables);
+		nextCube = manager.cube(nextVariables);
+
+		int[] map = new int[manager.getVariableCount()];
+		for (int i = 0; i < map.length; i++)
+			map[i] = i;
+		for (int i = 0; i < count; i++)
+			map[next[i]] = current[i];
+		toCurrent = manager.createRenaming(map);
+
+		for (int i = 0; i < map.length; i++)
+			map[i] = i;
+		for (int i = 0; i < count; i++)
+			map[current[i]] = next[i];
+		toNext = manager.createRenaming(map);
+	}
+
+	/**
+	 * Returns the current variables of this structure.
+	 *
+	 * @return the current variables, in the order they were created.
+	 */
+	public int[] getVariables() {
+		return Arrays.copyOf(current, count);
+	}
+
+	/**
+	 * Returns the BDD of the initial States.
+	 *
+	 * @return the BDD of the initial States.
+	 */
+	public int getInitial() {
+		return initial;
+	}
+
+	/**
+	 * Returns the BDD of the reachable States.
+	 *
+	 * @return the BDD of the reachable States.
+	 */
+	public int getReachable() {
+		return reachable;
+	}
+
+	/**
+	 * Returns the BDD of the relation over current and next variables.
+	 *
+	 * @return the BDD of the relation.
+	 */
+	public int getRelation() {
+		return relation;
+	}
+
+	/**
+	 * Returns the BDD of the States in which the given atomic proposition holds.
+	 *
+	 * @param ap the atomic proposition.
+	 * @return the BDD of the States in which the atomic proposition holds.
+	 */
+	public int getLabel(String ap) {
+		return labels.getOrDefault(ap, BDDManager.FALSE);
+	}
+
+	/**
+	 * Returns the atomic propositions that hold in the given State.
+	 *
+	 * @param state the BDD of a single State.
+	 * @return the atomic propositions that hold in the State.
+	 */
+	public Set<String> getAtomicPropositions(int state) {
+		Set<String> aps = new TreeSet<>();
+		for (Map.Entry<String, Integer> label : labels.entrySet())
+			if (manager.and(state, label.getValue()) != BDDManager.FALSE)
+				aps.add(label.getKey());
+		return aps;
+	}
+
+	/**
+	 * Returns the atomic propositions that hold in some State.
+	 *
+	 * @return the atomic propositions.
+	 */
+	public Set<String> getAtomicPropositions() {
+		return labels.keySet();
+	}
+
+	/**
+	 * Returns the States that have a next State in the given set. Requires this structure to be frozen.
+	 *
+	 * @param states the BDD of the set of States.
+	 * @return the BDD of the States that have a next State in the given set.
+	 */
+	public int pre(int states) {
+		return manager.relProd(relation, manager.replace(states, toNext), nextCube);
+	}
+
+	/**
+	 * Returns the next States of the States in the given set. Requires this structure to be frozen.
+	 *
+	 * @param states the BDD of the set of States.
+	 * @return the BDD of the next States.
+	 */
+	public int image(int states) {
+		return manager.replace(manager.relProd(relation, states, currentCube), toCurrent);
+	}
+
+	/**
+	 * Returns a single State of the given non empty set of States.
+	 *
+	 * @param states the BDD of the set of States.
+	 * @return the BDD of a single State.
+	 */
+	public int pick(int states) {
+		return manager.satOne(states, getVariables());
+	}
+
+	/**
+	 * Returns the number of reachable States.
+	 *
+	 * @return the number of reachable States.
+	 */
+	public double getStateCount() {
+		return manager.satCount(reachable, getVariables());
+	}
+
+	/**
+	 * Returns a string that describes the number of States, BDD nodes, and atomic propositions.
+	 *
+	 * @return a string that describes this structure.
+	 */
+	public String stats() {
+		return String.format("%.0f states, %d variables, %d BDD nodes, and %d atomic propositions", getStateCount(), count * 2, manager.getNodeCount(), labels.size());
+	}
+
+	@Override
+	public void addCondition(Condition condition) {
+		conditions.add(condition.getCondition());
+	}
+
+	@Override
+	public void addCondition(String condition) {
+		conditions.add(condition);
+	}
+
+	@Override
+	public void addConditions(List<Condition> conditions) {
+		for (Condition condition : conditions)
+			addCondition(condition);
+	}
+
+	@Override
+	public void addConditions(Set<String> conditions) {
+		this.conditions.addAll(conditions);
+	}
+
+	@Override
+	public Set<String> getConditions() {
+		return conditions;
+	}
+
+	/**
+	 * Returns the index of the variable of the given place or Transition, which is created directly after the variable
+	 * with the given index if new, or at the end of the variable order if that index is negative.
+	 */
+	private int variable(Map<String, Integer> variables, String id, int after) {
+		Integer index = variables.get(id);
+		if (index != null)
+			return index;
+
+		if (count == current.length) {
+			current = Arrays.copyOf(current, count << 1);
+			next = Arrays.copyOf(next, count << 1);
+		}
+
+		int c = (after < 0 ? manager.createVariable() : manager.createVariable(next[after]));
+		int n = manager.createVariable(c);
+		current[count] = c;
+		next[count] = n;
+
+		// The new variable is false in all States added before
+		int absent = manager.nithVar(c);
+		initial = manager.and(initial, absent);
+		reachable = manager.and(reachable, absent);
+		relation = manager.and(relation, manager.and(absent, manager.nithVar(n)));
+		labels.replaceAll((ap, label) -> manager.and(label, absent));
+
+		variables.put(id, count);
+		return count++;
+	}
+
+	private void allocate(SymbolicState state) {
+		allocate(state, -1);
+	}
+
+	/**
+	 * Creates the missing variables of the given State, each directly after the previous one, starting after the
+	 * variable with the given index, or at the end of the variable order if that index is negative.
+	 */
+	private void allocate(SymbolicState state, int after) {
+		for (String place : state.getMarkedPlaces())
+			after = allocate(places, place, after);
+		for (String transition : state.getEnabled())
+			after = allocate(transitions, transition, after);
+	}
+
+	/**
+	 * Returns the index to create the next variable after, which is the index of the given place or Transition if its
+	 * variable is created now.
+	 */
+	private int allocate(Map<String, Integer> variables, String id, int after) {
+		int before = count;
+		int index = variable(variables, id, after);
+		return (after >= 0 && count > before ? index : after);
+	}
+
+	/**
+	 * Collects the garbage of the BDDManager if due. Only called while modifiable, such that the BDDs of this structure
+	 * are the only BDDs in use.
+	 */
+	private void collectGarbage() {
+		if (!manager.shouldCollect())
+			return;
+
+		int[] roots = new int[3 + labels.size()];
+		roots[0] = initial;
+		roots[1] = reachable;
+		roots[2] = relation;
+		int i = 3;
+		for (int label : labels.values())
+			roots[i++] = label;
+
+		manager.collect(roots);
+	}
+
+	private void checkModifiable() {
+		if (frozen)
+			throw new IllegalStateException("Structure is frozen");
+	}
+}
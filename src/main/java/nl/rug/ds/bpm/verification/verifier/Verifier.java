@@ -4,6 +4,9 @@ import nl.rug.ds.bpm.util.exception.VerifierException;
 import nl.rug.ds.bpm.verification.event.listener.PerformanceEventListener;
 import nl.rug.ds.bpm.verification.event.listener.VerificationEventListener;
 import nl.rug.ds.bpm.verification.model.generic.AbstractStructure;
+import nl.rug.ds.bpm.verification.model.generic.factory.AbstractStructureFactory;
+
+import java.util.concurrent.Executor;
 
 
 public interface Verifier {
@@ -24,6 +27,32 @@ public interface Verifier {
         AbstractStructure.setMaximum(max);
     }
 
+    /**
+     * Returns the number of threads Verifiers use by default to compute structures.
+     *
+     * @return the number of threads.
+     */
+    static int getParallelism() {
+        return AbstractStructureFactory.getDefaultParallelism();
+    }
+
+    /**
+     * Sets the number of threads Verifiers use by default to compute structures.
+     * The threads are shared by all Verifiers that were not given an Executor of their own.
+     */
+    static void setParallelism(int parallelism) {
+        AbstractStructureFactory.setDefaultParallelism(parallelism);
+    }
+
+    /**
+     * Sets the Executor on which this Verifier computes structures, instead of the shared default.
+     * The Executor remains owned by the caller, and may be reused across Verifiers.
+     *
+     * @param executor    the Executor.
+     * @param parallelism the number of workers to submit to the Executor per computed structure.
+     */
+    void setExecutor(Executor executor, int parallelism);
+
     /**
      * Starts the verification process.
      *
@@ -12,6 +12,7 @@ import nl.rug.ds.bpm.util.exception.VerifierException;
 import nl.rug.ds.bpm.util.log.LogEvent;
 import nl.rug.ds.bpm.util.log.Logger;
 import nl.rug.ds.bpm.verification.checker.CheckerFactory;
+import nl.rug.ds.bpm.verification.event.VerificationEvent;
 import nl.rug.ds.bpm.verification.event.handler.PerformanceEventHandler;
 import nl.rug.ds.bpm.verification.event.handler.VerificationEventHandler;
 import nl.rug.ds.bpm.verification.event.listener.PerformanceEventListener;
@@ -24,10 +25,16 @@ import nl.rug.ds.bpm.verification.verifier.Verifier;
 
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.Executor;
 
 /**
  * Abstract class representing a verifier.
@@ -74,6 +81,17 @@ public abstract class AbstractVerifier<F extends StructureFactory<? extends Stat
 	 */
 	public abstract void verify() throws VerifierException;
 
+	/**
+	 * Sets the Executor on which this Verifier computes structures, instead of the shared default.
+	 * The Executor remains owned by the caller, and may be reused across Verifiers.
+	 *
+	 * @param executor    the Executor.
+	 * @param parallelism the number of workers to submit to the Executor per computed structure.
+	 */
+	public void setExecutor(Executor executor, int parallelism) {
+		structureFactory.setExecutor(executor, parallelism);
+	}
+
 	/**
 	 * Adds a listener that is notified of verification results.
 	 *
@@ -135,6 +153,20 @@ public abstract class AbstractVerifier<F extends StructureFactory<? extends Stat
 		return delta;
 	}
 
+	/**
+	 * Notifies the VerificationEventListeners of the given result, which may be called by Checkers while they run.
+	 *
+	 * @param event the result of verification.
+	 */
+	protected void fireVerificationEvent(VerificationEvent event) {
+		if (event.getFormula() == null)
+			Logger.log("Failed to map formula to original specification", LogEvent.ERROR);
+		else {
+			verificationEventHandler.fireEvent(event);
+			Logger.log("Specification " + event.getFormula().getSpecification().getId() + " evaluated " + event.getVerificationResult() + " for " + event.getFormula().getInputFormula(), LogEvent.INFO);
+		}
+	}
+
 	/**
 	 * Add the atomic propositions contained in a specification set to an AtomicPropositionMap.
 	 *
@@ -146,6 +178,55 @@ public abstract class AbstractVerifier<F extends StructureFactory<? extends Stat
 			atomicPropositionMap.addSpecificationId(expression);
 	}
 
+	/**
+	 * Creates an AtomicPropositionMap with the atomic propositions of the given map that are used by the given subset
+	 * of specifications or by groups, such that subsets share the atomic propositions of a single map.
+	 *
+	 * @param atomicPropositionMap the AtomicPropositionMap that contains the atomic propositions of all subsets.
+	 * @param specificationSet     the subset of specifications to use.
+	 * @return an AtomicPropositionMap of the atomic propositions used by the given subset.
+	 */
+	protected AtomicPropositionMap<CompositeExpression> createSpecificationSetPropositions(AtomicPropositionMap<CompositeExpression> atomicPropositionMap, SpecificationSet specificationSet) {
+		AtomicPropositionMap<CompositeExpression> groupPropositions = new AtomicPropositionMap<>();
+		getGroupPropositions(groupPropositions);
+
+		Set<CompositeExpression> ids = getSpecificationSetExpressions(specificationSet);
+		ids.addAll(groupPropositions.getIDKeys());
+
+		Map<CompositeExpression, String> map = new TreeMap<>(new ComparableComparator<>());
+		for (CompositeExpression id : ids)
+			if (atomicPropositionMap.contains(id))
+				map.put(id, atomicPropositionMap.getAP(id));
+
+		AtomicPropositionMap<CompositeExpression> setPropositions = new AtomicPropositionMap<>("p", map);
+		for (CompositeExpression id : ids)
+			if (atomicPropositionMap.getSpecificationIds().contains(id))
+				setPropositions.addSpecificationId(id);
+
+		return setPropositions;
+	}
+
+	/**
+	 * Groups the given subsets of specifications by their conditions, such that subsets with equal conditions may share
+	 * a single Structure. The order of the subsets is retained.
+	 *
+	 * @param specificationSets the subsets of specifications.
+	 * @return the subsets of specifications, grouped by their set of conditions.
+	 */
+	protected Map<Set<String>, List<SpecificationSet>> groupByConditions(List<SpecificationSet> specificationSets) {
+		Map<Set<String>, List<SpecificationSet>> groups = new LinkedHashMap<>();
+
+		for (SpecificationSet specificationSet : specificationSets) {
+			Set<String> conditions = new TreeSet<>();
+			for (Condition condition : specificationSet.getConditions())
+				conditions.add(condition.getCondition());
+
+			groups.computeIfAbsent(conditions, c -> new ArrayList<>()).add(specificationSet);
+		}
+
+		return groups;
+	}
+
 	/**
 	 * Obtain a set of CompositeExpressions of the atomic propositions used by the given subset of specifications.
 	 *
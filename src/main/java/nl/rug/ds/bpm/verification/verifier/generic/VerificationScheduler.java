@@ -0,0 +1,130 @@
+package nl.rug.ds.bpm.verification.verifier.generic;
+
+import nl.rug.ds.bpm.util.exception.VerifierException;
+import nl.rug.ds.bpm.util.log.LogEvent;
+import nl.rug.ds.bpm.util.log.Logger;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Class that runs verification tasks, i.e., the conversion and model checking of independent (sub)structures,
+ * concurrently with a bounded number of tasks in progress.
+ * <p>
+ * Submitting blocks while the maximum number of tasks is in progress, such that callers do not compute structures
+ * faster than they can be checked. Tasks report their own results, and therefore deliver them as each one completes.
+ * </p>
+ */
+public class VerificationScheduler implements AutoCloseable {
+	private final ExecutorService executor;
+	private final Semaphore permits;
+	private final int concurrency;
+	private final AtomicReference<VerifierException> failure;
+
+	/**
+	 * A verification task.
+	 */
+	@FunctionalInterface
+	public interface VerificationTask {
+		/**
+		 * Runs the task.
+		 *
+		 * @throws VerifierException when the verification fails.
+		 */
+		void run() throws VerifierException;
+	}
+
+	/**
+	 * Creates a VerificationScheduler.
+	 *
+	 * @param concurrency the maximum number of tasks in progress.
+	 */
+	public VerificationScheduler(int concurrency) {
+		this.concurrency = Math.max(1, concurrency);
+		permits = new Semaphore(this.concurrency);
+		failure = new AtomicReference<>();
+
+		AtomicInteger count = new AtomicInteger();
+		executor = Executors.newFixedThreadPool(this.concurrency, runnable -> {
+			Thread thread = new Thread(runnable, "bpm-verification-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Submits the given task, and blocks until it may start. Tasks are no longer started after a task failed.
+	 *
+	 * @param task the task.
+	 * @throws VerifierException when a previously submitted task failed, or when interrupted while waiting.
+	 */
+	public void submit(VerificationTask task) throws VerifierException {
+		submit("set", task);
+	}
+
+	/**
+	 * Submits the given task, and blocks until it may start. Tasks are no longer started after a task failed.
+	 *
+	 * @param description a description of what the task verifies, which is reported if the task fails unexpectedly.
+	 * @param task        the task.
+	 * @throws VerifierException when a previously submitted task failed, or when interrupted while waiting.
+	 */
+	public void submit(String description, VerificationTask task) throws VerifierException {
+		rethrow();
+
+		try {
+			permits.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new VerifierException("Interrupted while scheduling verification.");
+		}
+
+		executor.execute(() -> {
+			try {
+				if (failure.get() == null)
+					task.run();
+			} catch (VerifierException e) {
+				failure.compareAndSet(null, e);
+			} catch (RuntimeException e) {
+				Logger.log("Verification of " + description + " failed: " + e, LogEvent.ERROR);
+				failure.compareAndSet(null, new VerifierException("Failed to verify " + description + ": " + e, e));
+			} finally {
+				permits.release();
+			}
+		});
+	}
+
+	/**
+	 * Blocks until all submitted tasks completed.
+	 *
+	 * @throws VerifierException when any of the tasks failed, or when interrupted while waiting.
+	 */
+	public void await() throws VerifierException {
+		try {
+			permits.acquire(concurrency);
+			permits.release(concurrency);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new VerifierException("Interrupted while awaiting verification.");
+		}
+
+		rethrow();
+	}
+
+	/**
+	 * Stops the threads of this scheduler. Tasks in progress are completed.
+	 */
+	@Override
+	public void close() {
+		executor.shutdown();
+	}
+
+	private void rethrow() throws VerifierException {
+		VerifierException e = failure.get();
+		if (e != null)
+			throw e;
+	}
+}
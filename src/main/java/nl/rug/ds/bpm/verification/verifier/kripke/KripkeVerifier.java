@@ -12,8 +12,8 @@ import nl.rug.ds.bpm.util.log.Logger;
 import nl.rug.ds.bpm.verification.checker.Checker;
 import nl.rug.ds.bpm.verification.checker.CheckerFactory;
 import nl.rug.ds.bpm.verification.converter.kripke.KripkeStructureConverterAction;
+import nl.rug.ds.bpm.verification.converter.kripke.NetStructure;
 import nl.rug.ds.bpm.verification.event.PerformanceEvent;
-import nl.rug.ds.bpm.verification.event.VerificationEvent;
 import nl.rug.ds.bpm.verification.map.AtomicPropositionMap;
 import nl.rug.ds.bpm.verification.model.ConditionalStructure;
 import nl.rug.ds.bpm.verification.model.kripke.KripkeState;
@@ -21,13 +21,24 @@ import nl.rug.ds.bpm.verification.model.kripke.KripkeStructure;
 import nl.rug.ds.bpm.verification.model.kripke.factory.KripkeFactory;
 import nl.rug.ds.bpm.verification.verifier.Verifier;
 import nl.rug.ds.bpm.verification.verifier.generic.AbstractVerifier;
+import nl.rug.ds.bpm.verification.verifier.generic.VerificationScheduler;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.regex.Pattern;
 
 /**
  * Class implementing a Verifier that uses a Kripke structure.
  */
 public class KripkeVerifier extends AbstractVerifier<KripkeFactory> implements Verifier {
+	private static final Pattern NEXT_OPERATOR = Pattern.compile("\\b[AE]?X\\b");
+
+	protected boolean partialOrderReduction = false;
+	protected NetStructure netStructure;
+	protected boolean batching = false;
 
 	/**
 	 * Creates a KripkeVerifier.
@@ -42,37 +53,216 @@ public class KripkeVerifier extends AbstractVerifier<KripkeFactory> implements V
 		structureFactory = new KripkeFactory();
 	}
 
+	/**
+	 * Returns whether partial-order reduction is applied while computing structures.
+	 *
+	 * @return true iff partial-order reduction is enabled.
+	 */
+	public boolean isPartialOrderReduction() {
+		return partialOrderReduction;
+	}
+
+	/**
+	 * Enables or disables partial-order reduction while computing structures. If enabled, it is applied to the
+	 * specification sets without next operators, for which it yields a stutter equivalent structure. The reduction
+	 * requires the structure of an (extended) free-choice net, which is taken from the net if it is a NetStructure,
+	 * or from {@link #setNetStructure(NetStructure)}. Otherwise, structures are fully expanded.
+	 *
+	 * @param partialOrderReduction true to enable partial-order reduction.
+	 */
+	public void setPartialOrderReduction(boolean partialOrderReduction) {
+		this.partialOrderReduction = partialOrderReduction;
+	}
+
+	/**
+	 * Sets the structure of the net, which partial-order reduction requires.
+	 *
+	 * @param netStructure the structure of the net, or null to use the net itself if it is a NetStructure.
+	 */
+	public void setNetStructure(NetStructure netStructure) {
+		this.netStructure = netStructure;
+	}
+
+	/**
+	 * Returns whether subsets of the specification that share a structure are verified by a single Checker call.
+	 *
+	 * @return true iff batching is enabled.
+	 */
+	public boolean isBatching() {
+		return batching;
+	}
+
+	/**
+	 * Enables or disables batching. If enabled, the subsets of the specification that share their conditions, and
+	 * thereby their structure, are verified with a single model that includes the formulas of all subsets, such that
+	 * the model checker is called once. Results are routed back to the formulas of each subset. Subsets with fairness
+	 * constraints are verified separately, as constraints would otherwise apply to the formulas of other subsets.
+	 *
+	 * @param batching true to enable batching.
+	 */
+	public void setBatching(boolean batching) {
+		this.batching = batching;
+	}
+
 	@Override
 	public void verify() throws VerifierException {
 		Logger.log("Verifying specification sets", LogEvent.INFO);
 
+		AtomicPropositionMap<CompositeExpression> specificationPropositions = new AtomicPropositionMap<>("p");
+		getGroupPropositions(specificationPropositions);
 		for (SpecificationSet specificationSet : specification.getSpecificationSets())
-			verifySet(specificationSet);
+			getSpecificationSetPropositions(specificationPropositions, specificationSet);
+		structureFactory.getAtomicPropositionMap().merge(specificationPropositions);
+
+		try (VerificationScheduler scheduler = new VerificationScheduler(checkerFactory.getConcurrency())) {
+			for (List<SpecificationSet> specificationSets : groupByConditions(specification.getSpecificationSets()).values())
+				verifySets(specificationSets, specificationPropositions, scheduler);
+
+			scheduler.await();
+		}
 	}
 
 	/**
-	 * Starts the verification process for a subset of the specification.
+	 * Starts the verification process for subsets of the specification that share their conditions. Computes the
+	 * Structure once, and schedules the verification of each subset on a copy of it. If batching is enabled, the
+	 * subsets without fairness constraints are scheduled as a single batch on one copy.
+	 * <p>
+	 * Each task copies the Structure only once it is scheduled, such that at most one copy per task in progress exists
+	 * besides the shared Structure. The shared Structure is itself only used if there is a single unit to verify, as
+	 * tasks in progress may still be copying it otherwise, which costs one copy more than strictly needed.
+	 * </p>
 	 *
-	 * @param specificationSet the subset of the specification to verify.
+	 * @param specificationSets         the subsets of the specification with equal conditions.
+	 * @param specificationPropositions the atomic propositions used by all subsets of the specification.
+	 * @param scheduler                 the scheduler that verifies the subsets concurrently.
 	 * @throws VerifierException when the verification process fails.
 	 */
-	protected void verifySet(SpecificationSet specificationSet) throws VerifierException {
-		Logger.log("Verifying set.", LogEvent.INFO);
+	protected void verifySets(List<SpecificationSet> specificationSets, AtomicPropositionMap<CompositeExpression> specificationPropositions, VerificationScheduler scheduler) throws VerifierException {
+		Logger.log("Computing structure for " + specificationSets.size() + " set(s).", LogEvent.INFO);
 
-		PerformanceEvent performanceEvent = new PerformanceEvent(this.net, specificationSet);
-
-		AtomicPropositionMap<CompositeExpression> specificationPropositions = new AtomicPropositionMap<>("p");
-		getGroupPropositions(specificationPropositions);
-		getSpecificationSetPropositions(specificationPropositions, specificationSet);
-		structureFactory.getAtomicPropositionMap().merge(specificationPropositions);
+		List<AtomicPropositionMap<CompositeExpression>> setPropositions = new ArrayList<>();
+		for (SpecificationSet specificationSet : specificationSets)
+			setPropositions.add(createSpecificationSetPropositions(specificationPropositions, specificationSet));
 
-		Checker checker = checkerFactory.getChecker();
 		KripkeStructure structure = structureFactory.createStructure();
-		addConditions(structure, specificationSet.getConditions());
+		addConditions(structure, specificationSets.get(0).getConditions());
+		double computationTime = compute(structure, specificationSets, setPropositions);
+
+		List<List<Integer>> units = new ArrayList<>();
+		List<Integer> batch = new ArrayList<>();
+		for (int i = 0; i < specificationSets.size(); i++) {
+			if (batching && !hasFairness(specificationSets.get(i)))
+				batch.add(i);
+			else
+				units.add(List.of(i));
+		}
+		if (!batch.isEmpty())
+			units.add(batch);
+
+		// Copies read the shared Structure concurrently, which must therefore not change anymore
+		boolean shared = units.size() > 1;
+		if (shared && structure.getRelation() == null)
+			structure.freeze();
+
+		for (int u = 0; u < units.size(); u++) {
+			List<Integer> unit = units.get(u);
+			double time = (u == 0 ? computationTime : 0);
+
+			if (unit.size() == 1) {
+				SpecificationSet specificationSet = specificationSets.get(unit.get(0));
+				AtomicPropositionMap<CompositeExpression> propositions = setPropositions.get(unit.get(0));
+				scheduler.submit(describe(List.of(specificationSet)), () -> {
+					long t0 = System.nanoTime();
+					KripkeStructure unitStructure = (shared ? copy(structure) : structure);
+					verifySet(specificationSet, propositions, unitStructure, time + System.nanoTime() - t0);
+				});
+			} else {
+				List<SpecificationSet> batchSets = new ArrayList<>();
+				AtomicPropositionMap<CompositeExpression> propositions = new AtomicPropositionMap<>("p");
+				for (int i : unit) {
+					batchSets.add(specificationSets.get(i));
+					propositions.merge(setPropositions.get(i));
+				}
+				scheduler.submit("batch of " + describe(batchSets), () -> {
+					long t0 = System.nanoTime();
+					KripkeStructure unitStructure = (shared ? copy(structure) : structure);
+					verifyBatch(batchSets, propositions, unitStructure, time + System.nanoTime() - t0);
+				});
+			}
+		}
+	}
+
+	/**
+	 * Describes the given subsets of the specification by the ids of their specifications.
+	 *
+	 * @param specificationSets the subsets of the specification.
+	 * @return the description.
+	 */
+	protected String describe(List<SpecificationSet> specificationSets) {
+		StringJoiner sets = new StringJoiner(", ", "set(s) ", "");
+		for (SpecificationSet specificationSet : specificationSets) {
+			StringJoiner ids = new StringJoiner(", ", "[", "]");
+			for (Specification specification : specificationSet.getSpecifications())
+				ids.add(specification.getId());
+			sets.add(ids.toString());
+		}
+		return sets.toString();
+	}
 
+	/**
+	 * Copies the given frozen Structure, such that a unit of verification may modify it.
+	 *
+	 * @param structure the Structure.
+	 * @return the copy.
+	 * @throws VerifierException when copying fails.
+	 */
+	protected KripkeStructure copy(KripkeStructure structure) throws VerifierException {
 		try {
-			double computationTime = compute(structure);
+			return structureFactory.createStructure(structure);
+		} catch (ConverterException e) {
+			Logger.log("Failed to copy structure.", LogEvent.ERROR);
+			throw new VerifierException("Failed to verify set.");
+		}
+	}
+
+	/**
+	 * Computes the Structure shared by the given subsets of the specification.
+	 *
+	 * @param structure         the Structure to populate.
+	 * @param specificationSets the subsets of the specification that share the Structure.
+	 * @param setPropositions   the atomic propositions used by each of the subsets.
+	 * @return the time it took to compute the Structure in nanoseconds.
+	 */
+	protected double compute(KripkeStructure structure, List<SpecificationSet> specificationSets, List<AtomicPropositionMap<CompositeExpression>> setPropositions) {
+		Set<String> visible = new HashSet<>();
 
+		for (int i = 0; i < specificationSets.size() && visible != null; i++) {
+			Set<String> setVisible = getReductionPropositions(specificationSets.get(i), setPropositions.get(i));
+			if (setVisible == null)
+				visible = null;
+			else
+				visible.addAll(setVisible);
+		}
+
+		return compute(structure, visible);
+	}
+
+	/**
+	 * Starts the verification process for a subset of the specification on the given Structure.
+	 *
+	 * @param specificationSet          the subset of the specification to verify.
+	 * @param specificationPropositions the atomic propositions used by the subset.
+	 * @param structure                 the computed Structure, which may be modified.
+	 * @param computationTime           the time it took to obtain the Structure in nanoseconds.
+	 * @throws VerifierException when the verification process fails.
+	 */
+	protected void verifySet(SpecificationSet specificationSet, AtomicPropositionMap<CompositeExpression> specificationPropositions, KripkeStructure structure, double computationTime) throws VerifierException {
+		Logger.log("Verifying set.", LogEvent.INFO);
+
+		PerformanceEvent performanceEvent = new PerformanceEvent(this.net, specificationSet);
+		Checker checker = checkerFactory.getChecker();
+
+		try {
 			performanceEvent.addMetric("StructureComputationMs", computationTime / 1000000);
 			performanceEvent.addMetric("StructureStateCount", structure.getStateCount());
 			performanceEvent.addMetric("StructureRelationCount", structure.getRelationCount());
@@ -91,6 +281,62 @@ public class KripkeVerifier extends AbstractVerifier<KripkeFactory> implements V
 		performanceEventHandler.fireEvent(performanceEvent);
 	}
 
+	/**
+	 * Starts the verification process for subsets of the specification on the given shared Structure, using a single
+	 * Checker call for all subsets.
+	 *
+	 * @param specificationSets         the subsets of the specification to verify.
+	 * @param specificationPropositions the atomic propositions used by all given subsets.
+	 * @param structure                 the computed Structure, which may be modified.
+	 * @param computationTime           the time it took to obtain the Structure in nanoseconds.
+	 * @throws VerifierException when the verification process fails.
+	 */
+	protected void verifyBatch(List<SpecificationSet> specificationSets, AtomicPropositionMap<CompositeExpression> specificationPropositions, KripkeStructure structure, double computationTime) throws VerifierException {
+		Logger.log("Verifying batch of " + specificationSets.size() + " sets.", LogEvent.INFO);
+
+		List<PerformanceEvent> performanceEvents = new ArrayList<>();
+		for (SpecificationSet specificationSet : specificationSets)
+			performanceEvents.add(new PerformanceEvent(this.net, specificationSet));
+		Checker checker = checkerFactory.getChecker();
+
+		try {
+			for (PerformanceEvent performanceEvent : performanceEvents) {
+				performanceEvent.addMetric("StructureComputationMs", computationTime / 1000000);
+				performanceEvent.addMetric("StructureStateCount", structure.getStateCount());
+				performanceEvent.addMetric("StructureRelationCount", structure.getRelationCount());
+				performanceEvent.addMetric("StructureAtomicPropositionCount", structure.getAtomicPropositionCount());
+				performanceEvent.addMetric("BatchSize", specificationSets.size());
+			}
+
+			finalize(structure, specificationPropositions);
+			convert(checker, structure, specificationSets);
+			check(checker);
+		} catch (Exception e) {
+			Logger.log("Failed to verify batch.", LogEvent.ERROR);
+			throw new VerifierException("Failed to verify batch.");
+		} finally {
+			checkerFactory.release(checker);
+		}
+
+		for (PerformanceEvent performanceEvent : performanceEvents)
+			performanceEventHandler.fireEvent(performanceEvent);
+	}
+
+	/**
+	 * Returns whether the given subset of the specification uses fairness constraints.
+	 *
+	 * @param specificationSet the subset of the specification.
+	 * @return true iff a formula of the subset is a fairness constraint.
+	 */
+	protected boolean hasFairness(SpecificationSet specificationSet) {
+		for (Specification specification : specificationSet.getSpecifications())
+			for (Formula formula : specification.getSpecificationType().getFormulas())
+				if (formula.getLanguage().equalsIgnoreCase("FAIRNESS"))
+					return true;
+
+		return false;
+	}
+
 	/**
 	 * Adds the given List of Conditions to the given Structure.
 	 *
@@ -106,14 +352,50 @@ public class KripkeVerifier extends AbstractVerifier<KripkeFactory> implements V
 	}
 
 	/**
-	 * Computes the Structure of the Net and logs results.
+	 * Returns the atomic propositions that partial-order reduction must preserve for the given specification set.
+	 *
+	 * @param specificationSet          the subset of the specification to verify.
+	 * @param specificationPropositions the atomic propositions used by the given specification set.
+	 * @return the atomic propositions to preserve, or null if partial-order reduction is disabled or unsound for the set.
+	 */
+	protected Set<String> getReductionPropositions(SpecificationSet specificationSet, AtomicPropositionMap<CompositeExpression> specificationPropositions) {
+		if (!partialOrderReduction)
+			return null;
+
+		for (Specification specification : specificationSet.getSpecifications())
+			for (Formula formula : specification.getSpecificationType().getFormulas())
+				if (NEXT_OPERATOR.matcher(formula.getFormula()).find()) {
+					Logger.log("Specification " + specification.getId() + " uses a next operator, disabling partial-order reduction", LogEvent.VERBOSE);
+					return null;
+				}
+
+		return specificationPropositions.getAPKeys();
+	}
+
+	/**
+	 * Computes the Structure of the Net, freezes it, and logs results.
 	 *
 	 * @param structure the Structure to populate.
 	 * @return the time it took to compute the Structure in nanoseconds.
 	 */
 	protected double compute(KripkeStructure structure) {
+		return compute(structure, null);
+	}
+
+	/**
+	 * Computes the Structure of the Net using partial-order reduction, freezes it, and logs results.
+	 *
+	 * @param structure the Structure to populate.
+	 * @param visible   the atomic propositions to preserve, or null to compute the full Structure.
+	 * @return the time it took to compute the Structure in nanoseconds.
+	 */
+	protected double compute(KripkeStructure structure, Set<String> visible) {
 		Logger.log("Calculating Kripke structure", LogEvent.INFO);
-		double delta = compute(structureFactory.createConverter(net, net.getInitialMarking(), structure));
+		KripkeStructureConverterAction converter = structureFactory.createConverter(net, net.getInitialMarking(), structure);
+		converter.setVisiblePropositions(visible);
+		converter.setNetStructure(netStructure != null ? netStructure : (net instanceof NetStructure ? (NetStructure) net : null));
+		double delta = compute(converter);
+		structure.freeze();
 		Logger.log("Calculated Kripke structure with " + structure.stats() + " in " + formatComputationTime(delta), LogEvent.INFO);
 		if (Logger.getLogLevel() <= LogEvent.DEBUG)
 			Logger.log("\n" + structure, LogEvent.DEBUG);
@@ -138,7 +420,7 @@ public class KripkeVerifier extends AbstractVerifier<KripkeFactory> implements V
 	/**
 	 * Finalizes the given structure by adding a safety, 'ghost', state with given atomic propositions for model
 	 * check safety. Prevents model checker from complaining about atomic propositions used in specifications
-	 * that are not in the model (i.e., Structure).
+	 * that are not in the model (i.e., Structure). Freezes the finalized structure.
 	 *
 	 * @param structure the Structure finalize.
 	 * @param ap        the atomic propositions used.
@@ -150,6 +432,7 @@ public class KripkeVerifier extends AbstractVerifier<KripkeFactory> implements V
 		ghost.addPrevious(ghost);
 
 		structure.addState(ghost);
+		structure.freeze();
 	}
 
 	/**
@@ -161,10 +444,24 @@ public class KripkeVerifier extends AbstractVerifier<KripkeFactory> implements V
 	 * @throws CheckerException when the conversion fails.
 	 */
 	protected void convert(Checker checker, KripkeStructure structure, SpecificationSet specifications) throws CheckerException {
+		convert(checker, structure, List.of(specifications));
+	}
+
+	/**
+	 * Converts the Structure into the internal representation used by the given Checker, including the formulas of
+	 * all given subsets of the specification.
+	 *
+	 * @param checker           the Checker to use for the conversion.
+	 * @param structure         the Structure to convert.
+	 * @param specificationSets the (sub)sets of Specifications to include.
+	 * @throws CheckerException when the conversion fails.
+	 */
+	protected void convert(Checker checker, KripkeStructure structure, List<SpecificationSet> specificationSets) throws CheckerException {
 		Logger.log("Collecting specifications", LogEvent.INFO);
-		for (Specification specification : specifications.getSpecifications())
-			for (Formula formula : specification.getSpecificationType().getFormulas())
-				checker.addFormula(formula, specification, structureFactory.getAtomicPropositionMap());
+		for (SpecificationSet specifications : specificationSets)
+			for (Specification specification : specifications.getSpecifications())
+				for (Formula formula : specification.getSpecificationType().getFormulas())
+					checker.addFormula(formula, specification, structureFactory.getAtomicPropositionMap());
 
 		Logger.log("Generating model check input", LogEvent.VERBOSE);
 		checker.createModel(structure);
@@ -174,22 +471,18 @@ public class KripkeVerifier extends AbstractVerifier<KripkeFactory> implements V
 	}
 
 	/**
-	 * Model checks the converted structure using the given Checker.
+	 * Model checks the converted structure using the given Checker. Results are fired as soon as the Checker reports them.
 	 *
 	 * @param checker the Checker used to model check.
 	 * @throws CheckerException when the model checking fails.
 	 */
 	protected void check(Checker checker) throws CheckerException {
 		Logger.log("Calling Model Checker", LogEvent.INFO);
-		List<VerificationEvent> events = checker.checkModel();
-
-		for (VerificationEvent event : events) {
-			if (event.getFormula() == null)
-				Logger.log("Failed to map formula to original specification", LogEvent.ERROR);
-			else {
-				verificationEventHandler.fireEvent(event);
-				Logger.log("Specification " + event.getFormula().getSpecification().getId() + " evaluated " + event.getVerificationResult() + " for " + event.getFormula().getInputFormula(), LogEvent.INFO);
-			}
+		checker.setVerificationEventListener(this::fireVerificationEvent);
+		try {
+			checker.checkModel();
+		} finally {
+			checker.setVerificationEventListener(null);
 		}
 
 		if (!checker.getOutputChecker().isEmpty())
@@ -15,7 +15,6 @@ import nl.rug.ds.bpm.verification.checker.Checker;
 import nl.rug.ds.bpm.verification.checker.CheckerFactory;
 import nl.rug.ds.bpm.verification.converter.multi.MultiStructureConverterAction;
 import nl.rug.ds.bpm.verification.event.PerformanceEvent;
-import nl.rug.ds.bpm.verification.event.VerificationEvent;
 import nl.rug.ds.bpm.verification.map.AtomicPropositionMap;
 import nl.rug.ds.bpm.verification.model.multi.MultiStructure;
 import nl.rug.ds.bpm.verification.model.multi.Partition;
@@ -23,8 +22,8 @@ import nl.rug.ds.bpm.verification.model.multi.factory.MultiFactory;
 import nl.rug.ds.bpm.verification.model.multi.postprocess.stutter.MultiStutterMergeSplitAction;
 import nl.rug.ds.bpm.verification.verifier.Verifier;
 import nl.rug.ds.bpm.verification.verifier.generic.AbstractVerifier;
+import nl.rug.ds.bpm.verification.verifier.generic.VerificationScheduler;
 
-import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -92,23 +91,36 @@ public class MultiVerifier extends AbstractVerifier<MultiFactory> implements Ver
             throw new VerifierException("Failed to compute structure.");
         }
 
-        for (Partition partition : structure.getPartitions()) {
-            Checker checker = checkerFactory.getChecker();
-
-            try {
-                convert(checker, partition);
-                check(checker);
-            } catch (Exception e) {
-                Logger.log("Failed to verify set.", LogEvent.ERROR);
-                throw new VerifierException("Failed to verify set.");
-            } finally {
-                checkerFactory.release(checker);
-            }
+        try (VerificationScheduler scheduler = new VerificationScheduler(checkerFactory.getConcurrency())) {
+            for (Partition partition : structure.getPartitions())
+                scheduler.submit("partition " + partition.getId(), () -> verifyPartition(partition));
+
+            scheduler.await();
         }
 
         performanceEventHandler.fireEvent(performanceEvent);
     }
 
+    /**
+     * Converts and model checks the given Partition.
+     *
+     * @param partition the Partition to verify.
+     * @throws VerifierException when the verification process fails.
+     */
+    protected void verifyPartition(Partition partition) throws VerifierException {
+        Checker checker = checkerFactory.getChecker();
+
+        try {
+            convert(checker, partition);
+            check(checker);
+        } catch (Exception e) {
+            Logger.log("Failed to verify set.", LogEvent.ERROR);
+            throw new VerifierException("Failed to verify set.");
+        } finally {
+            checkerFactory.release(checker);
+        }
+    }
+
     private void clear(MultiStructure structure) {
         Logger.log("Clearing full state space to free memory", LogEvent.INFO);
         structure.clear();
@@ -195,22 +207,18 @@ public class MultiVerifier extends AbstractVerifier<MultiFactory> implements Ver
     }
 
     /**
-     * Model checks the converted structure using the given Checker.
+     * Model checks the converted structure using the given Checker. Results are fired as soon as the Checker reports them.
      *
      * @param checker the Checker used to model check.
      * @throws CheckerException when the model checking fails.
      */
     protected void check(Checker checker) throws CheckerException {
         Logger.log("Calling Model Checker", LogEvent.INFO);
-        List<VerificationEvent> events = checker.checkModel();
-
-        for (VerificationEvent event : events) {
-            if (event.getFormula() == null)
-                Logger.log("Failed to map formula to original specification", LogEvent.ERROR);
-            else {
-                verificationEventHandler.fireEvent(event);
-                Logger.log("Specification " + event.getFormula().getSpecification().getId() + " evaluated " + event.getVerificationResult() + " for " + event.getFormula().getInputFormula(), LogEvent.INFO);
-            }
+        checker.setVerificationEventListener(this::fireVerificationEvent);
+        try {
+            checker.checkModel();
+        } finally {
+            checker.setVerificationEventListener(null);
         }
 
         if (!checker.getOutputChecker().isEmpty())
@@ -19,12 +19,17 @@ import nl.rug.ds.bpm.verification.model.kripke.postprocess.stutter.StutterOptimi
 import nl.rug.ds.bpm.verification.verifier.Verifier;
 import nl.rug.ds.bpm.verification.verifier.kripke.KripkeVerifier;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.TreeSet;
 
 /**
  * Class implementing a Verifier that uses a stutter equivalent Kripke structure.
  */
 public class StutterVerifier extends KripkeVerifier implements Verifier {
+    protected boolean onTheFlyReduction = false;
 
     /**
      * Creates a StutterVerifier.
@@ -39,30 +44,64 @@ public class StutterVerifier extends KripkeVerifier implements Verifier {
     }
 
     /**
-     * Starts the verification process for a subset of the specification.
+     * Returns whether states are projected and stuttering steps are collapsed while computing structures.
+     *
+     * @return true iff on-the-fly reduction is enabled.
+     */
+    public boolean isOnTheFlyReduction() {
+        return onTheFlyReduction;
+    }
+
+    /**
+     * Enables or disables projecting states onto the relevant atomic propositions and collapsing stuttering steps
+     * while computing structures, such that the full structure is never held in memory. Partial-order reduction does
+     * not apply to structures that are reduced on-the-fly.
+     *
+     * @param onTheFlyReduction true to enable on-the-fly reduction.
+     */
+    public void setOnTheFlyReduction(boolean onTheFlyReduction) {
+        this.onTheFlyReduction = onTheFlyReduction;
+    }
+
+    /**
+     * Computes the Structure shared by the given subsets of the specification. Overwrites super to project the
+     * Structure onto the atomic propositions used by the subsets while computing, if on-the-fly reduction is enabled.
+     *
+     * @param structure         the Structure to populate.
+     * @param specificationSets the subsets of the specification that share the Structure.
+     * @param setPropositions   the atomic propositions used by each of the subsets.
+     * @return the time it took to compute the Structure in nanoseconds.
+     */
+    @Override
+    protected double compute(KripkeStructure structure, List<SpecificationSet> specificationSets, List<AtomicPropositionMap<CompositeExpression>> setPropositions) {
+        if (!onTheFlyReduction)
+            return super.compute(structure, specificationSets, setPropositions);
+
+        Set<String> relevant = new HashSet<>();
+        for (AtomicPropositionMap<CompositeExpression> propositions : setPropositions)
+            relevant.addAll(propositions.getAPKeys());
+
+        return computeReduced(structure, relevant);
+    }
+
+    /**
+     * Starts the verification process for a subset of the specification on the given Structure.
      * Overwrites super to include stutter optimization steps.
      *
-     * @param specificationSet the subset of the specification to verify.
+     * @param specificationSet          the subset of the specification to verify.
+     * @param specificationPropositions the atomic propositions used by the subset.
+     * @param structure                 the computed Structure, which may be modified.
+     * @param computationTime           the time it took to obtain the Structure in nanoseconds.
      * @throws VerifierException when the verification process fails.
      */
     @Override
-    protected void verifySet(SpecificationSet specificationSet) throws VerifierException {
+    protected void verifySet(SpecificationSet specificationSet, AtomicPropositionMap<CompositeExpression> specificationPropositions, KripkeStructure structure, double computationTime) throws VerifierException {
         Logger.log("Verifying set.", LogEvent.INFO);
 
         PerformanceEvent performanceEvent = new PerformanceEvent(this.net, specificationSet);
-
-        AtomicPropositionMap<CompositeExpression> specificationPropositions = new AtomicPropositionMap<>("p");
-        getGroupPropositions(specificationPropositions);
-        getSpecificationSetPropositions(specificationPropositions, specificationSet);
-        structureFactory.getAtomicPropositionMap().merge(specificationPropositions);
-
         Checker checker = checkerFactory.getChecker();
-        KripkeStructure structure = structureFactory.createStructure();
-        addConditions(structure, specificationSet.getConditions());
 
         try {
-            double computationTime = compute(structure);
-
             performanceEvent.addMetric("StructureComputationMs", computationTime / 1000000);
             performanceEvent.addMetric("StructureStateCount", structure.getStateCount());
             performanceEvent.addMetric("StructureRelationCount", structure.getRelationCount());
@@ -88,6 +127,77 @@ public class StutterVerifier extends KripkeVerifier implements Verifier {
         performanceEventHandler.fireEvent(performanceEvent);
     }
 
+    /**
+     * Starts the verification process for subsets of the specification on the given shared Structure, using a single
+     * Checker call for all subsets. Overwrites super to include stutter optimization steps with respect to the atomic
+     * propositions used by all given subsets.
+     *
+     * @param specificationSets         the subsets of the specification to verify.
+     * @param specificationPropositions the atomic propositions used by all given subsets.
+     * @param structure                 the computed Structure, which may be modified.
+     * @param computationTime           the time it took to obtain the Structure in nanoseconds.
+     * @throws VerifierException when the verification process fails.
+     */
+    @Override
+    protected void verifyBatch(List<SpecificationSet> specificationSets, AtomicPropositionMap<CompositeExpression> specificationPropositions, KripkeStructure structure, double computationTime) throws VerifierException {
+        Logger.log("Verifying batch of " + specificationSets.size() + " sets.", LogEvent.INFO);
+
+        List<PerformanceEvent> performanceEvents = new ArrayList<>();
+        for (SpecificationSet specificationSet : specificationSets)
+            performanceEvents.add(new PerformanceEvent(this.net, specificationSet));
+        Checker checker = checkerFactory.getChecker();
+
+        try {
+            for (PerformanceEvent performanceEvent : performanceEvents) {
+                performanceEvent.addMetric("StructureComputationMs", computationTime / 1000000);
+                performanceEvent.addMetric("StructureStateCount", structure.getStateCount());
+                performanceEvent.addMetric("StructureRelationCount", structure.getRelationCount());
+                performanceEvent.addMetric("StructureAtomicPropositionCount", structure.getAtomicPropositionCount());
+                performanceEvent.addMetric("BatchSize", specificationSets.size());
+            }
+
+            double optimizationTime = optimize(structure, specificationPropositions);
+
+            for (PerformanceEvent performanceEvent : performanceEvents) {
+                performanceEvent.addMetric("ReductionComputationMs", optimizationTime / 1000000);
+                performanceEvent.addMetric("ReducedStructureStateCount", structure.getStateCount());
+                performanceEvent.addMetric("ReducedStructureRelationCount", structure.getRelationCount());
+                performanceEvent.addMetric("ReducedStructureAtomicPropositionCount", structure.getAtomicPropositionCount());
+            }
+
+            finalize(structure, specificationPropositions);
+            convert(checker, structure, specificationSets);
+            check(checker);
+        } catch (Exception e) {
+            Logger.log("Failed to verify batch.", LogEvent.ERROR);
+            throw new VerifierException("Failed to verify batch.");
+        } finally {
+            checkerFactory.release(checker);
+        }
+
+        for (PerformanceEvent performanceEvent : performanceEvents)
+            performanceEventHandler.fireEvent(performanceEvent);
+    }
+
+    /**
+     * Computes the Structure of the Net projected onto the given atomic propositions while collapsing stuttering
+     * steps, freezes it, and logs results.
+     *
+     * @param structure the Structure to populate.
+     * @param relevant  the atomic propositions to preserve.
+     * @return the time it took to compute the Structure in nanoseconds.
+     */
+    protected double computeReduced(KripkeStructure structure, Set<String> relevant) {
+        Logger.log("Calculating reduced Kripke structure", LogEvent.INFO);
+        double delta = compute(structureFactory.createStutterConverter(net, net.getInitialMarking(), structure, relevant));
+        structure.freeze();
+        Logger.log("Calculated reduced Kripke structure with " + structure.stats() + " in " + formatComputationTime(delta), LogEvent.INFO);
+        if (Logger.getLogLevel() <= LogEvent.DEBUG)
+            Logger.log("\n" + structure, LogEvent.DEBUG);
+
+        return delta;
+    }
+
     /**
      * Optimizes the given Structure by removing unused atomic propositions from its states and reducing its state
      * space to a stutter equivalent model.
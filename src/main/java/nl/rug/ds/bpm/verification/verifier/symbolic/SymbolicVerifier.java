@@ -0,0 +1,196 @@
+package nl.rug.ds.bpm.verification.verifier.symbolic;
+
+import nl.rug.ds.bpm.expression.CompositeExpression;
+import nl.rug.ds.bpm.petrinet.interfaces.net.VerifiableNet;
+import nl.rug.ds.bpm.specification.jaxb.*;
+import nl.rug.ds.bpm.util.bdd.BDDManager;
+import nl.rug.ds.bpm.util.exception.CheckerException;
+import nl.rug.ds.bpm.util.exception.ConfigurationException;
+import nl.rug.ds.bpm.util.exception.ConverterException;
+import nl.rug.ds.bpm.util.exception.FormulaException;
+import nl.rug.ds.bpm.util.exception.VerifierException;
+import nl.rug.ds.bpm.util.log.LogEvent;
+import nl.rug.ds.bpm.util.log.Logger;
+import nl.rug.ds.bpm.verification.checker.CheckerFormula;
+import nl.rug.ds.bpm.verification.checker.explicit.ExplicitFormula;
+import nl.rug.ds.bpm.verification.checker.formula.TemporalFormula;
+import nl.rug.ds.bpm.verification.checker.symbolic.SymbolicEvaluator;
+import nl.rug.ds.bpm.verification.converter.symbolic.SymbolicStructureConverterAction;
+import nl.rug.ds.bpm.verification.event.PerformanceEvent;
+import nl.rug.ds.bpm.verification.event.VerificationEvent;
+import nl.rug.ds.bpm.verification.map.AtomicPropositionMap;
+import nl.rug.ds.bpm.verification.model.kripke.factory.KripkeFactory;
+import nl.rug.ds.bpm.verification.model.symbolic.SymbolicStructure;
+import nl.rug.ds.bpm.verification.verifier.Verifier;
+import nl.rug.ds.bpm.verification.verifier.generic.AbstractVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class implementing a Verifier that encodes the state space as BDDs and model checks CTL formulas in-process.
+ * <p>
+ * Suitable for VerifiableNets with a large but regular state space, e.g., due to parallel behavior, as the reachable
+ * States are never stored explicitly. Only supports safe nets without data, and CTL formulas with fairness
+ * constraints. LTL formulas are skipped with a warning. Verification fails when the BDDs exceed the node limit of
+ * their BDDManager.
+ * </p>
+ */
+public class SymbolicVerifier extends AbstractVerifier<KripkeFactory> implements Verifier {
+
+	/**
+	 * Creates a SymbolicVerifier.
+	 *
+	 * @param net           The VerifiableNet that represents the model on which the given specification must be verified.
+	 * @param specification The specification must be verified on the given model (i.e., net).
+	 * @throws ConfigurationException when the configuration fails to load.
+	 */
+	public SymbolicVerifier(VerifiableNet net, BPMSpecification specification) throws ConfigurationException {
+		super(net, specification, null);
+		structureFactory = new KripkeFactory();
+	}
+
+	@Override
+	public void verify() throws VerifierException {
+		Logger.log("Verifying specification sets", LogEvent.INFO);
+
+		AtomicPropositionMap<CompositeExpression> specificationPropositions = new AtomicPropositionMap<>("p");
+		getGroupPropositions(specificationPropositions);
+		for (SpecificationSet specificationSet : specification.getSpecificationSets())
+			getSpecificationSetPropositions(specificationPropositions, specificationSet);
+		structureFactory.getAtomicPropositionMap().merge(specificationPropositions);
+
+		for (List<SpecificationSet> specificationSets : groupByConditions(specification.getSpecificationSets()).values())
+			verifySets(specificationSets);
+	}
+
+	/**
+	 * Starts the verification process for subsets of the specification that share their conditions. Computes the
+	 * SymbolicStructure once, and verifies each subset on it.
+	 *
+	 * @param specificationSets the subsets of the specification with equal conditions.
+	 * @throws VerifierException when the verification process fails.
+	 */
+	protected void verifySets(List<SpecificationSet> specificationSets) throws VerifierException {
+		Logger.log("Computing symbolic structure for " + specificationSets.size() + " set(s).", LogEvent.INFO);
+
+		SymbolicStructure structure = new SymbolicStructure();
+		structure.addConditions(specificationSets.get(0).getConditions());
+
+		double computationTime;
+		try {
+			computationTime = compute(structure);
+		} catch (ConverterException | IllegalStateException e) {
+			Logger.log(e.getMessage(), LogEvent.ERROR);
+			throw new VerifierException("Failed to compute symbolic structure.");
+		}
+
+		for (int i = 0; i < specificationSets.size(); i++)
+			verifySet(specificationSets.get(i), structure, (i == 0 ? computationTime : 0));
+	}
+
+	/**
+	 * Computes the SymbolicStructure of the Net, freezes it, and logs results.
+	 *
+	 * @param structure the SymbolicStructure to populate.
+	 * @return the time it took to compute the SymbolicStructure in nanoseconds.
+	 * @throws ConverterException when the Net can not be encoded symbolically.
+	 */
+	protected double compute(SymbolicStructure structure) throws ConverterException {
+		Logger.log("Calculating symbolic structure", LogEvent.INFO);
+		SymbolicStructureConverterAction converter = new SymbolicStructureConverterAction(net, net.getInitialMarking(), structureFactory, structure);
+
+		long t0 = System.nanoTime();
+		converter.computeInitial();
+		structure.freeze();
+		long t1 = System.nanoTime();
+
+		Logger.log("Calculated symbolic structure with " + structure.stats() + " in " + formatComputationTime(t1 - t0), LogEvent.INFO);
+		return t1 - t0;
+	}
+
+	/**
+	 * Starts the verification process for a subset of the specification on the given SymbolicStructure.
+	 *
+	 * @param specificationSet the subset of the specification to verify.
+	 * @param structure        the computed SymbolicStructure.
+	 * @param computationTime  the time it took to obtain the SymbolicStructure in nanoseconds.
+	 * @throws VerifierException when the verification process fails.
+	 */
+	protected void verifySet(SpecificationSet specificationSet, SymbolicStructure structure, double computationTime) throws VerifierException {
+		Logger.log("Verifying set.", LogEvent.INFO);
+
+		PerformanceEvent performanceEvent = new PerformanceEvent(this.net, specificationSet);
+		performanceEvent.addMetric("StructureComputationMs", computationTime / 1000000);
+		performanceEvent.addMetric("StructureStateCount", structure.getStateCount());
+		performanceEvent.addMetric("StructureNodeCount", structure.getManager().getNodeCount());
+		performanceEvent.addMetric("StructureAtomicPropositionCount", structure.getAtomicPropositions().size());
+
+		List<ExplicitFormula> formulas = new ArrayList<>();
+		List<TemporalFormula> fairness = new ArrayList<>();
+		for (Specification specification : specificationSet.getSpecifications()) {
+			for (Formula formula : specification.getSpecificationType().getFormulas()) {
+				try {
+					ExplicitFormula explicitFormula = new ExplicitFormula(formula, specification, structureFactory.getAtomicPropositionMap());
+					if (explicitFormula.isLanguage("FAIRNESS"))
+						fairness.add(explicitFormula.getTemporalFormula());
+					else
+						formulas.add(explicitFormula);
+				} catch (FormulaException e) {
+					Logger.log("Failed to include specification " + specification.getId(), LogEvent.ERROR);
+				}
+			}
+		}
+
+		long t0 = System.nanoTime();
+		try {
+			SymbolicEvaluator evaluator = new SymbolicEvaluator(structure, fairness);
+
+			for (ExplicitFormula formula : formulas) {
+				TemporalFormula temporalFormula = formula.getTemporalFormula();
+				if (!formula.isLanguage("CTLSPEC") || !temporalFormula.isBranching()) {
+					Logger.log("Unsupported formula " + formula.getCheckerFormula(), LogEvent.WARNING);
+					continue;
+				}
+
+				int violating = evaluator.getViolating(temporalFormula);
+				VerificationEvent event = new VerificationEvent(formula, violating == BDDManager.FALSE);
+				if (violating != BDDManager.FALSE)
+					event.setCounterExample(getCounterExample(formula, structure, evaluator.getCounterExample(temporalFormula, violating)));
+
+				fireVerificationEvent(event);
+			}
+		} catch (CheckerException | IllegalStateException e) {
+			Logger.log(e.getMessage(), LogEvent.ERROR);
+			throw new VerifierException("Failed to verify set.");
+		}
+		long t1 = System.nanoTime();
+
+		performanceEvent.addMetric("CheckComputationMs", (t1 - t0) / 1000000.0);
+		performanceEventHandler.fireEvent(performanceEvent);
+	}
+
+	/**
+	 * Maps the given path of States to the original expressions of the atomic propositions that hold in each State.
+	 *
+	 * @param formula   the formula that the counterexample pertains to.
+	 * @param structure the SymbolicStructure the path lies in.
+	 * @param path      the BDDs of the States along the path.
+	 * @return the counterexample.
+	 */
+	protected List<List<String>> getCounterExample(CheckerFormula formula, SymbolicStructure structure, List<Integer> path) {
+		List<List<String>> trace = new ArrayList<>();
+
+		for (int state : path) {
+			List<String> aps = new ArrayList<>();
+			for (String ap : structure.getAtomicPropositions(state)) {
+				CompositeExpression expression = formula.getAtomicPropositionMap().getID(ap);
+				if (expression != null)
+					aps.add(expression.getOriginalExpression());
+			}
+			trace.add(aps);
+		}
+
+		return trace;
+	}
+}
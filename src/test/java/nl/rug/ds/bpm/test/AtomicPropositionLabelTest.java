@@ -0,0 +1,66 @@
+package nl.rug.ds.bpm.test;
+
+import nl.rug.ds.bpm.verification.map.AtomicPropositionIndex;
+import nl.rug.ds.bpm.verification.map.AtomicPropositionLabel;
+import nl.rug.ds.bpm.verification.model.kripke.KripkeState;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AtomicPropositionLabelTest {
+
+    @Test
+    public void lexicographicOrderTest() {
+        AtomicPropositionIndex index = new AtomicPropositionIndex();
+        AtomicPropositionLabel.of(index, List.of("n9", "n10", "n1"));
+
+        AtomicPropositionLabel label = AtomicPropositionLabel.of(index, List.of("n10", "n1", "n2"));
+        assertIterableEquals(List.of("n1", "n10", "n2"), label);
+        assertEquals("S-1: {n1n10n2}", new KripkeState(label).toString());
+    }
+
+    @Test
+    public void separateIndicesTest() {
+        AtomicPropositionIndex first = new AtomicPropositionIndex();
+        AtomicPropositionIndex second = new AtomicPropositionIndex();
+        AtomicPropositionLabel.of(second, List.of("c", "b"));
+
+        AtomicPropositionLabel a = AtomicPropositionLabel.of(first, Set.of("a", "b", "c"));
+        AtomicPropositionLabel b = AtomicPropositionLabel.of(second, Set.of("a", "b", "c"));
+        assertEquals(a, b);
+        assertEquals(b, a);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertEquals(a.fingerprint(), b.fingerprint());
+        assertEquals(Set.of("a", "b", "c"), a);
+        assertEquals(new KripkeState(a), new KripkeState(b));
+
+        assertEquals(AtomicPropositionLabel.of(first, Set.of("a")), a.retain(AtomicPropositionLabel.of(second, Set.of("a", "d"))));
+        assertEquals(AtomicPropositionLabel.of(first, Set.of("b", "c")), a.without(Set.of("a", "d")));
+        assertEquals(Set.of("a", "b", "c", "d"), a.with(AtomicPropositionLabel.of(second, Set.of("d"))));
+        assertNotEquals(a, a.without(Set.of("a")));
+
+        assertEquals(4, first.size());
+        assertFalse(b.contains("d"));
+        assertTrue(b.containsAll(a));
+    }
+
+    @Test
+    public void sharedIndexTest() {
+        AtomicPropositionIndex index = new AtomicPropositionIndex();
+        AtomicPropositionLabel a = AtomicPropositionLabel.of(index, Set.of("a", "b"));
+
+        assertSame(a, AtomicPropositionLabel.of(index, a));
+        assertSame(a, a.retain(Set.of("a", "b", "c")));
+        assertSame(a, a.with(Set.of("b")));
+        assertSame(index, a.without(Set.of("b")).getIndex());
+        assertEquals(2, index.size());
+    }
+}
@@ -0,0 +1,108 @@
+package nl.rug.ds.bpm.test;
+
+import nl.rug.ds.bpm.expression.CompositeExpression;
+import nl.rug.ds.bpm.expression.ExpressionBuilder;
+import nl.rug.ds.bpm.verification.map.AtomicPropositionMap;
+import nl.rug.ds.bpm.verification.model.generic.factory.AbstractStructureFactory;
+import nl.rug.ds.bpm.verification.model.kripke.factory.KripkeFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AtomicPropositionMapTest {
+    private static final int IDS = 2000;
+    private static final int THREADS = 8;
+
+    @Test
+    public void versionTest() {
+        AtomicPropositionMap<CompositeExpression> map = new AtomicPropositionMap<>();
+        CompositeExpression a = ExpressionBuilder.parseExpression("a");
+        long version = map.getVersion();
+
+        // New ids do not change existing lookups
+        assertEquals("n0", map.addID(a));
+        assertEquals(version, map.getVersion());
+
+        map.addID(a, "n0");
+        assertEquals(version, map.getVersion());
+
+        map.addID(a, "x");
+        assertNotEquals(version, map.getVersion());
+        assertEquals("x", map.getAP(a));
+        assertEquals(a, map.getID("x"));
+        assertNull(map.getID("n0"));
+
+        version = map.getVersion();
+        map.addSpecificationId(ExpressionBuilder.parseExpression("b"));
+        assertNotEquals(version, map.getVersion());
+    }
+
+    @Test
+    public void remappedCacheTest() {
+        KripkeFactory factory = new KripkeFactory();
+        CompositeExpression tau = AbstractStructureFactory.tau;
+        String ap = factory.addAtomicProposition(tau);
+        assertEquals(ap, factory.getAtomicPropositionMap().getAP(tau));
+
+        factory.getAtomicPropositionMap().addID(tau, "remapped");
+        assertEquals("remapped", factory.addAtomicProposition(tau));
+
+        AtomicPropositionMap<CompositeExpression> specification = new AtomicPropositionMap<>("s", Map.of(tau, "merged"));
+        factory.getAtomicPropositionMap().merge(specification);
+        assertEquals("merged", factory.addAtomicProposition(tau));
+    }
+
+    @Test
+    public void concurrentAddTest() throws InterruptedException {
+        AtomicPropositionMap<CompositeExpression> map = new AtomicPropositionMap<>();
+        List<CompositeExpression> ids = new ArrayList<>();
+        for (int i = 0; i < IDS; i++)
+            ids.add(ExpressionBuilder.parseExpression("t" + i));
+
+        // All threads add the same ids at the same time, and record the atomic propositions they obtained
+        ConcurrentHashMap<CompositeExpression, Set<String>> obtained = new ConcurrentHashMap<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (CompositeExpression id : ids)
+                    obtained.computeIfAbsent(id, k -> ConcurrentHashMap.newKeySet()).add(map.addID(id));
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads)
+            thread.join();
+
+        Set<String> expected = new TreeSet<>();
+        for (int i = 0; i < IDS; i++)
+            expected.add("n" + i);
+
+        // Each id obtained a single atomic proposition, and the atomic propositions are numbered without gaps
+        assertEquals(expected, map.getAPKeys());
+        assertEquals(IDS, map.getMap().size());
+        for (CompositeExpression id : ids) {
+            assertEquals(Set.of(map.getAP(id)), obtained.get(id));
+            assertEquals(id, map.getID(map.getAP(id)));
+        }
+        assertTrue(expected.contains(map.addID(ExpressionBuilder.parseExpression("t0"))));
+        assertEquals("n" + IDS, map.addID(ExpressionBuilder.parseExpression("t" + IDS)));
+    }
+}
@@ -0,0 +1,239 @@
+package nl.rug.ds.bpm.test;
+
+import nl.rug.ds.bpm.util.bdd.BDDManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the operations of the BDDManager against truth tables over six variables, of which each assignment is a bit
+ * of a long.
+ */
+public class BDDManagerTest {
+    private static final int VARIABLES = 6;
+    private static final int ROUNDS = 200;
+
+    private BDDManager manager;
+    private int[] variables;
+
+    @BeforeEach
+    public void createManager() {
+        manager = new BDDManager();
+        variables = new int[VARIABLES];
+        for (int i = 0; i < VARIABLES; i++)
+            variables[i] = manager.createVariable();
+    }
+
+    @Test
+    public void operatorTest() {
+        Random random = new Random(0);
+        for (int round = 0; round < ROUNDS; round++) {
+            int f = random(random, 4), g = random(random, 4);
+            long tf = table(f), tg = table(g);
+
+            assertEquals(~tf, table(manager.not(f)));
+            assertEquals(tf & tg, table(manager.and(f, g)));
+            assertEquals(tf | tg, table(manager.or(f, g)));
+            assertEquals(tf ^ tg, table(manager.xor(f, g)));
+            assertEquals(tf & ~tg, table(manager.andNot(f, g)));
+
+            // Equal functions have equal handles
+            assertEquals(manager.and(f, g), manager.and(g, f));
+            assertEquals(f, manager.not(manager.not(f)));
+            assertEquals(Long.bitCount(tf), manager.satCount(f, variables), 0);
+        }
+    }
+
+    @Test
+    public void iteTest() {
+        Random random = new Random(1);
+        for (int round = 0; round < ROUNDS; round++) {
+            int f = random(random, 4), g = random(random, 4), h = random(random, 4);
+
+            assertEquals(manager.or(manager.and(f, g), manager.and(manager.not(f), h)), manager.ite(f, g, h));
+            assertEquals((table(f) & table(g)) | (~table(f) & table(h)), table(manager.ite(f, g, h)));
+            assertEquals(f, manager.ite(f, BDDManager.TRUE, BDDManager.FALSE));
+            assertEquals(manager.not(f), manager.ite(f, BDDManager.FALSE, BDDManager.TRUE));
+            assertEquals(g, manager.ite(f, g, g));
+            assertEquals(manager.and(f, g), manager.ite(f, g, BDDManager.FALSE));
+            assertEquals(manager.or(f, h), manager.ite(f, BDDManager.TRUE, h));
+        }
+    }
+
+    @Test
+    public void relProdTest() {
+        Random random = new Random(2);
+        for (int round = 0; round < ROUNDS; round++) {
+            int f = random(random, 4), g = random(random, 4);
+            int cube = manager.cube(variables[random.nextInt(VARIABLES)], variables[random.nextInt(VARIABLES)]);
+
+            assertEquals(manager.exists(manager.and(f, g), cube), manager.relProd(f, g, cube));
+            assertEquals(manager.and(f, g), manager.relProd(f, g, BDDManager.TRUE));
+        }
+
+        // Quantifying a variable yields the disjunction of its cofactors
+        int x = manager.ithVar(variables[0]), y = manager.ithVar(variables[1]);
+        assertEquals(y, manager.exists(manager.and(x, y), manager.cube(variables[0])));
+        assertEquals(BDDManager.TRUE, manager.exists(manager.xor(x, y), manager.cube(variables[0])));
+    }
+
+    @Test
+    public void replaceTest() {
+        // Swaps the first three variables with the last three
+        int[] swap = new int[VARIABLES];
+        for (int i = 0; i < VARIABLES; i++)
+            swap[i] = (i + VARIABLES / 2) % VARIABLES;
+        int renaming = manager.createRenaming(swap);
+
+        Random random = new Random(3);
+        for (int round = 0; round < ROUNDS; round++) {
+            int f = random(random, 4);
+            int replaced = manager.replace(f, renaming);
+
+            assertEquals(f, manager.replace(replaced, renaming));
+            for (int assignment = 0; assignment < 1 << VARIABLES; assignment++) {
+                int swapped = (assignment >>> VARIABLES / 2) | ((assignment & ((1 << VARIABLES / 2) - 1)) << VARIABLES / 2);
+                assertEquals(manager.evaluate(f, values(swapped)), manager.evaluate(replaced, values(assignment)));
+            }
+        }
+
+        assertEquals(manager.ithVar(variables[3]), manager.replace(manager.ithVar(variables[0]), renaming));
+        assertEquals(BDDManager.TRUE, manager.replace(BDDManager.TRUE, renaming));
+    }
+
+    @Test
+    public void satOneTest() {
+        Random random = new Random(4);
+        for (int round = 0; round < ROUNDS; round++) {
+            int f = random(random, 4);
+            if (f == BDDManager.FALSE)
+                continue;
+
+            int one = manager.satOne(f, variables);
+            assertEquals(1, manager.satCount(one, variables), 0);
+            assertEquals(one, manager.and(one, f));
+        }
+    }
+
+    @Test
+    public void nodeLimitTest() {
+        BDDManager limited = new BDDManager(16, 16, 8);
+        List<Integer> created = new ArrayList<>();
+        for (int i = 0; i < 10; i++)
+            created.add(limited.createVariable());
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> {
+            int result = BDDManager.TRUE;
+            for (int variable : created)
+                result = limited.and(result, limited.ithVar(variable));
+        });
+        assertTrue(e.getMessage().contains("limit"));
+        assertEquals(8, limited.getNodeCount());
+
+        // Nodes created before the limit was reached remain valid
+        int x = limited.ithVar(created.get(0));
+        assertTrue(limited.evaluate(x, new boolean[]{true}));
+        assertFalse(limited.evaluate(x, new boolean[]{false}));
+    }
+
+    @Test
+    public void collectTest() {
+        Random random = new Random(5);
+        int kept = random(random, 4), other = random(random, 4);
+        long keptTable = table(kept);
+        int nodes = manager.getNodeCount();
+
+        for (int round = 0; round < ROUNDS; round++)
+            random(random, 4);
+        assertTrue(manager.getNodeCount() > nodes);
+
+        // Only the nodes of the roots survive, and equal functions are still found in the unique table
+        manager.collect(kept, other);
+        assertTrue(manager.getNodeCount() <= nodes);
+        assertEquals(keptTable, table(kept));
+        assertEquals(kept, manager.or(kept, manager.and(kept, other)));
+        assertEquals(manager.and(kept, other), manager.and(other, kept));
+
+        // Nodes created after a collection, partly in freed slots, still form correct and canonical BDDs
+        int live = manager.getNodeCount();
+        for (int round = 0; round < ROUNDS; round++) {
+            int f = random(random, 4);
+            assertEquals(Long.bitCount(table(f)), manager.satCount(f, variables), 0);
+        }
+        manager.collect(kept);
+        assertTrue(manager.getNodeCount() <= live);
+        assertEquals(keptTable, table(kept));
+    }
+
+    @Test
+    public void insertTest() {
+        Random random = new Random(6);
+        int f = random(random, 4);
+        long table = table(f);
+
+        // A variable inserted within the order does not occur in existing BDDs, which therefore remain valid
+        int inserted = manager.createVariable(variables[0]);
+        assertEquals(1, manager.getLevel(inserted));
+        assertEquals(2, manager.getLevel(variables[1]));
+        assertEquals(table, table(f));
+
+        int x = manager.ithVar(inserted);
+        int g = manager.and(f, x);
+        int[] all = {variables[0], variables[1], variables[2], variables[3], variables[4], variables[5], inserted};
+        assertEquals(Long.bitCount(table), manager.satCount(g, all), 0);
+        assertEquals(f, manager.exists(g, manager.cube(inserted)));
+        assertEquals(g, manager.and(x, f));
+
+        for (int round = 0; round < ROUNDS; round++) {
+            int h = manager.xor(random(random, 4), x);
+            assertEquals(manager.or(manager.and(h, x), manager.andNot(h, x)), h);
+            assertEquals(1, manager.satCount(manager.satOne(manager.or(h, x), all), all), 0);
+        }
+    }
+
+    /**
+     * Returns a random BDD over the variables, built by the given depth of random operations.
+     */
+    private int random(Random random, int depth) {
+        if (depth == 0 || random.nextInt(4) == 0) {
+            int variable = manager.ithVar(variables[random.nextInt(VARIABLES)]);
+            return (random.nextBoolean() ? variable : manager.not(variable));
+        }
+
+        int a = random(random, depth - 1), b = random(random, depth - 1);
+        switch (random.nextInt(3)) {
+            case 0:
+                return manager.and(a, b);
+            case 1:
+                return manager.or(a, b);
+            default:
+                return manager.xor(a, b);
+        }
+    }
+
+    /**
+     * Returns the truth table of the given BDD, of which bit i holds the value under the assignment encoded by i.
+     */
+    private long table(int f) {
+        long table = 0L;
+        for (int assignment = 0; assignment < 1 << VARIABLES; assignment++)
+            if (manager.evaluate(f, values(assignment)))
+                table |= 1L << assignment;
+        return table;
+    }
+
+    private boolean[] values(int assignment) {
+        boolean[] values = new boolean[VARIABLES];
+        for (int i = 0; i < VARIABLES; i++)
+            values[variables[i]] = (assignment & (1 << i)) != 0;
+        return values;
+    }
+}
@@ -0,0 +1,86 @@
+package nl.rug.ds.bpm.test;
+
+import nl.rug.ds.bpm.petrinet.ptnet.PlaceTransitionNet;
+import nl.rug.ds.bpm.pnml.ptnet.marshaller.PTNetUnmarshaller;
+import nl.rug.ds.bpm.specification.jaxb.Specification;
+import nl.rug.ds.bpm.verification.VerificationFactory;
+import nl.rug.ds.bpm.verification.checker.explicit.ExplicitCheckerFactory;
+import nl.rug.ds.bpm.verification.verifier.kripke.KripkeVerifier;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifies the test nets with and without batching the specification sets that share a structure, and checks that
+ * each specification obtains the same verdict either way. In batchSpecification.xml, several specifications in
+ * different sets, and in the same set, share their formula, such that the results of a batch are only attributed to
+ * the right specifications if equal formulas are matched in order of addition. The last set has a fairness constraint,
+ * and is therefore verified on its own copy of the structure.
+ */
+public class BatchingTest {
+    private static final String[] NETS = {"pnml.pnml", "pnml2.pnml", "pnml3.pnml", "pnml4.pnml"};
+
+    @Test
+    public void batchingTest() throws Exception {
+        for (String name : NETS) {
+            Run single = verify(name, false);
+            Run batched = verify(name, true);
+
+            assertTrue(single.specifications().containsAll(Set.of("s1", "s2", "s3", "s4", "s6")), name);
+            assertEquals(single.verdicts, batched.verdicts, name);
+
+            // The sets without fairness constraints form one batch
+            assertEquals(Map.of(), single.batchSizes, name);
+            assertEquals(Map.of("s1", 3, "s2,s3", 3, "s4", 3), batched.batchSizes, name);
+        }
+    }
+
+    private static Run verify(String name, boolean batching) throws Exception {
+        File file = new File(BatchingTest.class.getResource("/" + name).toURI());
+        PlaceTransitionNet net = new PlaceTransitionNet(new PTNetUnmarshaller(file).getNets().iterator().next());
+        File specification = new File(BatchingTest.class.getResource("/batchSpecification.xml").toURI());
+
+        KripkeVerifier verifier = new KripkeVerifier(net, VerificationFactory.loadSpecification(specification), new ExplicitCheckerFactory());
+        verifier.setBatching(batching);
+
+        Run run = new Run();
+        verifier.addVerificationEventListener(event -> run.verdicts.put(event.getId() + " " + event.getFormula().getInputFormula(), event.getVerificationResult()));
+        verifier.addPerformanceEventListener(event -> {
+            StringJoiner set = new StringJoiner(",");
+            for (Specification s : event.getSpecificationSet().getSpecifications())
+                set.add(s.getId());
+
+            Number batchSize = event.getMetrics().get("BatchSize");
+            if (batchSize != null)
+                run.batchSizes.put(set.toString(), batchSize.intValue());
+        });
+        verifier.verify();
+
+        return run;
+    }
+
+    /**
+     * The verdicts of each specification and the batch size of each specification set, which may be published from
+     * several threads.
+     */
+    private static class Run {
+        final Map<String, Boolean> verdicts = Collections.synchronizedMap(new TreeMap<>());
+        final Map<String, Integer> batchSizes = Collections.synchronizedMap(new TreeMap<>());
+
+        Set<String> specifications() {
+            Set<String> specifications = new TreeSet<>();
+            for (String verdict : verdicts.keySet())
+                specifications.add(verdict.substring(0, verdict.indexOf(' ')));
+            return specifications;
+        }
+    }
+}
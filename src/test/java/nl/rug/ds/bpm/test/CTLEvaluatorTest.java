@@ -0,0 +1,239 @@
+package nl.rug.ds.bpm.test;
+
+import nl.rug.ds.bpm.util.exception.CheckerException;
+import nl.rug.ds.bpm.util.exception.ConverterException;
+import nl.rug.ds.bpm.util.exception.FormulaException;
+import nl.rug.ds.bpm.verification.checker.explicit.CTLEvaluator;
+import nl.rug.ds.bpm.verification.checker.explicit.StateGraph;
+import nl.rug.ds.bpm.verification.checker.formula.FormulaParser;
+import nl.rug.ds.bpm.verification.checker.formula.TemporalFormula;
+import nl.rug.ds.bpm.verification.model.kripke.KripkeState;
+import nl.rug.ds.bpm.verification.model.kripke.KripkeStructure;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Evaluates CTL formulas on small hand-built Kripke structures.
+ */
+public class CTLEvaluatorTest {
+
+    @Test
+    public void stateGraphTest() throws ConverterException {
+        Branch branch = new Branch();
+
+        assertEquals(3, branch.graph.size());
+        assertEquals(Set.of("p", "q"), branch.graph.getAtomicPropositions());
+        assertEquals(set(branch.index(branch.s0)), branch.graph.getInitial());
+        assertEquals(set(branch.index(branch.s0)), branch.graph.getLabel("p"));
+        assertEquals(new BitSet(), branch.graph.getLabel("r"));
+
+        int s0 = branch.index(branch.s0);
+        int[] offsets = branch.graph.getNextOffsets(), next = branch.graph.getNextIndices();
+        List<Integer> successors = new ArrayList<>();
+        for (int k = offsets[s0]; k < offsets[s0 + 1]; k++)
+            successors.add(next[k]);
+        assertEquals(Set.of(branch.index(branch.s1), branch.index(branch.s2)), Set.copyOf(successors));
+
+        int s1 = branch.index(branch.s1);
+        int[] previousOffsets = branch.graph.getPreviousOffsets(), previous = branch.graph.getPreviousIndices();
+        List<Integer> predecessors = new ArrayList<>();
+        for (int k = previousOffsets[s1]; k < previousOffsets[s1 + 1]; k++)
+            predecessors.add(previous[k]);
+        assertEquals(Set.of(s0, s1), Set.copyOf(predecessors));
+
+        // A frozen structure is viewed through its compressed relation
+        branch.structure.freeze();
+        StateGraph frozen = StateGraph.of(branch.structure);
+        assertEquals(3, frozen.size());
+        assertEquals(1, frozen.getInitial().cardinality());
+        assertEquals(branch.s0, frozen.getState(frozen.getInitial().nextSetBit(0)));
+    }
+
+    @Test
+    public void operatorTest() throws Exception {
+        Branch branch = new Branch();
+        CTLEvaluator evaluator = new CTLEvaluator(branch.graph, List.of());
+
+        assertEquals(branch.set(branch.s0, branch.s1, branch.s2), evaluator.evaluate(TemporalFormula.TRUE));
+        assertEquals(branch.set(), evaluator.evaluate(TemporalFormula.FALSE));
+        assertEquals(branch.set(branch.s0), evaluate(evaluator, "p"));
+        assertEquals(branch.set(branch.s1, branch.s2), evaluate(evaluator, "!p"));
+        assertEquals(branch.set(), evaluate(evaluator, "p & q"));
+        assertEquals(branch.set(branch.s0, branch.s1), evaluate(evaluator, "p | q"));
+        assertEquals(branch.set(branch.s1, branch.s2), evaluate(evaluator, "p -> q"));
+        assertEquals(branch.set(branch.s2), evaluate(evaluator, "p <-> q"));
+
+        assertEquals(branch.set(branch.s0, branch.s1), evaluate(evaluator, "EX q"));
+        assertEquals(branch.set(branch.s1), evaluate(evaluator, "AX q"));
+        assertEquals(branch.set(branch.s0, branch.s1), evaluate(evaluator, "EF q"));
+        assertEquals(branch.set(branch.s1), evaluate(evaluator, "AF q"));
+        assertEquals(branch.set(branch.s0, branch.s2), evaluate(evaluator, "EG !q"));
+        assertEquals(branch.set(branch.s2), evaluate(evaluator, "AG !q"));
+        assertEquals(branch.set(branch.s0, branch.s1), evaluate(evaluator, "E [p U q]"));
+        assertEquals(branch.set(branch.s1), evaluate(evaluator, "A [p U q]"));
+
+        assertTrue(evaluator.holds(FormulaParser.parse("AG (p -> EF q)")));
+        assertFalse(evaluator.holds(FormulaParser.parse("AG (p -> AF q)")));
+        assertEquals(branch.index(branch.s0), evaluator.getViolating(FormulaParser.parse("AG (p -> AF q)")));
+
+        assertThrows(CheckerException.class, () -> evaluator.evaluate(FormulaParser.parse("G p")));
+    }
+
+    @Test
+    public void fairnessTest() throws Exception {
+        Loop loop = new Loop();
+
+        // Without fairness, the path that stays in s0 forever never reaches q
+        CTLEvaluator unfair = new CTLEvaluator(loop.graph, List.of());
+        assertFalse(unfair.holds(FormulaParser.parse("AF q")));
+        assertTrue(unfair.holds(FormulaParser.parse("EG !q")));
+
+        CTLEvaluator fair = new CTLEvaluator(loop.graph, List.of(FormulaParser.parse("q")));
+        assertEquals(loop.set(loop.s0, loop.s1), fair.getFair());
+        assertEquals(List.of(loop.set(loop.s1)), fair.getFairnessConstraints());
+        assertTrue(fair.holds(FormulaParser.parse("AF q")));
+        assertFalse(fair.holds(FormulaParser.parse("EG !q")));
+        assertEquals(loop.set(loop.s1), evaluate(fair, "EG q"));
+
+        // Without fair paths, no initial State is fair and all formulas hold
+        CTLEvaluator none = new CTLEvaluator(loop.graph, List.of(FormulaParser.parse("r")));
+        assertTrue(none.getFair().isEmpty());
+        assertTrue(none.holds(TemporalFormula.FALSE));
+    }
+
+    @Test
+    public void counterExampleTest() throws Exception {
+        Branch branch = new Branch();
+        CTLEvaluator evaluator = new CTLEvaluator(branch.graph, List.of());
+        TemporalFormula formula = FormulaParser.parse("AG (p -> AF q)");
+
+        // The witness of EF (p & EG !q) leads to p, and then closes a cycle through !q
+        List<Integer> path = evaluator.getCounterExample(formula, evaluator.getViolating(formula));
+        assertEquals(List.of(branch.index(branch.s0), branch.index(branch.s2), branch.index(branch.s2)), path);
+        assertLasso(branch.graph, path, branch.graph.getLabel("q"), new BitSet());
+
+        // The witness of E [!q U (!p & !q)] ends in a State without p or q
+        formula = FormulaParser.parse("A [p U q]");
+        path = evaluator.getCounterExample(formula, evaluator.getViolating(formula));
+        assertEquals(List.of(branch.index(branch.s0), branch.index(branch.s2)), path);
+    }
+
+    @Test
+    public void fairCounterExampleTest() throws Exception {
+        Loop loop = new Loop();
+        loop.structure.addNext(loop.s1, loop.s0);
+        StateGraph graph = StateGraph.of(loop.structure);
+        loop.graph = graph;
+
+        CTLEvaluator evaluator = new CTLEvaluator(graph, List.of(FormulaParser.parse("q")));
+        TemporalFormula formula = FormulaParser.parse("AF !p");
+        int violating = evaluator.getViolating(formula);
+        assertEquals(loop.index(loop.s0), violating);
+
+        // The lasso of the fair EG p passes through q on its cycle
+        List<Integer> path = evaluator.getCounterExample(formula, violating);
+        assertLasso(graph, path, graph.getLabel("r"), loop.set(loop.s1));
+    }
+
+    /**
+     * Asserts that the given path follows transitions, avoids the given States, and ends by closing a cycle that
+     * visits the given fair States, if any.
+     */
+    static void assertLasso(StateGraph graph, List<Integer> path, BitSet avoid, BitSet fair) {
+        assertTrue(graph.getInitial().get(path.get(0)));
+        for (int i = 0; i + 1 < path.size(); i++)
+            assertTrue(isNext(graph, path.get(i), path.get(i + 1)), "No transition from " + path.get(i) + " to " + path.get(i + 1));
+
+        int last = path.get(path.size() - 1);
+        int start = path.indexOf(last);
+        assertTrue(start < path.size() - 1, "The path does not close a cycle");
+
+        boolean visitsFair = fair.isEmpty();
+        for (int i = start; i < path.size(); i++) {
+            assertFalse(avoid.get(path.get(i)));
+            visitsFair |= fair.get(path.get(i));
+        }
+        assertTrue(visitsFair, "The cycle does not visit a fair State");
+    }
+
+    private static boolean isNext(StateGraph graph, int from, int to) {
+        int[] offsets = graph.getNextOffsets(), next = graph.getNextIndices();
+        for (int k = offsets[from]; k < offsets[from + 1]; k++)
+            if (next[k] == to)
+                return true;
+        return false;
+    }
+
+    private static BitSet evaluate(CTLEvaluator evaluator, String formula) throws CheckerException, FormulaException {
+        return evaluator.evaluate(FormulaParser.parse(formula));
+    }
+
+    private static BitSet set(int... indices) {
+        BitSet set = new BitSet();
+        for (int index : indices)
+            set.set(index);
+        return set;
+    }
+
+    /**
+     * Base of the structures below, which look up the indices of their States in the StateGraph.
+     */
+    static class Graph {
+        final KripkeStructure structure = new KripkeStructure();
+        StateGraph graph;
+
+        int index(KripkeState state) {
+            for (int i = 0; i < graph.size(); i++)
+                if (graph.getState(i) == state)
+                    return i;
+            throw new IllegalArgumentException("Unknown state " + state);
+        }
+
+        BitSet set(KripkeState... states) {
+            BitSet set = new BitSet();
+            for (KripkeState state : states)
+                set.set(index(state));
+            return set;
+        }
+    }
+
+    /**
+     * s0 {p} branches to s1 {q} and s2 {}, which both loop.
+     */
+    static class Branch extends Graph {
+        final KripkeState s0, s1, s2;
+
+        Branch() throws ConverterException {
+            s0 = structure.addInitial(new KripkeState("m0", Set.of("p")));
+            s1 = structure.addNext(s0, new KripkeState("m1", Set.of("q")));
+            s2 = structure.addNext(s0, new KripkeState("m2", Set.of()));
+            structure.addNext(s1, s1);
+            structure.addNext(s2, s2);
+            graph = StateGraph.of(structure);
+        }
+    }
+
+    /**
+     * s0 {p} loops, and leads to s1 {p, q}, which loops.
+     */
+    static class Loop extends Graph {
+        final KripkeState s0, s1;
+
+        Loop() throws ConverterException {
+            s0 = structure.addInitial(new KripkeState("m0", Set.of("p")));
+            structure.addNext(s0, s0);
+            s1 = structure.addNext(s0, new KripkeState("m1", Set.of("p", "q")));
+            structure.addNext(s1, s1);
+            graph = StateGraph.of(structure);
+        }
+    }
+}
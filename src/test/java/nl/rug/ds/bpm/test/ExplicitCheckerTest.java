@@ -0,0 +1,133 @@
+package nl.rug.ds.bpm.test;
+
+import nl.rug.ds.bpm.expression.CompositeExpression;
+import nl.rug.ds.bpm.expression.ExpressionBuilder;
+import nl.rug.ds.bpm.specification.jaxb.Formula;
+import nl.rug.ds.bpm.specification.jaxb.Input;
+import nl.rug.ds.bpm.specification.jaxb.InputElement;
+import nl.rug.ds.bpm.specification.jaxb.Specification;
+import nl.rug.ds.bpm.specification.jaxb.SpecificationType;
+import nl.rug.ds.bpm.util.exception.CheckerException;
+import nl.rug.ds.bpm.verification.checker.explicit.ExplicitChecker;
+import nl.rug.ds.bpm.verification.event.VerificationEvent;
+import nl.rug.ds.bpm.verification.map.AtomicPropositionMap;
+import nl.rug.ds.bpm.verification.model.kripke.KripkeState;
+import nl.rug.ds.bpm.verification.model.kripke.KripkeStructure;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks specifications of the types in specificationTypes.xml on a Kripke structure in which a branches to b and to c,
+ * which both loop.
+ */
+public class ExplicitCheckerTest {
+    private AtomicPropositionMap<CompositeExpression> map;
+    private KripkeStructure structure;
+
+    @BeforeEach
+    public void createStructure() throws Exception {
+        map = new AtomicPropositionMap<>();
+        String a = map.addID(ExpressionBuilder.parseExpression("a"));
+        String b = map.addID(ExpressionBuilder.parseExpression("b"));
+        String c = map.addID(ExpressionBuilder.parseExpression("c"));
+
+        structure = new KripkeStructure();
+        KripkeState s0 = structure.addInitial(new KripkeState("m0", Set.of(a)));
+        KripkeState s1 = structure.addNext(s0, new KripkeState("m1", Set.of(b)));
+        KripkeState s2 = structure.addNext(s0, new KripkeState("m2", Set.of(c)));
+        structure.addNext(s1, s1);
+        structure.addNext(s2, s2);
+    }
+
+    @Test
+    public void ctlTest() throws CheckerException {
+        ExplicitChecker checker = new ExplicitChecker();
+        List<VerificationEvent> published = new ArrayList<>();
+        checker.setVerificationEventListener(published::add);
+
+        add(checker, "AlwaysPossibleResponse", "AG (p -> EF q)", "CTLSPEC");
+        add(checker, "AlwaysResponse", "AG (p -> AF q)", "CTLSPEC");
+        checker.createModel(structure);
+        List<VerificationEvent> results = checker.checkModel();
+
+        assertEquals(published, results);
+        assertEquals(2, results.size());
+        assertTrue(results.get(0).getVerificationResult());
+        assertFalse(results.get(1).getVerificationResult());
+
+        // The counterexample leads from a to the loop in c, reported by the original expressions
+        assertEquals(List.of(List.of("a"), List.of("c"), List.of("c")), results.get(1).getCounterExample());
+    }
+
+    @Test
+    public void ltlTest() throws CheckerException {
+        ExplicitChecker checker = new ExplicitChecker();
+        add(checker, "AlwaysEventualResponse", "G (p -> F (q))", "LTLSPEC");
+        add(checker, "FinalEventualResponse", "F (p) -> F (q)", "LTLSPEC");
+        checker.createModel(structure);
+        List<VerificationEvent> results = checker.checkModel();
+
+        assertFalse(results.get(0).getVerificationResult());
+        assertFalse(results.get(1).getVerificationResult());
+
+        List<List<String>> counterExample = results.get(0).getCounterExample();
+        assertEquals(List.of("a"), counterExample.get(0));
+        assertEquals(List.of("c"), counterExample.get(counterExample.size() - 1));
+    }
+
+    @Test
+    public void fairnessTest() throws CheckerException {
+        ExplicitChecker checker = new ExplicitChecker();
+
+        // Paths that stay in c forever are not fair, such that b always follows a on fair paths
+        SpecificationType fairnessType = new SpecificationType("Fairness");
+        fairnessType.addInput(new Input("p", "or"));
+        fairnessType.addFormula(new Formula("!p", "FAIRNESS"));
+
+        Specification fairness = new Specification("Fairness");
+        fairness.setId("Fairness");
+        fairness.setSpecificationType(fairnessType);
+        fairness.addInputElement(new InputElement("c", "p"));
+        checker.addFormula(fairnessType.getFormulas().get(0), fairness, map);
+        add(checker, "AlwaysResponse", "AG (p -> AF q)", "CTLSPEC");
+        add(checker, "AlwaysEventualResponse", "G (p -> F (q))", "LTLSPEC");
+        checker.createModel(structure);
+        List<VerificationEvent> results = checker.checkModel();
+
+        assertEquals(2, results.size());
+        assertTrue(results.get(0).getVerificationResult());
+        assertTrue(results.get(1).getVerificationResult());
+    }
+
+    @Test
+    public void noModelTest() {
+        assertThrows(CheckerException.class, () -> new ExplicitChecker().checkModel());
+    }
+
+    /**
+     * Adds the formula of a specification type with inputs p and q, of which p is bound to a and q to b.
+     */
+    private void add(ExplicitChecker checker, String type, String formula, String language) {
+        SpecificationType specificationType = new SpecificationType(type);
+        specificationType.addInput(new Input("p", "or"));
+        specificationType.addInput(new Input("q", "or"));
+        specificationType.addFormula(new Formula(formula, language));
+
+        Specification specification = new Specification(type);
+        specification.setId(type);
+        specification.setSpecificationType(specificationType);
+        specification.addInputElement(new InputElement("a", "p"));
+        specification.addInputElement(new InputElement("b", "q"));
+
+        checker.addFormula(specificationType.getFormulas().get(0), specification, map);
+    }
+}
@@ -0,0 +1,148 @@
+package nl.rug.ds.bpm.test;
+
+import nl.rug.ds.bpm.petrinet.interfaces.element.TransitionI;
+import nl.rug.ds.bpm.verification.converter.ConverterAction;
+import nl.rug.ds.bpm.verification.converter.generic.ExplorationEngine;
+import nl.rug.ds.bpm.verification.converter.generic.ExplorationItem;
+import nl.rug.ds.bpm.verification.model.kripke.KripkeState;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Explores a grid of states, of which each state (x, y) leads to (x + 1, y) and (x, y + 1), with several workers.
+ */
+public class ExplorationEngineTest {
+    private static final int SIZE = 200;
+    private static final int WORKERS = 4;
+
+    @Test
+    public void completeExplorationTest() throws InterruptedException {
+        GridAction action = new GridAction(-1, 0);
+        ExplorationEngine<KripkeState> engine = new ExplorationEngine<>(action, WORKERS, 16);
+
+        ExecutorService executor = Executors.newFixedThreadPool(WORKERS);
+        try {
+            engine.explore(List.of(action.item(0, 0)), executor);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(SIZE * SIZE, engine.getExploredCount());
+        assertEquals(SIZE * SIZE, action.computed.get());
+        assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void failureTest() {
+        GridAction action = new GridAction(SIZE * 3 + 3, 0);
+        ExplorationEngine<KripkeState> engine = new ExplorationEngine<>(action, WORKERS, 16);
+
+        ExecutorService executor = Executors.newFixedThreadPool(WORKERS);
+        try {
+            IllegalStateException e = assertThrows(IllegalStateException.class, () -> engine.explore(List.of(action.item(0, 0)), executor));
+            assertSame(action.thrown, e);
+
+            // All workers stopped before the failure was rethrown
+            assertEquals(0, action.active.get());
+            assertTrue(action.computed.get() < SIZE * SIZE);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void interruptTest() {
+        GridAction action = new GridAction(-1, 1);
+        ExplorationEngine<KripkeState> engine = new ExplorationEngine<>(action, WORKERS, 16);
+
+        ExecutorService executor = Executors.newFixedThreadPool(WORKERS);
+        try {
+            Thread.currentThread().interrupt();
+            assertThrows(CancellationException.class, () -> engine.explore(List.of(action.item(0, 0)), executor));
+            assertTrue(Thread.interrupted());
+
+            // All workers stopped before the interrupt was reported
+            assertEquals(0, action.active.get());
+            assertTrue(action.computed.get() < SIZE * SIZE);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static class GridAction implements ConverterAction<KripkeState> {
+        private final int failAt;
+        private final long delay;
+        private final ConcurrentHashMap<Integer, Boolean> seen = new ConcurrentHashMap<>();
+        private final AtomicInteger computed = new AtomicInteger();
+        private final AtomicInteger active = new AtomicInteger();
+        private volatile IllegalStateException thrown;
+
+        private GridAction(int failAt, long delay) {
+            this.failAt = failAt;
+            this.delay = delay;
+        }
+
+        private ExplorationItem<KripkeState> item(int x, int y) {
+            seen.put(x * SIZE + y, true);
+            return new ExplorationItem<>(new KripkeState(x + "," + y, Set.of()), null, Set.of());
+        }
+
+        @Override
+        public void computeInitial() {
+        }
+
+        @Override
+        public void compute(ExplorationItem<KripkeState> item, Consumer<ExplorationItem<KripkeState>> frontier) {
+            active.incrementAndGet();
+            try {
+                String[] coordinates = item.getState().getMarking().split(",");
+                int x = Integer.parseInt(coordinates[0]), y = Integer.parseInt(coordinates[1]);
+
+                if (x * SIZE + y == failAt) {
+                    thrown = new IllegalStateException("Failed at " + x + "," + y);
+                    throw thrown;
+                }
+                if (delay > 0)
+                    Thread.sleep(delay);
+
+                computed.incrementAndGet();
+                if (x + 1 < SIZE && seen.putIfAbsent((x + 1) * SIZE + y, true) == null)
+                    frontier.accept(new ExplorationItem<>(new KripkeState((x + 1) + "," + y, Set.of()), null, Set.of()));
+                if (y + 1 < SIZE && seen.putIfAbsent(x * SIZE + y + 1, true) == null)
+                    frontier.accept(new ExplorationItem<>(new KripkeState(x + "," + (y + 1), Set.of()), null, Set.of()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                active.decrementAndGet();
+            }
+        }
+
+        @Override
+        public boolean isNew(KripkeState created, KripkeState found) {
+            return created == found;
+        }
+
+        @Override
+        public boolean isSink(Set<? extends TransitionI> enabled) {
+            return enabled.isEmpty();
+        }
+
+        @Override
+        public void makeSink(KripkeState sink) {
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package nl.rug.ds.bpm.test;
+
+import nl.rug.ds.bpm.util.exception.FormulaException;
+import nl.rug.ds.bpm.verification.checker.formula.FormulaParser;
+import nl.rug.ds.bpm.verification.checker.formula.TemporalFormula;
+import nl.rug.ds.bpm.verification.checker.formula.TemporalOperator;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.InputStream;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FormulaParserTest {
+    private static final TemporalFormula p = TemporalFormula.atom("p");
+    private static final TemporalFormula q = TemporalFormula.atom("q");
+    private static final TemporalFormula s = TemporalFormula.atom("s");
+
+    @Test
+    public void precedenceTest() throws FormulaException {
+        assertEquals(binary(TemporalOperator.OR, p, binary(TemporalOperator.AND, q, s)), FormulaParser.parse("p | q & s"));
+        assertEquals(binary(TemporalOperator.IMPLIES, binary(TemporalOperator.OR, p, q), s), FormulaParser.parse("p | q -> s"));
+        assertEquals(binary(TemporalOperator.IFF, p, binary(TemporalOperator.IMPLIES, q, s)), FormulaParser.parse("p <-> q -> s"));
+        assertEquals(binary(TemporalOperator.AND, unary(TemporalOperator.AG, p), q), FormulaParser.parse("AG p & q"));
+        assertEquals(binary(TemporalOperator.U, unary(TemporalOperator.NOT, p), q), FormulaParser.parse("!p U q"));
+        assertEquals(binary(TemporalOperator.AND, binary(TemporalOperator.U, p, q), s), FormulaParser.parse("p U q & s"));
+        assertEquals(unary(TemporalOperator.NOT, binary(TemporalOperator.AND, p, q)), FormulaParser.parse("!(p & q)"));
+    }
+
+    @Test
+    public void associativityTest() throws FormulaException {
+        assertEquals(binary(TemporalOperator.IMPLIES, p, binary(TemporalOperator.IMPLIES, q, s)), FormulaParser.parse("p -> q -> s"));
+        assertEquals(binary(TemporalOperator.U, p, binary(TemporalOperator.U, q, s)), FormulaParser.parse("p U q U s"));
+        assertEquals(binary(TemporalOperator.V, p, binary(TemporalOperator.V, q, s)), FormulaParser.parse("p V q V s"));
+        assertEquals(binary(TemporalOperator.AND, binary(TemporalOperator.AND, p, q), s), FormulaParser.parse("p & q & s"));
+        assertEquals(binary(TemporalOperator.IFF, binary(TemporalOperator.IFF, p, q), s), FormulaParser.parse("p <-> q <-> s"));
+    }
+
+    @Test
+    public void syntaxTest() throws FormulaException {
+        assertEquals(binary(TemporalOperator.AU, p, q), FormulaParser.parse("A [p U q]"));
+        assertEquals(binary(TemporalOperator.EU, binary(TemporalOperator.OR, p, s), q), FormulaParser.parse("E [(p | s) U q]"));
+        assertEquals(TemporalFormula.TRUE, FormulaParser.parse("TRUE"));
+        assertEquals(TemporalFormula.FALSE, FormulaParser.parse("false"));
+        assertEquals(TemporalFormula.atom("n_1.x"), FormulaParser.parse("n_1.x"));
+        assertEquals(unary(TemporalOperator.H, unary(TemporalOperator.O, unary(TemporalOperator.Y, p))), FormulaParser.parse("H O Y p"));
+
+        for (String malformed : new String[]{"", "AG", "(p", "p)", "p q", "A [p & q]", "E [p U q", "p & ", "p $ q", "U p", "p -> -> q"})
+            assertThrows(FormulaException.class, () -> FormulaParser.parse(malformed), malformed);
+    }
+
+    @Test
+    public void classificationTest() throws FormulaException {
+        assertTrue(FormulaParser.parse("AG (p -> AF q)").isBranching());
+        assertFalse(FormulaParser.parse("AG (p -> AF q)").isLinear());
+        assertTrue(FormulaParser.parse("G (p -> F q)").isLinear());
+        assertFalse(FormulaParser.parse("G (p -> F q)").isBranching());
+        assertTrue(FormulaParser.parse("!(p | q)").isPropositional());
+        assertEquals(Set.of("p", "q", "s"), FormulaParser.parse("AG (p -> A [(p | s) U q])").getAtoms());
+    }
+
+    @Test
+    public void negateTest() throws FormulaException {
+        assertEquals(FormulaParser.parse("EF (p & !q)"), FormulaParser.parse("AG (p -> q)").negate());
+        assertEquals(FormulaParser.parse("EX !p | EG !q"), FormulaParser.parse("AX p & AF q").negate());
+        assertEquals(FormulaParser.parse("E [!q U (!p & !q)] | EG !q"), FormulaParser.parse("A [p U q]").negate());
+        assertEquals(p, FormulaParser.parse("!p").negate());
+    }
+
+    /**
+     * Parses the formulas of all specification types, and checks that printing and parsing them again yields the same
+     * formula, and that each formula is of its language.
+     */
+    @Test
+    public void specificationTypesTest() throws Exception {
+        try (InputStream stream = getClass().getResourceAsStream("/specificationTypes.xml")) {
+            assertNotNull(stream);
+            NodeList formulas = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(stream).getElementsByTagName("formula");
+            assertTrue(formulas.getLength() > 0);
+
+            for (int i = 0; i < formulas.getLength(); i++) {
+                Element element = (Element) formulas.item(i);
+                String language = element.getAttribute("language");
+                TemporalFormula formula = FormulaParser.parse(element.getTextContent());
+
+                assertEquals(formula, FormulaParser.parse(formula.toString()), element.getTextContent());
+                if (language.equalsIgnoreCase("CTLSPEC"))
+                    assertTrue(formula.isBranching(), element.getTextContent());
+                else if (language.equalsIgnoreCase("LTLSPEC"))
+                    assertTrue(formula.isLinear(), element.getTextContent());
+                else
+                    assertTrue(formula.isPropositional(), element.getTextContent());
+            }
+        }
+    }
+
+    private static TemporalFormula unary(TemporalOperator operator, TemporalFormula operand) {
+        return TemporalFormula.unary(operator, operand);
+    }
+
+    private static TemporalFormula binary(TemporalOperator operator, TemporalFormula left, TemporalFormula right) {
+        return TemporalFormula.binary(operator, left, right);
+    }
+}
@@ -0,0 +1,72 @@
+package nl.rug.ds.bpm.test;
+
+import nl.rug.ds.bpm.expression.CompositeExpression;
+import nl.rug.ds.bpm.expression.ExpressionBuilder;
+import nl.rug.ds.bpm.expression.LogicalType;
+import nl.rug.ds.bpm.verification.model.generic.factory.ImplicationIndex;
+import nl.rug.ds.bpm.verification.model.kripke.factory.KripkeFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ImplicationIndexTest {
+    private final CompositeExpression a = ExpressionBuilder.parseExpression("a");
+    private final CompositeExpression b = ExpressionBuilder.parseExpression("b");
+    private final CompositeExpression c = ExpressionBuilder.parseExpression("c");
+    private final CompositeExpression truth = ExpressionBuilder.parseExpression("true");
+
+    @Test
+    public void inferTest() {
+        ImplicationIndex index = new ImplicationIndex(List.of(a, b, truth));
+
+        assertEquals(Set.of(a, truth), index.infer(a));
+        assertEquals(Set.of(truth), index.infer(c));
+        assertEquals(Set.of(a, b, truth), index.infer(List.of(a, b), and(a, b)));
+
+        // Inferred sets are memoized
+        assertSame(index.infer(a), index.infer(a));
+        assertSame(index.infer(List.of(a, b), and(a, b)), index.infer(List.of(b, a), and(b, a)));
+    }
+
+    @Test
+    public void separateKeysTest() {
+        // A single expression of which the text equals the canonical form of a set of expressions
+        CompositeExpression single = ExpressionBuilder.parseExpression(ImplicationIndex.canonicalize(List.of(a, b)));
+        List<CompositeExpression> specifications = List.of(a, b, single);
+
+        ImplicationIndex index = new ImplicationIndex(specifications);
+        Set<CompositeExpression> fromSet = index.infer(List.of(a, b), and(a, b));
+        Set<CompositeExpression> fromSingle = index.infer(single);
+
+        assertEquals(new ImplicationIndex(specifications).infer(single), fromSingle);
+        assertEquals(new ImplicationIndex(specifications).infer(List.of(a, b), and(a, b)), fromSet);
+    }
+
+    @Test
+    public void identifiersTest() {
+        assertEquals(Set.of("t1", "x", "y.z"), ImplicationIndex.getIdentifiers(ExpressionBuilder.parseExpression("t1 && x >= 10 || y.z == 2")));
+    }
+
+    @Test
+    public void rebuildTest() {
+        KripkeFactory factory = new KripkeFactory();
+        factory.getAtomicPropositionMap().addSpecificationId(a);
+        assertEquals(Set.of(a), factory.inferExpressions(and(a, b)));
+
+        factory.getAtomicPropositionMap().addSpecificationId(b);
+        assertEquals(Set.of(a, b), factory.inferExpressions(and(a, b)));
+        assertTrue(factory.inferExpressions(Set.of(a, b)).containsAll(Set.of(a, b)));
+    }
+
+    private static CompositeExpression and(CompositeExpression... expressions) {
+        CompositeExpression conjunction = new CompositeExpression(LogicalType.AND);
+        for (CompositeExpression expression : expressions)
+            conjunction.addArgument(expression);
+        return conjunction;
+    }
+}
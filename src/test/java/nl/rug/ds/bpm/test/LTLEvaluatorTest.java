@@ -0,0 +1,200 @@
+package nl.rug.ds.bpm.test;
+
+import nl.rug.ds.bpm.util.exception.CheckerException;
+import nl.rug.ds.bpm.util.exception.ConverterException;
+import nl.rug.ds.bpm.util.exception.FormulaException;
+import nl.rug.ds.bpm.verification.checker.explicit.BuchiAutomaton;
+import nl.rug.ds.bpm.verification.checker.explicit.LTLEvaluator;
+import nl.rug.ds.bpm.verification.checker.explicit.PastMonitor;
+import nl.rug.ds.bpm.verification.checker.explicit.StateGraph;
+import nl.rug.ds.bpm.verification.checker.formula.FormulaParser;
+import nl.rug.ds.bpm.verification.checker.formula.TemporalFormula;
+import nl.rug.ds.bpm.verification.model.kripke.KripkeState;
+import nl.rug.ds.bpm.verification.model.kripke.KripkeStructure;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Evaluates LTL formulas, with and without past operators and fairness, on small hand-built Kripke structures, and
+ * checks that each counterexample is a lasso of the structure.
+ */
+public class LTLEvaluatorTest {
+
+    @Test
+    public void verdictTest() throws Exception {
+        CTLEvaluatorTest.Branch branch = new CTLEvaluatorTest.Branch();
+        LTLEvaluator evaluator = new LTLEvaluator(branch.graph, List.of());
+
+        assertHolds(evaluator, "p");
+        assertHolds(evaluator, "X !p");
+        assertHolds(evaluator, "G (p -> X G !p)");
+        assertHolds(evaluator, "F G q | F G !q");
+        assertHolds(evaluator, "q V !q | F q");
+
+        assertViolated(evaluator, branch.graph, "q");
+        assertViolated(evaluator, branch.graph, "X q");
+        assertViolated(evaluator, branch.graph, "p U q");
+        assertViolated(evaluator, branch.graph, "G F q");
+        assertViolated(evaluator, branch.graph, "F p -> F q");
+
+        // The only violation stays in s2 forever, and therefore never reaches q
+        List<Integer> path = assertViolated(evaluator, branch.graph, "G (p -> F q)");
+        assertEquals(List.of(branch.index(branch.s0), branch.index(branch.s2), branch.index(branch.s2)), path);
+        CTLEvaluatorTest.assertLasso(branch.graph, path, branch.graph.getLabel("q"), new BitSet());
+
+        assertThrows(CheckerException.class, () -> evaluator.getCounterExample(FormulaParser.parse("AG p")));
+    }
+
+    @Test
+    public void fairnessTest() throws Exception {
+        CTLEvaluatorTest.Loop loop = new CTLEvaluatorTest.Loop();
+
+        // Only the path that stays in s0 forever violates F q, which is not fair with respect to q
+        LTLEvaluator unfair = new LTLEvaluator(loop.graph, List.of());
+        List<Integer> path = assertViolated(unfair, loop.graph, "F q");
+        assertEquals(List.of(loop.index(loop.s0), loop.index(loop.s0)), path);
+
+        LTLEvaluator fair = new LTLEvaluator(loop.graph, List.of(loop.graph.getLabel("q")));
+        assertHolds(fair, "F q");
+        assertHolds(fair, "F G q");
+        assertViolated(fair, loop.graph, "G q");
+
+        // Without fair paths, all formulas hold
+        LTLEvaluator none = new LTLEvaluator(loop.graph, List.of(new BitSet()));
+        assertHolds(none, "FALSE");
+    }
+
+    @Test
+    public void fairCounterExampleTest() throws Exception {
+        FairLoop loop = new FairLoop();
+
+        // Without fairness, any cycle through s0 violates the response, but the fair violation must pass through s1
+        LTLEvaluator unfair = new LTLEvaluator(loop.graph, List.of());
+        List<Integer> path = assertViolated(unfair, loop.graph, "G (p -> F q)");
+        CTLEvaluatorTest.assertLasso(loop.graph, path, loop.graph.getLabel("q"), new BitSet());
+
+        LTLEvaluator fair = new LTLEvaluator(loop.graph, List.of(loop.graph.getLabel("r")));
+        path = fair.getCounterExample(FormulaParser.parse("G (p -> F q)"));
+        assertNotNull(path);
+        CTLEvaluatorTest.assertLasso(loop.graph, path, loop.graph.getLabel("q"), loop.graph.getLabel("r"));
+
+        // The fair paths that reach s2 satisfy the response
+        assertHolds(fair, "F q -> G (p -> F q)");
+    }
+
+    @Test
+    public void pastTest() throws Exception {
+        CTLEvaluatorTest.Branch branch = new CTLEvaluatorTest.Branch();
+        LTLEvaluator evaluator = new LTLEvaluator(branch.graph, List.of());
+
+        assertHolds(evaluator, "G (q -> O p)");
+        assertHolds(evaluator, "G (O p)");
+        assertHolds(evaluator, "H p");
+        assertHolds(evaluator, "!Y TRUE");
+        assertHolds(evaluator, "X Y p");
+        assertHolds(evaluator, "G (p -> H p)");
+        assertHolds(evaluator, "F (!p & Y p)");
+        assertHolds(evaluator, "G (Y q -> q)");
+
+        assertViolated(evaluator, branch.graph, "Y p");
+        assertViolated(evaluator, branch.graph, "G (H p)");
+        assertViolated(evaluator, branch.graph, "G (!p -> H !p)");
+
+        // q holds twice in a row on the loop of s1, of which the second time p did not hold before
+        List<Integer> path = assertViolated(evaluator, branch.graph, "G (q -> Y p)");
+        assertEquals(branch.index(branch.s1), (int) path.get(path.size() - 1));
+
+        assertThrows(CheckerException.class, () -> evaluator.getCounterExample(FormulaParser.parse("G O (F p)")));
+    }
+
+    @Test
+    public void pastMonitorTest() throws Exception {
+        CTLEvaluatorTest.Branch branch = new CTLEvaluatorTest.Branch();
+        TemporalFormula y = FormulaParser.parse("Y p"), o = FormulaParser.parse("O p"), h = FormulaParser.parse("H p");
+        PastMonitor monitor = new PastMonitor(branch.graph, FormulaParser.parse("G (Y p | O p | H p)"));
+
+        int s0 = branch.index(branch.s0), s1 = branch.index(branch.s1);
+        long values = monitor.initial(s0);
+        assertFalse(monitor.holds(y, s0, values));
+        assertTrue(monitor.holds(o, s0, values));
+        assertTrue(monitor.holds(h, s0, values));
+
+        values = monitor.next(s1, values);
+        assertTrue(monitor.holds(y, s1, values));
+        assertTrue(monitor.holds(o, s1, values));
+        assertFalse(monitor.holds(h, s1, values));
+
+        values = monitor.next(s1, values);
+        assertFalse(monitor.holds(y, s1, values));
+        assertTrue(monitor.holds(o, s1, values));
+        assertFalse(monitor.holds(h, s1, values));
+        assertTrue(monitor.holds(FormulaParser.parse("q & O p & !H p"), s1, values));
+
+        // A monitor starting in s1 has never seen p
+        values = monitor.initial(s1);
+        assertFalse(monitor.holds(o, s1, values));
+
+        assertThrows(CheckerException.class, () -> new PastMonitor(branch.graph, FormulaParser.parse("H (X p)")));
+    }
+
+    @Test
+    public void automatonTest() throws FormulaException {
+        assertTrue(BuchiAutomaton.of(FormulaParser.parse("X p")).getAcceptance().isEmpty());
+        assertEquals(1, BuchiAutomaton.of(FormulaParser.parse("p U q")).getAcceptance().size());
+        assertEquals(2, BuchiAutomaton.of(FormulaParser.parse("p U (q U s)")).getAcceptance().size());
+        assertEquals(1, BuchiAutomaton.of(FormulaParser.parse("(p U q) & X (p U q)")).getAcceptance().size());
+        assertTrue(BuchiAutomaton.of(FormulaParser.parse("p V q")).getAcceptance().isEmpty());
+
+        // A propositional conjunction yields a single initial node that requires both literals
+        BuchiAutomaton automaton = BuchiAutomaton.of(FormulaParser.parse("p & !q"));
+        assertEquals(1, automaton.getInitial().length);
+        assertEquals(Set.of(TemporalFormula.atom("p"), FormulaParser.parse("!q")), automaton.getLiterals(automaton.getInitial()[0]));
+
+        // A contradiction has no runs
+        assertEquals(0, BuchiAutomaton.of(FormulaParser.parse("p & !p")).getInitial().length);
+
+        // Every successor is a node of the automaton
+        automaton = BuchiAutomaton.of(FormulaParser.parse("p U (q V !s)"));
+        for (int node = 0; node < automaton.size(); node++)
+            for (int successor : automaton.getSuccessors(node))
+                assertTrue(successor >= 0 && successor < automaton.size());
+    }
+
+    private static void assertHolds(LTLEvaluator evaluator, String formula) throws CheckerException, FormulaException {
+        assertNull(evaluator.getCounterExample(FormulaParser.parse(formula)), formula);
+    }
+
+    private static List<Integer> assertViolated(LTLEvaluator evaluator, StateGraph graph, String formula) throws CheckerException, FormulaException {
+        List<Integer> path = evaluator.getCounterExample(FormulaParser.parse(formula));
+        assertNotNull(path, formula);
+        CTLEvaluatorTest.assertLasso(graph, path, new BitSet(), new BitSet());
+        return path;
+    }
+
+    /**
+     * s0 {p} loops, and leads to s1 {p, r}, which returns to s0, and to s2 {q}, which loops.
+     */
+    static class FairLoop extends CTLEvaluatorTest.Graph {
+        final KripkeState s0, s1, s2;
+
+        FairLoop() throws ConverterException {
+            s0 = structure.addInitial(new KripkeState("m0", Set.of("p")));
+            structure.addNext(s0, s0);
+            s1 = structure.addNext(s0, new KripkeState("m1", Set.of("p", "r")));
+            structure.addNext(s1, s0);
+            s2 = structure.addNext(s0, new KripkeState("m2", Set.of("q")));
+            structure.addNext(s2, s2);
+            graph = StateGraph.of(structure);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package nl.rug.ds.bpm.test;
+
+import nl.rug.ds.bpm.expression.CompositeExpression;
+import nl.rug.ds.bpm.expression.ExpressionBuilder;
+import nl.rug.ds.bpm.specification.jaxb.SpecificationSet;
+import nl.rug.ds.bpm.verification.model.kripke.KripkeState;
+import nl.rug.ds.bpm.verification.model.kripke.KripkeStructure;
+import nl.rug.ds.bpm.verification.model.kripke.postprocess.stutter.StutterOptimizer;
+import nl.rug.ds.bpm.verification.model.multi.MultiState;
+import nl.rug.ds.bpm.verification.model.multi.MultiStructure;
+import nl.rug.ds.bpm.verification.model.multi.Partition;
+import nl.rug.ds.bpm.verification.model.multi.postprocess.stutter.MultiStutterMergeSplitAction;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Reduces a long process, of which the states between the first and the last state form a single loop without
+ * relevant atomic propositions, on a thread with a small stack, such that any traversal that recurses per state
+ * overflows the stack.
+ * <p>
+ * The structures are built by hand rather than converted from a Net, as only the depth of the reductions is tested
+ * here. A converted Net labels its states with their enabled Transitions, such that a long inert loop would in addition
+ * require specifications that hide those labels, whereas exploration itself does not recurse per state.
+ * </p>
+ */
+public class LongChainStutterTest {
+    private static final int LENGTH = 100000;
+    private static final long STACK_SIZE = 256 * 1024;
+
+    @Test
+    public void kripkeLongChainTest() throws Throwable {
+        runWithSmallStack(() -> {
+            KripkeStructure structure = new KripkeStructure();
+
+            KripkeState current = structure.addInitial(new KripkeState("m0", label(0)));
+            KripkeState loop = null;
+            for (int i = 1; i < LENGTH; i++) {
+                KripkeState next = structure.addNext(current, new KripkeState("m" + i, label(i)));
+                if (i == 1)
+                    loop = next;
+                else if (i == LENGTH - 2)
+                    structure.addNext(next, loop);
+                current = next;
+            }
+            structure.addNext(current, current);
+
+            StutterOptimizer stutterOptimizer = new StutterOptimizer(structure);
+            stutterOptimizer.preprocess();
+            stutterOptimizer.partition();
+            stutterOptimizer.reduce();
+
+            assertEquals(1, structure.getInitial().size());
+            assertEquals(3, structure.getStateCount());
+            assertEquals(3, structure.getRelationCount());
+        });
+    }
+
+    @Test
+    public void multiLongChainTest() throws Throwable {
+        runWithSmallStack(() -> {
+            CompositeExpression expression = ExpressionBuilder.parseExpression("true");
+            MultiStructure structure = new MultiStructure();
+            structure.addPartition(new SpecificationSet(), new TreeSet<>(Set.of("a", "b")));
+
+            MultiState current = structure.addInitial(new MultiState("m0", label(0)), expression, expression);
+            MultiState loop = null;
+            for (int i = 1; i < LENGTH; i++) {
+                MultiState next = structure.addNext(current, new MultiState("m" + i, label(i)), expression, expression);
+                if (i == 1)
+                    loop = next;
+                else if (i == LENGTH - 2)
+                    structure.addNext(next, loop, expression, expression);
+                current = next;
+            }
+            structure.addNext(current, current, expression, expression);
+
+            new MultiStutterMergeSplitAction(structure.getPartitions());
+            structure.clear();
+
+            Partition partition = structure.getPartitions().iterator().next();
+            assertEquals(1, partition.getInitial().size());
+            assertEquals(4, partition.getStateCount());
+            assertEquals(5, partition.getRelationCount());
+        });
+    }
+
+    private static Set<String> label(int i) {
+        TreeSet<String> label = new TreeSet<>();
+        if (i == 0)
+            label.add("a");
+        else if (i == LENGTH - 1)
+            label.add("b");
+        return label;
+    }
+
+    private interface Action {
+        void run() throws Exception;
+    }
+
+    private static void runWithSmallStack(Action action) throws Throwable {
+        Throwable[] failure = new Throwable[1];
+        Thread thread = new Thread(null, () -> {
+            try {
+                action.run();
+            } catch (Throwable e) {
+                failure[0] = e;
+            }
+        }, "small-stack", STACK_SIZE);
+
+        thread.start();
+        thread.join();
+
+        if (failure[0] != null)
+            throw failure[0];
+    }
+}
@@ -0,0 +1,169 @@
+package nl.rug.ds.bpm.test;
+
+import nl.rug.ds.bpm.expression.CompositeExpression;
+import nl.rug.ds.bpm.expression.ExpressionBuilder;
+import nl.rug.ds.bpm.specification.jaxb.Formula;
+import nl.rug.ds.bpm.specification.jaxb.Input;
+import nl.rug.ds.bpm.specification.jaxb.InputElement;
+import nl.rug.ds.bpm.specification.jaxb.Specification;
+import nl.rug.ds.bpm.specification.jaxb.SpecificationType;
+import nl.rug.ds.bpm.verification.checker.nusmv2.NuSMVChecker;
+import nl.rug.ds.bpm.verification.checker.nusmv2.NuSMVEncoding;
+import nl.rug.ds.bpm.verification.event.VerificationEvent;
+import nl.rug.ds.bpm.verification.map.AtomicPropositionMap;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Parses NuSMV2 output line by line, and checks when the results are published and to which formulas they are routed.
+ */
+public class NuSMVCheckerTest {
+
+    @Test
+    public void publishTest() {
+        List<VerificationEvent> published = new ArrayList<>();
+        List<VerificationEvent> results = new ArrayList<>();
+        ParsingChecker checker = new ParsingChecker();
+        checker.setVerificationEventListener(published::add);
+
+        // True results have no counter example, and are published at once
+        VerificationEvent event = checker.parse("-- specification AG p0  is true", null, results);
+        assertNull(event);
+        assertEquals(1, published.size());
+        assertTrue(published.get(0).getVerificationResult());
+
+        // False results are published once their counter example is complete
+        event = checker.parse("-- specification AF p1  is false", event, results);
+        event = checker.parse("  -> State: 1.1 <-", event, results);
+        event = checker.parse("    state = s0", event, results);
+        event = checker.parse("    p0 = TRUE", event, results);
+        assertEquals(1, published.size());
+
+        VerificationEvent next = checker.parse("-- specification AG p1  is true", event, results);
+        assertNull(next);
+        assertEquals(3, published.size());
+        assertSame(event, published.get(1));
+        assertFalse(event.getVerificationResult());
+        assertEquals(List.of(List.of("p0")), event.getCounterExample());
+        assertEquals(published, results);
+    }
+
+    @Test
+    public void binaryTraceTest() {
+        List<VerificationEvent> results = new ArrayList<>();
+        ParsingChecker checker = new ParsingChecker();
+        checker.setEncoding(NuSMVEncoding.BINARY);
+
+        // States start at their headers, and neither the state bits nor enumerated state lines are atomic propositions
+        VerificationEvent event = null;
+        for (String line : List.of(
+                "-- specification AF p1  is false",
+                "-- as demonstrated by the following execution sequence",
+                "Trace Description: CTL Counterexample ",
+                "Trace Type: Counterexample ",
+                "  -> State: 1.1 <-",
+                "    bit0 = FALSE",
+                "    bit1 = TRUE",
+                "    p0 = TRUE",
+                "    p1 = FALSE",
+                "  -> State: 1.2 <-",
+                "    bit0 = TRUE",
+                "    p0 = FALSE",
+                "    p2 = TRUE",
+                "  -- Loop starts here",
+                "  -> State: 1.3 <-",
+                "    state = s2"))
+            event = checker.parse(line, event, results);
+
+        assertEquals(1, results.size());
+        assertFalse(event.getVerificationResult());
+        assertEquals(List.of(List.of("p0"), List.of("p2"), List.of("p2")), event.getCounterExample());
+    }
+
+    @Test
+    public void routingTest() {
+        List<VerificationEvent> results = new ArrayList<>();
+        ParsingChecker checker = new ParsingChecker();
+        AtomicPropositionMap<CompositeExpression> map = new AtomicPropositionMap<>("p");
+        String a = map.addID(ExpressionBuilder.parseExpression("a")), b = map.addID(ExpressionBuilder.parseExpression("b"));
+
+        Specification first = specification("s1", "AG x"), second = specification("s2", "AG x");
+        Specification response = specification("s3", "AG(x -> AF y)"), unchecked = specification("s4", "AF y");
+        for (Specification specification : List.of(first, second, response, unchecked))
+            checker.addFormula(specification.getSpecificationType().getFormulas().get(0), specification, map);
+        assertEquals("AG(" + a + " -> AF " + b + ")", checker.getFormulas().get(2).getOutputFormula());
+
+        // Results match formulas regardless of whitespace, and equal formulas in order of addition
+        VerificationEvent event = checker.parse("-- specification AG (" + a + " ->  AF\t" + b + ")  is true", null, results);
+        event = checker.parse("-- specification AG " + a + "  is false", event, results);
+        event = checker.parse("  -> State: 1.1 <-", event, results);
+        event = checker.parse("    state = s0", event, results);
+        event = checker.parse("-- specification AG " + a + "  is true", event, results);
+        checker.parse("-- specification AG " + b + "  is true", event, results);
+
+        assertEquals(4, results.size());
+        assertSame(response, results.get(0).getFormula().getSpecification());
+        assertSame(first, results.get(1).getFormula().getSpecification());
+        assertFalse(results.get(1).getVerificationResult());
+        assertSame(second, results.get(2).getFormula().getSpecification());
+        assertTrue(results.get(2).getVerificationResult());
+        assertNull(results.get(3).getFormula());
+
+        // Only the formulas with a result are removed, such that a pooled checker starts the next model clean
+        checker.clean();
+        assertEquals(1, checker.getFormulas().size());
+        assertSame(unchecked, checker.getFormulas().get(0).getSpecification());
+
+        checker.addFormula(first.getSpecificationType().getFormulas().get(0), first, map);
+        results.clear();
+        event = checker.parse("-- specification AG " + a + " is true", null, results);
+        checker.parse("-- specification AF " + b + " is true", event, results);
+
+        assertEquals(2, results.size());
+        assertSame(first, results.get(0).getFormula().getSpecification());
+        assertSame(unchecked, results.get(1).getFormula().getSpecification());
+        checker.clean();
+        assertTrue(checker.getFormulas().isEmpty());
+    }
+
+    /**
+     * Creates a specification with the given CTL formula over the inputs x and y, mapped to the elements a and b.
+     */
+    private static Specification specification(String id, String formula) {
+        SpecificationType type = new SpecificationType(id + "Type");
+        type.addInput(new Input("x"));
+        type.addInput(new Input("y"));
+        type.addFormula(new Formula(formula, "CTLSPEC"));
+
+        Specification specification = new Specification(type.getId());
+        specification.setId(id);
+        specification.setSpecificationType(type);
+        specification.addInputElement(new InputElement("a", "x"));
+        specification.addInputElement(new InputElement("b", "y"));
+        return specification;
+    }
+
+    private static class ParsingChecker extends NuSMVChecker {
+
+        private ParsingChecker() {
+            super(new File("NuSMV"));
+        }
+
+        private VerificationEvent parse(String line, VerificationEvent event, List<VerificationEvent> results) {
+            return parseLine(line, event, results);
+        }
+
+        private void clean() {
+            removeMatchedFormulas();
+        }
+    }
+}
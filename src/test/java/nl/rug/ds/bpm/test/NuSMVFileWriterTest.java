@@ -0,0 +1,90 @@
+package nl.rug.ds.bpm.test;
+
+import nl.rug.ds.bpm.verification.checker.nusmv2.NuSMVEncoding;
+import nl.rug.ds.bpm.verification.checker.nusmv2.NuSMVFileWriter;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Expands the cubes of the BINARY encoding back into sets of state numbers, and compares them with the state numbers
+ * they were written for.
+ */
+public class NuSMVFileWriterTest {
+    private static final int ROUNDS = 500;
+    private static final Pattern LITERAL = Pattern.compile("(!?)(next\\()?" + NuSMVEncoding.BIT_PREFIX + "(\\d+)\\)?");
+
+    @Test
+    public void cubesTest() {
+        Random random = new Random(0);
+        for (int round = 0; round < ROUNDS; round++) {
+            int n = 1 + random.nextInt(100);
+            int bits = (n <= 1 ? 1 : 32 - Integer.numberOfLeadingZeros(n - 1));
+
+            TreeSet<Integer> codes = new TreeSet<>();
+            int density = 1 + random.nextInt(4);
+            for (int code = 0; code < n; code++)
+                if (random.nextInt(density + 1) != 0)
+                    codes.add(code);
+            int[] sorted = codes.stream().mapToInt(Integer::intValue).toArray();
+            String message = "Codes " + codes + " of " + n;
+
+            // Without don't cares, the cubes cover exactly the given state numbers
+            assertEquals(codes, expand(NuSMVFileWriter.cubes(sorted, n, bits, false, false), bits, false), message);
+            assertEquals(codes, expand(NuSMVFileWriter.cubes(sorted, n, bits, false, true), bits, true), message);
+
+            // With don't cares, the cubes may in addition only cover unused state numbers
+            TreeSet<Integer> covered = expand(NuSMVFileWriter.cubes(sorted, n, bits, true, false), bits, false);
+            assertTrue(covered.containsAll(codes), message);
+            assertEquals(codes, new TreeSet<>(covered.headSet(n)), message);
+            if (codes.contains(n - 1))
+                assertEquals(codes.size() + (1 << bits) - n, covered.size(), message);
+        }
+    }
+
+    @Test
+    public void edgeTest() {
+        assertEquals("FALSE", NuSMVFileWriter.cubes(new int[0], 4, 2, true, false));
+        assertEquals("TRUE", NuSMVFileWriter.cubes(new int[]{0, 1, 2, 3}, 4, 2, false, false));
+        assertEquals("TRUE", NuSMVFileWriter.cubes(new int[]{0, 1, 2}, 3, 2, true, false));
+        assertEquals("(!bit1 & bit0)", NuSMVFileWriter.cubes(new int[]{1}, 3, 2, false, false));
+        assertEquals("(next(bit1) & !next(bit0))", NuSMVFileWriter.cubes(new int[]{2}, 3, 2, false, true));
+    }
+
+    /**
+     * Returns the state numbers that satisfy the given disjunction of cubes.
+     */
+    private static TreeSet<Integer> expand(String cubes, int bits, boolean next) {
+        TreeSet<Integer> codes = new TreeSet<>();
+        if (cubes.equals("FALSE"))
+            return codes;
+
+        for (String cube : cubes.split(" \\| ")) {
+            int mask = 0, value = 0;
+            if (!cube.equals("TRUE")) {
+                for (String literal : cube.substring(1, cube.length() - 1).split(" & ")) {
+                    Matcher matcher = LITERAL.matcher(literal);
+                    assertTrue(matcher.matches(), literal);
+                    assertEquals(next, matcher.group(2) != null, literal);
+
+                    int bit = Integer.parseInt(matcher.group(3));
+                    mask |= 1 << bit;
+                    if (matcher.group(1).isEmpty())
+                        value |= 1 << bit;
+                }
+            }
+
+            for (int code = 0; code < 1 << bits; code++)
+                if ((code & mask) == value)
+                    codes.add(code);
+        }
+
+        return codes;
+    }
+}
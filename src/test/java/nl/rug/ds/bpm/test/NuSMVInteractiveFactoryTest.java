@@ -0,0 +1,212 @@
+package nl.rug.ds.bpm.test;
+
+import nl.rug.ds.bpm.verification.checker.Checker;
+import nl.rug.ds.bpm.verification.checker.nusmv2interactive.NuSMVInteractiveChecker;
+import nl.rug.ds.bpm.verification.checker.nusmv2interactive.NuSMVInteractiveFactory;
+import nl.rug.ds.bpm.verification.model.kripke.KripkeState;
+import nl.rug.ds.bpm.verification.model.kripke.KripkeStructure;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Tests the pool of interactive checkers against a shell script that mimics the interactive prompt of NuSMV2.
+ */
+public class NuSMVInteractiveFactoryTest {
+
+    @Test
+    public void maxSizeTest() throws Exception {
+        NuSMVInteractiveFactory factory = new NuSMVInteractiveFactory(fake(""));
+        factory.setMaxSize(1);
+
+        try {
+            Checker first = factory.getChecker();
+            assertNotNull(first);
+            assertEquals(1, factory.getSize());
+
+            AtomicReference<Checker> second = new AtomicReference<>();
+            Thread waiter = new Thread(() -> second.set(factory.getChecker()));
+            waiter.start();
+
+            // The pool is at its maximum size, such that the second request waits for a release
+            waiter.join(300);
+            assertNull(second.get());
+
+            factory.release(first);
+            waiter.join(5000);
+            assertSame(first, second.get());
+            assertEquals(1, factory.getSize());
+        } finally {
+            factory.destroy();
+        }
+    }
+
+    @Test
+    public void maxUsesTest() throws Exception {
+        NuSMVInteractiveFactory factory = new NuSMVInteractiveFactory(fake(""));
+        factory.setMaxUses(1);
+
+        try {
+            NuSMVInteractiveChecker first = (NuSMVInteractiveChecker) factory.getChecker();
+            factory.release(first);
+
+            // Unused checkers are recycled
+            NuSMVInteractiveChecker second = (NuSMVInteractiveChecker) factory.getChecker();
+            assertSame(first, second);
+
+            KripkeStructure structure = new KripkeStructure();
+            KripkeState state = structure.addInitial(new KripkeState(Set.of("p0")));
+            structure.addNext(state, state);
+            second.createModel(structure);
+            second.checkModel();
+            assertEquals(1, second.getUses());
+            factory.release(second);
+
+            // Checkers that reached the maximum number of uses are replaced
+            assertFalse(second.isAlive());
+            assertEquals(0, factory.getSize());
+            NuSMVInteractiveChecker third = (NuSMVInteractiveChecker) factory.getChecker();
+            assertNotSame(second, third);
+            assertEquals(0, third.getUses());
+        } finally {
+            factory.destroy();
+        }
+    }
+
+    @Test
+    public void deadProcessTest() throws Exception {
+        NuSMVInteractiveFactory factory = new NuSMVInteractiveFactory(fake(""), 1);
+
+        try {
+            assertEquals(1, factory.getSize());
+
+            NuSMVInteractiveChecker first = (NuSMVInteractiveChecker) factory.getChecker();
+            first.destroy();
+            factory.release(first);
+
+            NuSMVInteractiveChecker second = (NuSMVInteractiveChecker) factory.getChecker();
+            assertNotSame(first, second);
+            assertTrue(second.isAlive());
+            assertTrue(second.probe());
+        } finally {
+            factory.destroy();
+        }
+    }
+
+    @Test
+    public void maintenanceTest() throws Exception {
+        File probing = File.createTempFile("probing", ".marker");
+        assertTrue(probing.delete());
+
+        // Probes take two seconds, and are announced by creating the marker file
+        NuSMVInteractiveFactory factory = new NuSMVInteractiveFactory(fake("touch " + probing.getAbsolutePath() + "; sleep 2;"));
+        factory.setMaxSize(2);
+
+        try {
+            Checker first = factory.getChecker();
+            Checker second = factory.getChecker();
+            factory.release(second);
+            factory.release(first);
+
+            factory.setMaintenanceInterval(50);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!probing.exists() && System.currentTimeMillis() < deadline)
+                Thread.sleep(10);
+            assertTrue(probing.exists());
+
+            // Only the probed checker is taken from the pool
+            long t0 = System.currentTimeMillis();
+            Checker available = factory.getChecker();
+            assertNotNull(available);
+            assertTrue(System.currentTimeMillis() - t0 < 1000);
+            factory.setMaintenanceInterval(0);
+            factory.release(available);
+        } finally {
+            factory.destroy();
+            probing.delete();
+        }
+    }
+
+    @Test
+    public void destroyTest() throws Exception {
+        NuSMVInteractiveFactory factory = new NuSMVInteractiveFactory(fake(""), 1);
+        Checker checker = factory.getChecker();
+        factory.destroy();
+
+        assertNull(factory.getChecker());
+        factory.release(checker);
+        assertEquals(0, factory.getSize());
+    }
+
+    @Test
+    public void lateErrorTest() throws Exception {
+        // The first go writes an error well after its prompt
+        NuSMVInteractiveFactory factory = new NuSMVInteractiveFactory(fake("", "[ \"$cmd\" = go ] && [ -z \"$late\" ] && { late=1; sleep 0.3; echo late error >&2; };"));
+
+        try {
+            NuSMVInteractiveChecker checker = (NuSMVInteractiveChecker) factory.getChecker();
+            KripkeStructure structure = new KripkeStructure();
+            KripkeState state = structure.addInitial(new KripkeState(Set.of("p0")));
+            structure.addNext(state, state);
+
+            checker.createModel(structure);
+            checker.checkModel();
+            assertEquals("late error\n", checker.getOutputChecker());
+            factory.release(checker);
+
+            // The error is not attributed to the next check of the pooled process
+            NuSMVInteractiveChecker next = (NuSMVInteractiveChecker) factory.getChecker();
+            assertSame(checker, next);
+            next.createModel(structure);
+            next.checkModel();
+            assertEquals("", next.getOutputChecker());
+            assertTrue(next.probe());
+            factory.release(next);
+        } finally {
+            factory.destroy();
+        }
+    }
+
+    private static File fake(String onEcho) throws IOException {
+        return fake(onEcho, "");
+    }
+
+    /**
+     * Writes a script that answers each command with a prompt, and echoes the argument of echo commands after
+     * running the given shell commands, or to the error stream when given -2. Other commands are followed by the
+     * given shell commands after their prompt.
+     */
+    private static File fake(String onEcho, String onCommand) throws IOException {
+        assumeTrue(new File("/bin/sh").canExecute(), "Requires a POSIX shell");
+
+        File script = File.createTempFile("nusmv", ".sh");
+        script.deleteOnExit();
+        Files.writeString(script.toPath(), "#!/bin/sh\n" +
+                "printf 'NuSMV > '\n" +
+                "while read cmd arg; do\n" +
+                "  case \"$cmd\" in\n" +
+                "    quit) exit 0 ;;\n" +
+                "    echo) case \"$arg\" in\n" +
+                "        -2\\ *) printf '%s\\n' \"${arg#-2 }\" >&2; printf 'NuSMV > ' ;;\n" +
+                "        *) " + onEcho + " printf '%s\\nNuSMV > ' \"$arg\" ;;\n" +
+                "      esac ;;\n" +
+                "    *) printf 'NuSMV > '; " + onCommand + " ;;\n" +
+                "  esac\n" +
+                "done\n");
+        assertTrue(script.setExecutable(true));
+        return script;
+    }
+}
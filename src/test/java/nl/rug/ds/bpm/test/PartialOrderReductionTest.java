@@ -0,0 +1,178 @@
+package nl.rug.ds.bpm.test;
+
+import nl.rug.ds.bpm.petrinet.interfaces.element.TransitionI;
+import nl.rug.ds.bpm.petrinet.ptnet.PlaceTransitionNet;
+import nl.rug.ds.bpm.pnml.ptnet.marshaller.PTNetUnmarshaller;
+import nl.rug.ds.bpm.specification.jaxb.BPMSpecification;
+import nl.rug.ds.bpm.verification.VerificationFactory;
+import nl.rug.ds.bpm.verification.checker.explicit.ExplicitCheckerFactory;
+import nl.rug.ds.bpm.verification.converter.kripke.NetStructure;
+import nl.rug.ds.bpm.verification.verifier.kripke.KripkeVerifier;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifies specifications without next operators with and without partial-order reduction, and compares the verdicts
+ * and the number of States of the computed structures. The structure of each net is read from its PNML file, as a
+ * PlaceTransitionNet does not expose its arcs.
+ * <p>
+ * In por.pnml, a split marks two branches that each fire an invisible Transition (x1, x2) and a visible one (w1, w2)
+ * before a join, which is followed by a free choice between y and z. porNonFreeChoice.pnml adds a Transition that
+ * shares only part of the preset of y and z, and porData.pnml adds a script to x1.
+ * </p>
+ */
+public class PartialOrderReductionTest {
+
+    @Test
+    public void freeChoiceTest() throws Exception {
+        Run full = verify("por.pnml", "porSpecification.xml", false);
+        Run reduced = verify("por.pnml", "porSpecification.xml", true);
+
+        assertEquals(full.verdicts, reduced.verdicts);
+        assertTrue(full.verdicts.containsValue(true));
+        assertTrue(full.verdicts.containsValue(false));
+
+        // Only one interleaving of x1 and x2 is explored
+        assertTrue(reduced.states < full.states, reduced.states + " of " + full.states + " states");
+    }
+
+    @Test
+    public void testNetTest() throws Exception {
+        Run full = verify("pnml.pnml", "specification.xml", false);
+        Run reduced = verify("pnml.pnml", "specification.xml", true);
+
+        assertFalse(full.verdicts.isEmpty());
+        assertEquals(full.verdicts, reduced.verdicts);
+        assertTrue(reduced.states <= full.states);
+    }
+
+    @Test
+    public void nonFreeChoiceTest() throws Exception {
+        Run full = verify("porNonFreeChoice.pnml", "porSpecification.xml", false);
+        Run reduced = verify("porNonFreeChoice.pnml", "porSpecification.xml", true);
+
+        assertEquals(full.verdicts, reduced.verdicts);
+        assertEquals(full.states, reduced.states);
+    }
+
+    @Test
+    public void dataTest() throws Exception {
+        Run full = verify("porData.pnml", "porSpecification.xml", false);
+        Run reduced = verify("porData.pnml", "porSpecification.xml", true);
+
+        assertEquals(full.verdicts, reduced.verdicts);
+        assertEquals(full.states, reduced.states);
+    }
+
+    /**
+     * In porCycle.pnml, the invisible Transitions x and y move a token around a cycle, in parallel with the visible v
+     * and tf. Expanding each State of the cycle by x or y alone would close the cycle without ever firing v, such that
+     * tf would be unreachable. The cycle is closed by a State that is not new, which must therefore be fully expanded.
+     */
+    @Test
+    public void invisibleCycleTest() throws Exception {
+        Run full = verify("porCycle.pnml", "porCycleSpecification.xml", false);
+        Run reduced = verify("porCycle.pnml", "porCycleSpecification.xml", true);
+
+        assertEquals(2, full.verdicts.size());
+        assertFalse(full.verdicts.containsValue(false));
+        assertEquals(full.verdicts, reduced.verdicts);
+        assertTrue(reduced.states <= full.states);
+    }
+
+    private static Run verify(String net, String specification, boolean partialOrderReduction) throws Exception {
+        File netFile = resource(net);
+        PlaceTransitionNet placeTransitionNet = new PlaceTransitionNet(new PTNetUnmarshaller(netFile).getNets().iterator().next());
+        BPMSpecification bpmSpecification = VerificationFactory.loadSpecification(resource(specification));
+
+        KripkeVerifier verifier = new KripkeVerifier(placeTransitionNet, bpmSpecification, new ExplicitCheckerFactory());
+        verifier.setPartialOrderReduction(partialOrderReduction);
+        verifier.setNetStructure(new PnmlStructure(placeTransitionNet, netFile));
+
+        Run run = new Run();
+        verifier.addVerificationEventListener(event -> run.verdicts.put(event.getId() + " " + event.getFormula().getInputFormula(), event.getVerificationResult()));
+        verifier.addPerformanceEventListener(event -> run.count(event.getMetrics().get("StructureStateCount").longValue()));
+        verifier.verify();
+
+        return run;
+    }
+
+    private static File resource(String name) throws Exception {
+        return new File(PartialOrderReductionTest.class.getResource("/" + name).toURI());
+    }
+
+    /**
+     * The verdicts and the number of States of a verification, which may publish its events from several threads.
+     */
+    private static class Run {
+        final Map<String, Boolean> verdicts = Collections.synchronizedMap(new TreeMap<>());
+        long states;
+
+        synchronized void count(long states) {
+            this.states = Math.max(this.states, states);
+        }
+    }
+
+    /**
+     * The arcs of a PlaceTransitionNet as read from its PNML file.
+     */
+    private static class PnmlStructure implements NetStructure {
+        private final List<TransitionI> transitions = new ArrayList<>();
+        private final Map<String, Set<String>> presets = new HashMap<>(), postsets = new HashMap<>();
+
+        PnmlStructure(PlaceTransitionNet net, File file) throws Exception {
+            Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(file);
+
+            NodeList transitionElements = document.getElementsByTagName("transition");
+            for (int i = 0; i < transitionElements.getLength(); i++) {
+                String id = ((Element) transitionElements.item(i)).getAttribute("id");
+                transitions.add(net.getTransition(id));
+                presets.put(id, new HashSet<>());
+                postsets.put(id, new HashSet<>());
+            }
+
+            NodeList arcs = document.getElementsByTagName("arc");
+            for (int i = 0; i < arcs.getLength(); i++) {
+                Element arc = (Element) arcs.item(i);
+                String source = arc.getAttribute("source"), target = arc.getAttribute("target");
+                if (presets.containsKey(target))
+                    presets.get(target).add(source);
+                else
+                    postsets.get(source).add(target);
+            }
+        }
+
+        @Override
+        public Collection<? extends TransitionI> getTransitions() {
+            return transitions;
+        }
+
+        @Override
+        public Set<String> getPreset(TransitionI transition) {
+            return presets.get(transition.getId());
+        }
+
+        @Override
+        public Set<String> getPostset(TransitionI transition) {
+            return postsets.get(transition.getId());
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package nl.rug.ds.bpm.test;
+
+import nl.rug.ds.bpm.util.exception.ConverterException;
+import nl.rug.ds.bpm.verification.model.kripke.KripkeState;
+import nl.rug.ds.bpm.verification.model.kripke.KripkeStructure;
+import nl.rug.ds.bpm.verification.model.kripke.postprocess.stutter.StutterOptimizer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Compares the partitions of the StutterOptimizer with those of a naive signature refinement on random Kripke
+ * structures, of which some states are unreachable and have transitions into reachable states.
+ */
+public class StutterOptimizerTest {
+    private static final int ROUNDS = 500;
+
+    @Test
+    public void unreachablePredecessorTest() throws ConverterException {
+        KripkeStructure structure = new KripkeStructure();
+        KripkeState a = structure.addInitial(new KripkeState("m0", new TreeSet<>(Set.of("a"))));
+        KripkeState b = structure.addNext(a, new KripkeState("m1", new TreeSet<>(Set.of("a"))));
+        KripkeState c = structure.addNext(b, new KripkeState("m2", new TreeSet<>(Set.of("b"))));
+        structure.addNext(c, c);
+
+        KripkeState unreachable = structure.addState(new KripkeState("m3", new TreeSet<>(Set.of("b"))));
+        structure.addNext(unreachable, b);
+
+        reduce(structure);
+
+        assertEquals(2, structure.getStateCount());
+        assertFalse(structure.getStates().contains(unreachable));
+    }
+
+    @Test
+    public void signatureRefinementTest() throws ConverterException {
+        for (int seed = 0; seed < ROUNDS; seed++) {
+            Random random = new Random(seed);
+            int reachable = 2 + random.nextInt(30);
+            int unreachable = random.nextInt(5);
+            int n = reachable + unreachable;
+            int labels = 1 + random.nextInt(3);
+
+            KripkeStructure structure = new KripkeStructure();
+            KripkeState[] states = new KripkeState[n];
+            int[] label = new int[n];
+            List<Set<Integer>> next = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                label[i] = random.nextInt(labels);
+                states[i] = new KripkeState("m" + i, new TreeSet<>(Set.of("p" + label[i])));
+                next.add(new TreeSet<>());
+            }
+
+            // Each reachable state has a reachable predecessor, and unreachable states only lead into reachable states
+            structure.addInitial(states[0]);
+            for (int i = 1; i < reachable; i++)
+                addNext(structure, states, next, random.nextInt(i), i);
+            for (int e = 0; e < reachable; e++) {
+                int x = random.nextInt(reachable), y = random.nextInt(reachable);
+                if (x != y)
+                    addNext(structure, states, next, x, y);
+            }
+            for (int i = reachable; i < n; i++) {
+                structure.addState(states[i]);
+                addNext(structure, states, next, i, random.nextInt(reachable));
+            }
+            for (int i = 0; i < reachable; i++)
+                if (next.get(i).isEmpty())
+                    addNext(structure, states, next, i, i);
+
+            int expected = refine(reachable, label, next);
+            reduce(structure);
+
+            assertEquals(expected, structure.getStateCount(), "Seed " + seed);
+        }
+    }
+
+    private static void reduce(KripkeStructure structure) {
+        StutterOptimizer stutterOptimizer = new StutterOptimizer(structure);
+        stutterOptimizer.preprocess();
+        stutterOptimizer.partition();
+        stutterOptimizer.reduce();
+    }
+
+    private static void addNext(KripkeStructure structure, KripkeState[] states, List<Set<Integer>> next, int from, int to) throws ConverterException {
+        structure.addNext(states[from], states[to]);
+        next.get(from).add(to);
+    }
+
+    /**
+     * Returns the number of stutter equivalence classes of the first given number of states, which must be closed under
+     * transitions. States are initially grouped by the connected components of transitions between equal labels, of
+     * which sink states are split off, and blocks are then split by the sets of other blocks that their states reach
+     * through transitions within their block, until no block is split.
+     */
+    private static int refine(int n, int[] label, List<Set<Integer>> next) {
+        int[] parent = new int[n];
+        for (int i = 0; i < n; i++)
+            parent[i] = i;
+        for (int i = 0; i < n; i++)
+            for (int j : next.get(i))
+                if (label[i] == label[j])
+                    parent[find(parent, i)] = find(parent, j);
+
+        Map<Integer, Integer> size = new HashMap<>();
+        for (int i = 0; i < n; i++)
+            size.merge(find(parent, i), 1, Integer::sum);
+
+        int[] block = new int[n];
+        for (int i = 0; i < n; i++) {
+            boolean sink = next.get(i).equals(Set.of(i));
+            block[i] = (sink && size.get(find(parent, i)) > 1 ? n + i : find(parent, i));
+        }
+
+        int count = count(block);
+        while (true) {
+            Map<String, Integer> signatures = new HashMap<>();
+            int[] refined = new int[n];
+            for (int i = 0; i < n; i++) {
+                Set<Integer> signature = new TreeSet<>();
+                Set<Integer> seen = new HashSet<>(Set.of(i));
+                Deque<Integer> queue = new ArrayDeque<>(Set.of(i));
+                while (!queue.isEmpty())
+                    for (int j : next.get(queue.poll())) {
+                        if (block[j] != block[i])
+                            signature.add(block[j]);
+                        else if (seen.add(j))
+                            queue.add(j);
+                    }
+                refined[i] = signatures.computeIfAbsent(block[i] + ":" + signature, k -> signatures.size());
+            }
+
+            if (signatures.size() == count)
+                return count;
+            block = refined;
+            count = signatures.size();
+        }
+    }
+
+    private static int count(int[] block) {
+        return (int) Arrays.stream(block).distinct().count();
+    }
+
+    private static int find(int[] parent, int x) {
+        while (parent[x] != x)
+            x = parent[x] = parent[parent[x]];
+        return x;
+    }
+}
@@ -0,0 +1,92 @@
+package nl.rug.ds.bpm.test;
+
+import nl.rug.ds.bpm.petrinet.ptnet.PlaceTransitionNet;
+import nl.rug.ds.bpm.pnml.ptnet.marshaller.PTNetUnmarshaller;
+import nl.rug.ds.bpm.specification.jaxb.Specification;
+import nl.rug.ds.bpm.verification.VerificationFactory;
+import nl.rug.ds.bpm.verification.checker.explicit.ExplicitCheckerFactory;
+import nl.rug.ds.bpm.verification.verifier.stutter.StutterVerifier;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Verifies the test nets with a StutterVerifier that reduces stuttering steps while converting, and with one that
+ * reduces the full structure afterwards, and checks that both reach the same minimal structure and verdicts.
+ */
+public class StutterVerifierTest {
+    private static final String[] NETS = {"pnml.pnml", "pnml2.pnml", "pnml3.pnml", "pnml4.pnml"};
+    private static final int PARALLELISM = 4;
+
+    @Test
+    public void onTheFlyReductionTest() throws Exception {
+        for (String name : NETS) {
+            Run postHoc = verify(name, false, null);
+            Run onTheFly = verify(name, true, null);
+
+            assertFalse(postHoc.verdicts.isEmpty(), name);
+            assertEquals(postHoc.verdicts, onTheFly.verdicts, name);
+            assertEquals(postHoc.reduced, onTheFly.reduced, name);
+        }
+    }
+
+    @Test
+    public void parallelOnTheFlyReductionTest() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(PARALLELISM);
+        try {
+            for (String name : NETS) {
+                Run postHoc = verify(name, false, null);
+                Run onTheFly = verify(name, true, executor);
+
+                assertEquals(postHoc.verdicts, onTheFly.verdicts, name);
+                assertEquals(postHoc.reduced, onTheFly.reduced, name);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static Run verify(String name, boolean onTheFly, ExecutorService executor) throws Exception {
+        File file = new File(StutterVerifierTest.class.getResource("/" + name).toURI());
+        PlaceTransitionNet net = new PlaceTransitionNet(new PTNetUnmarshaller(file).getNets().iterator().next());
+        File specification = new File(StutterVerifierTest.class.getResource("/specification.xml").toURI());
+
+        StutterVerifier verifier = new StutterVerifier(net, VerificationFactory.loadSpecification(specification), new ExplicitCheckerFactory());
+        verifier.setOnTheFlyReduction(onTheFly);
+        if (executor != null)
+            verifier.setExecutor(executor, PARALLELISM);
+
+        Run run = new Run();
+        verifier.addVerificationEventListener(event -> run.verdicts.put(event.getId() + " " + event.getFormula().getInputFormula(), event.getVerificationResult()));
+        verifier.addPerformanceEventListener(event -> {
+            StringJoiner set = new StringJoiner(",");
+            for (Specification s : event.getSpecificationSet().getSpecifications())
+                set.add(s.getId());
+
+            Map<String, Number> metrics = event.getMetrics();
+            run.reduced.put(set.toString(), List.of(metrics.get("ReducedStructureStateCount").longValue(), metrics.get("ReducedStructureRelationCount").longValue()));
+        });
+        verifier.verify();
+
+        return run;
+    }
+
+    /**
+     * The verdicts and the number of States and relations of the reduced structure of each specification set, which
+     * may be published from several threads.
+     */
+    private static class Run {
+        final Map<String, Boolean> verdicts = Collections.synchronizedMap(new TreeMap<>());
+        final Map<String, List<Long>> reduced = Collections.synchronizedMap(new TreeMap<>());
+    }
+}
@@ -0,0 +1,299 @@
+package nl.rug.ds.bpm.test;
+
+import nl.rug.ds.bpm.util.bdd.BDDManager;
+import nl.rug.ds.bpm.util.exception.CheckerException;
+import nl.rug.ds.bpm.util.exception.ConverterException;
+import nl.rug.ds.bpm.util.exception.FormulaException;
+import nl.rug.ds.bpm.verification.checker.explicit.CTLEvaluator;
+import nl.rug.ds.bpm.verification.checker.explicit.StateGraph;
+import nl.rug.ds.bpm.verification.checker.formula.FormulaParser;
+import nl.rug.ds.bpm.verification.checker.formula.TemporalFormula;
+import nl.rug.ds.bpm.verification.checker.symbolic.SymbolicEvaluator;
+import nl.rug.ds.bpm.verification.model.kripke.KripkeState;
+import nl.rug.ds.bpm.verification.model.kripke.KripkeStructure;
+import nl.rug.ds.bpm.verification.model.symbolic.SymbolicState;
+import nl.rug.ds.bpm.verification.model.symbolic.SymbolicStructure;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the satisfaction sets of the SymbolicEvaluator with those of the CTLEvaluator on random structures, which
+ * are built both as a KripkeStructure and as a SymbolicStructure.
+ */
+public class SymbolicEvaluatorTest {
+    private static final int ROUNDS = 100;
+    private static final int BRANCHES = 12;
+    private static final int LIMIT = 20000;
+    private static final String[] FORMULAS = {
+            "p", "!p & q", "p <-> q", "EX q", "AX p", "EF (p & q)", "AF q", "EG p", "AG (p -> AF q)",
+            "AG (p -> EF q)", "E [p U q]", "A [p U q]", "AG (p -> A [p U q])", "EG EF p", "AF AG !q"
+    };
+
+    @Test
+    public void structureTest() {
+        SymbolicStructure structure = new SymbolicStructure();
+        SymbolicState s0 = new SymbolicState(Set.of("a"), Set.of("t"));
+        SymbolicState s1 = new SymbolicState(Set.of("b"), Set.of());
+
+        assertTrue(structure.addInitial(s0, Set.of("p")));
+        assertTrue(structure.addState(s1, Set.of("q")));
+        assertFalse(structure.addState(s1, Set.of("q")));
+        structure.addNext(s0, s1);
+        structure.addNext(s1, s1);
+
+        // A place that is added later is unmarked in the States added before
+        SymbolicState s2 = new SymbolicState(Set.of("b", "c"), Set.of());
+        assertTrue(structure.addState(s2, Set.of()));
+        structure.addNext(s2, s0);
+        structure.freeze();
+
+        BDDManager manager = structure.getManager();
+        int b0 = structure.encode(s0), b1 = structure.encode(s1), b2 = structure.encode(s2);
+        assertEquals(3, structure.getStateCount(), 0);
+        assertNotEquals(b1, b2);
+        assertEquals(b0, structure.getInitial());
+        assertEquals(b0, structure.getLabel("p"));
+        assertEquals(Set.of("q"), structure.getAtomicPropositions(b1));
+        assertEquals(b1, structure.pick(b1));
+
+        assertEquals(b1, structure.image(b0));
+        assertEquals(b1, structure.image(b1));
+        assertEquals(b0, structure.image(b2));
+        assertEquals(manager.or(b0, b1), structure.pre(b1));
+        assertEquals(b2, structure.pre(b0));
+
+        assertThrows(IllegalStateException.class, () -> structure.addState(new SymbolicState(Set.of("d"), Set.of()), Set.of()));
+    }
+
+    /**
+     * Builds the structures of n independent branches as the converter would, State by State, with a BDDManager of
+     * which the limit is only reached without collection.
+     */
+    @Test
+    public void parallelBranchesTest() throws Exception {
+        int[] nodes = new int[BRANCHES + 1];
+
+        for (int n = 2; n <= BRANCHES; n++) {
+            BDDManager manager = new BDDManager(1 << 10, 1 << 12, LIMIT);
+            SymbolicStructure structure = branches(n, manager);
+
+            // Collecting with the BDDs of the structure as roots leaves only the nodes of the structure
+            int[] roots = new int[3 + n];
+            roots[0] = structure.getInitial();
+            roots[1] = structure.getReachable();
+            roots[2] = structure.getRelation();
+            for (int i = 0; i < n; i++)
+                roots[3 + i] = structure.getLabel("d" + i);
+            manager.collect(roots);
+            nodes[n] = manager.getNodeCount();
+
+            structure.freeze();
+            assertEquals(1 << n, structure.getStateCount(), 0);
+
+            StringBuilder all = new StringBuilder("d0");
+            for (int i = 1; i < n; i++)
+                all.append(" & d").append(i);
+            SymbolicEvaluator evaluator = new SymbolicEvaluator(structure, List.of());
+            assertTrue(evaluator.holds(FormulaParser.parse("AF (" + all + ")")));
+            assertFalse(evaluator.holds(FormulaParser.parse("AG (d0 -> d1)")));
+        }
+
+        // The reachable States double with each branch, while the nodes of the structure grow quadratically, as each of
+        // the n labels and parts of the relation spans the variables of all branches
+        for (int n = 4; n <= BRANCHES; n++)
+            assertTrue(nodes[n] - 2 * nodes[n - 1] + nodes[n - 2] <= nodes[4] - 2 * nodes[3] + nodes[2], "Nodes " + Arrays.toString(nodes));
+    }
+
+    @Test
+    public void agreementTest() throws Exception {
+        for (int seed = 0; seed < ROUNDS; seed++) {
+            Structures structures = new Structures(new Random(seed));
+            CTLEvaluator explicit = new CTLEvaluator(structures.graph, List.of());
+            SymbolicEvaluator symbolic = new SymbolicEvaluator(structures.symbolic, List.of());
+
+            for (String formula : FORMULAS)
+                assertAgree(structures, explicit, symbolic, formula, seed);
+        }
+    }
+
+    @Test
+    public void fairAgreementTest() throws Exception {
+        List<TemporalFormula> fairness = List.of(FormulaParser.parse("q"), FormulaParser.parse("!p"));
+        int someFair = 0, someUnfair = 0;
+
+        for (int seed = 0; seed < ROUNDS; seed++) {
+            Structures structures = new Structures(new Random(seed));
+            CTLEvaluator explicit = new CTLEvaluator(structures.graph, fairness);
+            SymbolicEvaluator symbolic = new SymbolicEvaluator(structures.symbolic, fairness);
+
+            assertEquals(explicit.getFair(), structures.toBitSet(symbolic.getFair()), "Seed " + seed);
+            if (!explicit.getFair().isEmpty())
+                someFair++;
+            if (explicit.getFair().cardinality() < structures.graph.size())
+                someUnfair++;
+
+            for (String formula : FORMULAS)
+                assertAgree(structures, explicit, symbolic, formula, seed);
+        }
+
+        // Fairness rules out States in a good share of the structures, but not all States in all of them
+        assertTrue(someFair > ROUNDS / 10);
+        assertTrue(someUnfair > ROUNDS / 10);
+    }
+
+    /**
+     * Returns the structure of n branches that each mark a_i and enable t_i until t_i fires and marks b_i, explored
+     * breadth-first and with the variables ordered as the converter would. The atomic proposition d_i holds once branch
+     * i is done.
+     */
+    private static SymbolicStructure branches(int n, BDDManager manager) {
+        SymbolicStructure structure = new SymbolicStructure(manager);
+        Deque<Integer> frontier = new ArrayDeque<>(List.of(0));
+        for (int i = 0; i < n; i++)
+            structure.addVariables(Set.of("a" + i), "t" + i);
+        structure.addInitial(branchState(n, 0), branchLabel(n, 0));
+
+        while (!frontier.isEmpty()) {
+            int done = frontier.poll();
+            if (done == (1 << n) - 1)
+                structure.addNext(branchState(n, done), branchState(n, done));
+
+            for (int i = 0; i < n; i++) {
+                if ((done & (1 << i)) != 0)
+                    continue;
+
+                int next = done | (1 << i);
+                if (structure.addState(branchState(n, next), branchLabel(n, next), "t" + i))
+                    frontier.add(next);
+                structure.addNext(branchState(n, done), branchState(n, next));
+            }
+        }
+
+        return structure;
+    }
+
+    private static SymbolicState branchState(int n, int done) {
+        Set<String> marked = new HashSet<>(), enabled = new HashSet<>();
+        for (int i = 0; i < n; i++) {
+            if ((done & (1 << i)) != 0)
+                marked.add("b" + i);
+            else {
+                marked.add("a" + i);
+                enabled.add("t" + i);
+            }
+        }
+        return new SymbolicState(marked, enabled);
+    }
+
+    private static Set<String> branchLabel(int n, int done) {
+        Set<String> label = new HashSet<>();
+        for (int i = 0; i < n; i++)
+            if ((done & (1 << i)) != 0)
+                label.add("d" + i);
+        return label;
+    }
+
+    /**
+     * Asserts that both evaluators find the same satisfaction set and verdict, and that a symbolic counterexample
+     * starts in the violating State and follows the relation.
+     */
+    private static void assertAgree(Structures structures, CTLEvaluator explicit, SymbolicEvaluator symbolic, String formula, int seed) throws CheckerException, FormulaException {
+        TemporalFormula parsed = FormulaParser.parse(formula);
+        String message = formula + " with seed " + seed;
+
+        assertEquals(explicit.evaluate(parsed), structures.toBitSet(symbolic.evaluate(parsed)), message);
+        assertEquals(explicit.holds(parsed), symbolic.holds(parsed), message);
+
+        int violating = symbolic.getViolating(parsed);
+        if (violating == BDDManager.FALSE)
+            return;
+
+        BDDManager manager = structures.symbolic.getManager();
+        List<Integer> path = symbolic.getCounterExample(parsed, violating);
+        assertEquals(violating, (int) path.get(0), message);
+        assertEquals(1, manager.satCount(violating, structures.symbolic.getVariables()), 0, message);
+        for (int i = 0; i + 1 < path.size(); i++)
+            assertNotEquals(BDDManager.FALSE, manager.and(structures.symbolic.image(path.get(i)), path.get(i + 1)), message);
+    }
+
+    /**
+     * A random structure of which each State is labeled with a random subset of p and q and has between one and three
+     * next States, built as a KripkeStructure and as a SymbolicStructure in which State i marks place i.
+     */
+    private static class Structures {
+        final KripkeStructure kripke = new KripkeStructure();
+        final SymbolicStructure symbolic = new SymbolicStructure();
+        final List<KripkeState> states = new ArrayList<>();
+        final List<SymbolicState> symbolicStates = new ArrayList<>();
+        final StateGraph graph;
+
+        Structures(Random random) throws ConverterException {
+            int n = 2 + random.nextInt(10);
+            for (int i = 0; i < n; i++) {
+                Set<String> label = new HashSet<>();
+                if (random.nextBoolean())
+                    label.add("p");
+                if (random.nextBoolean())
+                    label.add("q");
+
+                KripkeState state = new KripkeState("m" + i, label);
+                SymbolicState symbolicState = new SymbolicState(Set.of("s" + i), Set.of());
+                if (i == 0) {
+                    kripke.addInitial(state);
+                    symbolic.addInitial(symbolicState, label);
+                } else {
+                    kripke.addState(state);
+                    symbolic.addState(symbolicState, label);
+                }
+                states.add(state);
+                symbolicStates.add(symbolicState);
+            }
+
+            // Each State is reached from the State before it, such that all States are reachable
+            for (int i = 0; i < n; i++) {
+                Set<Integer> next = new HashSet<>();
+                if (i + 1 < n)
+                    next.add(i + 1);
+                while (next.isEmpty() || random.nextInt(3) == 0)
+                    next.add(random.nextInt(n));
+
+                for (int j : next) {
+                    kripke.addNext(states.get(i), states.get(j));
+                    symbolic.addNext(symbolicStates.get(i), symbolicStates.get(j));
+                }
+            }
+
+            symbolic.freeze();
+            graph = StateGraph.of(kripke);
+        }
+
+        /**
+         * Returns the indices in the StateGraph of the States in the given BDD.
+         */
+        BitSet toBitSet(int set) {
+            BitSet result = new BitSet();
+            BDDManager manager = symbolic.getManager();
+            for (int i = 0; i < graph.size(); i++) {
+                int state = symbolic.encode(symbolicStates.get(states.indexOf(graph.getState(i))));
+                if (manager.and(set, state) != BDDManager.FALSE)
+                    result.set(i);
+            }
+            return result;
+        }
+    }
+}
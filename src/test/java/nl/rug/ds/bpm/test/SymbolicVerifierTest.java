@@ -0,0 +1,202 @@
+package nl.rug.ds.bpm.test;
+
+import nl.rug.ds.bpm.petrinet.ptnet.PlaceTransitionNet;
+import nl.rug.ds.bpm.petrinet.ptnet.element.Place;
+import nl.rug.ds.bpm.petrinet.ptnet.element.Transition;
+import nl.rug.ds.bpm.pnml.ptnet.marshaller.PTNetUnmarshaller;
+import nl.rug.ds.bpm.specification.jaxb.BPMSpecification;
+import nl.rug.ds.bpm.util.exception.ConverterException;
+import nl.rug.ds.bpm.util.exception.MalformedNetException;
+import nl.rug.ds.bpm.verification.VerificationFactory;
+import nl.rug.ds.bpm.verification.checker.explicit.CTLEvaluator;
+import nl.rug.ds.bpm.verification.checker.explicit.ExplicitCheckerFactory;
+import nl.rug.ds.bpm.verification.checker.explicit.StateGraph;
+import nl.rug.ds.bpm.verification.checker.formula.FormulaParser;
+import nl.rug.ds.bpm.verification.checker.formula.TemporalFormula;
+import nl.rug.ds.bpm.verification.checker.symbolic.SymbolicEvaluator;
+import nl.rug.ds.bpm.verification.converter.kripke.KripkeStructureConverterAction;
+import nl.rug.ds.bpm.verification.converter.symbolic.SymbolicStructureConverterAction;
+import nl.rug.ds.bpm.verification.event.VerificationEvent;
+import nl.rug.ds.bpm.verification.model.kripke.KripkeStructure;
+import nl.rug.ds.bpm.verification.model.kripke.factory.KripkeFactory;
+import nl.rug.ds.bpm.verification.model.symbolic.SymbolicStructure;
+import nl.rug.ds.bpm.verification.verifier.Verifier;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the SymbolicVerifier with the explicit verification of the same nets.
+ */
+public class SymbolicVerifierTest {
+    private static final String[] NETS = {"pnml.pnml", "pnml2.pnml", "pnml3.pnml", "pnml4.pnml"};
+    private static final String[] FORMULAS = {"AG (%1$s -> AF %2$s)", "AG (%1$s -> EF %2$s)", "EF (%1$s & %2$s)", "AG (%1$s -> A [%1$s U %2$s])", "AG !(%1$s & %2$s)"};
+
+    @Test
+    public void unsafeInitialMarkingTest() throws MalformedNetException {
+        PlaceTransitionNet net = new PlaceTransitionNet();
+        Place p0 = net.addPlace("p0", "p0", 2);
+        Transition t0 = net.addTransition("t0", "t0");
+        Place p1 = net.addPlace("p1", "p1");
+        net.addArc(p0, t0);
+        net.addArc(t0, p1);
+
+        assertThrows(ConverterException.class, () -> convert(net, new KripkeFactory()));
+    }
+
+    @Test
+    public void unsafeReachableMarkingTest() throws MalformedNetException {
+        // The parallel branches both produce a token in p3 without synchronizing
+        PlaceTransitionNet net = new PlaceTransitionNet();
+        Place p0 = net.addPlace("p0", "p0", 1);
+        Place p1 = net.addPlace("p1", "p1");
+        Place p2 = net.addPlace("p2", "p2");
+        Place p3 = net.addPlace("p3", "p3");
+        Transition t0 = net.addTransition("t0", "t0");
+        Transition t1 = net.addTransition("t1", "t1");
+        Transition t2 = net.addTransition("t2", "t2");
+        net.addArc(p0, t0);
+        net.addArc(t0, p1);
+        net.addArc(t0, p2);
+        net.addArc(p1, t1);
+        net.addArc(t1, p3);
+        net.addArc(p2, t2);
+        net.addArc(t2, p3);
+
+        assertThrows(ConverterException.class, () -> convert(net, new KripkeFactory()));
+    }
+
+    /**
+     * Converts nets of n parallel branches, of which the reachable States double with each branch, while the nodes of
+     * the structure only grow polynomially as the converter keeps the variables of each branch together.
+     */
+    @Test
+    public void parallelBranchesTest() throws Exception {
+        for (int n = 2; n <= 10; n++) {
+            PlaceTransitionNet net = new PlaceTransitionNet();
+            for (int i = 0; i < n; i++) {
+                Place a = net.addPlace("a" + i, "a" + i, 1);
+                Transition t = net.addTransition("t" + i, "t" + i);
+                Place b = net.addPlace("b" + i, "b" + i);
+                net.addArc(a, t);
+                net.addArc(t, b);
+            }
+
+            SymbolicStructure structure = new SymbolicStructure();
+            new SymbolicStructureConverterAction(net, net.getInitialMarking(), new KripkeFactory(), structure).computeInitial();
+
+            List<Integer> roots = new ArrayList<>(List.of(structure.getInitial(), structure.getReachable(), structure.getRelation()));
+            for (String ap : structure.getAtomicPropositions())
+                roots.add(structure.getLabel(ap));
+            structure.getManager().collect(roots.stream().mapToInt(Integer::intValue).toArray());
+            assertTrue(structure.getManager().getNodeCount() <= 100 * n * n, structure.stats());
+
+            structure.freeze();
+            assertEquals(1 << n, structure.getStateCount(), 0);
+        }
+    }
+
+    /**
+     * Converts a safe net with a parallel split and a loop into both structures, and checks that the evaluators agree on
+     * formulas over each pair of atomic propositions.
+     */
+    @Test
+    public void structureAgreementTest() throws Exception {
+        PlaceTransitionNet net = new PlaceTransitionNet();
+        Place p0 = net.addPlace("p0", "p0", 1);
+        Place p1 = net.addPlace("p1", "p1");
+        Place p2 = net.addPlace("p2", "p2");
+        Place p3 = net.addPlace("p3", "p3");
+        Place p4 = net.addPlace("p4", "p4");
+        Place p5 = net.addPlace("p5", "p5");
+        Transition t0 = net.addTransition("t0", "t0");
+        Transition t1 = net.addTransition("t1", "t1");
+        Transition t2 = net.addTransition("t2", "t2");
+        Transition t3 = net.addTransition("t3", "t3");
+        Transition t4 = net.addTransition("t4", "t4");
+        net.addArc(p0, t0);
+        net.addArc(t0, p1);
+        net.addArc(t0, p2);
+        net.addArc(p1, t1);
+        net.addArc(t1, p3);
+        net.addArc(p2, t2);
+        net.addArc(t2, p4);
+        net.addArc(p3, t3);
+        net.addArc(p4, t3);
+        net.addArc(t3, p5);
+        net.addArc(p5, t4);
+        net.addArc(t4, p0);
+
+        KripkeFactory factory = new KripkeFactory();
+        KripkeStructure kripke = factory.createStructure();
+        KripkeStructureConverterAction converterAction = factory.createConverter(net, net.getInitialMarking(), kripke);
+        converterAction.computeInitial();
+        SymbolicStructure symbolic = convert(net, factory);
+
+        StateGraph graph = StateGraph.of(kripke);
+        assertEquals(graph.size(), symbolic.getStateCount(), 0);
+        assertEquals(graph.getAtomicPropositions(), symbolic.getAtomicPropositions());
+
+        CTLEvaluator explicitEvaluator = new CTLEvaluator(graph, List.of());
+        SymbolicEvaluator symbolicEvaluator = new SymbolicEvaluator(symbolic, List.of());
+        for (String a : graph.getAtomicPropositions()) {
+            for (String b : graph.getAtomicPropositions()) {
+                for (String formula : FORMULAS) {
+                    TemporalFormula parsed = FormulaParser.parse(String.format(formula, a, b));
+                    assertEquals(explicitEvaluator.holds(parsed), symbolicEvaluator.holds(parsed), parsed.toString());
+                }
+            }
+        }
+    }
+
+    /**
+     * Verifies the CTL specifications on the test nets with both the KripkeVerifier and the SymbolicVerifier.
+     */
+    @Test
+    public void verifierAgreementTest() throws Exception {
+        for (String name : NETS) {
+            Map<String, Boolean> explicit = new TreeMap<>(), symbolic = new TreeMap<>();
+
+            Verifier kripkeVerifier = VerificationFactory.createKripkeVerifier(load(name), loadSpecification(), new ExplicitCheckerFactory());
+            kripkeVerifier.addVerificationEventListener(event -> record(explicit, event));
+            kripkeVerifier.verify();
+
+            Verifier symbolicVerifier = VerificationFactory.createSymbolicVerifier(load(name), loadSpecification());
+            symbolicVerifier.addVerificationEventListener(event -> record(symbolic, event));
+            symbolicVerifier.verify();
+
+            assertFalse(explicit.isEmpty(), name);
+            assertEquals(explicit, symbolic, name);
+        }
+    }
+
+    private static SymbolicStructure convert(PlaceTransitionNet net, KripkeFactory factory) throws ConverterException {
+        SymbolicStructure structure = new SymbolicStructure();
+        new SymbolicStructureConverterAction(net, net.getInitialMarking(), factory, structure).computeInitial();
+        structure.freeze();
+        return structure;
+    }
+
+    private static void record(Map<String, Boolean> results, VerificationEvent event) {
+        if (event.getFormula().getFormula().getLanguage().equalsIgnoreCase("CTLSPEC"))
+            results.put(event.getId() + " " + event.getFormula().getInputFormula(), event.getVerificationResult());
+    }
+
+    private static PlaceTransitionNet load(String name) throws Exception {
+        File file = new File(SymbolicVerifierTest.class.getResource("/" + name).toURI());
+        return new PlaceTransitionNet(new PTNetUnmarshaller(file).getNets().iterator().next());
+    }
+
+    private static BPMSpecification loadSpecification() throws Exception {
+        return VerificationFactory.loadSpecification(new File(SymbolicVerifierTest.class.getResource("/specification.xml").toURI()));
+    }
+}
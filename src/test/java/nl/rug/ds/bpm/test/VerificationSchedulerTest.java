@@ -0,0 +1,122 @@
+package nl.rug.ds.bpm.test;
+
+import nl.rug.ds.bpm.util.exception.VerifierException;
+import nl.rug.ds.bpm.verification.verifier.generic.VerificationScheduler;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VerificationSchedulerTest {
+
+    @Test
+    public void boundedSubmissionTest() throws Exception {
+        CountDownLatch running = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean submitted = new AtomicBoolean();
+        AtomicInteger completed = new AtomicInteger();
+
+        try (VerificationScheduler scheduler = new VerificationScheduler(2)) {
+            for (int i = 0; i < 2; i++)
+                scheduler.submit(() -> {
+                    running.countDown();
+                    await(release);
+                    completed.incrementAndGet();
+                });
+            assertTrue(running.await(5, TimeUnit.SECONDS));
+
+            Thread submitter = new Thread(() -> {
+                try {
+                    scheduler.submit(completed::incrementAndGet);
+                    submitted.set(true);
+                } catch (VerifierException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            submitter.start();
+
+            // Both tasks are in progress, such that the third submission blocks
+            submitter.join(200);
+            assertFalse(submitted.get());
+
+            release.countDown();
+            submitter.join(5000);
+            assertTrue(submitted.get());
+
+            scheduler.await();
+            assertEquals(3, completed.get());
+        }
+    }
+
+    @Test
+    public void failureTest() throws Exception {
+        VerifierException failure = new VerifierException("Expected failure");
+        AtomicBoolean started = new AtomicBoolean();
+
+        try (VerificationScheduler scheduler = new VerificationScheduler(1)) {
+            scheduler.submit(() -> {
+                throw failure;
+            });
+
+            assertSame(failure, assertThrows(VerifierException.class, scheduler::await));
+            assertSame(failure, assertThrows(VerifierException.class, () -> scheduler.submit(() -> started.set(true))));
+        }
+
+        assertFalse(started.get());
+    }
+
+    @Test
+    public void firstFailureTest() throws Exception {
+        VerifierException first = new VerifierException("First failure");
+        CountDownLatch submitted = new CountDownLatch(1);
+        CountDownLatch failed = new CountDownLatch(1);
+
+        try (VerificationScheduler scheduler = new VerificationScheduler(2)) {
+            scheduler.submit(() -> {
+                await(submitted);
+                failed.countDown();
+                throw first;
+            });
+            scheduler.submit(() -> {
+                await(failed);
+                throw new IllegalStateException("Second failure");
+            });
+            submitted.countDown();
+
+            assertSame(first, assertThrows(VerifierException.class, scheduler::await));
+        }
+    }
+
+    @Test
+    public void runtimeFailureTest() throws Exception {
+        IllegalStateException cause = new IllegalStateException("Unexpected failure");
+
+        try (VerificationScheduler scheduler = new VerificationScheduler(2)) {
+            scheduler.submit("set(s) [s1]", () -> {
+                throw cause;
+            });
+
+            // The failure names the set, and the class and message of the unexpected exception
+            VerifierException e = assertThrows(VerifierException.class, scheduler::await);
+            assertSame(cause, e.getCause());
+            assertTrue(e.getMessage().contains("set(s) [s1]"), e.getMessage());
+            assertTrue(e.getMessage().contains(IllegalStateException.class.getName() + ": Unexpected failure"), e.getMessage());
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}